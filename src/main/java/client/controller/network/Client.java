@@ -6,6 +6,7 @@ import netobject.action.Action;
 import netobject.action.immediate.ImmediateActionType;
 import netobject.notification.LobbyNotification;
 import netobject.notification.MatchNotification;
+import netobject.notification.ModelSyncNotification;
 import netobject.request.auth.LoginRequest;
 import netobject.request.auth.RegisterRequest;
 import server.controller.game.RemotePlayer;
@@ -16,6 +17,7 @@ import server.model.board.BonusTile;
 import server.model.board.Player;
 import server.model.card.Deck;
 import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
 
 import java.util.ArrayList;
 
@@ -41,6 +43,9 @@ public abstract class Client implements RemotePlayer, LocalPlayer {
 
     protected boolean authenticated;
 
+    //Whether or not the whole model was requested and did not arrive yet
+    private volatile boolean snapshotRequested = false;
+
     /**
      * Method that should be implemented to connect to the remote server
      * @return true upon success, false otherwise.
@@ -151,6 +156,37 @@ public abstract class Client implements RemotePlayer, LocalPlayer {
 
     }
 
+    /**
+     * Tells the server that the local model reached a revision, so that the next updates are computed from there
+     * @param revision the revision of the local model
+     */
+    public void acknowledgeModel(int revision) {
+
+        this.snapshotRequested = false;
+
+        this.sendNotification(new ModelSyncNotification(revision, false));
+
+    }
+
+    /**
+     * Asks the server for the whole model, used when an update can't be applied on top of the local one.
+     * Only one request is sent until the model arrives.
+     * @param revision the revision of the local model
+     */
+    public void requestModelSnapshot(int revision) {
+
+        if (this.snapshotRequested) {
+
+            return;
+
+        }
+
+        this.snapshotRequested = true;
+
+        this.sendNotification(new ModelSyncNotification(revision, true));
+
+    }
+
     /*
      * Remote player implementation
      */
@@ -165,6 +201,16 @@ public abstract class Client implements RemotePlayer, LocalPlayer {
 
     }
 
+    public void notifyModelDelta(MatchDelta delta) {
+
+        for (RemotePlayerObserver o : this.remotePlayerObservers) {
+
+            o.onModelDelta(this, delta);
+
+        }
+
+    }
+
     public void notifyTurnEnabled(Player player, String message) {
 
         for (RemotePlayerObserver o : this.remotePlayerObservers) {
@@ -20,6 +20,7 @@ import server.model.board.BonusTile;
 import server.model.board.Player;
 import server.model.card.Deck;
 import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
 
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
@@ -86,6 +87,10 @@ public class RMIClient extends Client implements RMIClientInterface {
         this.notifyModelUpdate(model);
     }
 
+    public void onModelDelta(MatchDelta delta) {
+        this.notifyModelDelta(delta);
+    }
+
     public void onTurnEnabled(Player player, String message) {
         this.notifyTurnEnabled(player, message);
     }
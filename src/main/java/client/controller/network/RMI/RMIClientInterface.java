@@ -12,6 +12,7 @@ import server.model.board.BonusTile;
 import server.model.board.Player;
 import server.model.card.Deck;
 import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
 
 import java.rmi.Remote;
 import java.rmi.RemoteException;
@@ -43,6 +44,8 @@ public interface RMIClientInterface extends Remote {
 
     void onModelUpdate(Match model) throws RemoteException;
 
+    void onModelDelta(MatchDelta delta) throws RemoteException;
+
     void onTurnEnabled(Player player, String message) throws RemoteException;
 
     void onTurnDisabled(Player player, String message) throws RemoteException;
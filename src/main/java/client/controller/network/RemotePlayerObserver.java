@@ -9,6 +9,7 @@ import server.model.board.BonusTile;
 import server.model.board.Player;
 import server.model.card.Deck;
 import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
 
 import java.rmi.RemoteException;
 import java.util.ArrayList;
@@ -23,6 +24,8 @@ public interface RemotePlayerObserver extends Observer {
 
     void onModelUpdate(Client sender, Match model);
 
+    void onModelDelta(Client sender, MatchDelta delta);
+
     void onTurnEnabled(Client sender, Player player, String message);
 
     void onImmediateActionAvailable(Client sender, ImmediateActionType actionType, Player player, String message);
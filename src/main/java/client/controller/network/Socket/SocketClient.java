@@ -5,6 +5,8 @@ import logger.Level;
 import logger.Logger;
 import netobject.NetObjectType;
 import netobject.action.Action;
+import netobject.codec.BinaryCodec;
+import netobject.codec.WireProtocol;
 import netobject.notification.*;
 import netobject.request.auth.LoginRequest;
 import netobject.NetObject;
@@ -15,11 +17,9 @@ import netobject.response.auth.LoginResponse;
 import netobject.response.auth.RegistrationResponse;
 import server.model.FinalStanding;
 import server.model.Match;
+import server.model.delta.MatchDelta;
 
-import java.io.EOFException;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.*;
 import java.net.Socket;
 
 /*
@@ -45,12 +45,27 @@ public class SocketClient extends Client implements Runnable {
 
     private ObjectOutputStream out;
 
+    //The streams used with the binary protocol
+    private DataInputStream binaryIn;
+
+    private DataOutputStream binaryOut;
+
+    //The protocol spoken with the server
+    private WireProtocol protocol;
+
     public SocketClient(String host, int port) {
 
+        this(host, port, WireProtocol.Serialized);
+
+    }
+
+    public SocketClient(String host, int port, WireProtocol protocol) {
+
         //Assign host & port
         this.host = host;
         this.port = port;
 
+        this.protocol = protocol;
 
     }
 
@@ -73,8 +88,34 @@ public class SocketClient extends Client implements Runnable {
 
         try {
 
-            out = new ObjectOutputStream(socket.getOutputStream());
-            in = new ObjectInputStream(socket.getInputStream());
+            if (this.protocol == WireProtocol.Binary) {
+
+                this.socket.setTcpNoDelay(true);
+
+                binaryOut = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                binaryIn = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+                //Ask for the binary protocol and wait for the server to agree
+                binaryOut.write(BinaryCodec.HANDSHAKE);
+                binaryOut.flush();
+
+                byte[] ack = new byte[BinaryCodec.HANDSHAKE.length];
+
+                binaryIn.readFully(ack);
+
+                if (!BinaryCodec.isHandshake(ack)) {
+
+                    throw new StreamCorruptedException("The server did not acknowledge the binary protocol");
+
+                }
+
+            }
+            else {
+
+                out = new ObjectOutputStream(socket.getOutputStream());
+                in = new ObjectInputStream(socket.getInputStream());
+
+            }
 
         } catch (IOException e) {
 
@@ -111,10 +152,10 @@ public class SocketClient extends Client implements Runnable {
             try {
 
                 //Try to read the object
-                Object obj = in.readObject();
+                NetObject obj = (this.protocol == WireProtocol.Binary) ? BinaryCodec.readFrame(binaryIn) : (NetObject) in.readObject();
 
                 //Notify that an object was received
-                this.parse((NetObject) obj);
+                this.parse(obj);
 
             } catch (EOFException e) {
 
@@ -269,6 +310,11 @@ public class SocketClient extends Client implements Runnable {
             this.notifyModelUpdate((Match)object);
 
         }
+        else if (object.getType() == NetObjectType.ModelDelta) {
+
+            this.notifyModelDelta((MatchDelta)object);
+
+        }
 
     }
 
@@ -281,11 +327,22 @@ public class SocketClient extends Client implements Runnable {
 
         try {
 
-            out.writeObject(object);
+            if (this.protocol == WireProtocol.Binary) {
 
-            out.flush();
+                binaryOut.write(BinaryCodec.encodeFrame(object));
 
-            out.reset();
+                binaryOut.flush();
+
+            }
+            else {
+
+                out.writeObject(object);
+
+                out.flush();
+
+                out.reset();
+
+            }
 
             return true;
 
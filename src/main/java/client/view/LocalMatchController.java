@@ -14,6 +14,7 @@ import server.model.board.Dice;
 import server.model.board.Player;
 import server.model.card.Deck;
 import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -131,7 +132,7 @@ public class LocalMatchController {
     /**
      * Updates the model
      */
-    public void setMatch(Match match) {
+    public synchronized void setMatch(Match match) {
 
         this.match = match;
 
@@ -144,6 +145,50 @@ public class LocalMatchController {
 
     }
 
+    /**
+     * Updates the model applying the changes sent by the server
+     * @param delta the changes
+     * @return true if the local model is up to date, false if the delta could not be applied and the whole model is needed
+     */
+    public synchronized boolean setMatch(MatchDelta delta) {
+
+        //Nothing to patch or a revision got lost on the way
+        if (this.match == null || delta.getBaseRevision() > this.match.getRevision()) {
+
+            return false;
+
+        }
+
+        //Already there
+        if (delta.getRevision() <= this.match.getRevision()) {
+
+            return true;
+
+        }
+
+        if (!delta.applyTo(this.match)) {
+
+            return false;
+
+        }
+
+        this.match.setRevision(delta.getRevision());
+
+        this.setMatch(this.match);
+
+        return true;
+
+    }
+
+    /**
+     * @return the revision of the local model, 0 if there is none yet
+     */
+    public synchronized int getRevision() {
+
+        return this.match != null ? this.match.getRevision() : 0;
+
+    }
+
     public synchronized boolean canPerformStandardAction(StandardActionType action) {
 
         return !this.actionsPerformedOnThisRound.get(action);
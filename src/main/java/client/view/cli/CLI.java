@@ -27,6 +27,7 @@ import netobject.request.auth.LoginRequest;
 import netobject.request.auth.RegisterRequest;
 import server.model.GameSingleton;
 import server.model.Match;
+import server.model.delta.MatchDelta;
 import server.model.board.BonusTile;
 import server.model.board.ColorType;
 import server.model.board.ColoredColorType;
@@ -202,7 +203,7 @@ public class CLI implements AsyncInputStreamObserver, ClientObserver, LobbyObser
         //Select the proper client interface
         if (clientCmd.choiceMatch(connection, ClientType.Socket)) {
 
-            this.client = new SocketClient(hostIP, GameConfig.getInstance().getSocketPort());
+            this.client = new SocketClient(hostIP, GameConfig.getInstance().getSocketPort(), GameConfig.getInstance().getSocketProtocol());
 
         } else if (clientCmd.choiceMatch(connection, ClientType.RMI)) {
 
@@ -1504,6 +1505,23 @@ public class CLI implements AsyncInputStreamObserver, ClientObserver, LobbyObser
 
         this.localMatchController.setMatch(model);
 
+        sender.acknowledgeModel(model.getRevision());
+
+    }
+
+    public void onModelDelta(Client sender, MatchDelta delta) {
+
+        if (this.localMatchController.setMatch(delta)) {
+
+            sender.acknowledgeModel(delta.getRevision());
+
+        }
+        else {
+
+            sender.requestModelSnapshot(this.localMatchController.getRevision());
+
+        }
+
     }
 
     public void onTurnEnabled(Client sender, Player player, String message) {
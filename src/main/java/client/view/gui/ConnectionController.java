@@ -154,7 +154,7 @@ public class ConnectionController extends NavigationController implements Client
 
                 case Socket:
 
-                    client = new SocketClient(ipv4, GameConfig.getInstance().getSocketPort());
+                    client = new SocketClient(ipv4, GameConfig.getInstance().getSocketPort(), GameConfig.getInstance().getSocketProtocol());
 
                     break;
 
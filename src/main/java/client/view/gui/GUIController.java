@@ -42,6 +42,7 @@ import netobject.action.standard.TerminateRoundStandardAction;
 import netobject.notification.MatchNotification;
 import netobject.notification.ObserverReadyNotification;
 import server.model.Match;
+import server.model.delta.MatchDelta;
 import server.model.board.*;
 import server.model.card.Deck;
 import server.model.card.ban.BanCard;
@@ -1140,6 +1141,36 @@ public class GUIController extends NavigationController implements ClientObserve
 
         this.localMatchController.setMatch(model);
 
+        sender.acknowledgeModel(model.getRevision());
+
+        this.refreshModel(model);
+
+    }
+
+    @Override
+    public void onModelDelta(Client sender, MatchDelta delta) {
+
+        if (this.localMatchController.setMatch(delta)) {
+
+            sender.acknowledgeModel(delta.getRevision());
+
+            this.refreshModel(this.localMatchController.getMatch());
+
+        }
+        else {
+
+            sender.requestModelSnapshot(this.localMatchController.getRevision());
+
+        }
+
+    }
+
+    /**
+     * Redraws every part of the view that depends on the model
+     * @param model the model
+     */
+    private void refreshModel(Match model) {
+
         Platform.runLater(() -> {
 
             this.updatedDvptCardGrid(model);
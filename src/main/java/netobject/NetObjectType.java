@@ -11,6 +11,7 @@ public enum NetObjectType {
     Notification,
     Action,
     Model,
+    ModelDelta,
     Poison
 
 }
@@ -34,6 +34,16 @@ public class StandardPlacementAction extends Action {
         this.discounts = new ArrayList<>();
     }
 
+    /**
+     * Copies an action, the match controller changes the servants of the action it applies
+     * @param action the action to copy
+     */
+    public StandardPlacementAction(StandardPlacementAction action) {
+
+        this(action.actionTarget, action.placementIndex, action.colorType, action.additionalServants, action.getSender());
+        this.discounts = action.discounts == null ? null : new ArrayList<>(action.discounts);
+    }
+
     public BoardSectorType getActionTarget() {
             return actionTarget;
     }
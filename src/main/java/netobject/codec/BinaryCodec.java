@@ -0,0 +1,742 @@
+package netobject.codec;
+
+import client.controller.network.ObserverType;
+import netobject.NetObject;
+import netobject.NetObjectType;
+import netobject.action.Action;
+import netobject.action.BoardSectorType;
+import netobject.action.ImmediateBoardSectorType;
+import netobject.action.immediate.ImmediateActionType;
+import netobject.action.immediate.ImmediateChoiceAction;
+import netobject.action.immediate.ImmediatePlacementAction;
+import netobject.action.standard.*;
+import netobject.notification.LobbyNotification;
+import netobject.notification.LobbyNotificationType;
+import netobject.notification.MatchNotification;
+import netobject.notification.MatchNotificationType;
+import netobject.notification.ModelSyncNotification;
+import netobject.notification.ObserverReadyNotification;
+import netobject.request.auth.LoginRequest;
+import netobject.request.auth.RegisterRequest;
+import netobject.response.auth.LoginResponse;
+import netobject.response.auth.RegistrationResponse;
+import server.model.FinalStanding;
+import server.model.board.BonusTile;
+import server.model.board.ColorType;
+import server.model.board.Player;
+import server.model.card.Deck;
+import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact binary codec for the net objects.
+ *
+ * Every object travels inside a frame: a 4 bytes big endian length followed by the payload.
+ * The payload starts with a one byte type tag and goes on with the fields of the object, enums as ordinals.
+ * Model objects embedded in notifications (players, decks, tiles, standings) and any net object without
+ * a dedicated tag are carried as a Java serialized blob, so that the codec can always encode what it is given.
+ *
+ * A client asks for this protocol by sending the handshake before anything else, the server echoes it back.
+ * Clients that open an object stream right away keep speaking Java serialization.
+ */
+public final class BinaryCodec {
+
+    /**
+     * The handshake a client sends to ask for the binary protocol. It can't be confused with an object stream header.
+     */
+    public static final byte[] HANDSHAKE = {'L', 'M', 'B', 1};
+
+    /**
+     * The frames larger than this are refused, to protect from corrupted or malicious lengths
+     */
+    public static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    //Type tags
+    private static final byte SERIALIZED = 0;
+    private static final byte POISON = 1;
+    private static final byte LOGIN_REQUEST = 2;
+    private static final byte REGISTER_REQUEST = 3;
+    private static final byte LOGIN_RESPONSE = 4;
+    private static final byte REGISTRATION_RESPONSE = 5;
+    private static final byte LOBBY_NOTIFICATION = 6;
+    private static final byte OBSERVER_READY_NOTIFICATION = 7;
+    private static final byte MATCH_NOTIFICATION = 8;
+    private static final byte STANDARD_PLACEMENT_ACTION = 9;
+    private static final byte IMMEDIATE_PLACEMENT_ACTION = 10;
+    private static final byte IMMEDIATE_CHOICE_ACTION = 11;
+    private static final byte LEADER_CARD_ACTIVATION_ACTION = 12;
+    private static final byte DISCARD_LEADER_CARD_ACTION = 13;
+    private static final byte LEADER_ONCE_A_ROUND_ACTIVATION_ACTION = 14;
+    private static final byte ROLL_DICES_ACTION = 15;
+    private static final byte TERMINATE_ROUND_ACTION = 16;
+    private static final byte SHUFFLE_LEADER_CARD_ACTION = 17;
+    private static final byte SHUFFLE_BONUS_TILE_ACTION = 18;
+    private static final byte MODEL_SYNC_NOTIFICATION = 19;
+    private static final byte MATCH_DELTA = 20;
+
+    //Marker for a null enum
+    private static final byte NULL_ORDINAL = -1;
+
+    private BinaryCodec() {
+
+    }
+
+    /**
+     * Tells if the preamble read from a new connection is the binary handshake
+     * @param preamble the first bytes of the connection
+     * @return true if the client asked for the binary protocol
+     */
+    public static boolean isHandshake(byte[] preamble) {
+
+        return Arrays.equals(preamble, HANDSHAKE);
+
+    }
+
+    /**
+     * Encodes an object into a whole frame, length included
+     * @param object the object
+     * @return the frame
+     * @throws IOException if a serialized blob can't be written
+     */
+    public static byte[] encodeFrame(NetObject object) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        //Length placeholder
+        out.writeInt(0);
+
+        encode(out, object);
+
+        out.flush();
+
+        byte[] frame = bytes.toByteArray();
+
+        int length = frame.length - 4;
+
+        frame[0] = (byte) (length >>> 24);
+        frame[1] = (byte) (length >>> 16);
+        frame[2] = (byte) (length >>> 8);
+        frame[3] = (byte) length;
+
+        return frame;
+
+    }
+
+    /**
+     * Reads a whole frame from a blocking stream
+     * @param in the stream
+     * @return the decoded object
+     * @throws IOException if the stream is closed or corrupted
+     * @throws ClassNotFoundException if a serialized blob has an unknown class
+     */
+    public static NetObject readFrame(DataInputStream in) throws IOException, ClassNotFoundException {
+
+        int length = in.readInt();
+
+        checkLength(length);
+
+        byte[] payload = new byte[length];
+
+        in.readFully(payload);
+
+        return decode(payload, 0, length);
+
+    }
+
+    /**
+     * Validates a frame length
+     * @param length the length read from the stream
+     * @throws StreamCorruptedException if it is out of bounds
+     */
+    public static void checkLength(int length) throws StreamCorruptedException {
+
+        if (length <= 0 || length > MAX_FRAME_LENGTH) {
+
+            throw new StreamCorruptedException("Invalid frame length: " + length);
+
+        }
+
+    }
+
+    /**
+     * Decodes the payload of a frame
+     * @param payload the buffer holding the payload
+     * @param offset where the payload starts
+     * @param length the payload length
+     * @return the decoded object
+     * @throws IOException if the payload is corrupted
+     * @throws ClassNotFoundException if a serialized blob has an unknown class
+     */
+    public static NetObject decode(byte[] payload, int offset, int length) throws IOException, ClassNotFoundException {
+
+        return decode(new DataInputStream(new ByteArrayInputStream(payload, offset, length)));
+
+    }
+
+    private static void encode(DataOutputStream out, NetObject object) throws IOException {
+
+        Class<?> type = object.getClass();
+
+        if (type == Action.class && object.getType() == NetObjectType.Poison) {
+
+            out.writeByte(POISON);
+
+        }
+        else if (type == LoginRequest.class) {
+
+            LoginRequest request = (LoginRequest) object;
+
+            out.writeByte(LOGIN_REQUEST);
+            writeString(out, request.getUsername());
+            writeString(out, request.getPassword());
+
+        }
+        else if (type == RegisterRequest.class) {
+
+            RegisterRequest request = (RegisterRequest) object;
+
+            out.writeByte(REGISTER_REQUEST);
+            writeString(out, request.getUsername());
+            writeString(out, request.getPassword());
+
+        }
+        else if (type == LoginResponse.class) {
+
+            LoginResponse response = (LoginResponse) object;
+
+            out.writeByte(LOGIN_RESPONSE);
+            out.writeBoolean(response.loginHasSucceeded());
+            writeString(out, response.getUsername());
+            writeString(out, response.getMessage());
+
+        }
+        else if (type == RegistrationResponse.class) {
+
+            RegistrationResponse response = (RegistrationResponse) object;
+
+            out.writeByte(REGISTRATION_RESPONSE);
+            out.writeBoolean(response.registerHasSucceeded());
+            writeString(out, response.getUsername());
+            writeString(out, response.getMessage());
+
+        }
+        else if (type == LobbyNotification.class) {
+
+            LobbyNotification notification = (LobbyNotification) object;
+
+            out.writeByte(LOBBY_NOTIFICATION);
+            writeEnum(out, notification.getLobbyNotificationType());
+            writeString(out, notification.getMessage());
+
+        }
+        else if (type == ObserverReadyNotification.class) {
+
+            out.writeByte(OBSERVER_READY_NOTIFICATION);
+            writeEnum(out, ((ObserverReadyNotification) object).getObserverType());
+
+        }
+        else if (type == MatchNotification.class) {
+
+            MatchNotification notification = (MatchNotification) object;
+
+            out.writeByte(MATCH_NOTIFICATION);
+            writeEnum(out, notification.getMatchNotificationType());
+            writeEnum(out, notification.getActionType());
+            writeString(out, notification.getMessage());
+            writeBlob(out, notification.getPlayer());
+            writeBlob(out, notification.getDeck());
+            writeBlob(out, notification.getTiles());
+            writeBlob(out, notification.getFinalStanding());
+
+            //The action is a net object itself
+            out.writeBoolean(notification.getAction() != null);
+
+            if (notification.getAction() != null) {
+
+                encode(out, notification.getAction());
+
+            }
+
+        }
+        else if (type == StandardPlacementAction.class) {
+
+            StandardPlacementAction action = (StandardPlacementAction) object;
+
+            out.writeByte(STANDARD_PLACEMENT_ACTION);
+            writeString(out, action.getSender());
+            writeEnum(out, action.getActionTarget());
+            writeInteger(out, action.getPlacementIndex());
+            writeEnum(out, action.getColorType());
+            out.writeInt(action.getAdditionalServants());
+
+        }
+        else if (type == ImmediatePlacementAction.class) {
+
+            ImmediatePlacementAction action = (ImmediatePlacementAction) object;
+
+            out.writeByte(IMMEDIATE_PLACEMENT_ACTION);
+            writeString(out, action.getSender());
+            writeEnum(out, action.getActionTarget());
+            writeInteger(out, action.getPlacementIndex());
+            out.writeInt(action.getAdditionalServants());
+
+        }
+        else if (type == ImmediateChoiceAction.class) {
+
+            ImmediateChoiceAction action = (ImmediateChoiceAction) object;
+
+            out.writeByte(IMMEDIATE_CHOICE_ACTION);
+            writeString(out, action.getSender());
+            out.writeInt(action.getSelection());
+
+        }
+        else if (type == LeaderCardActivationAction.class) {
+
+            LeaderCardActivationAction action = (LeaderCardActivationAction) object;
+
+            out.writeByte(LEADER_CARD_ACTIVATION_ACTION);
+            writeString(out, action.getSender());
+            out.writeInt(action.getLeaderCardIndex());
+
+        }
+        else if (type == DiscardLeaderCardAction.class) {
+
+            DiscardLeaderCardAction action = (DiscardLeaderCardAction) object;
+
+            out.writeByte(DISCARD_LEADER_CARD_ACTION);
+            writeString(out, action.getSender());
+            out.writeInt(action.getLeaderCardIndex());
+
+        }
+        else if (type == LeaderOnceARoundActivationAction.class) {
+
+            LeaderOnceARoundActivationAction action = (LeaderOnceARoundActivationAction) object;
+
+            out.writeByte(LEADER_ONCE_A_ROUND_ACTIVATION_ACTION);
+            writeString(out, action.getSender());
+            writeEnum(out, action.getStandardActionType());
+            out.writeInt(action.getLeaderCardIndex());
+            out.writeInt(action.getChoice());
+
+        }
+        else if (type == RollDicesAction.class) {
+
+            out.writeByte(ROLL_DICES_ACTION);
+            writeString(out, ((Action) object).getSender());
+
+        }
+        else if (type == TerminateRoundStandardAction.class) {
+
+            out.writeByte(TERMINATE_ROUND_ACTION);
+            writeString(out, ((Action) object).getSender());
+
+        }
+        else if (type == ShuffleLeaderCardStandardAction.class) {
+
+            ShuffleLeaderCardStandardAction action = (ShuffleLeaderCardStandardAction) object;
+
+            out.writeByte(SHUFFLE_LEADER_CARD_ACTION);
+            writeString(out, action.getSender());
+            out.writeInt(action.getSelection());
+            writeBlob(out, action.getDeck());
+
+        }
+        else if (type == ShuffleBonusTileStandardAction.class) {
+
+            ShuffleBonusTileStandardAction action = (ShuffleBonusTileStandardAction) object;
+
+            out.writeByte(SHUFFLE_BONUS_TILE_ACTION);
+            writeString(out, action.getSender());
+            out.writeInt(action.getSelection());
+            writeBlob(out, action.getTiles());
+
+        }
+        else if (type == ModelSyncNotification.class) {
+
+            ModelSyncNotification notification = (ModelSyncNotification) object;
+
+            out.writeByte(MODEL_SYNC_NOTIFICATION);
+            out.writeInt(notification.getRevision());
+            out.writeBoolean(notification.isSnapshotRequested());
+
+        }
+        else if (type == MatchDelta.class) {
+
+            MatchDelta delta = (MatchDelta) object;
+
+            //The sections are serialized already, no need to wrap them again
+            out.writeByte(MATCH_DELTA);
+            out.writeInt(delta.getBaseRevision());
+            out.writeInt(delta.getRevision());
+            out.writeInt(delta.getSections().size());
+
+            for (Map.Entry<String, byte[]> section : delta.getSections().entrySet()) {
+
+                writeString(out, section.getKey());
+                out.writeInt(section.getValue().length);
+                out.write(section.getValue());
+
+            }
+
+        }
+        else {
+
+            //The model and anything else without a tag
+            out.writeByte(SERIALIZED);
+            writeBlob(out, object);
+
+        }
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NetObject decode(DataInputStream in) throws IOException, ClassNotFoundException {
+
+        byte tag = in.readByte();
+
+        switch (tag) {
+
+            case SERIALIZED:
+                return readBlob(in, NetObject.class);
+
+            case POISON:
+                return new Action();
+
+            case LOGIN_REQUEST:
+                return new LoginRequest(readString(in), readString(in));
+
+            case REGISTER_REQUEST:
+                return new RegisterRequest(readString(in), readString(in));
+
+            case LOGIN_RESPONSE:
+                return new LoginResponse(in.readBoolean(), readString(in), readString(in));
+
+            case REGISTRATION_RESPONSE:
+                return new RegistrationResponse(in.readBoolean(), readString(in), readString(in));
+
+            case LOBBY_NOTIFICATION:
+                return new LobbyNotification(readEnum(in, LobbyNotificationType.values()), readString(in));
+
+            case OBSERVER_READY_NOTIFICATION:
+                return new ObserverReadyNotification(readEnum(in, ObserverType.values()));
+
+            case MATCH_NOTIFICATION: {
+
+                MatchNotificationType notificationType = readEnum(in, MatchNotificationType.values());
+                ImmediateActionType actionType = readEnum(in, ImmediateActionType.values());
+                String message = readString(in);
+                Player player = readBlob(in, Player.class);
+                Deck<LeaderCard> deck = readBlob(in, Deck.class);
+                ArrayList<BonusTile> tiles = readBlob(in, ArrayList.class);
+                FinalStanding finalStanding = readBlob(in, FinalStanding.class);
+                Action action = in.readBoolean() ? cast(decode(in), Action.class) : null;
+
+                return new MatchNotification(notificationType, actionType, player, action, message, deck, tiles, finalStanding);
+
+            }
+
+            case STANDARD_PLACEMENT_ACTION: {
+
+                String sender = readString(in);
+                BoardSectorType target = readEnum(in, BoardSectorType.values());
+                Integer index = readInteger(in);
+                ColorType color = readEnum(in, ColorType.values());
+
+                return new StandardPlacementAction(target, index, color, in.readInt(), sender);
+
+            }
+
+            case IMMEDIATE_PLACEMENT_ACTION: {
+
+                String sender = readString(in);
+                ImmediateBoardSectorType target = readEnum(in, ImmediateBoardSectorType.values());
+                Integer index = readInteger(in);
+
+                return new ImmediatePlacementAction(target, index, in.readInt(), sender);
+
+            }
+
+            case IMMEDIATE_CHOICE_ACTION: {
+
+                String sender = readString(in);
+
+                return new ImmediateChoiceAction(in.readInt(), sender);
+
+            }
+
+            case LEADER_CARD_ACTIVATION_ACTION: {
+
+                String sender = readString(in);
+
+                return new LeaderCardActivationAction(in.readInt(), sender);
+
+            }
+
+            case DISCARD_LEADER_CARD_ACTION: {
+
+                String sender = readString(in);
+
+                return new DiscardLeaderCardAction(in.readInt(), sender);
+
+            }
+
+            case LEADER_ONCE_A_ROUND_ACTIVATION_ACTION: {
+
+                String sender = readString(in);
+                StandardActionType actionType = readEnum(in, StandardActionType.values());
+                int index = in.readInt();
+
+                return new LeaderOnceARoundActivationAction(actionType, index, sender, in.readInt());
+
+            }
+
+            case ROLL_DICES_ACTION:
+                return new RollDicesAction(readString(in));
+
+            case TERMINATE_ROUND_ACTION:
+                return new TerminateRoundStandardAction(readString(in));
+
+            case SHUFFLE_LEADER_CARD_ACTION: {
+
+                String sender = readString(in);
+                int selection = in.readInt();
+
+                return new ShuffleLeaderCardStandardAction(selection, readBlob(in, Deck.class), sender);
+
+            }
+
+            case SHUFFLE_BONUS_TILE_ACTION: {
+
+                String sender = readString(in);
+                int selection = in.readInt();
+
+                return new ShuffleBonusTileStandardAction(selection, readBlob(in, ArrayList.class), sender);
+
+            }
+
+            case MODEL_SYNC_NOTIFICATION: {
+
+                int revision = in.readInt();
+
+                return new ModelSyncNotification(revision, in.readBoolean());
+
+            }
+
+            case MATCH_DELTA: {
+
+                int baseRevision = in.readInt();
+                int revision = in.readInt();
+                int count = in.readInt();
+
+                LinkedHashMap<String, byte[]> sections = new LinkedHashMap<>();
+
+                for (int i = 0; i < count; i++) {
+
+                    String key = readString(in);
+                    int length = readLength(in);
+
+                    if (length < 0) {
+
+                        throw new StreamCorruptedException("Invalid section length: " + length);
+
+                    }
+
+                    byte[] value = new byte[length];
+
+                    in.readFully(value);
+
+                    sections.put(key, value);
+
+                }
+
+                return new MatchDelta(baseRevision, revision, sections);
+
+            }
+
+            default:
+                throw new StreamCorruptedException("Unknown type tag: " + tag);
+
+        }
+
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        if (value == null) {
+
+            out.writeInt(-1);
+
+            return;
+
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+
+        int length = readLength(in);
+
+        if (length < 0) {
+
+            return null;
+
+        }
+
+        byte[] bytes = new byte[length];
+
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+
+    }
+
+    private static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+
+        out.writeByte(value == null ? NULL_ORDINAL : value.ordinal());
+
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInputStream in, E[] values) throws IOException {
+
+        byte ordinal = in.readByte();
+
+        if (ordinal == NULL_ORDINAL) {
+
+            return null;
+
+        }
+
+        if (ordinal < 0 || ordinal >= values.length) {
+
+            throw new StreamCorruptedException("Enum ordinal out of bounds: " + ordinal);
+
+        }
+
+        return values[ordinal];
+
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+
+        out.writeBoolean(value != null);
+
+        if (value != null) {
+
+            out.writeInt(value);
+
+        }
+
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+
+        return in.readBoolean() ? in.readInt() : null;
+
+    }
+
+    private static void writeBlob(DataOutputStream out, Object value) throws IOException {
+
+        if (value == null) {
+
+            out.writeInt(-1);
+
+            return;
+
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ObjectOutputStream blob = new ObjectOutputStream(bytes);
+
+        blob.writeObject(value);
+
+        blob.close();
+
+        out.writeInt(bytes.size());
+
+        bytes.writeTo(out);
+
+    }
+
+    /**
+     * Reads a serialized blob of an expected type
+     * @param in the payload
+     * @param type the expected type
+     * @param <T> the expected type
+     * @return the object, null if the blob was null
+     * @throws StreamCorruptedException if the length is out of bounds or the object is of another type
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T readBlob(DataInputStream in, Class<? super T> type) throws IOException, ClassNotFoundException {
+
+        int length = readLength(in);
+
+        if (length < 0) {
+
+            return null;
+
+        }
+
+        byte[] bytes = new byte[length];
+
+        in.readFully(bytes);
+
+        return (T) cast(new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject(), type);
+
+    }
+
+    /**
+     * Reads the length of a string, a blob or a section, which must fit in what is left of the frame
+     * @param in the payload, backed by the frame in memory
+     * @return the length, -1 for a null value
+     * @throws StreamCorruptedException if the length is out of bounds
+     */
+    private static int readLength(DataInputStream in) throws IOException {
+
+        int length = in.readInt();
+
+        if (length < -1 || length > in.available()) {
+
+            throw new StreamCorruptedException("Invalid length: " + length);
+
+        }
+
+        return length;
+
+    }
+
+    /**
+     * Checks the type of a decoded object
+     * @param object the object
+     * @param type the expected type
+     * @param <T> the expected type
+     * @return the object
+     * @throws StreamCorruptedException if the object is of another type
+     */
+    private static <T> T cast(Object object, Class<T> type) throws StreamCorruptedException {
+
+        if (object != null && !type.isInstance(object)) {
+
+            throw new StreamCorruptedException("Expected " + type.getSimpleName() + " but decoded " + object.getClass().getSimpleName());
+
+        }
+
+        return type.cast(object);
+
+    }
+
+}
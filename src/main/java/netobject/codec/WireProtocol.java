@@ -0,0 +1,35 @@
+package netobject.codec;
+
+/**
+ * The protocols a socket connection can speak
+ */
+public enum WireProtocol {
+
+    /**
+     * Java serialization over an object stream, the original protocol
+     */
+    Serialized,
+
+    /**
+     * Length prefixed frames encoded with the binary codec
+     */
+    Binary;
+
+    /**
+     * Parses the protocol from the literal used inside the game configuration
+     * @param literal the literal, either "serialized" or "binary"
+     * @return the protocol, serialized if the literal is unknown
+     */
+    public static WireProtocol fromLiteral(String literal) {
+
+        if (literal != null && literal.equalsIgnoreCase("binary")) {
+
+            return Binary;
+
+        }
+
+        return Serialized;
+
+    }
+
+}
@@ -85,6 +85,21 @@ public class MatchNotification extends Notification {
     }
 
 
+    /**
+     * Constructor that assigns every field, used when decoding a notification received in binary form
+     */
+    public MatchNotification(MatchNotificationType matchNotificationType, ImmediateActionType actionType, Player player, Action action, String message, Deck<LeaderCard> deck, ArrayList<BonusTile> tiles, FinalStanding finalStanding) {
+        super(NotificationType.Match);
+        this.matchNotificationType = matchNotificationType;
+        this.actionType = actionType;
+        this.player = player;
+        this.action = action;
+        this.message = message;
+        this.deck = deck;
+        this.tiles = tiles;
+        this.finalStanding = finalStanding;
+    }
+
     public MatchNotificationType getMatchNotificationType() {
         return matchNotificationType;
     }
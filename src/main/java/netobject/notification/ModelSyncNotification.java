@@ -0,0 +1,32 @@
+package netobject.notification;
+
+/**
+ * Sent by a client to tell the server which model revision it holds.
+ * Either acknowledges a revision that was applied or asks for the whole model when an update could not be applied.
+ */
+public class ModelSyncNotification extends Notification {
+
+    //The revision of the local model
+    private final int revision;
+
+    //Whether or not the client needs the whole model
+    private final boolean snapshotRequested;
+
+    public ModelSyncNotification(int revision, boolean snapshotRequested) {
+
+        super(NotificationType.Controller);
+
+        this.revision = revision;
+
+        this.snapshotRequested = snapshotRequested;
+
+    }
+
+    public int getRevision() {
+        return revision;
+    }
+
+    public boolean isSnapshotRequested() {
+        return snapshotRequested;
+    }
+}
@@ -0,0 +1,101 @@
+package server.controller.cluster;
+
+/**
+ * The address of a game engine node of the cluster, which serves the socket clients relayed by the router.
+ * The name of a node is its address, it is what the database records as the node running a match.
+ */
+public final class ClusterNode {
+
+    //The host of the node
+    private final String host;
+
+    //The socket port of the node
+    private final int port;
+
+    /**
+     * Creates a node
+     * @param host the host
+     * @param port the socket port
+     */
+    public ClusterNode(String host, int port) {
+
+        if (host == null || host.isEmpty() || port <= 0 || port > 65535) {
+
+            throw new IllegalArgumentException("Invalid node address " + host + ":" + port);
+
+        }
+
+        this.host = host;
+
+        this.port = port;
+
+    }
+
+    /**
+     * Parses a node address
+     * @param address the address, as host:port
+     * @return the node
+     * @throws IllegalArgumentException if the address is malformed
+     */
+    public static ClusterNode parse(String address) {
+
+        int colon = address.lastIndexOf(':');
+
+        if (colon <= 0) {
+
+            throw new IllegalArgumentException("Invalid node address " + address + ", expected host:port");
+
+        }
+
+        try {
+
+            return new ClusterNode(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+
+        } catch (NumberFormatException e) {
+
+            throw new IllegalArgumentException("Invalid node port in " + address);
+
+        }
+
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * The name of the node
+     * @return the address of the node, as host:port
+     */
+    public String getName() {
+
+        return this.host + ":" + this.port;
+
+    }
+
+    @Override
+    public boolean equals(Object o) {
+
+        return o instanceof ClusterNode && ((ClusterNode) o).host.equals(this.host) && ((ClusterNode) o).port == this.port;
+
+    }
+
+    @Override
+    public int hashCode() {
+
+        return 31 * this.host.hashCode() + this.port;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return this.getName();
+
+    }
+
+}
@@ -0,0 +1,685 @@
+package server.controller.cluster;
+
+import logger.Level;
+import logger.Logger;
+import netobject.NetObject;
+import netobject.codec.BinaryCodec;
+import netobject.request.auth.LoginRequest;
+import netobject.request.auth.RegisterRequest;
+import netobject.response.auth.LoginResponse;
+import netobject.response.auth.RegistrationResponse;
+import server.utility.Threads;
+import singleton.Bootstrap;
+import singleton.Database;
+import singleton.GameConfig;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The front door of a cluster of game engine nodes.
+ * The socket clients connect to the router as they would to a single server. The router answers their handshake, reads their
+ * login or registration request to learn who they claim to be, and waits for the node it picked to accept them: from then on it relays
+ * the bytes between the client and the node without decoding them, so that either wire protocol goes through.
+ * A client the node refuses is disconnected once it got the answer, so that its next attempt, under any name, is routed again.
+ * A client getting back to a match that is not finished goes to the node recorded as running it, or, if that node is gone,
+ * to the node its fellow players are sent to, where the match gets resumed. Every other client goes to the least loaded node,
+ * a table's worth at a time, so that the new lobbies are spread over the nodes without splitting the players of a table.
+ */
+public class LobbyRouter implements Runnable {
+
+    //The new clients sent to the same node before the least loaded one is picked again, the seats of a table
+    private static final int TABLE_SIZE = 5;
+
+    //How long a node that refused a connection is skipped, in milliseconds
+    private static final long RETRY_DELAY = 5000;
+
+    //How long the router waits for a node to accept a connection, in milliseconds
+    private static final int CONNECT_TIMEOUT = 2000;
+
+    //How long the router waits for a node to answer an authentication, in milliseconds
+    private static final int AUTHENTICATION_TIMEOUT = 30000;
+
+    //The size of the relay buffers
+    private static final int BUFFER_SIZE = 8192;
+
+    //The listening port
+    private final int port;
+
+    //The nodes behind the router
+    private final List<Route> routes = new ArrayList<>();
+
+    //The clients the nodes accepted, by username, a client logging in again goes to the same node, which refuses it
+    private final ConcurrentHashMap<String, Relay> relays = new ConcurrentHashMap<>();
+
+    //The node each match without a running node is being resumed on, by match id
+    private final ConcurrentHashMap<Integer, Route> resuming = new ConcurrentHashMap<>();
+
+    //Guards the node the new clients are sent to and the seats left there.
+    //A lock rather than the monitor, so that a virtual thread does not pin its carrier
+    private final ReentrantLock assigning = new ReentrantLock();
+
+    //The node the new clients are sent to, guarded by the assigning lock
+    private Route filling;
+
+    //The new clients the filling node still takes, guarded by the assigning lock
+    private int seatsLeft = 0;
+
+    //The socket to accept the clients on
+    private volatile ServerSocket acceptor;
+
+    /**
+     * A node and what the router knows about it
+     */
+    private static class Route {
+
+        private final ClusterNode node;
+
+        //The clients relayed to the node right now
+        private final AtomicInteger clients = new AtomicInteger();
+
+        //Until when the node is skipped, in milliseconds since the epoch
+        private volatile long downUntil = 0;
+
+        private Route(ClusterNode node) {
+
+            this.node = node;
+
+        }
+
+        private boolean isUp() {
+
+            return System.currentTimeMillis() >= this.downUntil;
+
+        }
+
+    }
+
+    /**
+     * A client relayed to a node
+     */
+    private static class Relay {
+
+        private final Socket client;
+
+        private Socket upstream;
+
+        private Route route;
+
+        private Relay(Socket client) {
+
+            this.client = client;
+
+        }
+
+        private void close() {
+
+            closeQuietly(this.client);
+
+            closeQuietly(this.upstream);
+
+        }
+
+    }
+
+    /**
+     * Keeps a copy of the bytes read through it
+     */
+    private static class RecordingInputStream extends FilterInputStream {
+
+        private final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+
+        private RecordingInputStream(InputStream in) {
+
+            super(in);
+
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            int b = super.read();
+
+            if (b >= 0) {
+
+                this.recorded.write(b);
+
+            }
+
+            return b;
+
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+
+            int read = super.read(b, off, len);
+
+            if (read > 0) {
+
+                this.recorded.write(b, off, read);
+
+            }
+
+            return read;
+
+        }
+
+    }
+
+    /**
+     * Creates a router
+     * @param port the port the clients connect to
+     * @param nodes the nodes behind the router
+     */
+    public LobbyRouter(int port, List<ClusterNode> nodes) {
+
+        if (nodes.isEmpty()) {
+
+            throw new IllegalArgumentException("A router needs at least one node");
+
+        }
+
+        this.port = port;
+
+        for (ClusterNode node : nodes) {
+
+            this.routes.add(new Route(node));
+
+        }
+
+    }
+
+    /**
+     * The accept loop
+     */
+    public void run() {
+
+        try {
+
+            this.acceptor = new ServerSocket(this.port);
+
+            Logger.log(Level.FINE, "LobbyRouter", "Up and running on port " + this.port + ", routing to " + this.routes.size() + " nodes");
+
+        } catch (IOException e) {
+
+            Logger.log(Level.SEVERE, "LobbyRouter", "Unable to open the acceptor socket", e);
+
+            return;
+
+        }
+
+        while (!this.acceptor.isClosed()) {
+
+            try {
+
+                Socket client = this.acceptor.accept();
+
+                Relay relay = new Relay(client);
+
+                Threads.newThread(() -> this.serve(relay), "LobbyRouter " + client.getRemoteSocketAddress()).start();
+
+            } catch (IOException e) {
+
+                if (!this.acceptor.isClosed()) {
+
+                    Logger.log(Level.SEVERE, "LobbyRouter", "Exception while listening", e);
+
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Stops accepting clients, the relayed ones are left alone
+     */
+    public void stop() {
+
+        closeQuietly(this.acceptor);
+
+    }
+
+    /**
+     * Routes a client and relays its bytes towards the node until either side closes
+     * @param relay the relay of the client
+     */
+    private void serve(Relay relay) {
+
+        String username = null;
+
+        //Whether the relay is the one known for the username
+        boolean bound = false;
+
+        try {
+
+            relay.client.setTcpNoDelay(true);
+
+            InputStream in = new BufferedInputStream(relay.client.getInputStream());
+
+            OutputStream out = relay.client.getOutputStream();
+
+            //Both protocols open with the same four bytes on both sides, and the client waits for them before its request
+            byte[] preamble = new byte[BinaryCodec.HANDSHAKE.length];
+
+            new DataInputStream(in).readFully(preamble);
+
+            out.write(preamble);
+
+            out.flush();
+
+            //The request is decoded from a copy, the node gets the very bytes the client sent
+            RecordingInputStream recorder = new RecordingInputStream(in);
+
+            NetObject request;
+
+            if (BinaryCodec.isHandshake(preamble)) {
+
+                request = BinaryCodec.readFrame(new DataInputStream(recorder));
+
+            }
+            else {
+
+                request = (NetObject) new ObjectInputStream(new SequenceInputStream(new ByteArrayInputStream(preamble), recorder)).readObject();
+
+            }
+
+            username = usernameOf(request);
+
+            this.connect(relay, this.route(username));
+
+            OutputStream upstream = relay.upstream.getOutputStream();
+
+            upstream.write(preamble);
+
+            recorder.recorded.writeTo(upstream);
+
+            upstream.flush();
+
+            //The node answers with its own preamble, which the client already got from the router
+            InputStream downstream = new BufferedInputStream(relay.upstream.getInputStream());
+
+            new DataInputStream(downstream).readFully(new byte[BinaryCodec.HANDSHAKE.length]);
+
+            //The username is only trusted once the node verified it
+            if (!this.awaitAuthentication(relay, preamble, downstream, out)) {
+
+                Logger.log(Level.FINEST, "LobbyRouter", "Client " + username + " refused by " + relay.route.node + ", disconnected");
+
+                return;
+
+            }
+
+            bound = this.relays.putIfAbsent(username, relay) == null;
+
+            Logger.log(Level.FINEST, "LobbyRouter", "Client " + username + " routed to " + relay.route.node);
+
+            Threads.newThread(() -> pump(downstream, out, relay), "LobbyRouter " + relay.route.node + " relay").start();
+
+            pump(in, upstream, relay);
+
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+
+            Logger.log(Level.FINEST, "LobbyRouter", "Client dropped before being routed: " + e.getMessage());
+
+        } finally {
+
+            relay.close();
+
+            if (relay.route != null) {
+
+                relay.route.clients.decrementAndGet();
+
+            }
+
+            if (bound) {
+
+                this.relays.remove(username, relay);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Reads what the node sends until it answers the authentication, and hands it over to the client
+     * @param relay the relay
+     * @param preamble the preamble of the protocol, which the node already sent
+     * @param downstream the stream from the node, past its preamble
+     * @param out the stream to the client
+     * @return true if the node accepted the client
+     * @throws IOException if the node went away or did not answer in time
+     * @throws ClassNotFoundException if the node sent an unknown object
+     */
+    private boolean awaitAuthentication(Relay relay, byte[] preamble, InputStream downstream, OutputStream out) throws IOException, ClassNotFoundException {
+
+        relay.upstream.setSoTimeout(AUTHENTICATION_TIMEOUT);
+
+        //The answer is decoded from a copy, the client gets the very bytes the node sent
+        RecordingInputStream recorder = new RecordingInputStream(downstream);
+
+        boolean binary = BinaryCodec.isHandshake(preamble);
+
+        DataInputStream frames = new DataInputStream(recorder);
+
+        ObjectInputStream objects = binary ? null : new ObjectInputStream(new SequenceInputStream(new ByteArrayInputStream(preamble), recorder));
+
+        Boolean accepted = null;
+
+        while (accepted == null) {
+
+            NetObject response = binary ? BinaryCodec.readFrame(frames) : (NetObject) objects.readObject();
+
+            if (response instanceof LoginResponse) {
+
+                accepted = ((LoginResponse) response).loginHasSucceeded();
+
+            }
+            else if (response instanceof RegistrationResponse) {
+
+                accepted = ((RegistrationResponse) response).registerHasSucceeded();
+
+            }
+
+        }
+
+        recorder.recorded.writeTo(out);
+
+        out.flush();
+
+        relay.upstream.setSoTimeout(0);
+
+        return accepted;
+
+    }
+
+    private static String usernameOf(NetObject request) throws IOException {
+
+        if (request instanceof LoginRequest) {
+
+            return ((LoginRequest) request).getUsername();
+
+        }
+
+        if (request instanceof RegisterRequest) {
+
+            return ((RegisterRequest) request).getUsername();
+
+        }
+
+        throw new IOException("The first request was not an authentication");
+
+    }
+
+    /**
+     * Picks the node of a client
+     * @param username the username of the client
+     * @return the route to the node
+     */
+    private Route route(String username) {
+
+        Relay connected = this.relays.get(username);
+
+        if (connected != null && connected.route != null) {
+
+            return connected.route;
+
+        }
+
+        int match = Database.getInstance().isAnUnfinishedMatchPlayer(username);
+
+        if (match <= 0) {
+
+            return this.assignNew();
+
+        }
+
+        Route owner = null;
+
+        try {
+
+            owner = this.routeOf(Database.getInstance().getMatchNode(match));
+
+        } catch (SQLException e) {
+
+            Logger.log(Level.WARNING, "LobbyRouter", "Unable to look up the node of match " + match, e);
+
+        }
+
+        if (owner != null && owner.isUp()) {
+
+            this.resuming.remove(match);
+
+            return owner;
+
+        }
+
+        //Nobody runs the match anymore, its players meet on a single node to resume it
+        return this.resuming.compute(match, (id, chosen) -> (chosen != null && chosen.isUp()) ? chosen : this.leastLoaded());
+
+    }
+
+    /**
+     * Picks the node of a client that is not getting back to a match
+     * @return the route to the node
+     */
+    private Route assignNew() {
+
+        this.assigning.lock();
+
+        try {
+
+            if (this.filling == null || this.seatsLeft == 0 || !this.filling.isUp()) {
+
+                this.filling = this.leastLoaded();
+
+                this.seatsLeft = TABLE_SIZE;
+
+            }
+
+            this.seatsLeft--;
+
+            return this.filling;
+
+        } finally {
+
+            this.assigning.unlock();
+
+        }
+
+    }
+
+    private Route leastLoaded() {
+
+        Route best = null;
+
+        for (Route route : this.routes) {
+
+            //A node that is down is only picked if every node is
+            if (best == null || (route.isUp() && !best.isUp()) || (route.isUp() == best.isUp() && route.clients.get() < best.clients.get())) {
+
+                best = route;
+
+            }
+
+        }
+
+        return best;
+
+    }
+
+    private Route routeOf(String node) {
+
+        for (Route route : this.routes) {
+
+            if (route.node.getName().equals(node)) {
+
+                return route;
+
+            }
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Connects a relay to a node, falling back to the least loaded node if the chosen one is unreachable
+     * @param relay the relay
+     * @param route the route to the chosen node
+     * @throws IOException if no node is reachable
+     */
+    private void connect(Relay relay, Route route) throws IOException {
+
+        for (int attempt = 0; attempt < this.routes.size(); attempt++) {
+
+            Socket upstream = new Socket();
+
+            try {
+
+                upstream.connect(new InetSocketAddress(route.node.getHost(), route.node.getPort()), CONNECT_TIMEOUT);
+
+                upstream.setTcpNoDelay(true);
+
+                relay.upstream = upstream;
+
+                relay.route = route;
+
+                route.clients.incrementAndGet();
+
+                return;
+
+            } catch (IOException e) {
+
+                closeQuietly(upstream);
+
+                route.downUntil = System.currentTimeMillis() + RETRY_DELAY;
+
+                Logger.log(Level.WARNING, "LobbyRouter", "Node " + route.node + " is unreachable, skipping it for " + RETRY_DELAY + "ms");
+
+                route = this.leastLoaded();
+
+            }
+
+        }
+
+        throw new IOException("No node is reachable");
+
+    }
+
+    /**
+     * Copies bytes until either side closes, then closes both
+     * @param from the source
+     * @param to the destination
+     * @param relay the relay the streams belong to
+     */
+    private static void pump(InputStream from, OutputStream to, Relay relay) {
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try {
+
+            int read;
+
+            while ((read = from.read(buffer)) >= 0) {
+
+                to.write(buffer, 0, read);
+
+                to.flush();
+
+            }
+
+        } catch (IOException e) {
+
+            //Either side went away
+        } finally {
+
+            relay.close();
+
+        }
+
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+
+        if (closeable == null) {
+
+            return;
+
+        }
+
+        try {
+
+            closeable.close();
+
+        } catch (IOException e) {
+
+            //Already closed
+        }
+
+    }
+
+    /**
+     * The number of clients relayed to a node right now
+     * @param node the node
+     * @return the number of clients, zero if the node is not behind the router
+     */
+    public int getClients(ClusterNode node) {
+
+        for (Route route : this.routes) {
+
+            if (route.node.equals(node)) {
+
+                return route.clients.get();
+
+            }
+
+        }
+
+        return 0;
+
+    }
+
+    /**
+     * Runs the router in front of the nodes of the configuration, on the socket port the clients know
+     * @param args unused
+     */
+    public static void main(String[] args) {
+
+        Bootstrap.load();
+
+        if (GameConfig.getInstance().getClusterNodes().isEmpty()) {
+
+            Logger.log(Level.SEVERE, "LobbyRouter", "No cluster node configured");
+
+            return;
+
+        }
+
+        new Thread(new LobbyRouter(GameConfig.getInstance().getSocketPort(), GameConfig.getInstance().getClusterNodes()), "LobbyRouter").start();
+
+    }
+
+}
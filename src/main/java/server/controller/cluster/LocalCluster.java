@@ -0,0 +1,82 @@
+package server.controller.cluster;
+
+import logger.Level;
+import logger.Logger;
+import server.controller.game.GameEngine;
+import singleton.Bootstrap;
+import singleton.GameConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A whole cluster within a single process, to try the routing without deploying the nodes.
+ * The nodes listen on the ports that follow the one of the router, they share the database and the configuration as
+ * the nodes of a single host would.
+ */
+public class LocalCluster {
+
+    //The nodes, in port order
+    private final List<ClusterNode> nodes;
+
+    //The engines of the nodes, in the same order
+    private final List<GameEngine> engines = new ArrayList<>();
+
+    //The front door
+    private final LobbyRouter router;
+
+    /**
+     * Starts the nodes and the router
+     * @param nodes the number of nodes
+     * @param routerPort the port of the router, the nodes listen on the following ones
+     */
+    public LocalCluster(int nodes, int routerPort) {
+
+        ArrayList<ClusterNode> addresses = new ArrayList<>();
+
+        for (int i = 1; i <= nodes; i++) {
+
+            ClusterNode node = new ClusterNode("localhost", routerPort + i);
+
+            addresses.add(node);
+
+            this.engines.add(new GameEngine(node));
+
+        }
+
+        this.nodes = Collections.unmodifiableList(addresses);
+
+        this.router = new LobbyRouter(routerPort, this.nodes);
+
+        new Thread(this.router, "LobbyRouter").start();
+
+        Logger.log(Level.INFO, "LocalCluster", nodes + " nodes behind the router on port " + routerPort);
+
+    }
+
+    public List<ClusterNode> getNodes() {
+        return nodes;
+    }
+
+    public List<GameEngine> getEngines() {
+        return Collections.unmodifiableList(engines);
+    }
+
+    public LobbyRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * Runs a local cluster in front of the socket port the clients know
+     * @param args the number of nodes, optional
+     */
+    public static void main(String[] args) {
+
+        Bootstrap.load();
+
+        new LocalCluster(args.length > 0 ? Integer.parseInt(args[0]) : 2, GameConfig.getInstance().getSocketPort());
+
+    }
+
+}
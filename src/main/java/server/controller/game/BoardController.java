@@ -5,7 +5,9 @@ import exception.NotStrongEnoughException;
 import exception.PlaceOccupiedException;
 import javafx.scene.effect.Effect;
 import server.model.GameSingleton;
+import server.model.MatchRandom;
 import server.model.board.*;
+import server.model.card.CardCatalog;
 import server.model.card.Deck;
 import server.model.card.ban.BanCard;
 import server.model.card.developement.DvptCard;
@@ -17,6 +19,8 @@ import server.utility.DvptCardParser;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Random;
 
 import static server.model.board.Period.first;
 
@@ -28,17 +32,6 @@ import static server.model.board.Period.first;
 
 public class BoardController {
 
-    /**
-     * Each development card has an offset between periods of 8
-     */
-    private static final int DVPT_CARD_OFFSET = 8;
-
-    /**
-     * Each ban card has an offset between periods of 7
-     */
-
-    private static final int BAN_CARD_OFFSET = 7;
-
     /**
      * There are 3 total periods
      */
@@ -62,18 +55,37 @@ public class BoardController {
     private static final int CHARACTER_TOWER_INDEX = 2;
     private static final int VENTURE_TOWER_INDEX = 3;
 
+    /**
+     * The types of the towers by their index
+     */
+    private static final DvptCardType[] TOWER_TYPES = {DvptCardType.territory, DvptCardType.building, DvptCardType.character, DvptCardType.venture};
+
+    //Sets the stream of the decks apart from the one of the match, which starts from the same seed
+    private static final long DECK_STREAM = 0x2545F4914F6CDD1DL;
+
     /**
      * Constructor. The board controller takes care of every update relative to the board
      */
 
     private Board board;
-    private ArrayList<Deck<DvptCard>> decks = createDecks();
-    private ArrayList<Deck<BanCard>> banCardDecks = createBanDecks();
+    private ArrayList<Deck<DvptCard>> decks;
+    private ArrayList<Deck<BanCard>> banCardDecks;
 
-    public BoardController(Board board) {
+    /**
+     * The decks are shuffled from the seed of the match, so a resumed match deals the very same cards
+     * @param board the board
+     * @param seed the seed of the match
+     */
+    public BoardController(Board board, long seed) {
 
         this.board = board;
 
+        Random random = new MatchRandom(seed ^ DECK_STREAM);
+
+        this.decks = createDecks(random);
+
+        this.banCardDecks = createBanDecks(random);
+
         //Prepare the cathedral
         this.prepareCathedral();
 
@@ -86,44 +98,40 @@ public class BoardController {
     /**
      * A method that creates the card decks
      *
+     * @param random the stream the decks are shuffled with
      * @return the array list
      */
-    public ArrayList<Deck<DvptCard>> createDecks() {
+    public ArrayList<Deck<DvptCard>> createDecks(Random random) {
 
         ArrayList<Deck<DvptCard>> deckArray = new ArrayList<Deck<DvptCard>>();
 
-        for (int deckIndex = 0; deckIndex < TOTAL_PERIODS * TOTAL_TOWERS; deckIndex++) {
+        CardCatalog catalog = GameSingleton.getInstance().getCatalog();
 
-            Deck<DvptCard> deck = new Deck<DvptCard>();
+        //One deck for each tower and period, in the order of the tower indexes
+        for (int towerIndex = 0; towerIndex < TOTAL_TOWERS; towerIndex++) {
 
-            for (int cardIndex = deckIndex * DVPT_CARD_OFFSET; cardIndex < deckIndex * DVPT_CARD_OFFSET + DVPT_CARD_OFFSET; cardIndex++) {
+            for (int period = 1; period <= TOTAL_PERIODS; period++) {
 
-                deck.addCard(GameSingleton.getInstance().getSpecificDvptCard(cardIndex));
+                Deck<DvptCard> deck = new Deck<DvptCard>(new ArrayList<>(catalog.getDvptCards(TOWER_TYPES[towerIndex], period)));
 
-            }
+                deckArray.add(deck.shuffle(random));
 
-            deckArray.add(deck.shuffle());
+            }
 
         }
         return deckArray;
 
     }
 
-    public ArrayList<Deck<BanCard>> createBanDecks() {
+    public ArrayList<Deck<BanCard>> createBanDecks(Random random) {
 
         ArrayList<Deck<BanCard>> banDeckArray = new ArrayList<Deck<BanCard>>();
 
-        for (int deckIndex = 0; deckIndex < 3; deckIndex++) {
-
-            Deck<BanCard> deck = new Deck<BanCard>();;
+        for (int period = 1; period <= TOTAL_PERIODS; period++) {
 
-            for (int cardIndex = deckIndex * BAN_CARD_OFFSET; cardIndex < deckIndex * BAN_CARD_OFFSET + BAN_CARD_OFFSET; cardIndex++) {
-
-                deck.addCard(GameSingleton.getInstance().getSpecificBanCard(cardIndex));
-
-            }
+            Deck<BanCard> deck = new Deck<BanCard>(new ArrayList<>(GameSingleton.getInstance().getCatalog().getBanCards(period)));
 
-            banDeckArray.add(deck.shuffle());
+            banDeckArray.add(deck.shuffle(random));
 
         }
 
@@ -173,56 +181,21 @@ public class BoardController {
         //On the contrary, if it is the second round of that period, every tower will contain the second half of his specific deck, according to his authenticationType and period
 
         else {
-            ArrayList<DvptCard> container = new ArrayList<>();
-            for(Player player : board.getPlayers()) {
-                container.addAll(player.getPersonalBoard().getTerritoryCards());
-                container.addAll(player.getPersonalBoard().getBuildingCards());
-                container.addAll(player.getPersonalBoard().getCharacterCards());
-                container.addAll(player.getPersonalBoard().getVentureCards());
-            }
-
-            for(int i=0; i<4; i++) {
-                if (board.getTerritoryTower().get(i).getDvptCard() != null)
-                    container.add(board.getTerritoryTower().get(i).getDvptCard());
-                if (board.getCharacterTower().get(i).getDvptCard() != null)
-                    container.add(board.getCharacterTower().get(i).getDvptCard());
-                if (board.getVentureTower().get(i).getDvptCard() != null)
-                    container.add(board.getVentureTower().get(i).getDvptCard());
-                if (board.getBuildingTower().get(i).getDvptCard() != null)
-                    container.add( board.getBuildingTower().get(i).getDvptCard());
-            }
 
             /* To allow persistence and restore cards of the second round of each period it is necessary to esclude the cards played in the previous round from the
 deck used to fill the towers of the second round*/
 
+            BitSet dealt = this.getDealtCards();
+
             for (int i = 0; i < 8; i++) {
-                boolean territoryValidCard = true;
-                for(DvptCard card: container)
-                    if(card.getId() == decks.get(TERRITORY_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i).getId())
-                            territoryValidCard = false;
-                if(territoryValidCard == true)
-                    temporaryTerritory.add(decks.get(TERRITORY_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i));
-
-                boolean buildingValidCard = true;
-                for(DvptCard card: container)
-                    if(card.getId() == decks.get(BUILDING_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i).getId())
-                        buildingValidCard = false;
-                if(buildingValidCard == true)
-                    temporaryBuilding.add(decks.get(BUILDING_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i));
-
-                boolean characterValidCard = true;
-                for(DvptCard card: container)
-                    if(card.getId() == decks.get(CHARACTER_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i).getId())
-                        characterValidCard = false;
-                if(characterValidCard == true)
-                    temporaryCharacter.add(decks.get(CHARACTER_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i));
-
-                boolean ventureValidCard = true;
-                for(DvptCard card: container)
-                    if(card.getId() == decks.get(VENTURE_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i).getId())
-                        ventureValidCard = false;
-                if(ventureValidCard == true)
-                    temporaryVenture.add(decks.get(VENTURE_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i));
+
+                addIfNotDealt(temporaryTerritory, decks.get(TERRITORY_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i), dealt);
+
+                addIfNotDealt(temporaryBuilding, decks.get(BUILDING_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i), dealt);
+
+                addIfNotDealt(temporaryCharacter, decks.get(CHARACTER_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i), dealt);
+
+                addIfNotDealt(temporaryVenture, decks.get(VENTURE_TOWER_INDEX * TOTAL_PERIODS + (period - 1)).getCards().get(i), dealt);
 
             }
 
@@ -241,6 +214,51 @@ deck used to fill the towers of the second round*/
 
     }
 
+    /**
+     * The ids of the development cards already dealt: the ones owned by the players and the ones still on the towers
+     * @return the ids
+     */
+    private BitSet getDealtCards() {
+
+        BitSet dealt = new BitSet();
+
+        for (Player player : board.getPlayers()) {
+
+            CardCatalog.addIds(dealt, player.getPersonalBoard().getTerritoryCards());
+            CardCatalog.addIds(dealt, player.getPersonalBoard().getBuildingCards());
+            CardCatalog.addIds(dealt, player.getPersonalBoard().getCharacterCards());
+            CardCatalog.addIds(dealt, player.getPersonalBoard().getVentureCards());
+
+        }
+
+        for (DvptCardType type : DvptCardType.values()) {
+
+            for (TowerSlot slot : board.getTower(type)) {
+
+                if (slot.getDvptCard() != null) {
+
+                    dealt.set(slot.getDvptCard().getId());
+
+                }
+
+            }
+
+        }
+
+        return dealt;
+
+    }
+
+    private static void addIfNotDealt(ArrayList<DvptCard> cards, DvptCard card, BitSet dealt) {
+
+        if (!dealt.get(card.getId())) {
+
+            cards.add(card);
+
+        }
+
+    }
+
     /**
      * A method that inserts the ban cards into cathedral
      */
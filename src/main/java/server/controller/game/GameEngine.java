@@ -11,13 +11,25 @@ import exception.PlayerNeverDisconnectedException;
 import logger.Level;
 import logger.Logger;
 import netobject.action.Action;
+import netobject.notification.ModelSyncNotification;
+import server.controller.cluster.ClusterNode;
 import server.controller.network.*;
 import server.controller.network.RMI.RMIServer;
+import server.controller.network.Socket.NIOSocketServer;
 import server.controller.network.Socket.SocketServer;
+import server.controller.network.Socket.SocketServerMode;
+import server.model.board.Player;
+import server.utility.Threads;
+import singleton.Bootstrap;
 import singleton.Database;
 import singleton.GameConfig;
+import singleton.SnapshotWriter;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -33,7 +45,28 @@ public class GameEngine implements ServerObserver, LobbyObserver {
     private RMIServer rmiServer;
 
     //Reference to the lobbies
-    private ArrayList<Lobby> lobbies;
+    private Set<Lobby> lobbies;
+
+    //The lobby of each client handler
+    private ConcurrentHashMap<ClientHandler, Lobby> lobbyByHandler;
+
+    //The lobby each username joined last, where a player who left a started match can get back
+    private ConcurrentHashMap<String, Lobby> lobbyByUsername;
+
+    //Seats the clients into the standard lobbies, the only step every new client goes through
+    private final Matchmaker matchmaker;
+
+    //The persistence lobbies waiting for their players, by the id of the match they resume
+    private ConcurrentHashMap<Integer, PersistenceLobby> persistenceLobbies;
+
+    //The locks of the persistence lobbies, by the id of the match they resume: loading a match only holds up the clients of the matches on the same stripe
+    private final ReentrantLock[] persistenceStripes = new ReentrantLock[PERSISTENCE_STRIPES];
+
+    //The name of the cluster node this engine is, null when it runs alone
+    private String node;
+
+    //The number of persistence stripes, a power of two
+    private static final int PERSISTENCE_STRIPES = 16;
 
     /**
      * Game engine constructor
@@ -42,11 +75,51 @@ public class GameEngine implements ServerObserver, LobbyObserver {
      */
     public GameEngine() {
 
-        //Initialize the lobbies
-        this.lobbies = new ArrayList<Lobby>();
+        this(true);
+
+    }
+
+    /**
+     * Game engine constructor
+     * Initializes the lobbies
+     * @param serve whether to launch the servers, without them the engine is driven through its observer methods only
+     */
+    GameEngine(boolean serve) {
+
+        this(serve, GameConfig.getInstance().getMatchmakingWindow());
+
+    }
+
+    /**
+     * Game engine constructor
+     * Initializes the lobbies
+     * @param serve whether to launch the servers, without them the engine is driven through its observer methods only, as the tests do
+     * @param matchmakingWindow how long the matchmaker gathers the waiting clients before seating them, in milliseconds
+     */
+    public GameEngine(boolean serve, long matchmakingWindow) {
+
+        //Initialize the lobbies and their indexes
+        this.lobbies = ConcurrentHashMap.newKeySet();
+        this.lobbyByHandler = new ConcurrentHashMap<>();
+        this.lobbyByUsername = new ConcurrentHashMap<>();
+        this.matchmaker = new Matchmaker(this, matchmakingWindow);
+        this.persistenceLobbies = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < PERSISTENCE_STRIPES; i++) {
+
+            this.persistenceStripes[i] = new ReentrantLock();
+
+        }
+
+        if (!serve) {
+
+            return;
+
+        }
 
         //Initialize the servers
-        this.socketServer = new SocketServer(GameConfig.getInstance().getSocketPort(), this);
+        this.socketServer = this.createSocketServer(GameConfig.getInstance().getSocketPort());
+
         this.rmiServer = new RMIServer(GameConfig.getInstance().getRmiPort(), "server", this);
 
         //Register us as observer
@@ -59,38 +132,60 @@ public class GameEngine implements ServerObserver, LobbyObserver {
 
     }
 
-    private Lobby getLobby(ClientHandler handler) throws NoSuchLobbyException {
+    /**
+     * Game engine constructor for a node of a cluster.
+     * The node serves the socket clients relayed by the router only, the RMI clients can't be relayed
+     * @param node the address of the node
+     */
+    public GameEngine(ClusterNode node) {
 
-        //Lookup the lobby to which the client belongs
-        for (Lobby lobby : this.lobbies) {
+        this(false);
 
-            if (lobby.hasClientHandler(handler)) {
+        this.node = node.getName();
 
-                return lobby;
+        this.socketServer = this.createSocketServer(node.getPort());
 
-            }
+        this.socketServer.addObserver(this);
+
+        (new Thread(this.socketServer)).start();
+
+    }
+
+    private SocketServer createSocketServer(int port) {
+
+        if (GameConfig.getInstance().getSocketMode() == SocketServerMode.NIO) {
+
+            return new NIOSocketServer(port, GameConfig.getInstance().getIoThreads(), this);
 
         }
 
-        throw new NoSuchLobbyException("No lobby found for handler: " + handler);
+        return new SocketServer(port, this);
 
     }
 
-    private Lobby getLobbyAfterDisconnection(ClientHandler handler) throws PlayerNeverDisconnectedException {
+    private Lobby getLobby(ClientHandler handler) throws NoSuchLobbyException {
 
-        for (Lobby l : this.lobbies) {
+        //Lookup the lobby to which the client belongs
+        Lobby lobby = this.lobbyByHandler.get(handler);
 
-            //Loop through each lobby
-            if (l.hasStarted()) {
+        if (lobby == null) {
 
-                //If the match did already start, maybe the player is here and wants to reconnect after a disconnection
-                if (l.hasPlayer(handler.getUsername())) {
+            throw new NoSuchLobbyException("No lobby found for handler: " + handler);
 
-                    return l;
+        }
 
-                }
+        return lobby;
 
-            }
+    }
+
+    private Lobby getLobbyAfterDisconnection(ClientHandler handler) throws PlayerNeverDisconnectedException {
+
+        Lobby lobby = this.lobbyByUsername.get(handler.getUsername());
+
+        //If the match did already start, maybe the player is here and wants to reconnect after a disconnection
+        if (lobby != null && lobby.hasStarted() && lobby.hasPlayer(handler.getUsername())) {
+
+            return lobby;
 
         }
 
@@ -98,68 +193,141 @@ public class GameEngine implements ServerObserver, LobbyObserver {
 
     }
 
-    private synchronized Lobby joinStandardLobby(ClientHandler handler) {
+    /**
+     * Indexes a client handler that joined a lobby
+     * @param handler the handler
+     * @param lobby the lobby
+     */
+    void register(ClientHandler handler, Lobby lobby) {
+
+        this.lobbyByHandler.put(handler, lobby);
 
-        for (Lobby lobby : this.lobbies) {
+        this.lobbyByUsername.put(handler.getUsername(), lobby);
 
-            if (!(lobby instanceof PersistenceLobby) && lobby.isJoinable()) {
+    }
 
-                lobby.join(handler);
+    /**
+     * Drops a lobby and every index entry that still points to it
+     * @param lobby the lobby
+     */
+    private void forget(Lobby lobby) {
 
-                return lobby;
+        //A closed lobby refuses every client, it leaves the forming tables at the next matchmaking round
+        this.lobbies.remove(lobby);
+
+        if (lobby instanceof PersistenceLobby) {
+
+            this.persistenceLobbies.remove(((PersistenceLobby) lobby).getMatchId(), lobby);
+
+        }
+
+        ArrayList<ClientHandler> handlers;
+
+        synchronized (lobby) {
+
+            handlers = new ArrayList<>(lobby.getHandlers());
+
+        }
+
+        for (ClientHandler handler : handlers) {
+
+            this.lobbyByHandler.remove(handler, lobby);
+
+            this.lobbyByUsername.remove(handler.getUsername(), lobby);
+
+        }
+
+        //The players who left a started match are still indexed by their username
+        if (lobby.getMatchController() != null) {
+
+            for (Player player : lobby.getMatchController().getMatch().getPlayers()) {
+
+                this.lobbyByUsername.remove(player.getUsername(), lobby);
 
             }
 
         }
 
-        Lobby newLobby = new Lobby(handler);
+    }
 
-        this.lobbies.add(newLobby);
+    /**
+     * Indexes a standard lobby just opened by the matchmaker
+     * @param lobby the lobby
+     */
+    void open(Lobby lobby) {
 
-        newLobby.addObserver(this);
+        this.lobbies.add(lobby);
 
-        return newLobby;
+        lobby.addObserver(this);
 
     }
 
-    private synchronized Lobby joinPersistanceLobby(ClientHandler handler, int previousMatchId) {
+    private Lobby joinPersistanceLobby(ClientHandler handler, int previousMatchId) {
+
+        //Only the clients resuming a match on the same stripe wait while the match gets loaded
+        ReentrantLock stripe = this.persistenceStripes[Integer.hashCode(previousMatchId) & (PERSISTENCE_STRIPES - 1)];
+
+        stripe.lock();
+
+        try {
+
+            PersistenceLobby lobby = this.persistenceLobbies.get(previousMatchId);
 
-        for (Lobby lobby : this.lobbies) {
+            if (lobby != null && lobby.join(handler)) {
 
-            if (lobby instanceof PersistenceLobby && lobby.isJoinable()) {
+                this.register(handler, lobby);
 
-                lobby.join(handler);
+                if (!lobby.isJoinable()) {
+
+                    this.persistenceLobbies.remove(previousMatchId, lobby);
+
+                }
 
                 return lobby;
 
             }
 
-        }
+            PersistenceLobby persistenceLobby = new PersistenceLobby(handler, previousMatchId);
+
+            this.lobbies.add(persistenceLobby);
+
+            this.persistenceLobbies.put(previousMatchId, persistenceLobby);
+
+            this.register(handler, persistenceLobby);
 
-        PersistenceLobby persistenceLobby = new PersistenceLobby(handler, previousMatchId);
+            persistenceLobby.addObserver(this);
 
-        this.lobbies.add(persistenceLobby);
+            return persistenceLobby;
 
-        persistenceLobby.addObserver(this);
+        } finally {
 
-        return persistenceLobby;
+            stripe.unlock();
+
+        }
 
     }
 
-    private synchronized Lobby leaveLobby(ClientHandler handler) throws NoSuchLobbyException {
+    private Lobby leaveLobby(ClientHandler handler) throws NoSuchLobbyException {
 
         Lobby lobby = this.getLobby(handler);
 
+        this.lobbyByHandler.remove(handler, lobby);
+
+        boolean closed = false;
+
         try {
 
-            if (lobby.leave(handler) == 0 && !lobby.hasStarted()) {
+            //The lobby is closed within its own lock, so that no client can join it in between
+            synchronized (lobby) {
+
+                if (lobby.leave(handler) == 0 && !lobby.hasStarted()) {
 
-                //If after the leaving there are no more players in the lobby and the match has not started yet, it gets destroyed.
-                lobby.destroy();
+                    //If after the leaving there are no more players in the lobby and the match has not started yet, it gets destroyed.
+                    lobby.destroy();
 
-                this.lobbies.remove(lobby);
+                    closed = true;
 
-                Logger.log(Level.FINEST, "GameEngine", lobby.toString() + " closed");
+                }
 
             }
 
@@ -168,12 +336,80 @@ public class GameEngine implements ServerObserver, LobbyObserver {
 
             Logger.log(Level.SEVERE, "GameEngine", "Client does not belong to the lobby found", e);
 
+            return lobby;
+
+        }
+
+        if (closed) {
+
+            this.matchmaker.left(handler);
+
+            this.forget(lobby);
+
+            Logger.log(Level.FINEST, "GameEngine", lobby.toString() + " closed");
+
+        }
+        else if (!lobby.hasStarted()) {
+
+            //The client won't be playing here, a standard lobby has a free seat again
+            this.lobbyByUsername.remove(handler.getUsername(), lobby);
+
+            this.matchmaker.left(handler);
+
+            if (!(lobby instanceof PersistenceLobby) && lobby.isJoinable()) {
+
+                this.matchmaker.reopen(lobby);
+
+            }
+
         }
 
         return lobby;
 
     }
 
+    /**
+     * The number of lobbies, either waiting or playing
+     * @return the number of lobbies
+     */
+    public int getLobbyCount() {
+
+        return this.lobbies.size();
+
+    }
+
+    /**
+     * Whether a client sits in a lobby, rather than waiting for a table or having left
+     * @param handler the handler of the client
+     * @return true if it does
+     */
+    public boolean isSeated(ClientHandler handler) {
+
+        return this.lobbyByHandler.containsKey(handler);
+
+    }
+
+    /**
+     * The lobby a client sits in
+     * @param handler the handler of the client
+     * @return the lobby, null if the client is waiting for a table or left
+     */
+    public Lobby getLobbyOf(ClientHandler handler) {
+
+        return this.lobbyByHandler.get(handler);
+
+    }
+
+    /**
+     * The matchmaker, which tells the queue depth and the time to match
+     * @return the matchmaker
+     */
+    public Matchmaker getMatchmaker() {
+
+        return this.matchmaker;
+
+    }
+
     public void onError(Server server) {
 
         Logger.log(Level.SEVERE, "GameEngine", "Error encountered on server " + server.toString());
@@ -189,7 +425,15 @@ public class GameEngine implements ServerObserver, LobbyObserver {
         try {
 
             //Search the lobby whose model contains the player with the just-logged-in client's username
-            this.getLobbyAfterDisconnection(handler).getHandlers().add(handler);
+            Lobby lobby = this.getLobbyAfterDisconnection(handler);
+
+            synchronized (lobby) {
+
+                lobby.getHandlers().add(handler);
+
+            }
+
+            this.register(handler, lobby);
 
             //Upon success it means that the client was already in a lobby, just wait for his observer to load.
             //An automatic procedure will be triggered to rejoin the user
@@ -199,10 +443,11 @@ public class GameEngine implements ServerObserver, LobbyObserver {
         catch (PlayerNeverDisconnectedException e) {
 
             //If we get here it means that no player with the username of the just-logged-in client was playing
-            //Follow the standard procedure: join the first available lobby (Standard or Persistent)
+            //Follow the standard procedure: join the persistent lobby of the unfinished match, or wait for a standard one
             int previousMatch = Database.getInstance().isAnUnfinishedMatchPlayer(handler.getUsername());
 
-            if (previousMatch > 0) {
+            //A match that just ended may not be marked as finished on disk yet
+            if (previousMatch > 0 && !SnapshotWriter.getInstance().isFinishing(previousMatch)) {
 
                 //Persistence: must finish the match
                 this.joinPersistanceLobby(handler, previousMatch);
@@ -210,8 +455,8 @@ public class GameEngine implements ServerObserver, LobbyObserver {
             }
             else {
 
-                //Standard join
-                this.joinStandardLobby(handler);
+                //Standard join, the client waits for a table
+                this.matchmaker.enqueue(handler);
 
             }
 
@@ -224,6 +469,13 @@ public class GameEngine implements ServerObserver, LobbyObserver {
 
         Logger.log(Level.FINE, "GameEngine", "Player " + handler.getUsername() + " disconnected");
 
+        //A client still waiting for a table just leaves the queue
+        if (this.matchmaker.cancel(handler)) {
+
+            return;
+
+        }
+
         try {
 
             //Try to leave the lobby
@@ -243,8 +495,18 @@ public class GameEngine implements ServerObserver, LobbyObserver {
 
         try {
 
-            this.getLobby(handler).getMatchController().dispatchNewPlayerAction(action);
+            MatchController controller = this.getLobby(handler).getMatchController();
+
+            //A client seated at a table whose match did not start yet has nothing to act on
+            if (controller == null) {
 
+                Logger.log(Level.WARNING, "GameEngine", "Action of " + handler.getUsername() + " refused, the match did not start yet");
+
+                return;
+
+            }
+
+            controller.dispatchNewPlayerAction(action);
 
         }
         catch (NoSuchLobbyException e) {
@@ -260,6 +522,13 @@ public class GameEngine implements ServerObserver, LobbyObserver {
 
         Lobby belonging = null;
 
+        //A client still waiting for a table gets welcomed once it's seated
+        if (observerType == ObserverType.Lobby && !this.lobbyByHandler.containsKey(handler) && this.matchmaker.deferWelcome(handler)) {
+
+            return;
+
+        }
+
         try {
 
             belonging = this.getLobby(handler);
@@ -287,7 +556,7 @@ public class GameEngine implements ServerObserver, LobbyObserver {
                     belonging.joinAfterDisconnection(handler);
                 }
                 else {
-                    belonging.getMatchController().getReadyObservers().add(observerType);
+                    belonging.getMatchController().onObserverReady(observerType);
                 }
 
                 break;
@@ -302,20 +571,87 @@ public class GameEngine implements ServerObserver, LobbyObserver {
 
     }
 
+    @Override
+    public void onModelSync(Server server, ClientHandler handler, ModelSyncNotification notification) {
+
+        try {
+
+            this.getLobby(handler).getMatchController().onModelSync(handler, notification);
+
+        }
+        catch (NoSuchLobbyException e) {
+
+            Logger.log(Level.SEVERE, "GameEngine", "Unable to find the lobby where the player is playing!", e);
+
+        }
+
+    }
+
     public boolean hasAlreadyAuthenticated(String username) {
 
         //return this.rmiServer.hasHandlerWithUsername(username) || this.socketServer.hasHandlerWithUsername(username);
-       return this.socketServer.hasHandlerWithUsername(username);
+       return this.socketServer != null && this.socketServer.hasHandlerWithUsername(username);
 
     }
 
     public static void main(String[] args) {
+
+        for (String arg : args) {
+
+            //Client handlers and match controllers block a lot, virtual threads make them cheap
+            if (arg.equals("--virtual-threads")) {
+
+                Threads.enableVirtualThreads();
+
+            }
+
+        }
+
+        //Parse the configuration and the cards before the first lobby needs them
+        Bootstrap.load();
+
+        for (String arg : args) {
+
+            //A node of a cluster, behind the router
+            if (arg.startsWith("--node=")) {
+
+                new GameEngine(ClusterNode.parse(arg.substring("--node=".length())));
+
+                return;
+
+            }
+
+        }
+
         new GameEngine();
     }
 
+    public void onMatchStart(Lobby lobby) {
+
+        this.matchmaker.onMatchStart(lobby);
+
+        if (this.node == null) {
+
+            return;
+
+        }
+
+        //The router sends the players getting back to the match to this node
+        try {
+
+            Database.getInstance().claimMatch(lobby.getMatchController().getMatch().getMatch_id(), this.node);
+
+        } catch (SQLException e) {
+
+            Logger.log(Level.WARNING, "GameEngine", "Unable to record the node of " + lobby, e);
+
+        }
+
+    }
+
     public void onDestroyRequest(Lobby lobby) {
 
-        this.lobbies.remove(lobby);
+        this.forget(lobby);
 
         lobby.destroy();
 
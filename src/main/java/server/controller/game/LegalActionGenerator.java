@@ -0,0 +1,602 @@
+package server.controller.game;
+
+import netobject.action.BoardSectorType;
+import netobject.action.standard.StandardPlacementAction;
+import server.model.Match;
+import server.model.board.*;
+import server.model.card.ban.*;
+import server.model.card.developement.*;
+import server.model.effect.ActionType;
+import server.model.effect.EffectPermanentAction;
+import server.model.effect.EffectSurplus;
+import server.model.effect.PermanentLeaderEffectType;
+import server.model.valuable.Point;
+import server.model.valuable.PointType;
+import server.model.valuable.Resource;
+import server.model.valuable.ResourceType;
+import server.utility.BoardConfigParser;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+
+/**
+ * Enumerates the family member placements a player can perform, without touching the match.
+ * It mirrors the checks of MatchController.placeFamilyMember and of the BoardController placements,
+ * so that bots, offline analysis and client hints do not have to try an action and roll it back to know whether it is legal.
+ * For each legal placement it also computes the fewest additional servants needed.
+ */
+public class LegalActionGenerator {
+
+    //The sectors a family member can be placed on, each with a single place
+    private static final BoardSectorType[] SINGLE_SECTORS = {
+            BoardSectorType.CouncilPalace,
+            BoardSectorType.SingleHarvestPlace,
+            BoardSectorType.CompositeHarvestPlace,
+            BoardSectorType.SingleProductionPlace,
+            BoardSectorType.CompositeProductionPlace
+    };
+
+    //The towers, in the order of the board
+    private static final BoardSectorType[] TOWERS = {
+            BoardSectorType.TerritoryTower,
+            BoardSectorType.BuildingTower,
+            BoardSectorType.CharacterTower,
+            BoardSectorType.VentureTower
+    };
+
+    /**
+     * The match the placements are computed on, which is only read
+     */
+    private final Match match;
+
+    public LegalActionGenerator(Match match) {
+
+        this.match = match;
+
+    }
+
+    /**
+     * Enumerates every legal placement of the free family members of a player
+     * @param player the player
+     * @return the legal placements, each with the fewest additional servants needed
+     */
+    public ArrayList<StandardPlacementAction> getLegalPlacements(Player player) {
+
+        ArrayList<StandardPlacementAction> placements = new ArrayList<>();
+
+        for (FamilyMember member : player.getFamilyMembers()) {
+
+            if (member.isBusy()) {
+
+                continue;
+
+            }
+
+            for (BoardSectorType tower : TOWERS) {
+
+                for (int index = 0; index < this.getTowerSlots(tower).size(); index++) {
+
+                    this.addIfLegal(placements, player, member, tower, index);
+
+                }
+
+            }
+
+            for (int index = 0; index < this.match.getBoard().getMarket().getMarketPlaces().size(); index++) {
+
+                this.addIfLegal(placements, player, member, BoardSectorType.Market, index);
+
+            }
+
+            for (BoardSectorType sector : SINGLE_SECTORS) {
+
+                this.addIfLegal(placements, player, member, sector, 0);
+
+            }
+
+        }
+
+        return placements;
+
+    }
+
+    /**
+     * Computes the fewest additional servants that make a placement legal
+     * @param player the player
+     * @param target the sector of the board
+     * @param index the slot of the sector, 0 for the sectors with a single place
+     * @param color the color of the family member
+     * @return the additional servants, or null if the placement is not legal whatever the servants
+     */
+    public Integer getServantsNeeded(Player player, BoardSectorType target, int index, ColorType color) {
+
+        for (FamilyMember member : player.getFamilyMembers()) {
+
+            if (member.getColor() == color) {
+
+                return member.isBusy() ? null : this.getServantsNeeded(player, member, target, index);
+
+            }
+
+        }
+
+        return null;
+
+    }
+
+    private void addIfLegal(ArrayList<StandardPlacementAction> placements, Player player, FamilyMember member, BoardSectorType target, int index) {
+
+        Integer servants = this.getServantsNeeded(player, member, target, index);
+
+        if (servants != null) {
+
+            placements.add(new StandardPlacementAction(target, index, member.getColor(), servants, player.getUsername()));
+
+        }
+
+    }
+
+    private Integer getServantsNeeded(Player player, FamilyMember member, BoardSectorType target, int index) {
+
+        //The servants the controller actually takes can be less than the ones declared, so try them one by one
+        for (int servants = 0; this.getServantsPaid(player, servants) <= player.getServants(); servants++) {
+
+            if (this.isLegal(player, member, target, index, servants)) {
+
+                return servants;
+
+            }
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * The servants taken from a player who declares some additional servants, halved by each servants power malus
+     */
+    private int getServantsPaid(Player player, int servants) {
+
+        for (BanCard banCard : player.getBanCards()) {
+
+            if (banCard instanceof SpecialBanCard && ((SpecialBanCard) banCard).getSpecialEffect() == SpecialEffectType.servantsPowerMalus) {
+
+                servants /= 2;
+
+            }
+
+        }
+
+        return servants;
+
+    }
+
+    private boolean isLegal(Player player, FamilyMember member, BoardSectorType target, int index, int servants) {
+
+        int numberOfPlayers = this.match.getPlayers().size();
+
+        int forceBonus = 0;
+
+        ArrayList<Discount> discounts = new ArrayList<>();
+
+        //The permanent effects of the character cards, as in actionCharacterFilter
+        for (CharacterDvptCard card : player.getPersonalBoard().getCharacterCards()) {
+
+            EffectPermanentAction effect = card.getPermanentEffect().getAction();
+
+            if (effect.getTarget() == ActionType.harvest) {
+
+                if (target == BoardSectorType.SingleHarvestPlace || target == BoardSectorType.CompositeHarvestPlace) {
+
+                    forceBonus += effect.getForceBonus();
+
+                }
+
+            }
+            else if (effect.getTarget() == ActionType.production) {
+
+                if (target == BoardSectorType.SingleProductionPlace || target == BoardSectorType.CompositeProductionPlace) {
+
+                    forceBonus += effect.getForceBonus();
+
+                }
+
+            }
+            else if (effect.getTarget() == ActionType.card) {
+
+                if (effect.getType() == this.getTowerType(target)) {
+
+                    forceBonus += effect.getForceBonus();
+
+                    discounts = new ArrayList<>(effect.getDiscounts());
+
+                }
+
+            }
+            else if (card.getPermanentEffect().isPenality() && index > 1) {
+
+                return false;
+
+            }
+
+        }
+
+        //The permanent effects of the leader cards, as in applyLeaderCardEffect which applies them once per played leader card
+        boolean ariosto = player.isPermanentLeaderActive(PermanentLeaderEffectType.ariostoEffect);
+
+        for (int i = 0; i < player.getPlayedLeaderCards().size(); i++) {
+
+            if (player.isPermanentLeaderActive(PermanentLeaderEffectType.sigismondoEffect) && member.getColor() == ColorType.Neutral) {
+
+                forceBonus += 3;
+
+            }
+
+            if (player.isPermanentLeaderActive(PermanentLeaderEffectType.lucreziaEffect) && member.getColor() != ColorType.Neutral) {
+
+                forceBonus += 2;
+
+            }
+
+            if (player.isPermanentLeaderActive(PermanentLeaderEffectType.moroEffect) && member.getColor() != ColorType.Neutral) {
+
+                forceBonus += 5 - member.getForce();
+
+            }
+
+            if (player.isPermanentLeaderActive(PermanentLeaderEffectType.picoEffect)) {
+
+                ArrayList<Resource> coinDiscount = new ArrayList<>();
+
+                coinDiscount.add(new Resource(ResourceType.Coins, 3));
+
+                discounts.add(new Discount(coinDiscount));
+
+            }
+
+        }
+
+        //The dice malus of the ban cards, as in applyDiceMalusBanCard which checks them against the declared servants
+        boolean noMarket = false;
+
+        for (BanCard banCard : player.getBanCards()) {
+
+            if (banCard instanceof DiceBanCard) {
+
+                EffectDiceMalus malus = ((DiceBanCard) banCard).getEffectDiceMalus();
+
+                if (malus.getType() != null && target == this.getTowerSector(malus.getType())) {
+
+                    if (member.getForce() + servants - malus.getMalus() < this.getTowerSlots(target).get(index).getEntryForce()) {
+
+                        return false;
+
+                    }
+
+                }
+
+                if (member.getColor() != ColorType.Neutral) {
+
+                    if (member.getForce() + servants - malus.getRoundDiceMalus() < this.match.getBoard().getTerritoryTower().get(index).getEntryForce()) {
+
+                        return false;
+
+                    }
+
+                }
+
+            }
+
+            if (banCard instanceof SpecialBanCard && ((SpecialBanCard) banCard).getSpecialEffect() == SpecialEffectType.noMarketMalus) {
+
+                noMarket = true;
+
+            }
+
+        }
+
+        int paid = this.getServantsPaid(player, servants);
+
+        int force = member.getForce() + paid + forceBonus;
+
+        Board board = this.match.getBoard();
+
+        switch (target) {
+
+            case CouncilPalace:
+                return numberOfPlayers >= board.getCouncilPalace().getMinPlayers()
+                        && (!ariosto || index < board.getCouncilPalace().getFamilyMembers().size())
+                        && force >= board.getCouncilPalace().getEntryForce();
+
+            case Market:
+                SingleActionPlace marketPlace = board.getMarket().getMarketPlaces().get(index);
+
+                return !noMarket && this.isFree(marketPlace, ariosto, force, numberOfPlayers);
+
+            case SingleHarvestPlace:
+                return this.isFree(board.getHarvestArea().getMainPlace(), ariosto, force, numberOfPlayers);
+
+            case SingleProductionPlace:
+                return this.isFree(board.getProductionArea().getMainPlace(), ariosto, force, numberOfPlayers);
+
+            case CompositeHarvestPlace:
+                return this.isOpen(board.getHarvestArea().getSecondaryPlace(), ariosto, index, force, numberOfPlayers);
+
+            case CompositeProductionPlace:
+                return this.isOpen(board.getProductionArea().getSecondaryPlace(), ariosto, index, force, numberOfPlayers);
+
+            default:
+                return this.canTakeCard(player, target, index, ariosto, force, paid, discounts);
+
+        }
+
+    }
+
+    private boolean isFree(SingleActionPlace place, boolean ariosto, int force, int numberOfPlayers) {
+
+        return numberOfPlayers >= place.getMinPlayers() && (ariosto || !place.isOccupied()) && force >= place.getEntryForce();
+
+    }
+
+    private boolean isOpen(PHCompositeActionPlace place, boolean ariosto, int index, int force, int numberOfPlayers) {
+
+        //With Ariosto the controller frees the family member at the index, which must be there
+        return numberOfPlayers >= place.getMinPlayers() && (!ariosto || index < place.getFamilyMembers().size()) && force >= place.getEntryForce();
+
+    }
+
+    private boolean canTakeCard(Player player, BoardSectorType target, int index, boolean ariosto, int force, int paid, ArrayList<Discount> discounts) {
+
+        DvptCardType towerType = this.getTowerType(target);
+
+        TowerSlot slot = this.getTowerSlots(target).get(index);
+
+        if (player.getPersonalBoard().getNumberOfCards(towerType) == 6) {
+
+            return false;
+
+        }
+
+        if (towerType == DvptCardType.territory) {
+
+            if (player.getMilitaryPoints() < BoardConfigParser.getMinimumMilitaryPoints(player.getPersonalBoard().getTerritoryCards().size() + 1) && !player.isPermanentLeaderActive(PermanentLeaderEffectType.cesareEffect)) {
+
+                return false;
+
+            }
+
+        }
+
+        if ((!ariosto && slot.isOccupied()) || this.match.getPlayers().size() < slot.getMinPlayers()) {
+
+            return false;
+
+        }
+
+        ArrayList<Player> playersInTower = this.match.getBoard().getPlayersInTower(towerType);
+
+        if (playersInTower.contains(player) && this.match.getPlayers().size() != 5) {
+
+            return false;
+
+        }
+
+        if (force < slot.getEntryForce()) {
+
+            return false;
+
+        }
+
+        //What the player owns once the servants, the occupied tower fee and the slot surplus are accounted
+        EnumMap<ResourceType, Integer> resources = new EnumMap<>(ResourceType.class);
+
+        for (ResourceType type : ResourceType.values()) {
+
+            resources.put(type, player.getResource(type));
+
+        }
+
+        resources.put(ResourceType.Servants, resources.get(ResourceType.Servants) - paid);
+
+        if (playersInTower.size() > 0 && !player.isPermanentLeaderActive(PermanentLeaderEffectType.filippoEffect)) {
+
+            if (resources.get(ResourceType.Coins) < 3) {
+
+                return false;
+
+            }
+
+            resources.put(ResourceType.Coins, resources.get(ResourceType.Coins) - 3);
+
+        }
+
+        int military = player.getMilitaryPoints() + this.addSurplus(player, slot.getEffectSurplus(), resources);
+
+        DvptCard card = slot.getDvptCard();
+
+        if (card == null || card.getType() == DvptCardType.territory) {
+
+            return true;
+
+        }
+
+        //The player can pick any of the first two costs and of the first two discounts
+        for (int costChoice = 0; costChoice < Math.min(2, card.getCost().size()); costChoice++) {
+
+            for (int discountChoice = 0; discountChoice < Math.max(1, Math.min(2, discounts.size())); discountChoice++) {
+
+                Cost cost = card.getCost().get(costChoice);
+
+                Discount discount = discounts.isEmpty() ? null : discounts.get(discountChoice);
+
+                if (cost.getMilitary().getRequired() <= military && this.canAfford(cost, discount, resources)) {
+
+                    return true;
+
+                }
+
+            }
+
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Adds the resources of a surplus, less the valuable malus of the ban cards as in applyValuableBanCard
+     * @return the military points of the surplus
+     */
+    private int addSurplus(Player player, EffectSurplus surplus, EnumMap<ResourceType, Integer> resources) {
+
+        for (Resource resource : surplus.getResources()) {
+
+            resources.put(resource.getType(), resources.get(resource.getType()) + resource.getAmount() - this.getValuableMalus(player, resource.getType(), resource.getAmount()));
+
+        }
+
+        int military = 0;
+
+        for (Point point : surplus.getPoints()) {
+
+            if (point.getType() == PointType.Military) {
+
+                military += point.getAmount();
+
+                if (point.getAmount() > 0) {
+
+                    for (BanCard banCard : player.getBanCards()) {
+
+                        if (banCard instanceof ValuableBanCard) {
+
+                            for (Point malus : ((ValuableBanCard) banCard).getPoints()) {
+
+                                if (malus.getType() == PointType.Military) {
+
+                                    military -= malus.getAmount();
+
+                                }
+
+                            }
+
+                        }
+
+                    }
+
+                }
+
+            }
+
+        }
+
+        return military;
+
+    }
+
+    private int getValuableMalus(Player player, ResourceType type, int amount) {
+
+        int malus = 0;
+
+        if (amount > 0) {
+
+            for (BanCard banCard : player.getBanCards()) {
+
+                if (banCard instanceof ValuableBanCard) {
+
+                    for (Resource resource : ((ValuableBanCard) banCard).getResources()) {
+
+                        if (resource.getType() == type) {
+
+                            malus += resource.getAmount();
+
+                        }
+
+                    }
+
+                }
+
+            }
+
+        }
+
+        return malus;
+
+    }
+
+    private boolean canAfford(Cost cost, Discount discount, EnumMap<ResourceType, Integer> resources) {
+
+        for (Resource resource : cost.getResources()) {
+
+            int amount = resource.getAmount();
+
+            if (discount != null) {
+
+                for (Resource scount : discount.getDiscount()) {
+
+                    if (scount.getType() == resource.getType()) {
+
+                        amount = Math.max(0, amount - scount.getAmount());
+
+                    }
+
+                }
+
+            }
+
+            if (resources.get(resource.getType()) < amount) {
+
+                return false;
+
+            }
+
+        }
+
+        return true;
+
+    }
+
+    private ArrayList<TowerSlot> getTowerSlots(BoardSectorType tower) {
+
+        return this.match.getBoard().getTower(this.getTowerType(tower));
+
+    }
+
+    private DvptCardType getTowerType(BoardSectorType sector) {
+
+        switch (sector) {
+
+            case TerritoryTower:
+                return DvptCardType.territory;
+
+            case BuildingTower:
+                return DvptCardType.building;
+
+            case CharacterTower:
+                return DvptCardType.character;
+
+            default:
+                //The controller takes any other sector for the venture tower, and so do the character bonuses
+                return DvptCardType.venture;
+
+        }
+
+    }
+
+    private BoardSectorType getTowerSector(DvptCardType type) {
+
+        for (BoardSectorType tower : TOWERS) {
+
+            if (this.getTowerType(tower) == type) {
+
+                return tower;
+
+            }
+
+        }
+
+        return null;
+
+    }
+
+}
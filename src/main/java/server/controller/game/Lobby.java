@@ -13,11 +13,14 @@ import netobject.notification.LobbyNotification;
 import netobject.notification.LobbyNotificationType;
 import server.controller.network.*;
 import server.model.board.Player;
+import server.utility.Threads;
 import server.utility.UnicodeChars;
 import singleton.GameConfig;
+import singleton.Scheduler;
 import server.controller.network.Observable;
 import java.util.*;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledFuture;
 
 /**
  * The Lobby represents a virtual room where handlers wait for other handlers to join and for the match to begin.
@@ -36,13 +39,16 @@ public class Lobby implements MatchControllerObserver, Observable<LobbyObserver>
     protected Thread matchControllerDaemon;
 
     //Timer to start the match
-    protected Timer timeout;
+    protected ScheduledFuture<?> timeout;
 
     //The name of the lobby, given by the first player
     protected String name;
 
     //Status variable that tells if the match has started
-    protected boolean matchDidStart = false;
+    protected volatile boolean matchDidStart = false;
+
+    //Status variable that tells if the lobby was destroyed, nobody can join it anymore
+    protected volatile boolean closed = false;
 
     //Status variable that tells if the timeout has started
     protected boolean timeoutDidStart = false;
@@ -126,7 +132,7 @@ public class Lobby implements MatchControllerObserver, Observable<LobbyObserver>
      */
     public boolean isJoinable() {
 
-        return (!this.matchDidStart && this.handlers.size() < MAXIMUM_PLAYERS);
+        return (!this.closed && !this.matchDidStart && this.handlers.size() < MAXIMUM_PLAYERS);
 
     }
 
@@ -139,8 +145,8 @@ public class Lobby implements MatchControllerObserver, Observable<LobbyObserver>
      */
     public synchronized boolean join(ClientHandler handler) {
 
-        //If the lobby is full
-        if (this.handlers.size() >= MAXIMUM_PLAYERS || this.matchDidStart) {
+        //If the lobby is full or closed
+        if (this.closed || this.handlers.size() >= MAXIMUM_PLAYERS || this.matchDidStart) {
 
             return false;
 
@@ -158,27 +164,11 @@ public class Lobby implements MatchControllerObserver, Observable<LobbyObserver>
         //Check whether or not to start the timeout
         if (this.handlers.size() == MINIMUM_PLAYERS) {
 
-            /* Create always a new timer.
-             * This operation must always be performed.
-             * This because once a timer scheduled task get cancelled, nothing else can be scheduled.
-             */
-            this.timeout = new Timer();
-
             //Set the timeout status variable
             this.timeoutDidStart = true;
 
-            //Schedule the task with the callback
-            this.timeout.schedule(new TimerTask() {
-
-                public void run() {
-
-                    //This is called when the timeout expires
-                    Lobby.this.startMatch();
-
-
-                }
-
-            }, START_DELAY);
+            //Schedule the start on the shared scheduler, it gets called when the timeout expires
+            this.timeout = Scheduler.getInstance().schedule(this::startMatch, START_DELAY);
 
             Logger.log(Level.FINEST, this.toString(), "Timeout started: " + GameConfig.getInstance().getMatchTimeout() + "s");
 
@@ -289,9 +279,9 @@ public class Lobby implements MatchControllerObserver, Observable<LobbyObserver>
     private synchronized void stopTimeout() {
 
         //Cancel the timeout if less than 2 handlers are in the room
-        this.timeout.cancel();
+        this.timeout.cancel(false);
 
-        //Let the old timer object get garbage collected
+        //Let the old handle get garbage collected
         this.timeout = null;
 
         //Change the status variable
@@ -326,17 +316,43 @@ public class Lobby implements MatchControllerObserver, Observable<LobbyObserver>
 
         Logger.log(Level.FINE, this.toString(), "Starting the match...");
 
-        this.matchController = new MatchController(this.handlers, this);
+        //The bots fill the empty seats, if configured to
+        int bots = Math.max(0, Math.min(GameConfig.getInstance().getBotSeats(), MAXIMUM_PLAYERS) - this.handlers.size());
 
-        this.matchControllerDaemon = new Thread(matchController);
-
-        this.matchController.setDaemon(this.matchControllerDaemon);
+        this.matchController = new MatchController(this.handlers, this, bots);
 
         this.matchController.addObserver(this);
 
         //Inform the players that the match started
         this.notifyAll(new LobbyNotification(LobbyNotificationType.MatchStart, "The match is starting..."));
 
+        for (LobbyObserver o : this.observers) {
+
+            o.onMatchStart(this);
+
+        }
+
+        this.launchMatchController();
+
+    }
+
+    /**
+     * Runs the match controller as configured: on its own thread or on the pool shared by the matches
+     */
+    protected void launchMatchController() {
+
+        if (GameConfig.getInstance().getMatchExecutionMode() == MatchExecutionMode.EventLoop) {
+
+            this.matchController.startEventLoop();
+
+            return;
+
+        }
+
+        this.matchControllerDaemon = Threads.newThread(matchController, "MatchController " + this.toString());
+
+        this.matchController.setDaemon(this.matchControllerDaemon);
+
         this.matchControllerDaemon.start();
 
     }
@@ -346,6 +362,8 @@ public class Lobby implements MatchControllerObserver, Observable<LobbyObserver>
      */
     public void destroy() {
 
+        this.closed = true;
+
         if (this.matchController != null) {
 
             Logger.log(Level.FINEST, this.toString(), "Destroying match controller..");
@@ -412,7 +430,7 @@ public class Lobby implements MatchControllerObserver, Observable<LobbyObserver>
 
     }
 
-    protected String getConnectedClients() {
+    protected synchronized String getConnectedClients() {
 
         StringBuilder b = new StringBuilder();
 
@@ -6,4 +6,6 @@ public interface LobbyObserver {
 
     void onDestroyRequest(Lobby lobby);
 
+    void onMatchStart(Lobby lobby);
+
 }
@@ -13,6 +13,7 @@ import netobject.notification.LobbyNotification;
 import netobject.notification.LobbyNotificationType;
 import netobject.notification.MatchNotification;
 import netobject.notification.MatchNotificationType;
+import netobject.notification.ModelSyncNotification;
 import server.controller.network.ClientHandler;
 import server.model.*;
 import server.model.board.*;
@@ -20,19 +21,32 @@ import server.model.card.Deck;
 import server.model.card.ban.*;
 import server.model.card.developement.*;
 import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
+import server.model.delta.MatchDeltaTracker;
 import server.model.effect.*;
 import server.model.effect.ActionType;
+import server.model.journal.JournalEntry;
+import server.model.journal.MatchJournal;
 import server.model.valuable.*;
+import server.simulation.MctsPolicy;
+import server.simulation.PolicyPlayer;
 import server.utility.BoardConfigParser;
 import server.utility.BonusTilesParser;
-import singleton.Database;
 import singleton.GameConfig;
+import singleton.Scheduler;
+import singleton.SnapshotWriter;
 import server.controller.network.Observable;
 
-import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static server.utility.BoardConfigParser.getVictoryBonusFromRanking;
 
@@ -57,6 +71,11 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
      */
     private Match match;
 
+    /**
+     * Tracks the model revisions to send the players only what changed
+     */
+    private MatchDeltaTracker modelTracker;
+
     /**
      * The instance of the board controller
      */
@@ -80,7 +99,7 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
     /**
      * Timeout for the Action
      */
-    private Timer currentPlayerTimeout;
+    private ScheduledFuture<?> currentPlayerTimeout;
 
     /**
      * The thread on which the controller is running
@@ -109,16 +128,115 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
     private boolean backupEnabled = false;
 
+    /**
+     * The journal of the actions taken since the last snapshot
+     */
+    private MatchJournal journal;
+
     /**
      * avoid problems if the match is nearly restored
      */
     private boolean restored = false;
 
+    /**
+     * The stages of the match flow, the state machine moves through them as the players act
+     */
+    private enum Stage {
+
+        Start,
+        LeaderCardDraft,
+        BonusTileDraft,
+        Rounds,
+        PlayerTurn,
+        VaticanReport,
+        Ended
+
+    }
+
+    /**
+     * The current stage
+     */
+    private Stage stage = Stage.Start;
+
+    /**
+     * The state of the leader card draft: who drafts, the decks, the step and how many drafted in the current step
+     */
+    private ArrayList<Player> enabledToDraft;
+    private TreeMap<String, Deck<LeaderCard>> draftingMap;
+    private int draftStep;
+    private int drafted;
+
+    /**
+     * The state of the bonus tile draft: the tiles left and the index of the player who is choosing
+     */
+    private ArrayList<BonusTile> bonusTileSet;
+    private int bonusTileIndex;
+
+    /**
+     * The players that still have to play the current round
+     */
+    private Iterator<Player> roundPlayers;
+
+    /**
+     * The action that terminated the round of the current player, while he decides whether to get banned
+     */
+    private Action pendingTermination;
+
+    /**
+     * The poisonous action of the pending timeout, any other one comes from a timeout already cleared
+     */
+    private volatile Action expectedTimeout;
+
+    /**
+     * Whether or not the controller is driven by the shared pool instead of its own thread
+     */
+    private volatile boolean eventLoop = false;
+
+    /**
+     * Whether or not the controller is scheduled on the shared pool
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * The amount of players whose observers are not ready yet, event loop mode only
+     */
+    private int pendingObservers;
+
+    /**
+     * Whether or not the match is simulated: in-process players, no timers, nothing persisted, see simulate()
+     */
+    private boolean headless = false;
+
+    /**
+     * Status variable
+     */
+    private volatile boolean destroyed = false;
+
+    /**
+     * The pool shared by the matches in event loop mode
+     */
+    private static ForkJoinPool eventLoopPool;
+
+    /**
+     * The threads the bots think on, shared by the matches
+     */
+    private static ExecutorService botPool;
+
+    /**
+     * The waits for a nested choice that the shared pool may make up for with a new thread, see takeAction()
+     */
+    private static Semaphore compensatedWaits;
+
 
     /**
      * Constants
      */
     private static final int ACTION_TIMEOUT =  GameConfig.getInstance().getPlayerTimeout();
+    private static final int LEADER_CARDS_PER_DECK = 4;
+    private static final int DEFAULT_BONUS_TILE = 0;
+
+    //How many nested choices per pool thread may be awaited at once before the waits stop being compensated
+    private static final int COMPENSATED_WAITS_PER_THREAD = 4;
 
     /**
      * This is the match controller constructor (when we start a new game).
@@ -127,6 +245,18 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
      */
     public MatchController(ArrayList<ClientHandler> handlers, Lobby lobby) {
 
+        this(handlers, lobby, 0);
+
+    }
+
+    /**
+     * This is the match controller constructor (when we start a new game with some seats filled by bots).
+     * It is called only by the lobby itself when the match starts
+     * @param handlers the handlers of the model players
+     * @param bots the number of bots that join the players
+     */
+    public MatchController(ArrayList<ClientHandler> handlers, Lobby lobby, int bots) {
+
         //Set the lobby
         this.lobby = lobby;
 
@@ -154,6 +284,19 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
         }
 
+        //The bots sit after the players, under names that no user can register
+        for (int seat = 1; seat <= bots; seat++) {
+
+            String username = Player.BOT_PREFIX + seat;
+
+            Player player = new Player(username);
+
+            this.remotePlayerMap.put(player, this.createBot(username));
+
+            players.add(player);
+
+        }
+
         /*
          * Gives the proper resources to the players
          * Order matters and follows game rules
@@ -167,11 +310,15 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
          */
         this.match = new Match(players);
 
+        this.modelTracker = new MatchDeltaTracker(this.match.getRevision());
+
+        this.journal = MatchJournal.create(this.match.getMatch_id());
+
         /*
          * Assign the board controller
          * Keep in mind that match.board must be initialized at this time
          */
-        this.boardController = new BoardController(this.match.getBoard());
+        this.boardController = new BoardController(this.match.getBoard(), this.match.getSeed());
 
         /*
          * Initialize the blocking queue for the actions
@@ -185,6 +332,19 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
         //Make sure that the match has already been initialized here!
         roundIterator = new RoundIterator(this.match);
 
+        //The bots are ready as soon as they know their match
+        for (Map.Entry<Player, RemotePlayer> remote : this.remotePlayerMap.entrySet()) {
+
+            if (remote.getValue() instanceof PolicyPlayer) {
+
+                this.attachBot((PolicyPlayer) remote.getValue());
+
+                this.readyObservers.add(ObserverType.RemotePlayer);
+
+            }
+
+        }
+
         //Init anything else in the future here..
 
     }
@@ -193,8 +353,10 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
      * This is the match controller constructor (when we start a preexisting game).
      * It is called only by the lobby itself when the match starts
      * @param handlers the handlers of the model players
+     * @param match the latest snapshot of the match
+     * @param journal the journal of the actions taken after the snapshot, replayed once the turn resumes
      */
-    public MatchController(ArrayList<ClientHandler> handlers, Lobby lobby, Match match) {
+    public MatchController(ArrayList<ClientHandler> handlers, Lobby lobby, Match match, MatchJournal journal) {
 
         //Set the lobby
         this.lobby = lobby;
@@ -235,13 +397,20 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
          */
         this.match = match;
 
+        this.modelTracker = new MatchDeltaTracker(this.match.getRevision());
+
+        this.journal = journal;
+
+        //A persisted match was already past its first turn
+        this.backupEnabled = true;
+
         this.context = MatchControllerContext.PeristenceResume;
 
         /*
          * Assign the board controller
          * Keep in mind that match.board must be initialized at this time
          */
-        this.boardController = new BoardController(this.match.getBoard());
+        this.boardController = new BoardController(this.match.getBoard(), this.match.getSeed());
 
         /*
          * Initialize the blocking queue for the actions
@@ -294,652 +463,1586 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
         }
 
-    }
+        //The bots never reconnect, the lobby waited for the players only and new bots take the seats that are left
+        for (Player player : this.match.getPlayers()) {
 
-    /**
-     * costruttore temporaneo usato solo per testare le classi
-     * @param players
-     */
-    public MatchController(ArrayList<Player> players,Integer xx) {
+            if (!this.remotePlayerMap.containsKey(player)) {
 
-        /*
-         * First up, create the model for the current match.
-         * Note that this call will trigger every constructor in the model
-         * The players are always provided
-         */
-        this.match = new Match(players);
+                PolicyPlayer bot = this.createBot(player.getUsername());
 
+                player.setDisabled(false);
 
-        /*
-         * Assign the board controller
-         * Keep in mind that match.board must be initialized at this time
-         */
-        this.boardController = new BoardController(this.match.getBoard());
+                this.remotePlayerMap.put(player, bot);
 
-        this.match.getBoard().getCathedral().setBanCard(Period.first, new SpecialBanCard(1, Period.first.toInt(), SpecialEffectType.noFirstAction));
-        this.match.getBoard().getCathedral().setBanCard(Period.second, new SpecialBanCard(2, Period.second.toInt(), SpecialEffectType.noFirstAction));
-        this.match.getBoard().getCathedral().setBanCard(Period.third, new SpecialBanCard(3, Period.third.toInt(), SpecialEffectType.noFirstAction));
+                this.attachBot(bot);
 
-        //Init anything else in the future here..
+                this.readyObservers.add(ObserverType.RemotePlayer);
+
+            }
+
+        }
 
     }
 
     /**
-     * The run method is the Runnable implementation of the match controller
-     * Every match controller requires its own thread
-     * This because it should be able to wait (literally) for the players to perform an Action/choice
-     *
-     * When this method is called (using a thread.start()) it automatically set up a timeout for the player move.
+     * This is the match controller constructor for the headless simulations.
+     * The players are in-process remote players that answer on the calling thread, the match is neither timed nor persisted.
+     * @param remotes the remote players by username, in seat order
+     * @param seed the seed of the match
      */
-    public void run() {
+    public MatchController(LinkedHashMap<String, RemotePlayer> remotes, long seed) {
 
-        //Wait fot CLI / GUI to fully load their observers..
-        this.waitUntilPlayerObserversAreSet();
-
-        if (this.context == null || this.context != MatchControllerContext.PeristenceResume) {
-
-            //Draft the leader cards first
-            this.context = MatchControllerContext.LeaderCardDraft;
-            this.handleLeaderCardDraft();
-
-            //Draft the bonus tiles
-            this.context = MatchControllerContext.BonusTileDraft;
-            this.handleBonusTileDrat();
+        this.headless = true;
 
-        }
+        this.remotePlayerMap = new LinkedHashMap<>();
 
-        //We are now going to play
-        this.context = MatchControllerContext.Playing;
+        this.observers = new ArrayList<>();
 
-        while (roundIterator.hasNext()) {
+        ArrayList<Player> players = new ArrayList<>();
 
+        for (Map.Entry<String, RemotePlayer> remote : remotes.entrySet()) {
 
-            //Obtain the next round
-            Queue<Player> currentRound = roundIterator.next();
+            Player player = new Player(remote.getKey());
 
-            if (this.match.getCurrentRound() == 1 && !restored) {
+            this.remotePlayerMap.put(player, remote.getValue());
 
-                this.notifyAllOfNewOrder();
+            players.add(player);
 
-                //we have to pull dices another time
-                this.boardController.cleanDices();
+        }
 
-                //Update the towers for the current combination of round / turn / period
-                this.boardController.updateTowersForTurn(this.match.getCurrentPeriod().toInt(), this.match.getCurrentTurn());
+        this.initPlayerResource(players);
 
-                //clean the council palace place
-                this.boardController.cleanCouncilPalace();
+        this.match = new Match(players, seed, false);
 
-                //clean the market place
-                this.boardController.cleanMarket();
+        this.modelTracker = new MatchDeltaTracker(this.match.getRevision());
 
-                //clean the harvest area
-                this.boardController.cleanHarvestArea();
+        this.journal = MatchJournal.create(this.match.getMatch_id());
 
-                //clean the production area
-                this.boardController.cleanProductionArea();
+        this.boardController = new BoardController(this.match.getBoard(), this.match.getSeed());
 
-                for(Player player : this.getMatch().getPlayers()){
-                    player.getTurnActiveLeaderCard().clear();
-                }
+        this.actions = new LinkedBlockingQueue<>(players.size());
 
-                //Free family members for each player
-                for (Player player:this.getMatch().getPlayers()) {
+        this.readyObservers = new LinkedBlockingQueue<>(players.size());
 
-                    player.freeFamilyMembers();
+        this.roundIterator = new RoundIterator(this.match);
 
-                }
+    }
 
-            }
-            if(restored)
-              restored = false;
+    /**
+     * This is the match controller constructor for the headless simulations that go on from a copy of a match, such as the rollouts of a search.
+     * The match resumes at the beginning of the turn of its current player, like a persisted one.
+     * The decks and the dices to come are drawn from the given seed, so that whoever simulates does not peek at the real ones.
+     * @param remotes the remote players by username
+     * @param match the copy of the match, which gets played
+     * @param seed the seed of whatever is still to be drawn
+     */
+    public MatchController(LinkedHashMap<String, RemotePlayer> remotes, Match match, long seed) {
 
+        this.headless = true;
 
-            Logger.log(Level.FINEST, this.toString(), "New round started (Period = " +this.match.getCurrentPeriod() + " - Turn = " + this.match.getCurrentTurn() + " - Round = " +this.match.getCurrentRound() + ")");
+        this.remotePlayerMap = new LinkedHashMap<>();
 
-            //Foreach round handle the current player
-            for (Player p : currentRound) {
+        this.observers = new ArrayList<>();
 
-                //Skip each disabled player
-                if (p.isDisabled()) {
+        for (Player player : match.getPlayers()) {
 
-                    Logger.log(Level.FINEST, this.toString(), "Skipping player " + p.getUsername() +" because he is disabled");
+            this.remotePlayerMap.put(player, remotes.get(player.getUsername()));
 
-                    continue;
-                }
+        }
 
-                this.handlePlayerRound(p);
+        this.match = match;
 
-            }
+        this.match.getRandom().setSeed(seed);
 
-        }
+        this.modelTracker = new MatchDeltaTracker(this.match.getRevision());
 
+        this.journal = MatchJournal.create(this.match.getMatch_id());
 
-        if (!roundIterator.hasNext()) {
+        this.context = MatchControllerContext.PeristenceResume;
 
-            if (this.match.getCurrentPeriod() == Period.third && this.match.getCurrentTurn() == 2 && this.match.getCurrentRound() == 4) {
+        //The new decks come with new ban cards, but the ones on the cathedral are known to everybody
+        HashMap<Period, BanCard> banCards = new HashMap<>();
 
-                this.notifyAllMatchEnded(createFinalStanding(), createFinalStanding().toNotification());
+        for (Period period : Period.values()) {
 
-                //The match has ended, notify the players!
-                endDatabaseMatch();
+            if (this.match.getBoard().getCathedral().getBanCard(period) != null) {
 
-                Logger.log(Level.FINEST, this.toString(), "Match ended.");
+                banCards.put(period, this.match.getBoard().getCathedral().getBanCard(period));
 
             }
 
         }
-        else {
 
-            Logger.log(Level.FINEST, this.toString(), "Match interrupted.");
+        this.boardController = new BoardController(this.match.getBoard(), seed);
+
+        for (Map.Entry<Period, BanCard> banCard : banCards.entrySet()) {
 
+            this.match.getBoard().getCathedral().setBanCard(banCard.getKey(), banCard.getValue());
 
         }
 
-        for (MatchControllerObserver o : this.observers) {
+        this.actions = new LinkedBlockingQueue<>(match.getPlayers().size());
 
-            o.onMatchEnded();
+        this.readyObservers = new LinkedBlockingQueue<>(match.getPlayers().size());
 
-        }
+        this.currentPlayer = this.match.getCurrentPlayer();
+
+        this.roundIterator = new PersistenceRoundIterator(this.match, this.currentPlayer);
+
+        //The board of the current round is already set up
+        this.restored = true;
 
     }
 
     /**
-     * Suspends the thread until the players are ready to receive events
+     * costruttore temporaneo usato solo per testare le classi
+     * @param players
      */
-    private void waitUntilPlayerObserversAreSet() {
+    public MatchController(ArrayList<Player> players,Integer xx) {
 
-        int notReady = this.match.getPlayers().size();
+        /*
+         * First up, create the model for the current match.
+         * Note that this call will trigger every constructor in the model
+         * The players are always provided
+         */
+        this.match = new Match(players);
 
+        this.modelTracker = new MatchDeltaTracker(this.match.getRevision());
 
-        Logger.log(Level.FINEST, this.toString(), "Waiting for " + this.match.getPlayers().size() + " players to load their GUI / CLI");
+        this.journal = MatchJournal.create(this.match.getMatch_id());
 
 
-        for (Player p : this.match.getPlayers()) {
+        /*
+         * Assign the board controller
+         * Keep in mind that match.board must be initialized at this time
+         */
+        this.boardController = new BoardController(this.match.getBoard(), this.match.getSeed());
 
-            try {
+        this.match.getBoard().getCathedral().setBanCard(Period.first, new SpecialBanCard(1, Period.first.toInt(), SpecialEffectType.noFirstAction));
+        this.match.getBoard().getCathedral().setBanCard(Period.second, new SpecialBanCard(2, Period.second.toInt(), SpecialEffectType.noFirstAction));
+        this.match.getBoard().getCathedral().setBanCard(Period.third, new SpecialBanCard(3, Period.third.toInt(), SpecialEffectType.noFirstAction));
 
-                this.readyObservers.take();
+        //Init anything else in the future here..
 
-                notReady--;
+    }
 
-                Logger.log(Level.FINEST, this.toString(), "A player is ready.. " + notReady + " more to go.");
+    /**
+     * The run method is the Runnable implementation of the match controller, used in thread mode.
+     * The thread waits (literally) for the players to perform an Action/choice and feeds the state machine with it.
+     * In event loop mode the very same state machine is driven by the shared pool instead, see startEventLoop().
+     *
+     * Every time the machine waits for a player it automatically sets up a timeout for the player move.
+     */
+    public void run() {
+
+        //Wait fot CLI / GUI to fully load their observers..
+        this.waitUntilPlayerObserversAreSet();
+
+        this.advance(null);
+
+        while (this.stage != Stage.Ended && !this.destroyed) {
+
+            Action action;
+
+            try {
 
+                action = this.takeAction();
 
             } catch (InterruptedException e) {
 
-                Logger.log(Level.WARNING, this.toString(), "Thread interrupted while waiting for observers ready");
+                Logger.log(Level.WARNING, this.toString(), "Thread stopped while waiting on action queue", e);
+
+                continue;
 
             }
 
+            this.advance(action);
+
         }
 
     }
 
     /**
-     * Removes a player while playing
-     * @param handler the handler of the player that have left
+     * Plays a headless match to its end on the calling thread.
+     * The remote players answer each request right away by dispatching their action, which is then fed to the state machine.
+     * A player that does not answer is treated as if his timeout expired.
      */
-    public void removePlayer(ClientHandler handler) throws NoSuchPlayerException {
+    public void simulate() {
 
-        //Find the player
-        Player belonging = this.match.getPlayerFromUsername(handler.getUsername());
+        this.advance(null);
 
-        Logger.log(Level.FINEST, this.toString(), "Disabling player " + belonging.getUsername());
+        while (this.stage != Stage.Ended && !this.destroyed) {
 
-        //Disable the player
-        belonging.setDisabled(true);
+            Action action = this.actions.poll();
 
-        //The first thing to do is check if the player has the current turn
-        //If so we need to insert a poisonous action to stop his handling
-        //Of course the current player should be set (aka not drafting)
-        if (this.context != MatchControllerContext.Playing) {
+            if (action == null) {
 
-            //We are still drafting either the leader cards or the tiles
-            //Inset an empty action to avoid a deadlock in the draft system
-            this.actions.add(new Action());
+                //Nobody answered, there is no timer to wait for
+                action = new Action();
 
-        }
-        else if (belonging.getUsername().equals(this.currentPlayer.getUsername())) {
+            }
 
-            //Inset an empty action to trigger the exception that will disable the player
-            this.actions.add(new Action());
+            this.advance(action);
 
         }
 
-        //Then we can remove the map reference
-        this.remotePlayerMap.remove(belonging);
+    }
 
-        this.notifyAll("Player " + belonging.getUsername() + " left the match");
+    /**
+     * Starts the match on the pool shared by the matches, instead of a dedicated thread.
+     * Every ready observer and every action schedules the controller, which runs until it needs the next input and then gives the thread back
+     */
+    public void startEventLoop() {
 
-        Logger.log(Level.FINEST, this.toString(), "Player " + belonging.getUsername() + " left the match");
+        this.pendingObservers = this.match.getPlayers().size();
+
+        this.eventLoop = true;
 
+        Logger.log(Level.FINEST, this.toString(), "Waiting for " + this.pendingObservers + " players to load their GUI / CLI");
+
+        this.scheduleEventLoop();
 
     }
 
     /**
-     * Re adds a player that had left before
-     * @param handler the handler of that player
-     * @throws NoSuchPlayerException if the player does not exists (Should never occur)
+     * Tells the controller that a client loaded its observers
+     * @param observerType the type of the observer
      */
-    public void addPlayer(ClientHandler handler) throws NoSuchPlayerException {
-
-        //Find the player
-        Player belonging = this.match.getPlayerFromUsername(handler.getUsername());
+    public void onObserverReady(ObserverType observerType) {
 
-        //Re enable the player
-        belonging.setDisabled(false);
+        this.readyObservers.add(observerType);
 
-        Logger.log(Level.FINEST, this.toString(), "Player " + belonging.getUsername() + " re enabled");
+        if (this.eventLoop) {
 
-        //Re add the map entry
-        this.remotePlayerMap.put(belonging, handler);
+            this.scheduleEventLoop();
 
-        this.remotePlayerMap.get(belonging).notifyModelUpdate(this.match);
+        }
 
-        //If the players are playing
-        if (this.currentPlayer != null) {
+    }
 
-            handler.notifyTurnEnabled(this.currentPlayer,"It is " + this.currentPlayer.getUsername() + "'s turn!");
+    /**
+     * Schedules the controller on the shared pool, unless it is already scheduled
+     */
+    private void scheduleEventLoop() {
 
-        }
+        if (this.scheduled.compareAndSet(false, true)) {
 
-        this.notifyAll("Player " + belonging.getUsername() + " rejoined the match");
+            getEventLoop().execute(this::runEventLoop);
 
+        }
 
     }
 
-
     /**
-     * Handle the leader card draft
-     * Creates a number of draftable decks equal to the number of players
-     * It then sends every deck to the player and wait for any player to chose
-     * When all the players have selected one card, the draft takes places and the decks received from the nearby player are sent.
+     * Consumes every pending input, then gives the thread back to the pool
      */
-    private void handleLeaderCardDraft() {
+    private void runEventLoop() {
 
-        final int NUMBER_OF_CARDS_PER_DECK = 4;
+        try {
+
+            //Wait fot CLI / GUI to fully load their observers..
+            while (this.pendingObservers > 0 && this.readyObservers.poll() != null) {
+
+                this.pendingObservers--;
+
+                Logger.log(Level.FINEST, this.toString(), "A player is ready.. " + this.pendingObservers + " more to go.");
+
+            }
+
+            if (this.pendingObservers > 0) {
+
+                return;
+
+            }
+
+            if (this.stage == Stage.Start) {
+
+                this.advance(null);
+
+            }
+
+            Action action;
+
+            while (this.stage != Stage.Ended && !this.destroyed && (action = this.actions.poll()) != null) {
+
+                if (!this.isStaleTimeout(action)) {
+
+                    this.advance(action);
+
+                }
+
+            }
+
+        } catch (RuntimeException e) {
+
+            Logger.log(Level.SEVERE, this.toString(), "Exception while running the match", e);
+
+        } finally {
+
+            this.scheduled.set(false);
+
+            //Something might have arrived after the last poll
+            boolean pending = !this.actions.isEmpty() || (this.pendingObservers > 0 && !this.readyObservers.isEmpty());
+
+            if (pending && this.stage != Stage.Ended && !this.destroyed) {
+
+                this.scheduleEventLoop();
+
+            }
+
+        }
+
+    }
+
+    /**
+     * The bound on the compensated waits, created on first use.
+     * It is kept well below the spare threads a ForkJoinPool is willing to add, which refuses to block once they run out
+     * @return the semaphore
+     */
+    private static synchronized Semaphore getCompensatedWaits() {
+
+        if (compensatedWaits == null) {
+
+            compensatedWaits = new Semaphore(GameConfig.getInstance().getMatchThreads() * COMPENSATED_WAITS_PER_THREAD);
+
+        }
+
+        return compensatedWaits;
+
+    }
+
+    /**
+     * The pool shared by the matches in event loop mode, created on first use
+     * @return the pool
+     */
+    private static synchronized ForkJoinPool getEventLoop() {
+
+        if (eventLoopPool == null) {
+
+            //Async mode serves the scheduled matches in FIFO order
+            eventLoopPool = new ForkJoinPool(GameConfig.getInstance().getMatchThreads(), ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+
+        }
+
+        return eventLoopPool;
+
+    }
+
+    /**
+     * Feeds the state machine with an input and lets it run until it needs the next one.
+     * The stages are the drafts, the rounds, the turns and the vatican report.
+     * The immediate choices triggered by an action are not stages: they are asked in the middle of its effects and awaited in place, see takeAction()
+     * @param action the action received, null if the machine just has to move on
+     */
+    private void advance(Action action) {
+
+        //Whatever the input, the pending timeout is over
+        if (action != null) {
+
+            this.disarmTimeout();
+
+        }
+
+        boolean waiting = false;
+
+        while (!waiting && this.stage != Stage.Ended && !this.destroyed) {
+
+            switch (this.stage) {
+
+                case Start:
+                    waiting = this.stepStart();
+                    break;
+
+                case LeaderCardDraft:
+                    waiting = this.stepLeaderCardDraft(action);
+                    break;
+
+                case BonusTileDraft:
+                    waiting = this.stepBonusTileDraft(action);
+                    break;
+
+                case Rounds:
+                    waiting = this.stepRounds();
+                    break;
+
+                case PlayerTurn:
+                    waiting = this.stepPlayerTurn(action);
+                    break;
+
+                case VaticanReport:
+                    waiting = this.stepVaticanReport(action);
+                    break;
+
+                default:
+                    break;
+
+            }
+
+            //The input belongs to the stage that was waiting for it
+            action = null;
+
+        }
+
+    }
+
+    /**
+     * Picks the first stage, the drafts are skipped when resuming a match
+     * @return false, nothing to wait for
+     */
+    private boolean stepStart() {
+
+        if (this.context == null || this.context != MatchControllerContext.PeristenceResume) {
+
+            //Draft the leader cards first
+            this.context = MatchControllerContext.LeaderCardDraft;
+
+            this.stage = Stage.LeaderCardDraft;
+
+        }
+        else {
+
+            //We are now going to play
+            this.context = MatchControllerContext.Playing;
+
+            this.stage = Stage.Rounds;
+
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Suspends the thread until the players are ready to receive events
+     */
+    private void waitUntilPlayerObserversAreSet() {
+
+        int notReady = this.match.getPlayers().size();
+
+
+        Logger.log(Level.FINEST, this.toString(), "Waiting for " + this.match.getPlayers().size() + " players to load their GUI / CLI");
+
+
+        for (Player p : this.match.getPlayers()) {
+
+            try {
+
+                this.readyObservers.take();
+
+                notReady--;
+
+                Logger.log(Level.FINEST, this.toString(), "A player is ready.. " + notReady + " more to go.");
+
+
+            } catch (InterruptedException e) {
+
+                Logger.log(Level.WARNING, this.toString(), "Thread interrupted while waiting for observers ready");
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Removes a player while playing
+     * @param handler the handler of the player that have left
+     */
+    public void removePlayer(ClientHandler handler) throws NoSuchPlayerException {
+
+        //Find the player
+        Player belonging = this.match.getPlayerFromUsername(handler.getUsername());
+
+        if (this.canTakeOver()) {
+
+            Action timeout = this.expectedTimeout;
+
+            if (belonging == this.currentPlayer && timeout != null) {
+
+                //Expire his turn right away, the timeout hands him over to a bot
+                this.dispatchNewPlayerAction(timeout);
+
+            }
+            else {
+
+                this.takeOver(belonging);
+
+            }
+
+            this.notifyAll("Player " + belonging.getUsername() + " left the match");
+
+            return;
+
+        }
+
+        Logger.log(Level.FINEST, this.toString(), "Disabling player " + belonging.getUsername());
+
+        //Disable the player
+        belonging.setDisabled(true);
+
+        //The first thing to do is check if the player has the current turn
+        //If so we need to insert a poisonous action to stop his handling
+        //Of course the current player should be set (aka not drafting)
+        if (this.context != MatchControllerContext.Playing) {
+
+            //We are still drafting either the leader cards or the tiles
+            //Inset an empty action to avoid a deadlock in the draft system
+            this.actions.add(new Action());
+
+        }
+        else if (belonging.getUsername().equals(this.currentPlayer.getUsername())) {
+
+            //Inset an empty action to trigger the exception that will disable the player
+            this.actions.add(new Action());
+
+        }
+
+        //Then we can remove the map reference
+        this.remotePlayerMap.remove(belonging);
+
+        this.notifyAll("Player " + belonging.getUsername() + " left the match");
+
+        Logger.log(Level.FINEST, this.toString(), "Player " + belonging.getUsername() + " left the match");
+
+
+    }
+
+    /**
+     * Re adds a player that had left before
+     * @param handler the handler of that player
+     * @throws NoSuchPlayerException if the player does not exists (Should never occur)
+     */
+    public void addPlayer(ClientHandler handler) throws NoSuchPlayerException {
+
+        //Find the player
+        Player belonging = this.match.getPlayerFromUsername(handler.getUsername());
+
+        //Re enable the player
+        belonging.setDisabled(false);
+
+        Logger.log(Level.FINEST, this.toString(), "Player " + belonging.getUsername() + " re enabled");
+
+        //Re add the map entry
+        this.remotePlayerMap.put(belonging, handler);
+
+        //Whatever the player had is stale, start over from the whole model
+        this.modelTracker.forget(belonging.getUsername());
+
+        this.remotePlayerMap.get(belonging).notifyModelUpdate(this.match);
+
+        //If the players are playing
+        if (this.currentPlayer != null) {
+
+            handler.notifyTurnEnabled(this.currentPlayer,"It is " + this.currentPlayer.getUsername() + "'s turn!");
+
+        }
+
+        this.notifyAll("Player " + belonging.getUsername() + " rejoined the match");
+
+
+    }
+
+
+    /**
+     * Handle the leader card draft
+     * Creates a number of draftable decks equal to the number of players
+     * It then sends every deck to the player and wait for any player to chose
+     * When all the players have selected one card, the draft takes places and the decks received from the nearby player are sent.
+     * @param action the draft of a player, null when the stage begins
+     * @return true if waiting for a draft
+     */
+    private boolean stepLeaderCardDraft(Action action) {
+
+        if (this.draftingMap == null) {
+
+            this.dealLeaderCards();
+
+        }
+        else if (this.isTimeout(action)) {
+
+            //Detect who did not perform the move  (disconnected or timeout expired) and update enabledToDraft array
+            this.filterOutPlayers(this.enabledToDraft, this.match.getDisabledPlayers());
+
+        }
+        else if (action instanceof ShuffleLeaderCardStandardAction) {
+
+            this.applyLeaderCardDraft((ShuffleLeaderCardStandardAction) action);
+
+            //Increment to go on and get the action from a different player
+            this.drafted++;
+
+        }
+        else if (action != null) {
+
+            Logger.log(Level.WARNING, this.toString(), "Unexpected action while drafting leader cards: " + action.getType());
+
+        }
+
+        while (this.draftStep < LEADER_CARDS_PER_DECK) {
+
+            //Four times we need to wait until each active player performs his draft
+            if (this.drafted < this.enabledToDraft.size()) {
+
+                this.armTimeout(ACTION_TIMEOUT * 1000);
+
+                return true;
+
+            }
+
+            this.passLeaderCardDecks();
+
+            this.draftStep++;
+
+            this.drafted = 0;
+
+        }
+
+        this.enabledToDraft = null;
+
+        this.draftingMap = null;
+
+        //Draft the bonus tiles
+        this.context = MatchControllerContext.BonusTileDraft;
+
+        this.stage = Stage.BonusTileDraft;
+
+        return false;
+
+    }
+
+    /**
+     * Creates the draftable decks and sends them to the players
+     */
+    private void dealLeaderCards() {
 
         //The amount of players that can draft when we begin the process, this number may decrease if a player disconnects while drafting
-        ArrayList<Player> enabledToDraft = this.match.getActivePlayers();
+        this.enabledToDraft = this.match.getActivePlayers();
+
+        //Create a deck with all the 20 leader cards and shuffle it
+        Deck<LeaderCard> deck = new Deck<>(GameSingleton.getInstance().getLeaderCards()).shuffle(this.match.getRandom());
+
+        //Create a temporary map for each player username
+        this.draftingMap = new TreeMap<>();
+
+        this.draftStep = 0;
+
+        this.drafted = 0;
+
+        int i = 0;
+
+        //Create n sub decks, where n is the number of players
+        for (Player p : this.enabledToDraft) {
+
+            Deck<LeaderCard> draftableDeck = new Deck<>();
+
+            for (int j = 0; j < LEADER_CARDS_PER_DECK; j++) {
+
+                draftableDeck.addCard(deck.getCards().get((i * LEADER_CARDS_PER_DECK) + j));
+
+            }
+
+            this.draftingMap.put(p.getUsername(), draftableDeck);
+
+            //Tell the user the deck from which he can select a card
+            this.remotePlayerMap.get(p).notifyLeaderCardDraftRequest(draftableDeck, "Please select a leader card and draft");
+
+            Logger.log(Level.FINEST, this.toString(), "Sending draftable deck to " + p.getUsername());
+
+            i++;
+
+        }
+
+    }
+
+    /**
+     * Assigns the card selected by a player
+     * @param shuffleAction the draft of the player
+     */
+    private void applyLeaderCardDraft(ShuffleLeaderCardStandardAction shuffleAction) {
+
+        //Get the selected card, DEBUG ONLY
+        LeaderCard selected = shuffleAction.getDeck().getCards().get(shuffleAction.getSelection());
+
+        //Find the player in the map and remove
+        this.draftingMap.get(shuffleAction.getSender()).removeCard(shuffleAction.getSelection());
+
+        //Add the selected card to the leader cards of the player
+        try {
+
+            this.match.getPlayerFromUsername(shuffleAction.getSender()).addLeaderCard(GameSingleton.getInstance().getSpecificLeaderCard(selected.getId()));
+
+            this.notifyAllActionPerformed(this.match.getPlayerFromUsername(shuffleAction.getSender()), shuffleAction, shuffleAction.getSender() + " drafted his leader cards, he selected '" + selected.getName() + "'");
+
+
+        } catch (NoSuchPlayerException e) {
+
+            Logger.log(Level.FINEST, this.toString(), "Can't find player!", e);
+
+        }
+
+        Logger.log(Level.FINEST, this.toString(), "Leader draft, step " + (this.draftStep + 1) + ", " + shuffleAction.getSender() + " selected '" + selected.getName() + "'");
+
+    }
+
+    /**
+     * Passes every deck to the nearby player once everyone drafted
+     */
+    private void passLeaderCardDecks() {
+
+        Deck<LeaderCard> first = null;
+
+        //Set the deck of each player to the deck of the previous one
+        for (Map.Entry<String , Deck<LeaderCard>> e : this.draftingMap.entrySet()) {
+
+            if (e.getKey().equals(this.draftingMap.firstEntry().getKey())) {
+
+                first = e.getValue();
+
+            }
+
+            if (e.getKey().equals(this.draftingMap.lastEntry().getKey())) {
+
+                e.setValue(first);
+
+            }
+
+            else {
+
+                e.setValue(this.draftingMap.higherEntry(e.getKey()).getValue());
+
+            }
+
+        }
+
+        //Send again the drafted decks
+        for (Player p : this.enabledToDraft) {
+
+            if (!p.isDisabled()) {
+
+                Deck<LeaderCard> draftable = this.draftingMap.get(p.getUsername());
+                this.remotePlayerMap.get(p).notifyLeaderCardDraftRequest(draftable, "Please select a leader card and draft");
+            }
+
+        }
+
+    }
+
+
+    /**
+     * Handles the draft of the bonus tiles, asking each player beginning from the last one
+     * @param action the selection of the player, null when the stage begins
+     * @return true if waiting for a selection
+     */
+    private boolean stepBonusTileDraft(Action action) {
+
+        if (this.bonusTileSet == null) {
+
+            //Get the bonus tile array directly from the parser
+            this.bonusTileSet = BonusTilesParser.parse();
+
+            this.bonusTileIndex = this.match.getActivePlayers().size() - 1;
+
+            this.notifyAll("The bonus tiles are being drafted, please wait for your turn.");
+
+        }
+        else if (action != null) {
+
+            if (this.isTimeout(action) || !(action instanceof ShuffleBonusTileStandardAction)) {
+
+                //If we don't get any selection from the player, then select the first tile available in the set
+                this.match.getPlayers().get(this.bonusTileIndex).getPersonalBoard().setBonusTile(this.bonusTileSet.get(DEFAULT_BONUS_TILE));
+
+                //Then remove it
+                this.bonusTileSet.remove(DEFAULT_BONUS_TILE);
+
+            }
+            else {
+
+                this.applyBonusTileDraft((ShuffleBonusTileStandardAction) action);
 
-        //Create a deck with all the 20 leader cards and shuffle it
-        Deck<LeaderCard> deck = new Deck<>(GameSingleton.getInstance().getLeaderCards()).shuffle();
+            }
 
-        //Create a temporary map for each player username
-        TreeMap<String, Deck<LeaderCard>> draftingMap = new TreeMap<>();
+            this.bonusTileIndex--;
 
-        int i = 0;
+        }
 
-        //Create n sub decks, where n is the number of players
-        for (Player p : enabledToDraft) {
+        for (; this.bonusTileIndex >= 0; this.bonusTileIndex--) {
 
-            Deck<LeaderCard> draftableDeck = new Deck<>();
+            Player curr = this.match.getPlayers().get(this.bonusTileIndex);
+
+            //If the player is disabled he can't make any move
+            if (curr.isDisabled()) {
 
-            for (int j = 0; j < NUMBER_OF_CARDS_PER_DECK; j++) {
+                //If we don't get any selection from the player, then select the first tile available in the set
+                curr.getPersonalBoard().setBonusTile(this.bonusTileSet.get(DEFAULT_BONUS_TILE));
 
-                draftableDeck.addCard(deck.getCards().get((i * NUMBER_OF_CARDS_PER_DECK) + j));
+                continue;
 
             }
 
-            draftingMap.put(p.getUsername(), draftableDeck);
+            //Send a request to each player and wait for a response
+            this.remotePlayerMap.get(curr).notifyBonusTileDraftRequest(this.bonusTileSet, "Please select a bonus tile. BEBUG: The size of the tiles is " + this.bonusTileSet.size());
 
-            //Tell the user the deck from which he can select a card
-            this.remotePlayerMap.get(p).notifyLeaderCardDraftRequest(draftableDeck, "Please select a leader card and draft");
+            Logger.log(Level.FINEST, this.toString(), "Sending draftable bonus tiles to " + curr.getUsername());
 
-            Logger.log(Level.FINEST, this.toString(), "Sending draftable deck to " + p.getUsername());
+            this.armTimeout(ACTION_TIMEOUT * 1000);
 
-            i++;
+            return true;
+
+        }
+
+        this.bonusTileSet = null;
+
+        //We are now going to play
+        this.context = MatchControllerContext.Playing;
+
+        this.stage = Stage.Rounds;
+
+        return false;
+
+    }
+
+    /**
+     * Assigns the tile selected by a player
+     * @param shuffleAction the selection of the player
+     */
+    private void applyBonusTileDraft(ShuffleBonusTileStandardAction shuffleAction) {
+
+        BonusTile selected = this.bonusTileSet.get(shuffleAction.getSelection());
+
+        //Assign the selected tile
+        this.match.getPlayers().get(this.bonusTileIndex).getPersonalBoard().setBonusTile(selected);
+
+        //Once we get the selection, remove the proper tile from the set
+        this.bonusTileSet.remove(shuffleAction.getSelection());
+
+        try {
+
+            this.notifyAllActionPerformed(this.match.getPlayerFromUsername(shuffleAction.getSender()), shuffleAction, shuffleAction.getSender() + " selected his tile: #" + selected.getId());
+
+        }
+        catch (NoSuchPlayerException e) {
+
+            Logger.log(Level.FINEST, this.toString(), "Can't find player!", e);
+
+        }
+
+    }
+
+    /**
+     * Moves on to the next player that can play, beginning a new round when the current one is over
+     * @return true if waiting for the action of a player, false once the match is over
+     */
+    private boolean stepRounds() {
+
+        while (true) {
+
+            if (this.roundPlayers == null || !this.roundPlayers.hasNext()) {
+
+                if (!this.roundIterator.hasNext()) {
+
+                    this.stage = Stage.Ended;
+
+                    this.handleMatchEnd();
+
+                    return false;
+
+                }
+
+                //Obtain the next round, which might have nobody left to play
+                this.beginRound(this.roundIterator.next());
+
+                continue;
+
+            }
+
+            Player p = this.roundPlayers.next();
+
+            //Skip each disabled player
+            if (p.isDisabled()) {
+
+                Logger.log(Level.FINEST, this.toString(), "Skipping player " + p.getUsername() +" because he is disabled");
+
+                continue;
+
+            }
+
+            this.beginPlayerRound(p);
+
+            if (this.journal.isReplaying()) {
+
+                this.replayJournal();
+
+            }
+
+            this.stage = Stage.PlayerTurn;
+
+            this.armTimeout(ACTION_TIMEOUT * 1000);
+
+            return true;
+
+        }
+
+    }
+
+    /**
+     * Prepares the board for a new round
+     * @param currentRound the players of the round, in order
+     */
+    private void beginRound(Queue<Player> currentRound) {
+
+        if (this.match.getCurrentRound() == 1 && !restored) {
+
+            this.notifyAllOfNewOrder();
+
+            //we have to pull dices another time
+            this.boardController.cleanDices();
+
+            //Update the towers for the current combination of round / turn / period
+            this.boardController.updateTowersForTurn(this.match.getCurrentPeriod().toInt(), this.match.getCurrentTurn());
+
+            //clean the council palace place
+            this.boardController.cleanCouncilPalace();
+
+            //clean the market place
+            this.boardController.cleanMarket();
+
+            //clean the harvest area
+            this.boardController.cleanHarvestArea();
+
+            //clean the production area
+            this.boardController.cleanProductionArea();
+
+            for(Player player : this.getMatch().getPlayers()){
+                player.getTurnActiveLeaderCard().clear();
+            }
+
+            //Free family members for each player
+            for (Player player:this.getMatch().getPlayers()) {
+
+                player.freeFamilyMembers();
+
+            }
+
+        }
+        if(restored)
+          restored = false;
+
+
+        Logger.log(Level.FINEST, this.toString(), "New round started (Period = " +this.match.getCurrentPeriod() + " - Turn = " + this.match.getCurrentTurn() + " - Round = " +this.match.getCurrentRound() + ")");
+
+        //Foreach round handle the current player
+        this.roundPlayers = currentRound.iterator();
+
+    }
+
+    /**
+     * Notifies the end of the match, or its interruption, to the players and the observers
+     */
+    private void handleMatchEnd() {
+
+        if (this.match.getCurrentPeriod() == Period.third && this.match.getCurrentTurn() == 2 && this.match.getCurrentRound() == 4) {
+
+            this.notifyAllMatchEnded(createFinalStanding(), createFinalStanding().toNotification());
+
+            //The match has ended, notify the players!
+            endDatabaseMatch();
+
+            Logger.log(Level.FINEST, this.toString(), "Match ended.");
+
+        }
+        else {
+
+            Logger.log(Level.FINEST, this.toString(), "Match interrupted.");
+
+
+        }
+
+        for (MatchControllerObserver o : this.observers) {
+
+            o.onMatchEnded();
+
+        }
+
+    }
+
+    /**
+     * Begins a player round.
+     * @param player the player
+     */
+    private void beginPlayerRound(Player player) {
+
+        //Update the current player
+        this.currentPlayer = player;
+
+        //Useful to save it also in the model
+        this.match.updateCurrentPlayer(currentPlayer);
+
+        //While replaying the snapshot would lag behind the journal it claims to include
+        if (backupEnabled && !this.journal.isReplaying()) {
+            //Save it in order to avoid two consecutive actions for a player that has just terminate his round
+            this.save();
+        }
+
+
+        Logger.log(Level.FINEST, this.toString(), "It is " + this.currentPlayer.getUsername() + "'s turn!");
+
+
+        //Notify the turn of the player
+        this.notifyAllTurnEnabled(this.currentPlayer);
+
+    }
+
+    /**
+     * Handles an action of the player whose turn it is.
+     * @param action the action, or the expired timeout
+     * @return true if waiting for the next action of the player, false once his round is over
+     */
+    private boolean stepPlayerTurn(Action action) {
+
+        if (this.isTimeout(action)) {
+
+            Logger.log(Level.FINEST, this.toString(), "Action timeout expired for player " + this.currentPlayer.getUsername());
+
+            this.handleActionTimeoutExpiration();
+
+            this.stage = Stage.Rounds;
+
+            return false;
+
+        }
+
+        try {
+
+            if (action instanceof TerminateRoundStandardAction) {
+
+                Logger.log(Level.FINEST, this.toString(), "The player " + this.currentPlayer.getUsername() + " terminated his round");
+
+                //If its time to choose whether or not to get banned ask the player before his round finishes
+                if (this.match.getCurrentRound() == 4 && this.match.getCurrentTurn() == 2 && this.handleVaticanReport(this.currentPlayer)) {
+
+                    this.pendingTermination = action;
+
+                    this.stage = Stage.VaticanReport;
+
+                    this.armTimeout(ACTION_TIMEOUT * 1000);
+
+                    return true;
+
+                }
+
+                this.terminateRound(action);
+
+                return false;
+
+            }
+            else {
+
+                Logger.log(Level.FINEST, this.toString(), "Parsing action request for player " + this.currentPlayer.getUsername());
+
+
+                //Journal the action before handling it, the choices and dice rolls it triggers follow it
+                this.appendToJournal(JournalEntry.playerAction(action));
+
+                try {
+
+                    //Handler the player action
+                    String status = this.handlePlayerAction(this.currentPlayer, action);
+
+                    //Update the model
+                    this.sendUpdatedModel();
+
+
+                    //If we get here without exceptions we can notify of the succeeded action
+                    this.notifyAllActionPerformed(this.currentPlayer, action, status);
+
+                }
+                catch (ActionException reason) {
+
+                    //Inform the player that he can't take that action
+                    this.remotePlayerMap.get(this.currentPlayer).notifyActionRefused(action, GameMessage.InvalidAction.getLiteral() + " Reason: " + reason.getMessage());
+
+                }
+
+            }
+
+
+        } catch (NoActionPerformedException e) {
+
+            Logger.log(Level.FINEST, this.toString(), "Action timeout expired for player " + this.currentPlayer.getUsername());
+
+            this.handleActionTimeoutExpiration();
+
+            this.stage = Stage.Rounds;
+
+            return false;
+
+
+        } catch (InterruptedException e) {
+
+            Logger.log(Level.WARNING, this.toString(), "Thread stopped while waiting on action queue", e);
+
+        }
+
+        //Loop the players actions until he terminates his round
+        if (this.currentPlayer.isDisabled()) {
+
+            this.stage = Stage.Rounds;
+
+            return false;
+
+        }
+
+        this.armTimeout(ACTION_TIMEOUT * 1000);
+
+        return true;
+
+    }
+
+    /**
+     * Handles the choice of the current player about the vatican report, then terminates his round
+     * @param action the choice, or the expired timeout
+     * @return true if still waiting for the choice, false once the round of the player is over
+     */
+    private boolean stepVaticanReport(Action action) {
+
+        if (this.isTimeout(action)) {
+
+            Logger.log(Level.FINEST, this.toString(), "Action timeout expired for player " + this.currentPlayer.getUsername());
+
+            this.handleActionTimeoutExpiration();
+
+            this.pendingTermination = null;
+
+            this.stage = Stage.Rounds;
+
+            return false;
+
+        }
+
+        if (!(action instanceof ImmediateChoiceAction)) {
+
+            //Nothing but the choice is accepted until the player decides
+            this.remotePlayerMap.get(this.currentPlayer).notifyActionRefused(action, GameMessage.InvalidAction.getLiteral() + " Reason: decide whether to get banned first");
+
+            this.armTimeout(ACTION_TIMEOUT * 1000);
+
+            return true;
+
+        }
+
+        this.appendToJournal(JournalEntry.choice(action));
+
+        this.applyVaticanReportChoice(this.currentPlayer, (ImmediateChoiceAction) action);
+
+        this.terminateRound(this.pendingTermination);
+
+        this.pendingTermination = null;
+
+        return false;
+
+    }
+
+    /**
+     * Ends the round of the current player, who terminated it
+     * @param action the action that terminated the round
+     */
+    private void terminateRound(Action action) {
+
+        //If we get here without exceptions we can notify of the succeeded action
+        this.notifyAllActionPerformed(this.currentPlayer, action, this.currentPlayer.getUsername() + " wants to terminate his turn");
+
+        //Tell the players that the active one can't make any more actions
+        this.notifyAllTurnDisabled(this.currentPlayer);
+
+        //Turn on backup after first move
+        if (!backupEnabled) backupEnabled = true;
+
+        //save on database
+        this.save();
+
+        this.stage = Stage.Rounds;
+
+    }
+
+    /**
+     * Replays the actions journaled after the snapshot the match resumed from.
+     * The choices and the dice seeds are consumed by the action they belong to, as they were taken live
+     */
+    private void replayJournal() {
+
+        Logger.log(Level.FINE, this.toString(), "Replaying the journal of the match");
+
+        JournalEntry entry;
+
+        while ((entry = this.journal.nextReplay(JournalEntry.Kind.PlayerAction)) != null) {
+
+            try {
 
-        }
+                this.handlePlayerAction(this.currentPlayer, entry.getAction());
 
+            } catch (ActionException e) {
 
-        for (i = 0; i < NUMBER_OF_CARDS_PER_DECK; i++) {
+                //It was refused live as well, whatever it did before failing is replayed too
+                Logger.log(Level.FINEST, this.toString(), "Replayed action refused: " + e.getMessage());
 
-            //The amount of players that drafted
-            int j = 0;
+            } catch (NoActionPerformedException | InterruptedException e) {
 
-            //Four times we need to wait until each active player performs his draft
-            while (j < enabledToDraft.size()) {
+                Logger.log(Level.WARNING, this.toString(), "Replay interrupted", e);
 
-                //Get the shuffle action
-                ShuffleLeaderCardStandardAction shuffleAction = null;
-                try {
+                break;
 
-                    shuffleAction = (ShuffleLeaderCardStandardAction)this.waitForAction(ACTION_TIMEOUT * 1000);
+            }
 
-                    //Increment j to go on and get the action from a different player
-                    j++;
+        }
 
-                } catch (InterruptedException e) {
+        this.journal.endReplay();
 
-                    Logger.log(Level.WARNING, this.toString(), "Thread stopped while waiting on action queue", e);
+        this.sendUpdatedModel();
 
-                } catch (NoActionPerformedException e) {
+        //From now on the snapshot is the replayed state
+        this.save();
 
-                    //Detect who did not perform the move  (disconnected or timeout expired) and update enabledToDraft array
-                    this.filterOutPlayers(enabledToDraft, this.match.getDisabledPlayers());
+    }
 
-                    continue;
+    /**
+     * Appends an entry to the journal, once the match is being backed up
+     * @param entry the entry
+     */
+    private void appendToJournal(JournalEntry entry) {
 
-                }
+        if (this.backupEnabled && !this.headless && this.journal != null) {
 
-                //Get the selected card, DEBUG ONLY
-                LeaderCard selected = shuffleAction.getDeck().getCards().get(shuffleAction.getSelection());
+            this.journal.append(entry);
 
-                //Find the player in the map and remove
-                draftingMap.get(shuffleAction.getSender()).removeCard(shuffleAction.getSelection());
+        }
 
-                //Add the selected card to the leader cards of the player
-                try {
+    }
 
-                    this.match.getPlayerFromUsername(shuffleAction.getSender()).addLeaderCard(GameSingleton.getInstance().getSpecificLeaderCard(selected.getId()));
+    private void handleActionTimeoutExpiration() {
 
-                    this.notifyAllActionPerformed(this.match.getPlayerFromUsername(shuffleAction.getSender()), shuffleAction, shuffleAction.getSender() + " drafted his leader cards, he selected '" + selected.getName() + "'");
+        //Tell the players that the timeout has expired expired for the active player
+        this.notifyAllActionTimeoutExpired(this.currentPlayer);
 
+        //Tell the players that the active one can't make any more actions
+        this.notifyAllTurnDisabled(this.currentPlayer);
 
-                } catch (NoSuchPlayerException e) {
+        //A bot plays in his place from the next round, unless the player was a bot already
+        if (this.canTakeOver() && !(this.remotePlayerMap.get(this.currentPlayer) instanceof PolicyPlayer)) {
 
-                    Logger.log(Level.FINEST, this.toString(), "Can't find player!", e);
+            this.takeOver(this.currentPlayer);
 
-                }
+            return;
 
-                Logger.log(Level.FINEST, this.toString(), "Leader draft, step " + (i + 1) + ", " + shuffleAction.getSender() + " selected '" + selected.getName() + "'");
+        }
 
-            }
+        //Disable the player
+        this.currentPlayer.setDisabled(true);
 
+    }
 
-            Deck<LeaderCard> first = null;
+    /**
+     * Tells whether the bots take over the players that leave or time out, which they do only once the drafts are over
+     * @return true if a bot can take over
+     */
+    private boolean canTakeOver() {
 
-            //Set the deck of each player to the deck of the previous one
-            for (Map.Entry<String , Deck<LeaderCard>> e : draftingMap.entrySet()) {
+        return GameConfig.getInstance().isBotTakeover() && !this.headless && this.context == MatchControllerContext.Playing;
 
-                if (e.getKey().equals(draftingMap.firstEntry().getKey())) {
+    }
 
-                    first = e.getValue();
+    /**
+     * Hands a player over to a bot, which plays in his place until he rejoins the match
+     * @param player the player
+     */
+    private void takeOver(Player player) {
 
-                }
+        PolicyPlayer bot = this.createBot(player.getUsername());
 
-                if (e.getKey().equals(draftingMap.lastEntry().getKey())) {
+        if (!this.attachBot(bot)) {
 
-                    e.setValue(first);
+            player.setDisabled(true);
 
-                }
+            return;
 
-                else {
+        }
 
-                    e.setValue(draftingMap.higherEntry(e.getKey()).getValue());
+        this.remotePlayerMap.put(player, bot);
 
-                }
+        player.setDisabled(false);
 
-            }
+        this.notifyAll("A bot is playing for " + player.getUsername());
 
-            //Send again the drafted decks
-            for (Player p : enabledToDraft) {
+        Logger.log(Level.FINEST, this.toString(), "A bot took over player " + player.getUsername());
 
-                if (!p.isDisabled()) {
+    }
 
-                    Deck<LeaderCard> draftable = draftingMap.get(p.getUsername());
-                    this.remotePlayerMap.get(p).notifyLeaderCardDraftRequest(draftable, "Please select a leader card and draft");
-                }
+    /**
+     * Creates a bot, which thinks on the threads shared by the bots
+     * @param username the username of the bot
+     * @return the bot, still to be attached to the match
+     */
+    private PolicyPlayer createBot(String username) {
 
-            }
+        //The bots must not draw from the stream of the match, which would change what a replay draws
+        MctsPolicy policy = new MctsPolicy(ThreadLocalRandom.current().nextLong(), GameConfig.getInstance().getBotMoveBudget());
 
-        }
+        return new PolicyPlayer(username, policy, getBotPool());
 
     }
 
-
     /**
-     * Handles the draft of the bonus tiles
+     * Binds a bot to the match
+     * @param bot the bot
+     * @return true if the match has the player of the bot
      */
-    private void handleBonusTileDrat() {
+    private boolean attachBot(PolicyPlayer bot) {
 
-        final int DEFAULT_BONUS_TILE = 0;
+        try {
 
-        //Get the bonus tile array directly from the parser
-        ArrayList<BonusTile> bonusTileSet = BonusTilesParser.parse();
+            bot.attach(this);
 
-        this.notifyAll("The bonus tiles are being drafted, please wait for your turn.");
+            return true;
 
-        //Send a request to each player beginning from the last one
-        for (int i = this.match.getActivePlayers().size() - 1; i >= 0; i--) {
+        } catch (NoSuchPlayerException e) {
 
-            Player curr = this.match.getPlayers().get(i);
+            Logger.log(Level.WARNING, this.toString(), "Unable to seat the bot " + bot.getUsername(), e);
 
-            //If the player is disabled he can't make any move
-            if (curr.isDisabled()) {
+            return false;
 
-                //If we don't get any selection from the player, then select the first tile available in the set
-                curr.getPersonalBoard().setBonusTile(bonusTileSet.get(DEFAULT_BONUS_TILE));
+        }
 
-                continue;
+    }
 
-            }
+    /**
+     * The threads the bots think on, created on first use
+     * @return the pool
+     */
+    private static synchronized ExecutorService getBotPool() {
 
-            //Send a request to each player and wait for a response
-            this.remotePlayerMap.get(curr).notifyBonusTileDraftRequest(bonusTileSet, "Please select a bonus tile. BEBUG: The size of the tiles is " + bonusTileSet.size());
+        if (botPool == null) {
 
-            Logger.log(Level.FINEST, this.toString(), "Sending draftable bonus tiles to " + curr.getUsername());
+            botPool = Executors.newCachedThreadPool(task -> {
 
+                Thread thread = new Thread(task, "Bot");
 
-            ShuffleBonusTileStandardAction shuffleAction;
+                thread.setDaemon(true);
 
-            try {
+                return thread;
 
-                //Wait for the player to take his action
-                shuffleAction = (ShuffleBonusTileStandardAction)this.waitForAction(ACTION_TIMEOUT * 1000);
+            });
 
-                BonusTile selected = bonusTileSet.get(shuffleAction.getSelection());
+        }
 
-                //Assign the selected tile
-                this.match.getPlayers().get(i).getPersonalBoard().setBonusTile(selected);
+        return botPool;
 
-                //Once we get the selection, remove the proper tile from the set
-                bonusTileSet.remove(shuffleAction.getSelection());
+    }
 
-                this.notifyAllActionPerformed(this.match.getPlayerFromUsername(shuffleAction.getSender()), shuffleAction, shuffleAction.getSender() + " selected his tile: #" + selected.getId());
+    /**
+     * Suspends the thread until the user performs an action or the timeout expires.
+     * Used for the choices nested within an action, the turns and the drafts are awaited by the state machine.
+     * @return The action performed
+     * @throws NoActionPerformedException When the timeout expires
+     */
+    private Action waitForAction(int timeout) throws NoActionPerformedException, InterruptedException {
 
+        //While replaying the choices come from the journal, once it runs out the player is asked live
+        if (this.journal != null && this.journal.isReplaying()) {
 
-            }
-            catch (NoActionPerformedException e) {
+            JournalEntry choice = this.journal.nextReplay(JournalEntry.Kind.Choice);
 
-                //If we don't get any selection from the player, then select the first tile available in the set
-                curr.getPersonalBoard().setBonusTile(bonusTileSet.get(DEFAULT_BONUS_TILE));
+            if (choice != null) {
 
-                //Then remove it
-                bonusTileSet.remove(0);
+                return choice.getAction();
 
             }
-            catch (InterruptedException e) {
 
-                Logger.log(Level.WARNING, this.toString(), "Thread stopped while waiting on action queue for tiles", e);
+        }
 
-            }
-            catch (NoSuchPlayerException e) {
+        //Setup a new timeout for the action
+        this.armTimeout(timeout);
 
-                Logger.log(Level.FINEST, this.toString(), "Can't find player!", e);
+        //Take the action request in the queue and check if we shall proceed
+        Action action = this.takeAction();
 
-            }
+        //When we get here the player took its action or the timeout for the action expired, clear the interval.
+        this.disarmTimeout();
+
+        //Check if the action is legit, if not skip this player. It might just have expired the timeout
+        if (this.isTimeout(action)) {
+
+            throw new NoActionPerformedException("No action was performed within the timeout provided");
 
         }
 
+        this.appendToJournal(JournalEntry.choice(action));
+
+        return action;
     }
 
     /**
-     * Handles a player round.
-     * Listens for actions
-     * @param player the player
+     * Waits for the next action, skipping the timeouts that expired after the action they were set for.
+     * On the shared pool this is only reached by the immediate choices nested within an action, which block their pool thread until the
+     * player answers or times out. Such a wait is managed, so that the pool adds a thread to make up for it, but only for a bounded amount
+     * of waits at once: beyond it a wait just holds its thread, and with every pool thread waiting on a choice the other matches are
+     * served once one of the choices comes or times out. Many matches awaiting a nested choice at the same time thus either cost a thread
+     * each, up to the bound, or slow the pool down.
+     * @return the action
+     * @throws InterruptedException if the wait gets interrupted or the controller destroyed
      */
-    private void handlePlayerRound(Player player) {
+    private Action takeAction() throws InterruptedException {
 
-        //Update the current player
-        this.currentPlayer = player;
+        if (this.headless) {
 
-        //Useful to save it also in the model
-        this.match.updateCurrentPlayer(currentPlayer);
+            Action action = this.actions.poll();
+
+            //Nobody answered, there is no timer to wait for
+            return action != null ? action : new Action();
 
-        if (backupEnabled) {
-            //Save it in order to avoid two consecutive actions for a player that has just terminate his round
-            this.save();
         }
 
+        while (true) {
 
-        Logger.log(Level.FINEST, this.toString(), "It is " + this.currentPlayer.getUsername() + "'s turn!");
+            Action action;
 
+            if (this.eventLoop && getCompensatedWaits().tryAcquire()) {
 
-        //Notify the turn of the player
-        this.notifyAllTurnEnabled(this.currentPlayer);
+                try {
 
-        Action action;
+                    ActionBlocker blocker = new ActionBlocker();
 
-        //Loop the players actions until he terminates his round
-        do {
+                    ForkJoinPool.managedBlock(blocker);
 
-            try {
+                    action = blocker.action;
 
-                action = this.waitForAction(ACTION_TIMEOUT * 1000);
+                } finally {
 
-                if (action instanceof TerminateRoundStandardAction) {
+                    getCompensatedWaits().release();
 
-                    Logger.log(Level.FINEST, this.toString(), "The player " + this.currentPlayer.getUsername() + " terminated his round");
+                }
 
-                    //If its time to choose whether or not to get banned ask the player before his round finishes
-                    if (this.match.getCurrentRound() == 4 && this.match.getCurrentTurn() == 2) {
+            }
+            else {
 
-                        this.handleVaticanReport(this.currentPlayer);
+                //Note that this is a blocking queue
+                action = this.actions.take();
 
-                    }
+            }
 
-                    //If we get here without exceptions we can notify of the succeeded action
-                    this.notifyAllActionPerformed(this.currentPlayer, action, this.currentPlayer.getUsername() + " wants to terminate his turn");
+            if (this.destroyed) {
 
-                    //Tell the players that the active one can't make any more actions
-                    this.notifyAllTurnDisabled(this.currentPlayer);
+                throw new InterruptedException("The match controller was destroyed");
 
-                    //Turn on backup after first move
-                    if (!backupEnabled) backupEnabled = true;
+            }
 
-                    //save on database
-                    this.save();
+            if (!this.isStaleTimeout(action)) {
 
-                    break;
+                return action;
 
-                }
-                else {
+            }
 
-                    Logger.log(Level.FINEST, this.toString(), "Parsing action request for player " + this.currentPlayer.getUsername());
+        }
 
+    }
 
-                    try {
+    /**
+     * Sets up the timeout for the awaited action
+     * @param timeout the timeout in milliseconds
+     */
+    private void armTimeout(int timeout) {
 
-                        //Handler the player action
-                        String status = this.handlePlayerAction(this.currentPlayer, action);
+        if (this.headless) {
 
-                        //Update the model
-                        this.sendUpdatedModel();
+            return;
 
+        }
 
-                        //If we get here without exceptions we can notify of the succeeded action
-                        this.notifyAllActionPerformed(this.currentPlayer, action, status);
+        //By the time it gets fired the player should has already taken his action.
+        //If not, to wake up the controller, inject a poisonous action
+        Action poison = new Action();
 
-                    }
-                    catch (ActionException reason) {
+        this.expectedTimeout = poison;
 
-                        //Inform the player that he can't take that action
-                        this.remotePlayerMap.get(this.currentPlayer).notifyActionRefused(action, GameMessage.InvalidAction.getLiteral() + " Reason: " + reason.getMessage());
+        this.currentPlayerTimeout = Scheduler.getInstance().schedule(() -> this.dispatchNewPlayerAction(poison), timeout);
 
-                    }
+    }
 
-                }
+    /**
+     * Clears the timeout, its poisonous action is ignored if it was already injected
+     */
+    private void disarmTimeout() {
 
+        if (this.currentPlayerTimeout != null) {
 
-            } catch (NoActionPerformedException e) {
+            this.currentPlayerTimeout.cancel(false);
 
-                Logger.log(Level.FINEST, this.toString(), "Action timeout expired for player " + this.currentPlayer.getUsername());
+            this.currentPlayerTimeout = null;
 
-                this.handleActionTimeoutExpiration(e);
+        }
 
-                //Break the loop
-                break;
+        this.expectedTimeout = null;
 
+    }
 
-            } catch (InterruptedException e) {
+    private boolean isTimeout(Action action) {
 
-                Logger.log(Level.WARNING, this.toString(), "Thread stopped while waiting on action queue", e);
+        return action != null && action.getType() == NetObjectType.Poison;
 
-            }
+    }
 
-        }
-        while (!this.currentPlayer.isDisabled());
+    private boolean isStaleTimeout(Action action) {
+
+        return this.isTimeout(action) && action != this.expectedTimeout;
 
     }
 
-    private void handleActionTimeoutExpiration(NoActionPerformedException e) {
+    /**
+     * This method is the only one that should be called from other threads.
+     * Specifically, it is used by client handler to dispatch their client actions
+     * @param action the Action
+     */
+    public void dispatchNewPlayerAction(Action action) {
+
+        this.actions.add(action);
 
-        //Tell the players that the timeout has expired expired for the active player
-        this.notifyAllActionTimeoutExpired(this.currentPlayer);
+        if (this.eventLoop) {
 
-        //Tell the players that the active one can't make any more actions
-        this.notifyAllTurnDisabled(this.currentPlayer);
+            this.scheduleEventLoop();
 
-        //Disable the player
-        this.currentPlayer.setDisabled(true);
+        }
 
     }
 
     /**
-     * Suspends the thread until the user performs an action or the timeout expires
-     * @return The action performed
-     * @throws NoActionPerformedException When the timeout expires
+     * Waits for an action on behalf of a thread of the shared pool
      */
-    private Action waitForAction(int timeout) throws NoActionPerformedException, InterruptedException {
-
-        Action action;
+    private class ActionBlocker implements ForkJoinPool.ManagedBlocker {
 
-        //Setup a new timeout for the action
-        this.currentPlayerTimeout = new Timer();
+        private Action action;
 
-        //Define what to do when, and if, the timeout expires
-        this.currentPlayerTimeout.schedule(new TimerTask() {
-            @Override
-            public void run() {
+        public boolean block() throws InterruptedException {
 
-                //By the time this method gets fired the player should has already taken his action.
-                //If not, we set the player as disabled and continue
-                //To wake up the thread, inject a poisonous action
-                MatchController.this.actions.add(new Action());
+            if (this.action == null) {
 
+                this.action = MatchController.this.actions.take();
 
             }
-        }, timeout);
-
 
-        //Take the action request in the queue and check if we shall proceed
-        //Note that this is a blocking queue
-        action = this.actions.take();
+            return true;
 
-        //When we get here the player took its action or the timeout for the action expired, clear the interval.
-        this.currentPlayerTimeout.cancel();
+        }
 
-        //Check if the action is legit, if not skip this player. It might just have expired the timeout
-        if (action.getType() == NetObjectType.Poison) {
+        public boolean isReleasable() {
 
-            throw new NoActionPerformedException("No action was performed within the timeout provided");
+            if (this.action == null) {
 
-        }
+                this.action = MatchController.this.actions.poll();
 
-        return action;
-    }
+            }
 
-    /**
-     * This method is the only one that should be called from other threads.
-     * Specifically, it is used by client handler to dispatch their client actions
-     * @param action the Action
-     */
-    public void dispatchNewPlayerAction(Action action) {
+            return this.action != null;
 
-        this.actions.add(action);
+        }
 
     }
 
@@ -966,7 +2069,8 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
             Logger.log(Level.FINEST, this.toString(), "Placement target : " + ((StandardPlacementAction) action).getActionTarget());
 
-            RollbackClass playerRollback = new RollbackClass(player);
+            //A refused placement may fail half way, after paying or placing, so the whole match is rolled back
+            Match rollback = new Match(this.match);
 
             try{
 
@@ -975,7 +2079,7 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
             }
             catch (ActionException actionException){
 
-                player.rollback(playerRollback);
+                this.match.restore(rollback);
 
                 throw actionException;
 
@@ -1021,16 +2125,73 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
      */
     private void sendUpdatedModel() {
 
+        //The simulated players read the model directly
+        if (this.headless) {
+
+            return;
+
+        }
+
+        this.modelTracker.commit(this.match);
 
         for (Player p : this.match.getPlayers()) {
 
             if (!p.isDisabled()) {
-                this.remotePlayerMap.get(p).notifyModelUpdate(this.match);
+                this.sendModel(p);
             }
         }
 
     }
 
+    /**
+     * Sends a player what changed since the last revision it acknowledged, or the whole model if it never did.
+     * The model must have been committed to the tracker first.
+     * @param player the player
+     */
+    private void sendModel(Player player) {
+
+        RemotePlayer remote = this.remotePlayerMap.get(player);
+
+        MatchDelta delta = this.modelTracker.deltaFor(player.getUsername());
+
+        if (delta == null) {
+
+            remote.notifyModelUpdate(this.match);
+
+        }
+        else if (!delta.isEmpty()) {
+
+            remote.notifyModelDelta(delta);
+
+        }
+
+    }
+
+    /**
+     * Handles the model revision reported by a player
+     * @param handler the handler of the player
+     * @param notification the revision and whether or not the player needs the whole model
+     */
+    public void onModelSync(ClientHandler handler, ModelSyncNotification notification) {
+
+        if (notification.isSnapshotRequested()) {
+
+            Logger.log(Level.FINEST, this.toString(), "Player " + handler.getUsername() + " asked for the whole model at revision " + notification.getRevision());
+
+            this.modelTracker.forget(handler.getUsername());
+
+            //The match might be changing on its own thread, send what was committed instead
+            handler.notifyModelDelta(this.modelTracker.fullDelta());
+
+        }
+        else {
+
+            this.modelTracker.acknowledge(handler.getUsername(), notification.getRevision());
+
+        }
+
+    }
+
     private void notifyAll(String message) {
 
         for (Player p : this.match.getPlayers()) {
@@ -1044,9 +2205,18 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
     private void notifyAllTurnEnabled(Player current) {
 
+        //The simulated players read the model directly
+        if (!this.headless) {
+
+            this.modelTracker.commit(this.match);
+
+        }
+
         for (Player p : this.match.getPlayers()) {
             if (!p.isDisabled()) {
-                this.remotePlayerMap.get(p).notifyModelUpdate(this.match);
+                if (!this.headless) {
+                    this.sendModel(p);
+                }
                 this.remotePlayerMap.get(p).notifyTurnEnabled(current, "It is " + current.getUsername() + "'s turn");
             }
 
@@ -1263,15 +2433,19 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
         if(card != null) {
             ImmediateEffect immediateEffect = card.getImmediateEffect();
+
+            //the card is shared by every match, so the doubled surplus is a clone
+            EffectSurplus immediateSurplus = immediateEffect.getSurplus();
             if (player.isPermanentLeaderActive(PermanentLeaderEffectType.ritaEffect)) {
-                for (Resource resource : immediateEffect.getSurplus().getResources())
+                immediateSurplus = new EffectSurplus(immediateSurplus);
+                for (Resource resource : immediateSurplus.getResources())
                     resource.setAmount(resource.getAmount() * 2);
             }
 
             ImmediatePlacementAction placementAction;
 
             //apply effect surplus of the immediate effect
-            applyEffectSurplus(player, immediateEffect.getSurplus());
+            applyEffectSurplus(player, immediateSurplus);
 
             //multiplier immediate effect is always in the first slot of points array
             if (immediateEffect.getSurplus().getPoints().size() > 0) {
@@ -1569,6 +2743,9 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
                 ArrayList <Resource> coinDiscount = new ArrayList<Resource>();
                 coinDiscount.add(new Resource(ResourceType.Coins, 3));
                 Discount discount = new Discount(coinDiscount);
+
+                //the discounts may come from a card, which is shared by every match
+                bonus.setDiscounts(new ArrayList<>(bonus.getDiscounts()));
                 bonus.getDiscounts().add(discount);
             }
         }
@@ -1718,13 +2895,10 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
         //effect surplus is composed by resources,points and council privilege
         surplus = applyValuableBanCard(player, surplus);
-        ArrayList<Resource> resourcesSurplus = surplus.getResources();
-        ArrayList<Point> pointsSurplus = surplus.getPoints();
 
         Integer council = surplus.getCouncil();
 
-        player.addResources(resourcesSurplus);
-        player.addPoints(pointsSurplus);
+        player.addSurplus(surplus);
 
         //the client can choose which council privilege want to have
         if(council > 0) {
@@ -1845,6 +3019,17 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
     /** this method controls if the surplus is reduced by some ban card effect **/
     EffectSurplus applyValuableBanCard(Player player, EffectSurplus surplus) {
 
+        boolean malus = false;
+
+        for (int i = 0; i < player.getBanCards().size() && !malus; i++)
+            malus = player.getBanCards().get(i) instanceof ValuableBanCard;
+
+        if (!malus)
+            return surplus;
+
+        //the surplus belongs to a card or to the board, the malus is applied to a clone
+        surplus = new EffectSurplus(surplus);
+
         for (Resource resource : surplus.getResources()) {
             for (BanCard bancard : player.getBanCards()) {
                 if (bancard instanceof ValuableBanCard) {
@@ -2121,7 +3306,23 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
     public void rollDices (){
 
-        Random random = new Random();
+        //The roll is drawn from the stream of the match either way, the journaled seed wins while replaying
+        long seed = this.match.getRandom().nextLong();
+
+        JournalEntry replayed = this.journal != null ? this.journal.nextReplay(JournalEntry.Kind.DiceSeed) : null;
+
+        if (replayed != null) {
+
+            seed = replayed.getSeed();
+
+        }
+        else {
+
+            this.appendToJournal(JournalEntry.diceSeed(seed));
+
+        }
+
+        Random random = new Random(seed);
 
         //Randomize the dice values
         for (Dice d : this.match.getBoard().getDices()) {
@@ -2203,7 +3404,7 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
         for (Player player : this.match.getPlayers()) {
 
-            Integer totalScore = 0;
+            int totalScore = 0;
 
             totalScore += player.getVictoryPoints();
 
@@ -2219,7 +3420,7 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
 
             //one victory point from every 5 resources of all type
-            totalScore += (player.getCoins() + player.getStones() + player.getWood() + player.getServants()) / 5;
+            totalScore += player.getResourceTotal() / 5;
 
             //victory points that depends on building card on the player personal board
             if(BanFlag.get(DvptCardType.territory) == false){
@@ -2277,38 +3478,17 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
     /**This method controls if there are some ban cards that could reduce victory points considering a specific amount of resources or points**/
 
-    Integer totalScoreWithVictoryMalus(Player player, Integer totalScore) {
+    int totalScoreWithVictoryMalus(Player player, int totalScore) {
 
         for (BanCard banCard : player.getBanCards()) {
             if (banCard instanceof VictoryMalusBanCard) {
 
                 for (Resource resource : ((VictoryMalusBanCard) banCard).getEffectVictoryMalus().getCausedbyResources()) {
-
-                    if (resource.getType() == ResourceType.Coins) {
-                        totalScore -= (int) (player.getCoins() / resource.getAmount());
-                    }
-
-                    if (resource.getType() == ResourceType.Servants) {
-                        totalScore -= (int) (player.getServants() / resource.getAmount());
-                    }
-
-                    if (resource.getType() == ResourceType.Stones) {
-                        totalScore -= (int) (player.getStones() / resource.getAmount());
-                    }
-
-                    if (resource.getType() == ResourceType.Wood) {
-                        totalScore -= (int) (player.getWood() / resource.getAmount());
-                    }
+                    totalScore -= player.getResource(resource.getType()) / resource.getAmount();
                 }
 
                 for (Point point : ((VictoryMalusBanCard) banCard).getEffectVictoryMalus().getCausedByPoints()) {
-
-                    if (point.getType() == PointType.Victory) {
-                        totalScore -= (int) (player.getVictoryPoints() / point.getAmount());
-                    } else if (point.getType() == PointType.Military) {
-                        totalScore -= (int) (player.getMilitaryPoints() / point.getAmount());
-                    } else totalScore -= (int) (player.getFaithPoints() / point.getAmount());
-
+                    totalScore -= player.getPoints(point.getType()) / point.getAmount();
                 }
 
                 if (((VictoryMalusBanCard) banCard).getEffectVictoryMalus().isRelatedToBuilding()) {
@@ -2440,7 +3620,7 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
             //if the effect is the preacher penality forbid the Action if the placement index is > 1
             else if(card.getPermanentEffect().isPenality()){
-                if (action.getPlacementIndex()>1) {
+                if (action.getPlacementIndex() != null && action.getPlacementIndex()>1) {
                     throw new PreacherEffectException("Preacher's permanent effect forbid it");
                 }
             }
@@ -2452,7 +3632,12 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
     }
 
-    public void handleVaticanReport(Player player) throws InterruptedException, NoActionPerformedException {
+    /**
+     * Applies the vatican report to a player, who is banned right away if he does not have enough faith points
+     * @param player the player
+     * @return true if the player has to choose whether to get banned, see applyVaticanReportChoice
+     */
+    public boolean handleVaticanReport(Player player) {
 
 
         //get minimum number of faith points for current period
@@ -2465,36 +3650,43 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
             this.notifyAll(player.getUsername() + " has been banned.");
 
-        }
-        else
-        {
+            return false;
 
-            this.notifyAllImmediateActionAvailable(ImmediateActionType.DecideBanOption, this.currentPlayer, "Would you like to get banned and keep the faith points or not ?");
+        }
 
-            ImmediateChoiceAction choice = (ImmediateChoiceAction)this.waitForAction(ACTION_TIMEOUT * 1000);
+        this.notifyAllImmediateActionAvailable(ImmediateActionType.DecideBanOption, this.currentPlayer, "Would you like to get banned and keep the faith points or not ?");
 
-            if(choice.getSelection() == 0){
-                //the player has enough faith points but doesn't want to use them to avoid excommunication
-                player.addBanCard(this.match.getBoard().getCathedral().getBanCard(this.match.getCurrentPeriod()));
+        return true;
 
-                this.notifyAllActionPerformed(this.currentPlayer, choice, this.currentPlayer.getUsername() + " has been banned");
+    }
 
-            }
-            else {
+    /**
+     * Applies the choice of a player who had enough faith points to avoid the ban
+     * @param player the player
+     * @param choice the choice, 0 to get banned and keep the faith points
+     */
+    private void applyVaticanReportChoice(Player player, ImmediateChoiceAction choice) {
 
-                //the player use his faith points to avoid excommunication and receive a number of victory points depending on his faith points
-                player.addVictoryPoints(BoardConfigParser.getVictoryBonusFromFaith(player.getFaithPoints()));
-                if (player.isPermanentLeaderActive(PermanentLeaderEffectType.sistoEffect)) {
-                    player.addVictoryPoints(5);
-                }
+        if(choice.getSelection() == 0){
+            //the player has enough faith points but doesn't want to use them to avoid excommunication
+            player.addBanCard(this.match.getBoard().getCathedral().getBanCard(this.match.getCurrentPeriod()));
 
-                //the player cannot choose how many faith points to use
-                player.setFaithPoints(0);
+            this.notifyAllActionPerformed(this.currentPlayer, choice, this.currentPlayer.getUsername() + " has been banned");
 
-                this.notifyAllActionPerformed(this.currentPlayer, choice, this.currentPlayer.getUsername() + " has not been banned");
+        }
+        else {
 
+            //the player use his faith points to avoid excommunication and receive a number of victory points depending on his faith points
+            player.addVictoryPoints(BoardConfigParser.getVictoryBonusFromFaith(player.getFaithPoints()));
+            if (player.isPermanentLeaderActive(PermanentLeaderEffectType.sistoEffect)) {
+                player.addVictoryPoints(5);
             }
 
+            //the player cannot choose how many faith points to use
+            player.setFaithPoints(0);
+
+            this.notifyAllActionPerformed(this.currentPlayer, choice, this.currentPlayer.getUsername() + " has not been banned");
+
         }
 
     }
@@ -2562,11 +3754,20 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
     public void destroy() {
 
-        this.currentPlayerTimeout.cancel();
+        this.destroyed = true;
+
+        ScheduledFuture<?> timeout = this.currentPlayerTimeout;
+
+        if (timeout != null)
+            timeout.cancel(false);
 
-        if (this.daemon.isAlive())
+        if (this.daemon != null && this.daemon.isAlive())
             this.daemon.interrupt();
 
+        //Wake up a choice awaited on the shared pool
+        if (this.eventLoop)
+            this.actions.offer(new Action());
+
         Logger.log(Level.FINEST, this.toString(), "Daemon stopped");
 
     }
@@ -2624,30 +3825,29 @@ public class MatchController implements Runnable, Observable<MatchControllerObse
 
     public void save(){
 
-        try {
-
-            Database.getInstance().save(this.match);
+        if (this.headless) {
 
-            Logger.log(Level.FINEST, this.toString(), "Saving match status..");
+            return;
 
-        } catch (SQLException e) {
+        }
 
-            Logger.log(Level.SEVERE, "Database::save", "Possible errors in saving", e);
+        //The snapshot is written behind our back, play goes on meanwhile
+        SnapshotWriter.getInstance().enqueue(this.match, this.journal.getSeq());
 
-        }
+        Logger.log(Level.FINEST, this.toString(), "Saving match status..");
 
     }
 
     public void endDatabaseMatch() {
 
-        try {
-            Database.getInstance().endMatch(this.match.getMatch_id());
-
-        } catch (SQLException e) {
+        if (this.headless) {
 
-            Logger.log(Level.SEVERE, "Database::ending", "Possible errors in ending", e);
+            return;
 
         }
 
+        //Marked as finished by the writer, in the transaction of the last snapshot or after it, the event loop does not wait
+        SnapshotWriter.getInstance().finish(this.match.getMatch_id());
+
     }
 }
@@ -7,7 +7,6 @@ public enum MatchControllerContext {
     LeaderCardDraft,
     BonusTileDraft,
     PeristenceResume,
-    Playing
     Playing,
     Undefined
 
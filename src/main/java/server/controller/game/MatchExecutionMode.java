@@ -0,0 +1,35 @@
+package server.controller.game;
+
+/**
+ * Tells how the match controllers get executed
+ */
+public enum MatchExecutionMode {
+
+    /**
+     * One dedicated thread per match, blocked while waiting for the players
+     */
+    Thread,
+
+    /**
+     * Every match driven by the incoming actions on a small shared pool, no thread is held while waiting
+     */
+    EventLoop;
+
+    /**
+     * Parses the mode from the literal used inside the game configuration
+     * @param literal the literal, either "thread" or "event-loop"
+     * @return the mode, thread if the literal is unknown
+     */
+    public static MatchExecutionMode fromLiteral(String literal) {
+
+        if (literal != null && literal.equalsIgnoreCase("event-loop")) {
+
+            return EventLoop;
+
+        }
+
+        return Thread;
+
+    }
+
+}
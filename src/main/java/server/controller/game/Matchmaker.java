@@ -0,0 +1,475 @@
+package server.controller.game;
+
+import logger.Level;
+import logger.Logger;
+import server.controller.network.ClientHandler;
+import singleton.Scheduler;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Seats the clients that are not resuming a match at the tables of the standard lobbies.
+ * The clients wait on a concurrent queue, which costs them no lock, and are seated in batches by a round that the shared scheduler
+ * only triggers: the round runs on a thread of the matchmaker, since filling a table starts its match, which hits the database.
+ * The tables still forming are topped up first, oldest first, then the rest of the batch is split evenly into new tables,
+ * so that a burst of joins forms tables of two to five players rather than a row of full tables and a lonely player.
+ * A table starts as soon as it is full, or once its start delay expires.
+ * The queue depth and the time the clients wait for their match to start are kept for monitoring.
+ */
+public class Matchmaker {
+
+    //The seats of a standard lobby
+    private static final int TABLE_SIZE = 5;
+
+    //The engine that indexes the lobbies and their clients
+    private final GameEngine engine;
+
+    //How long the clients are gathered before a round seats them, in milliseconds
+    private final long window;
+
+    //The clients waiting for a table, in arrival order
+    private final ConcurrentLinkedQueue<Ticket> queue = new ConcurrentLinkedQueue<>();
+
+    //The ticket of each waiting client, removed by whoever gets to it first: the round seating it or its disconnection
+    private final ConcurrentHashMap<ClientHandler, Ticket> tickets = new ConcurrentHashMap<>();
+
+    //When each seated client joined the queue, until its match starts or it leaves
+    private final ConcurrentHashMap<ClientHandler, Long> seatedSince = new ConcurrentHashMap<>();
+
+    //Whether a round is already scheduled
+    private final AtomicBoolean roundScheduled = new AtomicBoolean(false);
+
+    //Runs the rounds one after another, off the threads of the scheduler
+    private final ExecutorService seater = Executors.newSingleThreadExecutor(runnable -> {
+
+        Thread thread = new Thread(runnable, "Matchmaker");
+
+        //The rounds must not keep the server alive
+        thread.setDaemon(true);
+
+        return thread;
+
+    });
+
+    //Guards the forming tables and the seating, a client is either waiting or indexed by the engine once it's released.
+    //A lock rather than the monitor, so that a virtual thread starting a match does not pin its carrier
+    private final ReentrantLock seating = new ReentrantLock();
+
+    //The standard lobbies that may still be joined, oldest first, guarded by the seating lock
+    private final LinkedHashSet<Lobby> formingTables = new LinkedHashSet<>();
+
+    //The number of clients whose match started and the total and longest time they waited, in nanoseconds
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong totalTimeToMatch = new AtomicLong();
+    private final AtomicLong maxTimeToMatch = new AtomicLong();
+
+    /**
+     * A client waiting for a table
+     */
+    private static class Ticket {
+
+        private final ClientHandler handler;
+
+        private final long enqueued = System.nanoTime();
+
+        //Whether the client is ready to be welcomed into its lobby, guarded by the seating lock
+        private boolean lobbyObserverReady = false;
+
+        private Ticket(ClientHandler handler) {
+
+            this.handler = handler;
+
+        }
+
+    }
+
+    /**
+     * Creates the matchmaker of an engine
+     * @param engine the engine
+     * @param window how long the waiting clients are gathered before a round seats them, in milliseconds
+     */
+    Matchmaker(GameEngine engine, long window) {
+
+        this.engine = engine;
+
+        this.window = window;
+
+    }
+
+    /**
+     * Puts a client in the queue, it will be seated by the next round
+     * @param handler the handler of the client
+     */
+    void enqueue(ClientHandler handler) {
+
+        Ticket ticket = new Ticket(handler);
+
+        this.tickets.put(handler, ticket);
+
+        this.queue.add(ticket);
+
+        if (this.roundScheduled.compareAndSet(false, true)) {
+
+            if (this.window > 0) {
+
+                Scheduler.getInstance().schedule(() -> this.seater.execute(this::round), this.window);
+
+            }
+            else {
+
+                this.seater.execute(this::round);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Takes a client out of the queue
+     * @param handler the handler of the client
+     * @return true if the client was still waiting, false if it was seated and has to leave its lobby
+     */
+    boolean cancel(ClientHandler handler) {
+
+        if (this.tickets.remove(handler) != null) {
+
+            return true;
+
+        }
+
+        //The client may be in the middle of a round, it is indexed by the engine once the round releases the lock
+        this.seating.lock();
+        this.seating.unlock();
+
+        return false;
+
+    }
+
+    /**
+     * Marks a waiting client as ready to be welcomed into the lobby it will be seated at
+     * @param handler the handler of the client
+     * @return true if the client is still waiting, false if it was already seated
+     */
+    boolean deferWelcome(ClientHandler handler) {
+
+        this.seating.lock();
+
+        try {
+
+            Ticket ticket = this.tickets.get(handler);
+
+            if (ticket == null) {
+
+                return false;
+
+            }
+
+            ticket.lobbyObserverReady = true;
+
+            return true;
+
+        } finally {
+
+            this.seating.unlock();
+
+        }
+
+    }
+
+    /**
+     * Seats the clients in the queue
+     */
+    private void round() {
+
+        //Whoever joins from now on schedules the next round
+        this.roundScheduled.set(false);
+
+        this.seating.lock();
+
+        try {
+
+            ArrayList<Ticket> batch = new ArrayList<>();
+
+            Ticket ticket;
+
+            while ((ticket = this.queue.poll()) != null) {
+
+                //A client that disconnected meanwhile gave up its ticket
+                if (this.tickets.remove(ticket.handler, ticket)) {
+
+                    batch.add(ticket);
+
+                }
+
+            }
+
+            if (batch.isEmpty()) {
+
+                return;
+
+            }
+
+            int seated = this.topUp(batch);
+
+            int tables = this.openTables(batch, seated);
+
+            Logger.log(Level.FINEST, "Matchmaker", "Seated " + batch.size() + " clients, " + tables + " new tables, " + this.formingTables.size() + " tables forming");
+
+        } finally {
+
+            this.seating.unlock();
+
+        }
+
+    }
+
+    /**
+     * Seats the first clients of a batch at the tables that are still forming
+     * @param batch the batch
+     * @return the number of clients seated
+     */
+    private int topUp(ArrayList<Ticket> batch) {
+
+        int seated = 0;
+
+        Iterator<Lobby> iterator = this.formingTables.iterator();
+
+        while (seated < batch.size() && iterator.hasNext()) {
+
+            Lobby lobby = iterator.next();
+
+            //A lobby that refuses a client is either full, started or closed, it won't take anyone else
+            while (seated < batch.size() && this.seat(batch.get(seated), lobby)) {
+
+                seated++;
+
+            }
+
+            if (!lobby.isJoinable()) {
+
+                iterator.remove();
+
+            }
+
+        }
+
+        return seated;
+
+    }
+
+    /**
+     * Splits the clients of a batch that are left into new tables of even size
+     * @param batch the batch
+     * @param from the first client left
+     * @return the number of tables opened
+     */
+    private int openTables(ArrayList<Ticket> batch, int from) {
+
+        int left = batch.size() - from;
+
+        int tables = (left + TABLE_SIZE - 1) / TABLE_SIZE;
+
+        for (int table = 0; table < tables; table++) {
+
+            //The first tables take one more client when the split is not even
+            int size = left / tables + (table < left % tables ? 1 : 0);
+
+            Ticket first = batch.get(from);
+
+            this.seatedSince.put(first.handler, first.enqueued);
+
+            Lobby lobby = new Lobby(first.handler);
+
+            this.engine.open(lobby);
+
+            this.admit(first, lobby);
+
+            for (int seat = 1; seat < size; seat++) {
+
+                this.seat(batch.get(from + seat), lobby);
+
+            }
+
+            if (lobby.isJoinable()) {
+
+                this.formingTables.add(lobby);
+
+            }
+
+            from += size;
+
+        }
+
+        return tables;
+
+    }
+
+    /**
+     * Seats a client at a table
+     * @param ticket the ticket of the client
+     * @param lobby the lobby
+     * @return false if the lobby refused the client
+     */
+    private boolean seat(Ticket ticket, Lobby lobby) {
+
+        //Recorded before joining, the client may be the one that fills the table and starts the match
+        this.seatedSince.put(ticket.handler, ticket.enqueued);
+
+        if (!lobby.join(ticket.handler)) {
+
+            this.seatedSince.remove(ticket.handler);
+
+            return false;
+
+        }
+
+        this.admit(ticket, lobby);
+
+        return true;
+
+    }
+
+    private void admit(Ticket ticket, Lobby lobby) {
+
+        this.engine.register(ticket.handler, lobby);
+
+        if (ticket.lobbyObserverReady) {
+
+            lobby.welcomeClient(ticket.handler);
+
+        }
+
+    }
+
+    /**
+     * Makes a table that got a free seat back available
+     * @param lobby the lobby
+     */
+    void reopen(Lobby lobby) {
+
+        this.seating.lock();
+
+        try {
+
+            this.formingTables.add(lobby);
+
+        } finally {
+
+            this.seating.unlock();
+
+        }
+
+    }
+
+    /**
+     * Forgets a seated client that left its table before the match started
+     * @param handler the handler of the client
+     */
+    void left(ClientHandler handler) {
+
+        this.seatedSince.remove(handler);
+
+    }
+
+    /**
+     * Records how long the clients of a table waited for their match
+     * @param lobby the lobby whose match started
+     */
+    void onMatchStart(Lobby lobby) {
+
+        long now = System.nanoTime();
+
+        ArrayList<ClientHandler> handlers;
+
+        synchronized (lobby) {
+
+            handlers = new ArrayList<>(lobby.getHandlers());
+
+        }
+
+        for (ClientHandler handler : handlers) {
+
+            Long since = this.seatedSince.remove(handler);
+
+            if (since == null) {
+
+                continue;
+
+            }
+
+            this.matched.incrementAndGet();
+
+            this.totalTimeToMatch.addAndGet(now - since);
+
+            this.maxTimeToMatch.accumulateAndGet(now - since, Math::max);
+
+        }
+
+        Logger.log(Level.FINE, "Matchmaker", lobby + " started, " + this.getQueueDepth() + " clients queued, mean time to match " + this.getMeanTimeToMatch() + "ms");
+
+    }
+
+    /**
+     * The number of clients waiting for a table
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+
+        return this.tickets.size();
+
+    }
+
+    /**
+     * The number of clients seated at a table whose match did not start yet
+     * @return the number of seated clients
+     */
+    public int getSeatedClients() {
+
+        return this.seatedSince.size();
+
+    }
+
+    /**
+     * The number of clients whose match started
+     * @return the number of matched clients
+     */
+    public long getMatchedClients() {
+
+        return this.matched.get();
+
+    }
+
+    /**
+     * The mean time the matched clients waited between joining the queue and the start of their match
+     * @return the mean time to match in milliseconds, zero if nobody was matched yet
+     */
+    public long getMeanTimeToMatch() {
+
+        long matched = this.matched.get();
+
+        return matched == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(this.totalTimeToMatch.get() / matched);
+
+    }
+
+    /**
+     * The longest time a matched client waited between joining the queue and the start of its match
+     * @return the longest time to match in milliseconds
+     */
+    public long getMaxTimeToMatch() {
+
+        return TimeUnit.NANOSECONDS.toMillis(this.maxTimeToMatch.get());
+
+    }
+
+}
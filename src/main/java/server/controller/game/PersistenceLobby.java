@@ -6,6 +6,7 @@ import netobject.notification.LobbyNotification;
 import netobject.notification.LobbyNotificationType;
 import server.controller.network.ClientHandler;
 import server.model.Match;
+import server.model.journal.MatchJournal;
 import server.utility.UnicodeChars;
 import singleton.Database;
 import java.util.ArrayList;
@@ -24,6 +25,8 @@ public class PersistenceLobby extends Lobby {
 
     private Match previousMatch;
 
+    private MatchJournal previousJournal;
+
 
     /**
      * Creates a new Lobby.
@@ -46,6 +49,9 @@ public class PersistenceLobby extends Lobby {
 
         this.previousMatch = Database.getInstance().getMatchFromID(privateMatchId);
 
+        //The actions taken after the snapshot, to be replayed once the match resumes
+        this.previousJournal = MatchJournal.load(privateMatchId);
+
         this.MINIMUM_PLAYERS = this.previousPlayers.size();
 
         this.MAXIMUM_PLAYERS = this.MINIMUM_PLAYERS;
@@ -62,8 +68,8 @@ public class PersistenceLobby extends Lobby {
     @Override
     public synchronized boolean join(ClientHandler handler) {
 
-        //If the lobby is full
-        if (this.handlers.size() >= MAXIMUM_PLAYERS || this.matchDidStart) {
+        //If the lobby is full or closed
+        if (this.closed || this.handlers.size() >= MAXIMUM_PLAYERS || this.matchDidStart) {
 
             return false;
 
@@ -112,20 +118,30 @@ public class PersistenceLobby extends Lobby {
 
         Logger.log(Level.FINE, this.toString(), "Resuming the match that was suspended...");
 
-        this.matchController = new MatchController(this.handlers, this, this.previousMatch);
-
-        this.matchControllerDaemon = new Thread(matchController);
-
-        this.matchController.setDaemon(this.matchControllerDaemon);
+        this.matchController = new MatchController(this.handlers, this, this.previousMatch, this.previousJournal);
 
         this.matchController.addObserver(this);
 
         //Inform the players that the match started
         this.notifyAll(new LobbyNotification(LobbyNotificationType.ResumeGame, "The match is resuming..."));
 
-        this.matchControllerDaemon.start();
+        for (LobbyObserver o : this.observers) {
+
+            o.onMatchStart(this);
+
+        }
+
+        this.launchMatchController();
+
 
+    }
 
+    /**
+     * The id of the match the lobby resumes
+     * @return the id
+     */
+    public int getMatchId() {
+        return privateMatchId;
     }
 
     @Override
@@ -9,6 +9,7 @@ import server.model.board.BonusTile;
 import server.model.board.Player;
 import server.model.card.Deck;
 import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
 
 import java.util.ArrayList;
 
@@ -27,6 +28,8 @@ public interface RemotePlayer {
 
     void notifyModelUpdate(Match model);
 
+    void notifyModelDelta(MatchDelta delta);
+
     void notifyTurnEnabled(Player player, String message);
 
     void notifyTurnDisabled(Player player, String message);
@@ -2,6 +2,8 @@ package server.controller.network;
 import netobject.notification.LobbyNotification;
 import server.controller.game.RemotePlayer;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 /*
  * @author  ab3llini
  * @since   10/05/17.
@@ -12,7 +14,14 @@ public abstract class ClientHandler implements Runnable, RemotePlayer {
     protected String username;
 
     //A flag indicating whether or not the client did authenticate
-    protected boolean authenticated;
+    protected volatile boolean authenticated;
+
+    //Serializes the authentication and the disconnection of this client only, so that clients never wait for each other.
+    //A lock rather than the monitor, so that a virtual thread waiting on the database does not pin its carrier
+    final ReentrantLock session = new ReentrantLock();
+
+    //Whether the client ever reached the game engine, unlike the authenticated flag it survives the removal of the handler. Guarded by the session
+    boolean admitted;
 
     public String getUsername() {
 
@@ -35,4 +44,11 @@ public abstract class ClientHandler implements Runnable, RemotePlayer {
     }
 
     protected abstract void disconnect();
+
+    /**
+     * Stops delivering the queued objects, called once the handler is removed from the server
+     */
+    protected void shutdownOutbound() {
+
+    }
 }
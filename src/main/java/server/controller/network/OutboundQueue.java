@@ -0,0 +1,391 @@
+package server.controller.network;
+
+import netobject.NetObject;
+import netobject.NetObjectType;
+import netobject.notification.MatchNotification;
+import netobject.notification.MatchNotificationType;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded queue of the objects waiting to be delivered to a client.
+ * The game threads only enqueue, a writer drains the queue at the pace of the client.
+ * The writer runs only while there is something to deliver: the offer that finds the queue idle claims the drain, and the writer
+ * releases it once the queue is empty, so that at most one writer per queue is in flight and an idle client costs no thread.
+ *
+ * Model updates supersede each other: a new one takes the place of the one still pending, if any.
+ * This is safe since every update is computed from a revision the client already has.
+ * When the queue is full the overflow policy decides whether to shed the backlog or give up on the client.
+ * The queue is guarded by a lock rather than its monitor, so that a virtual thread offering a payload does not pin its carrier.
+ *
+ * @param <T> the payload, already encoded and safe to be delivered from another thread
+ */
+public class OutboundQueue<T> {
+
+    /**
+     * How an entry can be treated when the queue gets crowded
+     */
+    public enum Kind {
+
+        /**
+         * A model update, superseded by the next one
+         */
+        Model,
+
+        /**
+         * An entry that can be dropped without breaking the game flow
+         */
+        Droppable,
+
+        /**
+         * An entry that must be delivered
+         */
+        Regular
+
+    }
+
+    //The pending entries, guarded by the lock
+    private final ArrayDeque<Entry<T>> entries = new ArrayDeque<>();
+
+    //Guards the whole state of the queue
+    private final ReentrantLock lock = new ReentrantLock();
+
+    //The maximum amount of pending entries
+    private final int capacity;
+
+    //What to do when the queue is full
+    private final OverflowPolicy policy;
+
+    //Whether or not the queue was closed
+    private boolean closed = false;
+
+    //Whether or not a writer claimed the drain of the queue
+    private boolean draining = false;
+
+    //Statistics
+    private long coalesced = 0;
+    private long dropped = 0;
+
+    /**
+     * Constructor
+     * @param capacity the maximum amount of pending entries
+     * @param policy what to do when the queue is full
+     */
+    public OutboundQueue(int capacity, OverflowPolicy policy) {
+
+        this.capacity = Math.max(1, capacity);
+
+        this.policy = policy;
+
+    }
+
+    /**
+     * Tells how an object can be treated while queued
+     * @param object the object
+     * @return the kind of the entry
+     */
+    public static Kind kindOf(NetObject object) {
+
+        if (object.getType() == NetObjectType.Model || object.getType() == NetObjectType.ModelDelta) {
+
+            return Kind.Model;
+
+        }
+
+        if (object instanceof MatchNotification && ((MatchNotification) object).getMatchNotificationType() == MatchNotificationType.Message) {
+
+            return Kind.Droppable;
+
+        }
+
+        return Kind.Regular;
+
+    }
+
+    /**
+     * Enqueues a payload
+     * @param payload the payload
+     * @param kind how the payload can be treated
+     * @return false if the queue is closed or overflowed and the client should be disconnected
+     */
+    public boolean offer(T payload, Kind kind) {
+
+        this.lock.lock();
+
+        try {
+
+            if (this.closed) {
+
+                return false;
+
+            }
+
+            //Take the place of the pending model update
+            if (kind == Kind.Model && this.replacePendingModel(payload)) {
+
+                return true;
+
+            }
+
+            if (this.entries.size() >= this.capacity && (this.policy == OverflowPolicy.Disconnect || !this.shed())) {
+
+                return false;
+
+            }
+
+            this.entries.add(new Entry<>(payload, kind));
+
+            return true;
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Claims the drain of the queue, called after an offer
+     * @return true if the caller has to start a writer, false if one is already in flight or there is nothing to deliver
+     */
+    public boolean claimDrain() {
+
+        this.lock.lock();
+
+        try {
+
+            if (this.draining || this.closed || this.entries.isEmpty()) {
+
+                return false;
+
+            }
+
+            this.draining = true;
+
+            return true;
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Gets the next payload for the writer that claimed the drain, releasing the claim once there is none left.
+     * The check and the release are atomic, so that an entry offered meanwhile is either taken here or claims a new drain
+     * @return the payload, null once the writer has to stop
+     */
+    public T pollOrRelease() {
+
+        this.lock.lock();
+
+        try {
+
+            Entry<T> entry = this.entries.poll();
+
+            if (entry == null) {
+
+                this.draining = false;
+
+                return null;
+
+            }
+
+            return entry.payload;
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Gets the next payload without waiting
+     * @return the payload, null if there is none
+     */
+    public T poll() {
+
+        this.lock.lock();
+
+        try {
+
+            Entry<T> entry = this.entries.poll();
+
+            return entry != null ? entry.payload : null;
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    public boolean isEmpty() {
+
+        this.lock.lock();
+
+        try {
+
+            return this.entries.isEmpty();
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    public boolean isClosed() {
+
+        this.lock.lock();
+
+        try {
+
+            return this.closed;
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Drops every pending payload, the writer in flight stops at its next poll
+     */
+    public void close() {
+
+        this.lock.lock();
+
+        try {
+
+            this.closed = true;
+
+            this.entries.clear();
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    public long getCoalesced() {
+
+        this.lock.lock();
+
+        try {
+
+            return coalesced;
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    public long getDropped() {
+
+        this.lock.lock();
+
+        try {
+
+            return dropped;
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Puts a model update in the place of the pending one, must be called holding the lock
+     * @param payload the update
+     * @return true if a pending update was replaced
+     */
+    private boolean replacePendingModel(T payload) {
+
+        boolean replaced = false;
+
+        Iterator<Entry<T>> iterator = this.entries.iterator();
+
+        while (iterator.hasNext()) {
+
+            Entry<T> entry = iterator.next();
+
+            if (entry.kind != Kind.Model) {
+
+                continue;
+
+            }
+
+            //The first pending update keeps its place, any other one is redundant
+            if (!replaced) {
+
+                entry.payload = payload;
+
+                replaced = true;
+
+            }
+            else {
+
+                iterator.remove();
+
+            }
+
+            this.coalesced++;
+
+        }
+
+        return replaced;
+
+    }
+
+    /**
+     * Drops the droppable entries, must be called holding the lock
+     * @return true if some room was made
+     */
+    private boolean shed() {
+
+        int before = this.entries.size();
+
+        this.entries.removeIf(entry -> entry.kind == Kind.Droppable);
+
+        this.dropped += before - this.entries.size();
+
+        return this.entries.size() < this.capacity;
+
+    }
+
+    private static class Entry<T> {
+
+        private T payload;
+
+        private final Kind kind;
+
+        private Entry(T payload, Kind kind) {
+
+            this.payload = payload;
+
+            this.kind = kind;
+
+        }
+
+    }
+
+}
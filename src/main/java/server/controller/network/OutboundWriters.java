@@ -0,0 +1,52 @@
+package server.controller.network;
+
+import server.utility.Threads;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The pool shared by the writers of the client handlers.
+ * A handler schedules its writer once an offer claims the drain of its outbound queue, the writer delivers the pending payloads
+ * and then gives the thread back, so that the threads follow the clients being written to rather than the clients connected.
+ * A writer blocks on a slow client, so the pool grows on demand instead of queueing the writers behind each other.
+ */
+public class OutboundWriters {
+
+    //How long an idle writer thread is kept around, in seconds
+    private static final long KEEP_ALIVE = 30;
+
+    private static final AtomicInteger count = new AtomicInteger(0);
+
+    private static final ExecutorService pool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+
+        Thread thread = Threads.newThread(runnable, "Writer #" + count.getAndIncrement());
+
+        //The writers must not keep the server alive
+        thread.setDaemon(true);
+
+        return thread;
+
+    });
+
+    /**
+     * Utility class
+     */
+    private OutboundWriters() {
+
+    }
+
+    /**
+     * Runs a writer on the shared pool
+     * @param writer the writer, which drains a queue it claimed
+     */
+    public static void execute(Runnable writer) {
+
+        pool.execute(writer);
+
+    }
+
+}
@@ -0,0 +1,36 @@
+package server.controller.network;
+
+/**
+ * What a client handler does when its outbound queue is full
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Drop whatever only carries state (model updates, plain messages), keeping just the newest model update.
+     * The client is disconnected only if nothing can be dropped.
+     */
+    DropToSnapshot,
+
+    /**
+     * Disconnect the client right away, it will get the whole model once it rejoins
+     */
+    Disconnect;
+
+    /**
+     * Parses the policy from the literal used inside the game configuration
+     * @param literal the literal, either "snapshot" or "disconnect"
+     * @return the policy, drop to snapshot if the literal is unknown
+     */
+    public static OverflowPolicy fromLiteral(String literal) {
+
+        if (literal != null && literal.equalsIgnoreCase("disconnect")) {
+
+            return Disconnect;
+
+        }
+
+        return DropToSnapshot;
+
+    }
+
+}
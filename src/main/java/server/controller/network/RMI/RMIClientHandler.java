@@ -14,18 +14,26 @@ import netobject.notification.MatchNotification;
 import server.controller.network.ClientHandler;
 import server.controller.network.ClientHandlerObserver;
 import server.controller.network.Observable;
+import server.controller.network.OutboundQueue;
+import server.controller.network.OutboundWriters;
 import server.model.FinalStanding;
 import server.model.Match;
 import server.model.board.BonusTile;
 import server.model.board.Player;
 import server.model.card.Deck;
 import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
+import server.utility.Threads;
+import singleton.GameConfig;
+import singleton.Scheduler;
 
+import java.io.*;
 import java.rmi.ConnectException;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class RMIClientHandler extends ClientHandler implements Observable<ClientHandlerObserver> {
 
@@ -47,11 +55,21 @@ public class RMIClientHandler extends ClientHandler implements Observable<Client
     /**
      * Heartbeat system status variable
      */
-    private boolean response = false;
+    private volatile boolean response = false;
+
+    /**
+     * True once the client was reported for missing its heartbeat
+     */
+    private final AtomicBoolean lost = new AtomicBoolean(false);
 
     //The observer list
     protected ArrayList<ClientHandlerObserver> observers = new ArrayList<ClientHandlerObserver>();
 
+    /**
+     * The callbacks waiting to be performed on the client, in order
+     */
+    private final OutboundQueue<RemoteCall> outbound = new OutboundQueue<>(GameConfig.getInstance().getOutboundQueueSize(), GameConfig.getInstance().getOutboundOverflowPolicy());
+
     /**
      * Constructor
      * @param clientRef The proxy reference to the client
@@ -63,62 +81,223 @@ public class RMIClientHandler extends ClientHandler implements Observable<Client
         this.clientRef = clientRef;
 
         this.token = token;
+
+    }
+
+    /**
+     * Queues a callback for the writer, which is started on the shared pool unless one is already performing the queued callbacks.
+     * The callbacks are performed by a writer, a slow client must not stall the game
+     * @param call the callback
+     * @param kind how the callback can be treated while queued
+     */
+    private void enqueue(RemoteCall call, OutboundQueue.Kind kind) {
+
+        if (!this.outbound.offer(call, kind)) {
+
+            if (!this.outbound.isClosed()) {
+
+                Logger.log(Level.WARNING, "RMIClientHandler", "Client " + this.username + " can't keep up with its updates, disconnecting it");
+
+                this.outbound.close();
+
+                this.notifyDisconnection();
+
+            }
+
+            return;
+
+        }
+
+        if (this.outbound.claimDrain()) {
+
+            OutboundWriters.execute(this::drainOutbound);
+
+        }
+
+    }
+
+    /**
+     * The writer, performs the queued callbacks one after another until the queue is empty
+     */
+    private void drainOutbound() {
+
+        RemoteCall call;
+
+        while ((call = this.outbound.pollOrRelease()) != null) {
+
+            try {
+
+                call.invoke(this.clientRef);
+
+            } catch (ConnectException e) {
+
+                Logger.log(Level.FINEST, "RMIClientHandler", "Client " + this.username + " went down while sending");
+
+                this.outbound.close();
+
+            } catch (RemoteException e) {
+
+                Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to perform callback", e);
+
+            }
+
+        }
+
+    }
+
+    @Override
+    protected void shutdownOutbound() {
+
+        this.outbound.close();
+
+    }
+
+    /**
+     * Copies a live model object, since RMI serializes the arguments only when the writer performs the call
+     * @param object the object
+     * @param <T> the type of the object
+     * @return the copy, or the object itself if it can't be copied
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Serializable> T copyOf(T object) {
+
+        if (object == null) {
+
+            return null;
+
+        }
+
+        try {
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+
+            out.writeObject(object);
+
+            out.close();
+
+            return (T) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        } catch (IOException | ClassNotFoundException e) {
+
+            Logger.log(Level.WARNING, "RMIClientHandler", "Unable to copy " + object.getClass().getSimpleName(), e);
+
+            return object;
+
+        }
+
+    }
+
+    /**
+     * A callback on the client
+     */
+    @FunctionalInterface
+    private interface RemoteCall {
+
+        void invoke(RMIClientInterface client) throws RemoteException;
+
     }
 
     /**
-     * Heartbeat system to detect client disconnection
+     * Heartbeat system to detect client disconnection.
+     * The remote call is made by the handler's own thread, the deadline on the shared scheduler only flags the round
+     * and hands the disconnection to a thread of its own, so that a client that never answers can't hold a scheduler thread
      */
-    public synchronized void run() {
+    public void run() {
 
         while(true) {
 
-            new Timer().schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    synchronized (RMIClientHandler.this) {
+            long next = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_DELAY);
+
+            //Set by whoever gets to the round first, the answer or the deadline
+            AtomicBoolean settled = new AtomicBoolean(false);
 
-                        if (!RMIClientHandler.this.response) {
+            ScheduledFuture<?> deadline = Scheduler.getInstance().schedule(() -> {
 
-                            RMIClientHandler.this.notifyDisconnection();
+                if (settled.compareAndSet(false, true)) {
 
-                        }
+                    Logger.log(Level.FINEST, "RMIClientHandler", "Client " + this.username + " missed its heartbeat");
 
-                        RMIClientHandler.this.notify();
+                    this.heartbeatLost(false);
 
-                    }
                 }
+
             }, HEARTBEAT_DELAY);
 
             try {
 
-                synchronized (this) {
+                //No lock is held across the remote call
+                response = this.clientRef.heartbeat();
+
+                if (!settled.compareAndSet(false, true)) {
+
+                    //The deadline expired meanwhile and already reported the client
+                    break;
 
-                    response = this.clientRef.heartbeat();
+                }
+
+                deadline.cancel(false);
+
+                if (!response) {
 
-                    this.wait();
+                    this.heartbeatLost(true);
+
+                    break;
 
                 }
 
+                //Wait for the next round
+                TimeUnit.NANOSECONDS.sleep(next - System.nanoTime());
 
             } catch (InterruptedException e) {
 
+                deadline.cancel(false);
+
                 Logger.log(Level.FINEST, "RMIClientHandler", "Thread terminated");
 
                 break;
 
             } catch (RemoteException e) {
 
+                deadline.cancel(false);
+
                 //If we catch this remote exception it means that probably the client went down
-                if (e instanceof ConnectException) {
+                if (e instanceof ConnectException && settled.compareAndSet(false, true)) {
 
                     //Went down
-                    this.notifyDisconnection();
+                    this.heartbeatLost(true);
 
                 }
                 break;
 
             }
 
+        }
+
+    }
+
+    /**
+     * Reports a client that stopped answering its heartbeats, once
+     * @param ownThread true if called by the handler's own thread, which may go through the disconnection itself
+     */
+    private void heartbeatLost(boolean ownThread) {
+
+        if (!this.lost.compareAndSet(false, true)) {
+
+            return;
+
+        }
+
+        if (ownThread) {
+
+            this.notifyDisconnection();
+
+        }
+        else {
+
+            //The disconnection goes through the engine, the lobby and the match, it must not run on a scheduler thread
+            Threads.newThread(this::notifyDisconnection, "RMIClientHandler disconnection").start();
 
         }
 
@@ -160,14 +339,7 @@ public class RMIClientHandler extends ClientHandler implements Observable<Client
 
     public void sendLobbyNotification(LobbyNotification not) {
 
-        try {
-
-            this.clientRef.onLobbyNotification(not);
-
-        } catch (RemoteException e) {
-
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to send notification", e);
-        }
+        this.enqueue(client -> client.onLobbyNotification(not), OutboundQueue.Kind.Regular);
 
     }
 
@@ -185,115 +357,95 @@ public class RMIClientHandler extends ClientHandler implements Observable<Client
     @Override
     public void notify(MatchNotification notification) {
 
-        try {
-            this.clientRef.onNotification(notification);
-        } catch (RemoteException e) {
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to send notification", e);
+        MatchNotification copy = copyOf(notification);
 
-        }
+        this.enqueue(client -> client.onNotification(copy), OutboundQueue.kindOf(notification));
 
     }
 
     public void notifyModelUpdate(Match model) {
 
-        try {
-            this.clientRef.onModelUpdate(model);
-        } catch (RemoteException e) {
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to send model", e);
+        Match copy = copyOf(model);
 
-        }
+        this.enqueue(client -> client.onModelUpdate(copy), OutboundQueue.Kind.Model);
+
+    }
+
+    public void notifyModelDelta(MatchDelta delta) {
+
+        //Deltas are immutable, no need to copy them
+        this.enqueue(client -> client.onModelDelta(delta), OutboundQueue.Kind.Model);
 
     }
 
     public void notifyTurnEnabled(Player player, String message) {
 
-        try {
-            this.clientRef.onTurnEnabled(player, message);
-        } catch (RemoteException e) {
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to notify turn enabled", e);
+        Player copy = copyOf(player);
 
-        }
+        this.enqueue(client -> client.onTurnEnabled(copy, message), OutboundQueue.Kind.Regular);
 
     }
 
     public void notifyTurnDisabled(Player player, String message) {
 
-        try {
-            this.clientRef.onTurnDisabled(player, message);
-        } catch (RemoteException e) {
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to notify turn disabled", e);
-        }
+        Player copy = copyOf(player);
+
+        this.enqueue(client -> client.onTurnDisabled(copy, message), OutboundQueue.Kind.Regular);
 
     }
 
     public void notifyActionTimeoutExpired(Player player, String message) {
 
-        try {
-            this.clientRef.onActionTimeoutExpired(player, message);
-        } catch (RemoteException e) {
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to notify timeout expired", e);
-        }
+        Player copy = copyOf(player);
+
+        this.enqueue(client -> client.onActionTimeoutExpired(copy, message), OutboundQueue.Kind.Regular);
 
     }
 
     public void notifyActionRefused(Action action,String message) {
 
-        try {
-            this.clientRef.onActionRefused(action, message);
-        } catch (RemoteException e) {
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to notify action refused", e);
-        }
+        this.enqueue(client -> client.onActionRefused(action, message), OutboundQueue.Kind.Regular);
 
     }
 
     public void notifyImmediateActionAvailable(ImmediateActionType immediateActionType, Player player, String message) {
 
-        try {
-            this.clientRef.onImmediateActionAvailable(immediateActionType, player, message);
-        } catch (RemoteException e) {
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to notify immediate action available", e);
-        }
+        Player copy = copyOf(player);
+
+        this.enqueue(client -> client.onImmediateActionAvailable(immediateActionType, copy, message), OutboundQueue.Kind.Regular);
 
     }
 
     public void notifyActionPerformed(Player player, Action action, String message) {
 
-        try {
-            this.clientRef.onActionPerformed(player, action, message);
-        } catch (RemoteException e) {
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to notify action performed", e);
-        }
+        Player copy = copyOf(player);
+
+        this.enqueue(client -> client.onActionPerformed(copy, action, message), OutboundQueue.Kind.Regular);
 
     }
 
     public void notifyLeaderCardDraftRequest(Deck<LeaderCard> cards, String message) {
 
-        try {
-            this.clientRef.onLeaderCardDraftRequest(cards, message);
-        } catch (RemoteException e) {
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to notify leader card draft available", e);
-        }
+        Deck<LeaderCard> copy = copyOf(cards);
+
+        this.enqueue(client -> client.onLeaderCardDraftRequest(copy, message), OutboundQueue.Kind.Regular);
 
     }
 
     public void notifyBonusTileDraftRequest(ArrayList<BonusTile> tiles, String message) {
 
-        try {
-            this.clientRef.onBonusTileDraftRequest(tiles, message);
-        } catch (RemoteException e) {
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to notify bonus tiles draft available", e);
-        }
+        ArrayList<BonusTile> copy = copyOf(tiles);
+
+        this.enqueue(client -> client.onBonusTileDraftRequest(copy, message), OutboundQueue.Kind.Regular);
 
     }
 
 
     public void notifyMatchEnded(FinalStanding finalStanding, String message) {
 
-        try {
-            this.clientRef.onMatchEndedRequest(finalStanding,message);
-        } catch (RemoteException e) {
-            Logger.log(Level.SEVERE, "RMIClientHandler", "Unable to notify final standing before match ended", e);
-        }
+        FinalStanding copy = copyOf(finalStanding);
+
+        this.enqueue(client -> client.onMatchEndedRequest(copy, message), OutboundQueue.Kind.Regular);
 
     }
 
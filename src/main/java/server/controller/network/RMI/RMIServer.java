@@ -12,6 +12,7 @@ import exception.authentication.*;
 import logger.*;
 import netobject.action.Action;
 import netobject.notification.Notification;
+import netobject.notification.ModelSyncNotification;
 import netobject.notification.ObserverReadyNotification;
 import netobject.request.auth.LoginRequest;
 import netobject.request.auth.RegisterRequest;
@@ -32,8 +33,7 @@ import java.rmi.server.UnicastRemoteObject;
 
 import java.security.NoSuchAlgorithmException;
 import java.util.Date;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -52,6 +52,9 @@ public class RMIServer extends Server implements RMIServerInterface, ClientHandl
     //The name to bind the remote object with
     private transient final String bindName;
 
+    //The connected client handlers by connection token
+    private transient final ConcurrentHashMap<String, RMIClientHandler> handlersByToken = new ConcurrentHashMap<>();
+
     /**
      * Constructor
      * @param port the port to run the server on
@@ -152,28 +155,20 @@ public class RMIServer extends Server implements RMIServerInterface, ClientHandl
      */
     private RMIClientHandler getClientHandler(String connectionToken) throws NotConnectedException {
 
-        Iterator it = this.clientHandlers.entrySet().iterator();
-
-        while (it.hasNext()) {
-
-            Map.Entry pair = (Map.Entry)it.next();
+        RMIClientHandler handler = connectionToken != null ? this.handlersByToken.get(connectionToken) : null;
 
-            RMIClientHandler handler = (RMIClientHandler)pair.getKey();
+        if (handler == null) {
 
-            if (connectionToken.equals(handler.getToken())) {
-
-                return handler;
-
-            }
+            throw new NotConnectedException("No user did connect with token = " + connectionToken);
 
         }
 
-        throw new NotConnectedException("No user did connect with token = " + connectionToken);
+        return handler;
 
     }
 
     /* ClientHandlerObserver implementation */
-    public synchronized void onDisconnect(ClientHandler handler) {
+    public void onDisconnect(ClientHandler handler) {
 
         Logger.log(Level.FINEST, "Server (RMI)", "Client " + handler.getUsername() + " disconnected");
 
@@ -183,6 +178,8 @@ public class RMIServer extends Server implements RMIServerInterface, ClientHandl
         //Remove the client handler
         this.removeClientHandler(handler);
 
+        this.handlersByToken.remove(((RMIClientHandler) handler).getToken(), handler);
+
     }
 
     public String getBoundableIP() throws RemoteException, ServerNotActiveException {
@@ -192,7 +189,7 @@ public class RMIServer extends Server implements RMIServerInterface, ClientHandl
     }
 
     /* RMIServerInterface implementation */
-    public synchronized String connect(RMIClientInterface clientRef) throws RemoteException, ConnectionFailedException {
+    public String connect(RMIClientInterface clientRef) throws RemoteException, ConnectionFailedException {
 
         String MD5Token;
 
@@ -215,13 +212,15 @@ public class RMIServer extends Server implements RMIServerInterface, ClientHandl
         //Add the handler
         this.addClientHandler(handler);
 
+        this.handlersByToken.put(MD5Token, handler);
+
         Logger.log(Level.FINEST, "Server (RMI)", "New client connected, waiting for request..");
 
         return MD5Token;
 
     }
 
-    public synchronized boolean login(String connectionToken, LoginRequest loginRequest) throws RemoteException, LoginFailedException, AlreadyLoggedInException, NotConnectedException, RegistrationFailedException {
+    public boolean login(String connectionToken, LoginRequest loginRequest) throws RemoteException, LoginFailedException, AlreadyLoggedInException, NotConnectedException, RegistrationFailedException {
 
         ClientHandler handler = null;
 
@@ -229,7 +228,7 @@ public class RMIServer extends Server implements RMIServerInterface, ClientHandl
 
             handler = this.getClientHandler(connectionToken);
 
-            return this.authenticate(handler, loginRequest);
+            return this.awaitAuthentication(handler, loginRequest);
 
         }
         //If we want to terminate the handler we must, before forwarding the exception to the client, catch it and do something.
@@ -257,7 +256,7 @@ public class RMIServer extends Server implements RMIServerInterface, ClientHandl
 
     }
 
-    public synchronized void register(String connectionToken, RegisterRequest registerAuthentication) throws RemoteException, UsernameAlreadyInUseException, AlreadyLoggedInException, LoginFailedException {
+    public void register(String connectionToken, RegisterRequest registerAuthentication) throws RemoteException, UsernameAlreadyInUseException, AlreadyLoggedInException, LoginFailedException {
 
         ClientHandler handler;
 
@@ -265,7 +264,7 @@ public class RMIServer extends Server implements RMIServerInterface, ClientHandl
 
             handler = this.getClientHandler(connectionToken);
 
-            this.authenticate(handler, registerAuthentication);
+            this.awaitAuthentication(handler, registerAuthentication);
 
         }
         //If we want to terminate the handler we must, before forwarding the exception to the client, catch it and do something.
@@ -310,6 +309,11 @@ public class RMIServer extends Server implements RMIServerInterface, ClientHandl
             this.notifyObserverReady(getClientHandler(connectionToken), ((ObserverReadyNotification) notification).getObserverType());
 
         }
+        else if (notification instanceof ModelSyncNotification) {
+
+            this.notifyModelSync(getClientHandler(connectionToken), (ModelSyncNotification) notification);
+
+        }
 
     }
 
@@ -9,18 +9,22 @@ import exception.authentication.RegistrationFailedException;
 import logger.Level;
 import logger.Logger;
 import netobject.action.Action;
+import netobject.notification.ModelSyncNotification;
 import netobject.request.Request;
 import netobject.request.RequestType;
 import netobject.request.auth.LoginRequest;
 import netobject.NetObject;
 import netobject.request.auth.RegisterRequest;
 import server.controller.game.GameEngine;
-import singleton.Database;
+import server.utility.Threads;
+import singleton.Authenticator;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
 
 /*
  * @author  ab3llini
@@ -38,9 +42,16 @@ public abstract class Server implements Observable<ServerObserver> {
     //The client handlers
     protected HashMap<ClientHandler, Thread> clientHandlers = new HashMap<ClientHandler, Thread>();
 
+    //The authenticated client handlers by username, and the ones authenticating, so that a username logs in once
+    protected final ConcurrentHashMap<String, ClientHandler> authenticatedHandlers = new ConcurrentHashMap<>();
+
     //The game engine reference
     protected GameEngine gameEngine;
 
+    //Guards the handlers, held for map updates only: the authentication and the disconnection are serialized per client.
+    //A lock rather than the monitor, so that a virtual thread waiting on the database does not pin its carrier
+    protected final ReentrantLock lock = new ReentrantLock();
+
     /**
      * Every server must call super to initialize the game engine reference
      * @param gameEngine the game engine reference
@@ -89,7 +100,7 @@ public abstract class Server implements Observable<ServerObserver> {
      * Notify the request of a client
      * @param handler The handler
      */
-    private final synchronized void notifyAuthentication(ClientHandler handler) {
+    private void notifyAuthentication(ClientHandler handler) {
 
         for (ServerObserver o : this.observers) {
 
@@ -100,17 +111,65 @@ public abstract class Server implements Observable<ServerObserver> {
     }
 
     /**
-     * Notify the disconnection of an authenticated client only
+     * Notify the disconnection of an authenticated client only.
+     * The calling thread serves clients, so it never waits for an authentication in progress: the disconnection is
+     * handed to the authentication threads instead, and processed once the client has either joined its lobby or been refused
      * @param handler The handler
      */
-    protected final synchronized void notifyDisconnection(ClientHandler handler) {
+    protected final void notifyDisconnection(ClientHandler handler) {
 
-        if (!handler.isAuthenticated()) {
+        if (!handler.session.tryLock()) {
+
+            if (Authenticator.getInstance().execute(() -> this.disconnect(handler))) {
+
+                return;
+
+            }
+
+            //The authentication threads are saturated, waiting is the only way left not to leave a ghost in the lobby
+            handler.session.lock();
+
+        }
+
+        try {
+
+            this.disconnectLocked(handler);
+
+        } finally {
+
+            handler.session.unlock();
+
+        }
+
+    }
+
+    private void disconnect(ClientHandler handler) {
+
+        handler.session.lock();
+
+        try {
+
+            this.disconnectLocked(handler);
+
+        } finally {
+
+            handler.session.unlock();
+
+        }
+
+    }
+
+    private void disconnectLocked(ClientHandler handler) {
+
+        //The handler may have been removed meanwhile, what matters is whether it ever reached the game engine
+        if (!handler.admitted) {
 
             return;
 
         }
 
+        handler.admitted = false;
+
         for (ServerObserver o : this.observers) {
 
             o.onDisconnection(this, handler);
@@ -123,24 +182,42 @@ public abstract class Server implements Observable<ServerObserver> {
      * Removes a client and terminates his thread
      * @param handler the handler to be removed
      */
-    protected synchronized void removeClientHandler(ClientHandler handler) {
+    protected void removeClientHandler(ClientHandler handler) {
 
-        if (handler == null || this.clientHandlers.get(handler) == null) {
+        this.lock.lock();
 
-            Logger.log(Level.SEVERE, "Server", "Trying to remove a client handler that is either null or already removed");
+        try {
 
-            return;
+            if (handler == null || !this.clientHandlers.containsKey(handler)) {
 
-        }
+                Logger.log(Level.SEVERE, "Server", "Trying to remove a client handler that is either null or already removed");
+
+                return;
 
-        //Terminate the thread
-        this.clientHandlers.get(handler).interrupt();
+            }
+
+            //Terminate the thread, multiplexed handlers do not own one
+            if (this.clientHandlers.get(handler) != null) {
+
+                this.clientHandlers.get(handler).interrupt();
+
+            }
+
+            //Remove the reference
+            this.clientHandlers.remove(handler);
 
-        //Remove the reference
-        this.clientHandlers.remove(handler);
+            this.authenticatedHandlers.remove(handler.getUsername(), handler);
 
-        handler.setAuthenticated(false);
+            //Nothing else has to reach the client
+            handler.shutdownOutbound();
 
+            handler.setAuthenticated(false);
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
 
     }
 
@@ -149,19 +226,51 @@ public abstract class Server implements Observable<ServerObserver> {
      * Takes care of giving a thread and running it
      * @param handler the handler to add
      */
-    protected synchronized void addClientHandler(ClientHandler handler) {
+    protected void addClientHandler(ClientHandler handler) {
+
+        //Prepare a dedicated thread for the client, virtual if enabled
+        Thread thread = Threads.newThread(handler, handler.toString());
 
-        //Prepare a dedicated thread for the client.
-        Thread thread = new Thread(handler);
+        this.lock.lock();
 
-        //Map the client
-        clientHandlers.put(handler, thread);
+        try {
+
+            //Map the client
+            clientHandlers.put(handler, thread);
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
 
         //Start the handler
         thread.start();
 
     }
 
+    /**
+     * Adds a client handler to the map without giving it a thread.
+     * Used by servers that multiplex many clients over a few threads of their own
+     * @param handler the handler to add
+     */
+    protected void addMultiplexedClientHandler(ClientHandler handler) {
+
+        this.lock.lock();
+
+        try {
+
+            //Map the client, no dedicated thread
+            clientHandlers.put(handler, null);
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
     protected final void notifyAction(ClientHandler handler, Action action) {
 
         if (!handler.isAuthenticated()) {
@@ -195,89 +304,255 @@ public abstract class Server implements Observable<ServerObserver> {
     }
 
 
-    protected final synchronized boolean authenticate(ClientHandler handler, Request genericRequest) throws AuthenticationException {
+    protected final void notifyModelSync(ClientHandler handler, ModelSyncNotification notification) {
 
-        //Login or register
-        if (genericRequest.getRequestType() == RequestType.Login) {
+        if (!handler.isAuthenticated()) {
 
-            LoginRequest request = (LoginRequest)genericRequest;
+            return;
 
-            //Check if there is a client already authenticated with the same username
-            if (this.gameEngine.hasAlreadyAuthenticated(request.getUsername())) {
+        }
 
-                throw new AlreadyLoggedInException("A client with username " + request.getUsername() + " has already logged in");
+        for (ServerObserver o : this.observers) {
 
-            }
+            o.onModelSync(this, handler, notification);
 
+        }
 
-            //Attempt to login
-            if (Database.getInstance().login(request.getUsername(), request.getPassword())) {
+    }
 
-                //Assign username & session to handler
-                handler.setUsername(request.getUsername());
-                handler.setAuthenticated(true);
+    /**
+     * Authenticates a client on the calling thread
+     * @param handler the handler of the client
+     * @param genericRequest the login or registration request
+     * @return true if the client is authenticated, false if it disconnected meanwhile
+     * @throws AuthenticationException if the client was refused
+     */
+    protected final boolean authenticate(ClientHandler handler, Request genericRequest) throws AuthenticationException {
 
-                //Notify the request
-                this.notifyAuthentication(handler);
+        handler.session.lock();
 
-                return true;
+        try {
 
-            } else {
+            return this.authenticateLocked(handler, genericRequest);
 
-                throw new LoginFailedException("Wrong username or password");
+        } finally {
+
+            handler.session.unlock();
+
+        }
+
+    }
+
+    /**
+     * Authenticates a client on the authentication threads, the calling thread returns right away
+     * @param handler the handler of the client
+     * @param genericRequest the login or registration request
+     * @return the outcome, true if the client is authenticated, false if it disconnected meanwhile, failed with an AuthenticationException if it was refused
+     */
+    protected final CompletableFuture<Boolean> authenticateAsync(ClientHandler handler, Request genericRequest) {
+
+        CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+
+        boolean queued = Authenticator.getInstance().execute(() -> {
+
+            try {
+
+                outcome.complete(this.authenticate(handler, genericRequest));
+
+            } catch (AuthenticationException e) {
+
+                outcome.completeExceptionally(e);
+
+            } catch (RuntimeException e) {
+
+                Logger.log(Level.SEVERE, "Server", "Authentication of " + handler + " failed", e);
+
+                outcome.completeExceptionally(new AuthenticationException("The authentication failed, retry in a moment"));
 
             }
 
+        });
+
+        if (!queued) {
+
+            String message = "The server is busy, retry in a moment";
+
+            outcome.completeExceptionally(genericRequest.getRequestType() == RequestType.Registration ? new RegistrationFailedException(message) : new LoginFailedException(message));
+
         }
 
-        if (genericRequest.getRequestType() == RequestType.Registration) {
+        return outcome;
 
-            RegisterRequest request = (RegisterRequest) genericRequest;
+    }
+
+    /**
+     * Authenticates a client on the authentication threads and waits for the outcome.
+     * Used by the transports whose calls must return the outcome, the database is paced all the same
+     * @param handler the handler of the client
+     * @param genericRequest the login or registration request
+     * @return true if the client is authenticated, false if it disconnected meanwhile
+     * @throws AuthenticationException if the client was refused
+     */
+    protected final boolean awaitAuthentication(ClientHandler handler, Request genericRequest) throws AuthenticationException {
 
-            //Attempt to registration
-            if (Database.getInstance().registration(request.getUsername(), request.getPassword())) {
+        try {
 
-                handler.setUsername(request.getUsername());
-                handler.setAuthenticated(true);
+            return this.authenticateAsync(handler, genericRequest).get();
 
-                //Notify the request
-                this.notifyAuthentication(handler);
+        } catch (InterruptedException e) {
 
-                return true;
+            Thread.currentThread().interrupt();
 
-            } else {
+            throw new AuthenticationException("Interrupted while authenticating");
 
-                throw new RegistrationFailedException("A player with the name '"+ request.getUsername() +"' already exists!");
+        } catch (ExecutionException e) {
+
+            if (e.getCause() instanceof AuthenticationException) {
+
+                throw (AuthenticationException) e.getCause();
 
             }
 
+            throw new AuthenticationException("The authentication failed, retry in a moment");
+
         }
-        else  {
 
-            throw new AuthenticationException("Unknown authentication request");
+    }
+
+    /**
+     * Reserves a username for a client that is authenticating
+     * @param handler the handler of the client
+     * @param username the username
+     * @throws AlreadyLoggedInException if a client already logged in or is logging in with the username
+     */
+    private void reserve(ClientHandler handler, String username) throws AlreadyLoggedInException {
+
+        //Check if there is a client already authenticated with the same username, on this server or on the other one
+        if (this.gameEngine.hasAlreadyAuthenticated(username) || this.authenticatedHandlers.putIfAbsent(username, handler) != null) {
+
+            throw new AlreadyLoggedInException("A client with username " + username + " has already logged in");
+
+        }
+
+    }
+
+    /**
+     * Authenticates a client whose credentials were accepted, unless it disconnected meanwhile
+     * @param handler the handler of the client
+     * @param username the username
+     * @return true if the client is authenticated
+     */
+    private boolean admit(ClientHandler handler, String username) {
+
+        this.lock.lock();
+
+        try {
+
+            if (!this.clientHandlers.containsKey(handler)) {
+
+                this.authenticatedHandlers.remove(username, handler);
+
+                return false;
+
+            }
+
+            //Assign username & session to handler
+            handler.setUsername(username);
+            handler.setAuthenticated(true);
+            handler.admitted = true;
+
+        } finally {
+
+            this.lock.unlock();
 
         }
 
+        //Notify the request
+        this.notifyAuthentication(handler);
 
+        return true;
 
     }
 
-    public boolean hasHandlerWithUsername(String username) {
+    private boolean authenticateLocked(ClientHandler handler, Request genericRequest) throws AuthenticationException {
+
+        //Login or register, the database is queried without holding the lock of the server and paced by the authenticator
+        if (genericRequest.getRequestType() == RequestType.Login) {
+
+            LoginRequest request = (LoginRequest)genericRequest;
+
+            this.reserve(handler, request.getUsername());
+
+            boolean accepted = false;
+
+            try {
+
+                //Attempt to login
+                accepted = Authenticator.getInstance().login(request.getUsername(), request.getPassword());
+
+            } finally {
+
+                if (!accepted) {
+
+                    this.authenticatedHandlers.remove(request.getUsername(), handler);
+
+                }
+
+            }
+
+            if (!accepted) {
+
+                throw new LoginFailedException("Wrong username or password");
+
+            }
+
+            return this.admit(handler, request.getUsername());
+
+        }
+
+        if (genericRequest.getRequestType() == RequestType.Registration) {
+
+            RegisterRequest request = (RegisterRequest) genericRequest;
+
+            this.reserve(handler, request.getUsername());
+
+            boolean accepted = false;
+
+            try {
 
-        Iterator it = this.clientHandlers.entrySet().iterator();
+                //Attempt to registration
+                accepted = Authenticator.getInstance().registration(request.getUsername(), request.getPassword());
 
-        while (it.hasNext()) {
+            } finally {
 
-            Map.Entry pair = (Map.Entry)it.next();
+                if (!accepted) {
 
-            if (((ClientHandler)pair.getKey()).getUsername().equals(username)) {
+                    this.authenticatedHandlers.remove(request.getUsername(), handler);
 
-                return true;
+                }
+
+            }
+
+            if (!accepted) {
+
+                throw new RegistrationFailedException("A player with the name '"+ request.getUsername() +"' already exists!");
 
             }
+
+            return this.admit(handler, request.getUsername());
+
         }
+        else  {
+
+            throw new AuthenticationException("Unknown authentication request");
+
+        }
+
+    }
+
+    public boolean hasHandlerWithUsername(String username) {
 
-        return false;
+        return this.authenticatedHandlers.containsKey(username);
 
     }
 
@@ -8,6 +8,7 @@ package server.controller.network;
 import client.controller.network.Observer;
 import client.controller.network.ObserverType;
 import netobject.action.Action;
+import netobject.notification.ModelSyncNotification;
 
 /**
  * This interface provide methods for server observers
@@ -38,5 +39,13 @@ public interface ServerObserver {
 
     void onObserverReady(Server server, ClientHandler handler, ObserverType observerType);
 
+    /**
+     * Event raised whenever a client acknowledges a model revision or asks for the whole model
+     * @param server The server
+     * @param handler The handler
+     * @param notification The revision held by the client
+     */
+    void onModelSync(Server server, ClientHandler handler, ModelSyncNotification notification);
+
 
 }
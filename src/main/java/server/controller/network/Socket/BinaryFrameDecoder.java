@@ -0,0 +1,90 @@
+package server.controller.network.Socket;
+
+import netobject.NetObject;
+import netobject.codec.BinaryCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Incremental decoder for the length prefixed frames of the binary protocol.
+ * Unlike the object stream, a frame tells its own length, so nothing is decoded until it is complete.
+ */
+public class BinaryFrameDecoder implements NetObjectDecoder {
+
+    //The length of the frame prefix
+    private static final int LENGTH_PREFIX = 4;
+
+    //The initial capacity of the pending bytes buffer
+    private static final int INITIAL_CAPACITY = 1024;
+
+    //The bytes received and not yet decoded
+    private byte[] pending = new byte[INITIAL_CAPACITY];
+
+    //The amount of valid bytes in the pending buffer
+    private int size = 0;
+
+    //Interface impl.
+    public void append(ByteBuffer buffer) {
+
+        int incoming = buffer.remaining();
+
+        if (this.size + incoming > this.pending.length) {
+
+            byte[] grown = new byte[Math.max(this.pending.length * 2, this.size + incoming)];
+
+            System.arraycopy(this.pending, 0, grown, 0, this.size);
+
+            this.pending = grown;
+
+        }
+
+        buffer.get(this.pending, this.size, incoming);
+
+        this.size += incoming;
+
+    }
+
+    //Interface impl.
+    public ArrayList<NetObject> decode() throws IOException, ClassNotFoundException {
+
+        ArrayList<NetObject> objects = new ArrayList<>();
+
+        int offset = 0;
+
+        while (this.size - offset >= LENGTH_PREFIX) {
+
+            int length = ((this.pending[offset] & 0xFF) << 24)
+                    | ((this.pending[offset + 1] & 0xFF) << 16)
+                    | ((this.pending[offset + 2] & 0xFF) << 8)
+                    | (this.pending[offset + 3] & 0xFF);
+
+            BinaryCodec.checkLength(length);
+
+            //Wait for the rest of the frame
+            if (this.size - offset - LENGTH_PREFIX < length) {
+
+                break;
+
+            }
+
+            objects.add(BinaryCodec.decode(this.pending, offset + LENGTH_PREFIX, length));
+
+            offset += LENGTH_PREFIX + length;
+
+        }
+
+        if (offset > 0) {
+
+            System.arraycopy(this.pending, offset, this.pending, 0, this.size - offset);
+
+            this.size -= offset;
+
+        }
+
+        return objects;
+
+    }
+
+}
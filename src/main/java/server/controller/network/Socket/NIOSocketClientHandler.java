@@ -0,0 +1,395 @@
+package server.controller.network.Socket;
+
+import logger.Level;
+import logger.Logger;
+import netobject.NetObject;
+import netobject.codec.BinaryCodec;
+import netobject.codec.WireProtocol;
+import server.controller.network.OutboundQueue;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+
+/**
+ * A socket client handler that does not own any thread.
+ * Its channel is multiplexed by a NIO worker which reads, decodes and writes on its behalf.
+ * The wire format is negotiated exactly like the blocking handler does, so clients are unaware of the mode.
+ */
+public class NIOSocketClientHandler extends SocketClientHandler {
+
+    //The channel of the client
+    private final SocketChannel channel;
+
+    //The worker whose selector the channel is registered with
+    private final NIOWorker worker;
+
+    //The selection key, assigned once the worker registers the channel
+    private SelectionKey key;
+
+    //The decoder of the incoming stream, chosen once the protocol is negotiated
+    private NetObjectDecoder decoder;
+
+    //The first bytes of the connection, which tell the protocol
+    private final byte[] preamble = new byte[BinaryCodec.HANDSHAKE.length];
+
+    //The amount of preamble bytes received so far
+    private int preambleSize = 0;
+
+    //The objects sent before the protocol was negotiated
+    private final ArrayList<NetObject> deferred = new ArrayList<>();
+
+    //The bytes being written on the channel, taken from the outbound queue
+    private ByteBuffer writing;
+
+    //Status variable to notify the disconnection only once
+    private boolean closed = false;
+
+    /**
+     * The constructor
+     * @param channel the channel of the client, already in non blocking mode
+     * @param worker the worker that will serve the channel
+     */
+    public NIOSocketClientHandler(SocketChannel channel, NIOWorker worker) {
+
+        this.channel = channel;
+
+        this.worker = worker;
+
+    }
+
+    /**
+     * Encodes the object and queues it for the worker to write
+     * @param object the object
+     * @return true if the object was queued
+     */
+    @Override
+    public boolean sendObject(NetObject object) {
+
+        if (this.closed || !this.channel.isOpen()) {
+
+            return false;
+
+        }
+
+        this.encoding.lock();
+
+        try {
+
+            //The format is not known yet, the object will be written once it is
+            if (this.decoder == null) {
+
+                this.deferred.add(object);
+
+                return true;
+
+            }
+
+        } finally {
+
+            this.encoding.unlock();
+
+        }
+
+        if (!this.enqueue(object)) {
+
+            return false;
+
+        }
+
+        this.worker.requestWrite(this);
+
+        return true;
+
+    }
+
+    /**
+     * Multiplexed handlers are driven by their worker, there is nothing to run
+     */
+    @Override
+    public void run() {
+
+    }
+
+    /**
+     * Called by the worker when the channel is readable
+     * @param buffer the worker read buffer
+     */
+    void onReadable(ByteBuffer buffer) {
+
+        ArrayList<NetObject> objects;
+
+        try {
+
+            buffer.clear();
+
+            int read = this.channel.read(buffer);
+
+            if (read < 0) {
+
+                Logger.log(Level.FINEST, this.toString(), "Client " + this.username + " disconnected.");
+
+                this.close();
+
+                return;
+
+            }
+
+            buffer.flip();
+
+            if (this.decoder == null && !this.negotiate(buffer)) {
+
+                return;
+
+            }
+
+            this.decoder.append(buffer);
+
+            objects = this.decoder.decode();
+
+        } catch (StreamCorruptedException e) {
+
+            Logger.log(Level.WARNING, this.toString(), "Client " + this.username + " sent a corrupted stream, closing it: " + e.getMessage());
+
+            this.close();
+
+            return;
+
+        } catch (IOException e) {
+
+            Logger.log(Level.FINEST, this.toString(), "Client " + this.username + " disconnected.");
+
+            this.close();
+
+            return;
+
+        } catch (ClassNotFoundException e) {
+
+            Logger.log(Level.WARNING, this.toString(), "Class not found", e);
+
+            this.close();
+
+            return;
+
+        }
+
+        //Objects are handed over in the same order they were sent
+        for (NetObject object : objects) {
+
+            try {
+
+                this.notifyObjectReceived(object);
+
+            } catch (RuntimeException e) {
+
+                //The client is dropped, the following objects may depend on the one that failed
+                Logger.log(Level.SEVERE, this.toString(), "Unable to handle an object of client " + this.username + ", closing it", e);
+
+                this.close();
+
+                return;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Consumes the preamble and picks the protocol once it is complete
+     * @param buffer the bytes just read
+     * @return true if the protocol was negotiated
+     * @throws IOException if the object stream header can't be written
+     */
+    private boolean negotiate(ByteBuffer buffer) throws IOException {
+
+        int count = Math.min(buffer.remaining(), this.preamble.length - this.preambleSize);
+
+        buffer.get(this.preamble, this.preambleSize, count);
+
+        this.preambleSize += count;
+
+        if (this.preambleSize < this.preamble.length) {
+
+            return false;
+
+        }
+
+        this.encoding.lock();
+
+        try {
+
+            if (BinaryCodec.isHandshake(this.preamble)) {
+
+                this.protocol = WireProtocol.Binary;
+
+                this.decoder = new BinaryFrameDecoder();
+
+                //Acknowledge the protocol
+                this.outbound.offer(BinaryCodec.HANDSHAKE, OutboundQueue.Kind.Regular);
+
+            }
+            else {
+
+                this.decoder = new SerializedObjectDecoder();
+
+                //The preamble was the object stream header
+                this.decoder.append(ByteBuffer.wrap(this.preamble));
+
+                //Answer with our own header
+                this.out = new ObjectOutputStream(this.serialized);
+
+                this.outbound.offer(this.drainSerialized(), OutboundQueue.Kind.Regular);
+
+            }
+
+            for (NetObject object : this.deferred) {
+
+                if (!this.enqueue(object)) {
+
+                    break;
+
+                }
+
+            }
+
+            this.deferred.clear();
+
+        } finally {
+
+            this.encoding.unlock();
+
+        }
+
+        this.worker.requestWrite(this);
+
+        return true;
+
+    }
+
+    /**
+     * Called by the worker when the channel is writable
+     * @return true if every queued byte was written
+     */
+    boolean onWritable() {
+
+        try {
+
+            while (true) {
+
+                if (this.writing == null) {
+
+                    byte[] next = this.outbound.poll();
+
+                    if (next == null) {
+
+                        break;
+
+                    }
+
+                    this.writing = ByteBuffer.wrap(next);
+
+                }
+
+                this.channel.write(this.writing);
+
+                if (this.writing.hasRemaining()) {
+
+                    //The socket buffer is full, wait for the next write readiness
+                    return false;
+
+                }
+
+                this.writing = null;
+
+            }
+
+        } catch (IOException e) {
+
+            Logger.log(Level.WARNING, this.toString(), "Broken pipe: the client disconnected while writing", e);
+
+            this.close();
+
+        }
+
+        return true;
+
+    }
+
+    boolean hasPendingWrites() {
+
+        return this.writing != null || !this.outbound.isEmpty();
+
+    }
+
+    /**
+     * Closes the channel and notifies the disconnection, only once
+     */
+    void close() {
+
+        synchronized (this) {
+
+            if (this.closed) {
+
+                return;
+
+            }
+
+            this.closed = true;
+
+        }
+
+        if (this.key != null) {
+
+            this.key.cancel();
+
+        }
+
+        try {
+
+            this.channel.close();
+
+        } catch (IOException e) {
+
+            Logger.log(Level.WARNING, this.toString(), "Unable to close the channel", e);
+
+        }
+
+        this.outbound.close();
+
+        this.notifyDisconnection();
+
+    }
+
+    void setKey(SelectionKey key) {
+        this.key = key;
+    }
+
+    SelectionKey getKey() {
+        return key;
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Close the connection.
+     */
+    @Override
+    protected void disconnect() {
+
+        this.close();
+
+    }
+
+    @Override
+    public String toString() {
+        return "ClientHandler (Socket NIO)";
+    }
+
+}
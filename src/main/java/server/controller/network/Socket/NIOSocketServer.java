@@ -0,0 +1,120 @@
+package server.controller.network.Socket;
+
+import logger.Level;
+import logger.Logger;
+import server.controller.game.GameEngine;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * The non blocking flavour of the socket server.
+ * Instead of giving a thread to each client, the accepted channels are spread over a small pool of NIO workers.
+ * Decoded objects reach the very same parsing logic of the blocking server.
+ */
+public class NIOSocketServer extends SocketServer {
+
+    //The channel to accept the connections on
+    private ServerSocketChannel acceptor;
+
+    //The selector workers
+    private final NIOWorker[] workers;
+
+    //The next worker to assign a connection to
+    private int nextWorker = 0;
+
+    /**
+     * Constructor
+     * @param port The port on which the listening will be performed
+     * @param ioThreads The number of selector threads
+     * @param gameEngine The game engine reference
+     */
+    public NIOSocketServer(int port, int ioThreads, GameEngine gameEngine) {
+
+        //Initialize super class
+        super(port, gameEngine);
+
+        this.workers = new NIOWorker[ioThreads];
+
+    }
+
+    /**
+     * The run loop where the server accepts new connections and hands them over to the workers
+     */
+    @Override
+    public void run() {
+
+        //Try to open the acceptor and the workers
+        try {
+
+            this.acceptor = ServerSocketChannel.open();
+
+            this.acceptor.bind(new InetSocketAddress(this.port));
+
+            for (int i = 0; i < this.workers.length; i++) {
+
+                this.workers[i] = new NIOWorker(i);
+
+                Thread thread = new Thread(this.workers[i], this.workers[i].toString());
+
+                thread.setDaemon(true);
+
+                thread.start();
+
+            }
+
+            Logger.log(Level.FINE, "Server (Socket NIO)", "Up and running on port " + this.port + " with " + this.workers.length + " io threads");
+
+        }
+        catch (IOException e) {
+
+            Logger.log(Level.SEVERE, "Server (Socket NIO)", "Unable to open the acceptor channel", e);
+
+            return;
+        }
+
+        //Run forever
+        while (this.acceptor.isOpen()) {
+
+            try {
+
+                //Accept every connection, blocking is fine for the acceptor
+                SocketChannel channel = this.acceptor.accept();
+
+                channel.configureBlocking(false);
+
+                channel.socket().setTcpNoDelay(true);
+
+                //Round robin over the workers
+                NIOWorker worker = this.workers[this.nextWorker];
+
+                this.nextWorker = (this.nextWorker + 1) % this.workers.length;
+
+                //Create a new client handler
+                NIOSocketClientHandler handler = new NIOSocketClientHandler(channel, worker);
+
+                //Register us as observers
+                handler.addObserver(this);
+
+                //Add the client, without any thread
+                this.addMultiplexedClientHandler(handler);
+
+                //Let the worker serve it
+                worker.register(handler);
+
+                Logger.log(Level.FINEST, "Server (Socket NIO)", "New client connected, waiting for request..");
+
+            }
+            catch (Exception e) {
+
+                Logger.log(Level.SEVERE, "Server (Socket NIO)", "Exception while listening", e);
+
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,257 @@
+package server.controller.network.Socket;
+
+import logger.Level;
+import logger.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A selector thread of the non blocking socket server.
+ * It serves every channel assigned to it: reads and decodes incoming objects, writes the queued ones.
+ * Other threads never touch the selector directly, they queue their requests and wake it up.
+ */
+public class NIOWorker implements Runnable {
+
+    //The size of the buffer used to read from the channels
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    //The selector of the worker
+    private final Selector selector;
+
+    //The handlers waiting to be registered with the selector
+    private final ConcurrentLinkedQueue<NIOSocketClientHandler> registrations = new ConcurrentLinkedQueue<>();
+
+    //The handlers that have something to write
+    private final ConcurrentLinkedQueue<NIOSocketClientHandler> writeRequests = new ConcurrentLinkedQueue<>();
+
+    //The buffer shared by every read of this worker
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    //An identifier for logging purpose
+    private final int id;
+
+    //Status variable
+    private volatile boolean running = true;
+
+    /**
+     * Constructor
+     * @param id the worker identifier
+     * @throws IOException if the selector can't be opened
+     */
+    public NIOWorker(int id) throws IOException {
+
+        this.id = id;
+
+        this.selector = Selector.open();
+
+    }
+
+    /**
+     * Assigns a handler to this worker
+     * @param handler the handler
+     */
+    public void register(NIOSocketClientHandler handler) {
+
+        this.registrations.add(handler);
+
+        this.selector.wakeup();
+
+    }
+
+    /**
+     * Asks the worker to write the objects queued by the handler
+     * @param handler the handler
+     */
+    public void requestWrite(NIOSocketClientHandler handler) {
+
+        this.writeRequests.add(handler);
+
+        this.selector.wakeup();
+
+    }
+
+    /**
+     * The selection loop
+     */
+    public void run() {
+
+        Logger.log(Level.FINEST, this.toString(), "Up and running");
+
+        while (this.running) {
+
+            try {
+
+                this.selector.select();
+
+                this.processRegistrations();
+
+                this.processWriteRequests();
+
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+
+                while (keys.hasNext()) {
+
+                    SelectionKey key = keys.next();
+
+                    keys.remove();
+
+                    this.serve(key);
+
+                }
+
+            } catch (IOException e) {
+
+                Logger.log(Level.SEVERE, this.toString(), "Exception while selecting", e);
+
+            } catch (RuntimeException e) {
+
+                //The worker serves every channel assigned to it, it must outlive any failure
+                Logger.log(Level.SEVERE, this.toString(), "Unexpected exception in the selection loop", e);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Reads from and writes to the channel of a selected key.
+     * A handler that fails is closed, the other channels of the worker are not affected
+     * @param key the key
+     */
+    private void serve(SelectionKey key) {
+
+        NIOSocketClientHandler handler = (NIOSocketClientHandler) key.attachment();
+
+        try {
+
+            if (key.isValid() && key.isReadable()) {
+
+                handler.onReadable(this.readBuffer);
+
+            }
+
+            if (key.isValid() && key.isWritable()) {
+
+                this.flush(handler);
+
+            }
+
+        } catch (RuntimeException e) {
+
+            Logger.log(Level.SEVERE, this.toString(), "Unexpected exception while serving a client, closing it", e);
+
+            handler.close();
+
+        }
+
+    }
+
+    private void processRegistrations() {
+
+        NIOSocketClientHandler handler;
+
+        while ((handler = this.registrations.poll()) != null) {
+
+            try {
+
+                handler.setKey(handler.getChannel().register(this.selector, SelectionKey.OP_READ, handler));
+
+                //Something might already be queued
+                this.flush(handler);
+
+            } catch (ClosedChannelException e) {
+
+                handler.close();
+
+            } catch (RuntimeException e) {
+
+                Logger.log(Level.SEVERE, this.toString(), "Unexpected exception while registering a client, closing it", e);
+
+                handler.close();
+
+            }
+
+        }
+
+    }
+
+    private void processWriteRequests() {
+
+        NIOSocketClientHandler handler;
+
+        while ((handler = this.writeRequests.poll()) != null) {
+
+            //Not registered yet, the registration will flush it
+            if (handler.getKey() == null) {
+
+                continue;
+
+            }
+
+            try {
+
+                this.flush(handler);
+
+            } catch (RuntimeException e) {
+
+                Logger.log(Level.SEVERE, this.toString(), "Unexpected exception while writing to a client, closing it", e);
+
+                handler.close();
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Writes what the handler has queued, asking for write readiness if the socket buffer gets full
+     * @param handler the handler
+     */
+    private void flush(NIOSocketClientHandler handler) {
+
+        SelectionKey key = handler.getKey();
+
+        if (key == null || !key.isValid()) {
+
+            return;
+
+        }
+
+        if (handler.onWritable() && !handler.hasPendingWrites()) {
+
+            key.interestOps(SelectionKey.OP_READ);
+
+        }
+        else if (key.isValid()) {
+
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+
+        }
+
+    }
+
+    /**
+     * Stops the worker
+     */
+    public void shutdown() {
+
+        this.running = false;
+
+        this.selector.wakeup();
+
+    }
+
+    @Override
+    public String toString() {
+        return "Server (Socket NIO) worker #" + this.id;
+    }
+
+}
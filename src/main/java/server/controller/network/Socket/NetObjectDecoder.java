@@ -0,0 +1,29 @@
+package server.controller.network.Socket;
+
+import netobject.NetObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Incremental decoder of the bytes received by a non blocking channel
+ */
+public interface NetObjectDecoder {
+
+    /**
+     * Appends the bytes read from the channel
+     * @param buffer the buffer, ready to be read
+     * @throws IOException if the client sent more than the decoder is willing to hold
+     */
+    void append(ByteBuffer buffer) throws IOException;
+
+    /**
+     * Extracts every complete object received so far
+     * @return the decoded objects, in arrival order
+     * @throws IOException if the stream is corrupted
+     * @throws ClassNotFoundException if the client sent an unknown class
+     */
+    ArrayList<NetObject> decode() throws IOException, ClassNotFoundException;
+
+}
@@ -0,0 +1,279 @@
+package server.controller.network.Socket;
+
+import netobject.NetObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamConstants;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Incremental decoder for the object stream written by a client ObjectOutputStream.
+ * Bytes are accumulated as they come from the channel and every complete object is extracted.
+ * Since the clients reset their stream after each object, every object is self contained and
+ * can be read back by a fresh ObjectInputStream fed with the stream header and the pending bytes.
+ *
+ * Unlike a binary frame, an object does not tell its length, so an incomplete one is parsed again from its first byte whenever more bytes come.
+ * The pending bytes are capped, as the binary protocol caps its frames, which bounds both the memory a client can hold and the cost of
+ * parsing its object over and over: a client that goes over the cap is refused.
+ */
+public class SerializedObjectDecoder implements NetObjectDecoder {
+
+    //The length of the header written by an ObjectOutputStream when it gets created
+    private static final int HEADER_LENGTH = 4;
+
+    //The initial capacity of the pending bytes buffer
+    private static final int INITIAL_CAPACITY = 1024;
+
+    //The maximum amount of pending bytes, the clients send actions and requests of a few kilobytes
+    public static final int MAX_PENDING_LENGTH = 1024 * 1024;
+
+    //The bytes received and not yet decoded
+    private byte[] pending = new byte[INITIAL_CAPACITY];
+
+    //The amount of valid bytes in the pending buffer
+    private int size = 0;
+
+    //Whether or not the stream header was already consumed
+    private boolean headerConsumed = false;
+
+    //Interface impl.
+    public void append(ByteBuffer buffer) throws StreamCorruptedException {
+
+        int incoming = buffer.remaining();
+
+        if (incoming > MAX_PENDING_LENGTH - this.size) {
+
+            throw new StreamCorruptedException("Pending object exceeds " + MAX_PENDING_LENGTH + " bytes");
+
+        }
+
+        if (this.size + incoming > this.pending.length) {
+
+            byte[] grown = new byte[Math.min(Math.max(this.pending.length * 2, this.size + incoming), MAX_PENDING_LENGTH)];
+
+            System.arraycopy(this.pending, 0, grown, 0, this.size);
+
+            this.pending = grown;
+
+        }
+
+        buffer.get(this.pending, this.size, incoming);
+
+        this.size += incoming;
+
+    }
+
+    //Interface impl.
+    public ArrayList<NetObject> decode() throws IOException, ClassNotFoundException {
+
+        ArrayList<NetObject> objects = new ArrayList<>();
+
+        int offset = 0;
+
+        if (!this.headerConsumed) {
+
+            if (this.size < HEADER_LENGTH) {
+
+                return objects;
+
+            }
+
+            this.checkHeader();
+
+            this.headerConsumed = true;
+
+            offset = HEADER_LENGTH;
+
+        }
+
+        while (offset < this.size) {
+
+            ReplayInputStream replay = new ReplayInputStream(this.pending, offset, this.size);
+
+            Object object;
+
+            try {
+
+                object = new ObjectInputStream(replay).readObject();
+
+            }
+            catch (IOException e) {
+
+                //Running out of bytes just means that the object is not complete yet
+                if (replay.isExhausted()) {
+
+                    break;
+
+                }
+
+                throw e;
+
+            }
+
+            if (!(object instanceof NetObject)) {
+
+                throw new StreamCorruptedException("Received an object which is not a net object: " + object);
+
+            }
+
+            objects.add((NetObject) object);
+
+            offset = replay.getPosition();
+
+        }
+
+        this.compact(offset);
+
+        return objects;
+
+    }
+
+    /**
+     * Checks that the stream begins with a valid object stream header
+     * @throws StreamCorruptedException if it does not
+     */
+    private void checkHeader() throws StreamCorruptedException {
+
+        short magic = (short) (((this.pending[0] & 0xFF) << 8) | (this.pending[1] & 0xFF));
+        short version = (short) (((this.pending[2] & 0xFF) << 8) | (this.pending[3] & 0xFF));
+
+        if (magic != ObjectStreamConstants.STREAM_MAGIC || version != ObjectStreamConstants.STREAM_VERSION) {
+
+            throw new StreamCorruptedException("Invalid stream header");
+
+        }
+
+    }
+
+    /**
+     * Drops the bytes already decoded
+     * @param consumed the amount of bytes to drop
+     */
+    private void compact(int consumed) {
+
+        if (consumed == 0) {
+
+            return;
+
+        }
+
+        System.arraycopy(this.pending, consumed, this.pending, 0, this.size - consumed);
+
+        this.size -= consumed;
+
+    }
+
+    /**
+     * An input stream that replays the header of an object stream followed by the pending bytes.
+     * It keeps track of how far it has been read and whether it ran out of bytes.
+     */
+    private static class ReplayInputStream extends InputStream {
+
+        private static final byte[] HEADER = {
+                (byte) (ObjectStreamConstants.STREAM_MAGIC >> 8),
+                (byte) ObjectStreamConstants.STREAM_MAGIC,
+                (byte) (ObjectStreamConstants.STREAM_VERSION >> 8),
+                (byte) ObjectStreamConstants.STREAM_VERSION
+        };
+
+        private final byte[] data;
+
+        private final int end;
+
+        //Position inside the header, then inside data
+        private int headerPosition = 0;
+
+        private int position;
+
+        private boolean exhausted = false;
+
+        private ReplayInputStream(byte[] data, int offset, int end) {
+
+            this.data = data;
+            this.position = offset;
+            this.end = end;
+
+        }
+
+        @Override
+        public int read() {
+
+            if (this.headerPosition < HEADER.length) {
+
+                return HEADER[this.headerPosition++] & 0xFF;
+
+            }
+
+            if (this.position >= this.end) {
+
+                this.exhausted = true;
+
+                return -1;
+
+            }
+
+            return this.data[this.position++] & 0xFF;
+
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+
+            if (len == 0) {
+
+                return 0;
+
+            }
+
+            if (this.headerPosition < HEADER.length) {
+
+                int count = Math.min(len, HEADER.length - this.headerPosition);
+
+                System.arraycopy(HEADER, this.headerPosition, b, off, count);
+
+                this.headerPosition += count;
+
+                return count;
+
+            }
+
+            if (this.position >= this.end) {
+
+                this.exhausted = true;
+
+                return -1;
+
+            }
+
+            int count = Math.min(len, this.end - this.position);
+
+            System.arraycopy(this.data, this.position, b, off, count);
+
+            this.position += count;
+
+            return count;
+
+        }
+
+        @Override
+        public int available() {
+
+            return (HEADER.length - this.headerPosition) + (this.end - this.position);
+
+        }
+
+        private int getPosition() {
+            return position;
+        }
+
+        private boolean isExhausted() {
+            return exhausted;
+        }
+
+    }
+
+}
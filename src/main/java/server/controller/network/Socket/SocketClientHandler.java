@@ -11,24 +11,28 @@ import logger.Logger;
 import netobject.NetObject;
 import netobject.action.Action;
 import netobject.action.immediate.ImmediateActionType;
+import netobject.codec.BinaryCodec;
+import netobject.codec.WireProtocol;
 import netobject.notification.LobbyNotification;
 import netobject.notification.MatchNotification;
 import netobject.notification.MatchNotificationType;
 import server.controller.network.ClientHandler;
 import server.controller.network.Observable;
+import server.controller.network.OutboundQueue;
+import server.controller.network.OutboundWriters;
 import server.model.FinalStanding;
 import server.model.Match;
 import server.model.board.BonusTile;
 import server.model.board.Player;
 import server.model.card.Deck;
 import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
+import singleton.GameConfig;
 
-import java.io.EOFException;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.*;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class SocketClientHandler extends ClientHandler implements Observable<SocketClientHandlerObserver> {
 
@@ -37,7 +41,26 @@ public class SocketClientHandler extends ClientHandler implements Observable<Soc
 
     private ObjectInputStream in;
 
-    private ObjectOutputStream out;
+    //The stream used when the client speaks the binary protocol
+    private DataInputStream binaryIn;
+
+    //The stream towards the client, used by the writer in flight only
+    private OutputStream rawOut;
+
+    //The buffer where the object stream is serialized before being queued
+    protected final ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+
+    //Guards the encoding, a lock rather than a monitor so that a virtual thread encoding an object does not pin its carrier
+    protected final ReentrantLock encoding = new ReentrantLock();
+
+    //The object stream towards the client, written in memory
+    protected ObjectOutputStream out;
+
+    //The encoded objects waiting to be written
+    protected final OutboundQueue<byte[]> outbound = new OutboundQueue<>(GameConfig.getInstance().getOutboundQueueSize(), GameConfig.getInstance().getOutboundOverflowPolicy());
+
+    //The protocol negotiated with the client
+    protected WireProtocol protocol = WireProtocol.Serialized;
 
     //A state variable to assure performance
     private boolean running = true;
@@ -56,10 +79,40 @@ public class SocketClientHandler extends ClientHandler implements Observable<Soc
 
         try {
 
-            out = new ObjectOutputStream(socket.getOutputStream());
+            InputStream raw = socket.getInputStream();
+
+            //The first bytes tell which protocol the client speaks
+            byte[] preamble = new byte[BinaryCodec.HANDSHAKE.length];
+
+            new DataInputStream(raw).readFully(preamble);
+
+            rawOut = new BufferedOutputStream(socket.getOutputStream());
+
+            if (BinaryCodec.isHandshake(preamble)) {
+
+                this.protocol = WireProtocol.Binary;
+
+                binaryIn = new DataInputStream(new BufferedInputStream(raw));
+
+                //Acknowledge the protocol
+                rawOut.write(BinaryCodec.HANDSHAKE);
 
-            in = new ObjectInputStream(socket.getInputStream());
+                rawOut.flush();
 
+            }
+            else {
+
+                //The header of our object stream goes first
+                out = new ObjectOutputStream(this.serialized);
+
+                this.outbound.offer(this.drainSerialized(), OutboundQueue.Kind.Regular);
+
+                //The preamble was the object stream header, give it back
+                in = new ObjectInputStream(new SequenceInputStream(new ByteArrayInputStream(preamble), raw));
+
+                this.scheduleDrain();
+
+            }
 
         } catch (IOException e) {
 
@@ -70,36 +123,165 @@ public class SocketClientHandler extends ClientHandler implements Observable<Soc
     }
 
     /**
-     * Sends an object to the client
+     * Constructor for handlers that do not own a blocking socket
+     */
+    protected SocketClientHandler() {
+
+    }
+
+    /**
+     * Sends an object to the client.
+     * The object is encoded right away, so that later changes to the model do not affect it, and queued for the writer.
      * @param object the object
-     * @return true upon success
+     * @return true if the object was queued
      */
-    public synchronized boolean sendObject(NetObject object) {
+    public boolean sendObject(NetObject object) {
 
-        if (this.socket.isClosed()) {
+        if (this.socket.isClosed() || !this.enqueue(object)) {
 
             return false;
 
         }
 
+        this.scheduleDrain();
+
+        return true;
+
+    }
+
+    /**
+     * Starts a writer on the shared pool, unless one is already delivering the queued objects
+     */
+    private void scheduleDrain() {
+
+        if (this.outbound.claimDrain()) {
+
+            OutboundWriters.execute(this::drainOutbound);
+
+        }
+
+    }
+
+    /**
+     * Encodes an object and queues it, disconnecting the client if it can't keep up
+     * @param object the object
+     * @return true if the object was queued
+     */
+    protected boolean enqueue(NetObject object) {
+
+        boolean queued;
+
+        //Encoding and queueing must happen in the same order, the object stream is stateful
+        this.encoding.lock();
+
         try {
 
-            out.writeObject(object);
+            queued = this.outbound.offer(this.encode(object), OutboundQueue.kindOf(object));
 
-            out.flush();
+        } catch (IOException e) {
 
-            out.reset();
+            Logger.log(Level.WARNING, this.toString(), "Unable to encode object for client " + this.username, e);
 
-            return true;
+            return false;
+
+        } finally {
+
+            this.encoding.unlock();
+
+        }
+
+        if (!queued && !this.outbound.isClosed()) {
+
+            Logger.log(Level.WARNING, this.toString(), "Client " + this.username + " can't keep up with its updates, disconnecting it");
+
+            this.outbound.close();
+
+            this.disconnect();
+
+        }
+
+        return queued;
+
+    }
+
+    /**
+     * Encodes an object with the negotiated protocol, must be called holding the encoding lock
+     * @param object the object
+     * @return the bytes to be written
+     * @throws IOException if the object can't be encoded
+     */
+    protected byte[] encode(NetObject object) throws IOException {
+
+        if (this.protocol == WireProtocol.Binary) {
+
+            return BinaryCodec.encodeFrame(object);
+
+        }
+
+        this.out.writeObject(object);
+
+        //Every object is self contained, so that the writer can skip the superseded ones
+        this.out.reset();
+
+        return this.drainSerialized();
+
+    }
+
+    /**
+     * Takes the bytes written so far by the in memory object stream
+     * @return the bytes
+     * @throws IOException if the stream can't be flushed
+     */
+    protected byte[] drainSerialized() throws IOException {
+
+        this.out.flush();
+
+        byte[] bytes = this.serialized.toByteArray();
+
+        this.serialized.reset();
+
+        return bytes;
+
+    }
+
+    /**
+     * The writer, delivers the queued objects at the pace of the client until the queue is empty.
+     * It flushes only once the queue is empty so that bursts go out together
+     */
+    private void drainOutbound() {
+
+        try {
+
+            byte[] bytes;
+
+            while ((bytes = this.outbound.pollOrRelease()) != null) {
+
+                this.rawOut.write(bytes);
+
+                if (this.outbound.isEmpty()) {
+
+                    this.rawOut.flush();
+
+                }
+
+            }
 
         } catch (IOException e) {
 
             Logger.log(Level.WARNING, this.toString(), "Broken pipe: the client disconnected while writing", e);
 
+            this.outbound.close();
+
+            this.disconnect();
 
         }
 
-        return false;
+    }
+
+    @Override
+    protected void shutdownOutbound() {
+
+        this.outbound.close();
 
     }
 
@@ -112,11 +294,11 @@ public class SocketClientHandler extends ClientHandler implements Observable<Soc
 
             try {
 
-                //Try to read the error
-                Object obj = in.readObject();
+                //Try to read the object
+                NetObject obj = (this.protocol == WireProtocol.Binary) ? BinaryCodec.readFrame(binaryIn) : (NetObject) in.readObject();
 
                 //Notify that an object was received
-                this.notifyObjectReceived((NetObject) obj);
+                this.notifyObjectReceived(obj);
 
             } catch (EOFException e) {
 
@@ -169,7 +351,7 @@ public class SocketClientHandler extends ClientHandler implements Observable<Soc
 
     }
 
-    private void notifyDisconnection() {
+    protected void notifyDisconnection() {
 
         for (SocketClientHandlerObserver o : this.observers) {
 
@@ -179,7 +361,7 @@ public class SocketClientHandler extends ClientHandler implements Observable<Soc
 
     }
 
-    private void notifyObjectReceived(NetObject object) {
+    protected void notifyObjectReceived(NetObject object) {
 
         for (SocketClientHandlerObserver o : this.observers) {
 
@@ -219,6 +401,12 @@ public class SocketClientHandler extends ClientHandler implements Observable<Soc
 
     }
 
+    public void notifyModelDelta(MatchDelta delta) {
+
+        this.sendObject(delta);
+
+    }
+
     public void notifyTurnEnabled(Player player, String message) {
         this.sendObject(new MatchNotification(MatchNotificationType.TurnEnabled, player, message));
     }
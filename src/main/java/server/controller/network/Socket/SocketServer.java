@@ -6,7 +6,6 @@ package server.controller.network.Socket;
 
 
 import exception.authentication.AlreadyLoggedInException;
-import exception.authentication.AuthenticationException;
 import exception.authentication.LoginFailedException;
 import exception.authentication.RegistrationFailedException;
 import logger.Level;
@@ -14,6 +13,7 @@ import logger.Logger;
 import netobject.NetObjectType;
 import netobject.action.Action;
 import netobject.notification.Notification;
+import netobject.notification.ModelSyncNotification;
 import netobject.notification.ObserverReadyNotification;
 import netobject.request.Request;
 import netobject.request.RequestType;
@@ -40,7 +40,7 @@ public class SocketServer extends Server implements Runnable, SocketClientHandle
     private ServerSocket acceptor;
 
     //The listening port
-    private int port;
+    protected int port;
 
     /**
      * Constructor
@@ -71,16 +71,20 @@ public class SocketServer extends Server implements Runnable, SocketClientHandle
 
                 LoginRequest loginRequest = (LoginRequest)req;
 
-                try {
+                //The database is queried by the authenticator, this thread goes back to serving right away
+                this.authenticateAsync(handler, loginRequest).whenComplete((authenticated, e) -> {
 
-                    this.authenticate(handler, loginRequest);
+                    if (e == null) {
 
-                    handler.sendObject(new LoginResponse(true, loginRequest.getUsername(), "Login succeeded"));
+                        handler.sendObject(new LoginResponse(true, loginRequest.getUsername(), "Login succeeded"));
 
-                } catch (AuthenticationException e) {
-                    handler.sendObject(new LoginResponse(false, loginRequest.getUsername(), e.getMessage()));
+                    } else {
 
-                }
+                        handler.sendObject(new LoginResponse(false, loginRequest.getUsername(), e.getMessage()));
+
+                    }
+
+                });
 
             }
 
@@ -88,17 +92,19 @@ public class SocketServer extends Server implements Runnable, SocketClientHandle
 
                 RegisterRequest registerRequest = (RegisterRequest) req;
 
-                try {
+                this.authenticateAsync(handler, registerRequest).whenComplete((authenticated, e) -> {
 
-                    this.authenticate(handler,registerRequest);
+                    if (e == null) {
 
-                    handler.sendObject(new RegistrationResponse(true, registerRequest.getUsername(), "Registration succeeded"));
+                        handler.sendObject(new RegistrationResponse(true, registerRequest.getUsername(), "Registration succeeded"));
 
-                } catch (AuthenticationException e) {
+                    } else {
 
-                    handler.sendObject(new RegistrationResponse(false, registerRequest.getUsername(), e.getMessage()));
+                        handler.sendObject(new RegistrationResponse(false, registerRequest.getUsername(), e.getMessage()));
 
-                }
+                    }
+
+                });
             }
 
         }
@@ -115,6 +121,11 @@ public class SocketServer extends Server implements Runnable, SocketClientHandle
                 this.notifyObserverReady(handler, ((ObserverReadyNotification)object).getObserverType());
 
             }
+            else if (object instanceof ModelSyncNotification) {
+
+                this.notifyModelSync(handler, (ModelSyncNotification) object);
+
+            }
 
         }
 
@@ -173,19 +184,29 @@ public class SocketServer extends Server implements Runnable, SocketClientHandle
 
     }
 
-    public synchronized void onDisconnect(ClientHandler handler) {
+    public void onDisconnect(ClientHandler handler) {
 
         Logger.log(Level.FINEST, "Server (Socket)", "Client " + handler.getUsername() + " disconnected");
 
-        //If the username was not null the client had authenticated and reached the game engine in the past
-        if (handler.getUsername() != null) {
+        this.lock.lock();
 
-            //Notify the game engine
-            this.notifyDisconnection(handler);
+        try {
 
-        }
+            //If the username was not null the client had authenticated and reached the game engine in the past
+            if (handler.getUsername() != null) {
 
-        this.removeClientHandler(handler);
+                //Notify the game engine
+                this.notifyDisconnection(handler);
+
+            }
+
+            this.removeClientHandler(handler);
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
 
     }
 
@@ -0,0 +1,35 @@
+package server.controller.network.Socket;
+
+/**
+ * Tells how the socket server should serve its clients
+ */
+public enum SocketServerMode {
+
+    /**
+     * One dedicated thread per client, blocked on the object stream
+     */
+    Blocking,
+
+    /**
+     * Every client multiplexed by a small pool of selector threads
+     */
+    NIO;
+
+    /**
+     * Parses the mode from the literal used inside the game configuration
+     * @param literal the literal, either "blocking" or "nio"
+     * @return the mode, blocking if the literal is unknown
+     */
+    public static SocketServerMode fromLiteral(String literal) {
+
+        if (literal != null && literal.equalsIgnoreCase("nio")) {
+
+            return NIO;
+
+        }
+
+        return Blocking;
+
+    }
+
+}
@@ -3,15 +3,21 @@ package server.model;
 import server.model.board.BonusTile;
 import server.model.board.CouncilPalace;
 import server.model.board.CouncilPrivilege;
+import server.model.card.CardCatalog;
 import server.model.card.ban.BanCard;
 import server.model.card.developement.DvptCard;
 import server.model.card.leader.LeaderCard;
 import server.model.effect.EffectSurplus;
+import logger.Level;
+import logger.Logger;
 import server.utility.*;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Federico on 15/05/2017.
@@ -19,94 +25,144 @@ import java.util.*;
 
 public class GameSingleton {
 
-    private static GameSingleton instance = null;
+    /**
+     * Every card of the game, indexed by id
+     */
+    private final CardCatalog catalog;
 
-    private ArrayList<DvptCard> dvptCards = new ArrayList<DvptCard>();
+    /**
+     * Parses the four card files in parallel
+     */
+    private GameSingleton() {
 
-    private ArrayList<BanCard> banCards = new ArrayList<BanCard>();
+        long start = System.nanoTime();
 
-    private ArrayList<LeaderCard> leaderCards = new ArrayList<LeaderCard>();
+        CompletableFuture<ArrayList<DvptCard>> dvptCards = parseAsync(DvptCardParser::parse);
+        CompletableFuture<ArrayList<BanCard>> banCards = parseAsync(BanCardParser::parse);
+        CompletableFuture<ArrayList<LeaderCard>> leaderCards = parseAsync(LeaderCardParser::parse);
+        CompletableFuture<ArrayList<BonusTile>> bonusTiles = parseAsync(BonusTilesParser::parse);
 
-    private ArrayList<BonusTile> bonusTiles = new ArrayList<BonusTile>();
+        CardCatalog catalog;
 
+        try {
 
-    private GameSingleton() {} //costructor
+            catalog = new CardCatalog(dvptCards.join(), banCards.join(), leaderCards.join(), bonusTiles.join());
 
-    public static GameSingleton getInstance() {
+            Logger.log(Level.FINEST, "GameSingleton", "Cards loaded in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
 
-        if(instance ==null) {
+        } catch (CompletionException e) {
 
-            instance = new GameSingleton();
+            Logger.log(Level.SEVERE, "GameSingleton", "Unable to parse the cards! The catalog will be empty", e);
 
-            try {
+            catalog = new CardCatalog(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
 
-                instance.dvptCards = DvptCardParser.parse();
+        }
 
-                instance.banCards = BanCardParser.parse();
+        this.catalog = catalog;
 
-                instance.leaderCards = LeaderCardParser.parse();
+    }
 
-                instance.bonusTiles = BonusTilesParser.parse();
+    public static GameSingleton getInstance() {
 
+        return Holder.INSTANCE;
 
-            } catch (IOException e1) {
+    }
 
-                e1.printStackTrace();
+    /**
+     * Holds the instance, built when the holder is first used, so that it is parsed once and safely published to every thread.
+     * The parsers run on other threads, which could not call back into GameSingleton while it was still being initialized
+     */
+    private static class Holder {
 
-            } catch (URISyntaxException e1) {
+        private static final GameSingleton INSTANCE = new GameSingleton();
 
-                e1.printStackTrace();
+    }
 
-            }
+    /**
+     * Runs a parser on the common pool
+     * @param parser the parser
+     * @param <T> the type of the cards
+     * @return the future cards, failed with the exception of the parser if any
+     */
+    private static <T> CompletableFuture<T> parseAsync(CardFileParser<T> parser) {
 
-        }
+        return CompletableFuture.supplyAsync(() -> {
 
-        return instance;
-    }
+            try {
+
+                return parser.parse();
 
+            } catch (IOException | URISyntaxException e) {
 
-   public DvptCard getSpecificDvptCard(Integer CardId) {
+                throw new CompletionException(e);
+
+            }
+
+        });
 
-        return this.dvptCards.get(CardId);
     }
 
-    public BanCard getSpecificBanCard(Integer CardId) {
+    /**
+     * The parse method of a card parser
+     * @param <T> the type of the cards
+     */
+    private interface CardFileParser<T> {
+
+        T parse() throws IOException, URISyntaxException;
 
-        return this.banCards.get(CardId);
     }
 
-    public LeaderCard getSpecificLeaderCard(Integer CardId) {
+    /**
+     * The development card at a position of the catalog, the cards being ordered by tower type, then period
+     * @param CardId the position, from 0
+     * @return the card
+     */
+    public DvptCard getSpecificDvptCard(Integer CardId) {
 
-        for (LeaderCard c : this.leaderCards) {
+        return this.catalog.getDvptCards().get(CardId);
+    }
 
-            if (c.getId().equals(CardId)) {
+    /**
+     * The ban card at a position of the catalog, the cards being ordered by period
+     * @param CardId the position, from 0
+     * @return the card
+     */
+    public BanCard getSpecificBanCard(Integer CardId) {
 
-                return c;
+        return this.catalog.getBanCards().get(CardId);
+    }
 
-            }
+    /**
+     * The leader card with an id
+     * @param CardId the id
+     * @return the card, null if there is none
+     */
+    public LeaderCard getSpecificLeaderCard(Integer CardId) {
 
-        }
+        return this.catalog.getLeaderCard(CardId);
 
-        return null;
+    }
 
+    public CardCatalog getCatalog() {
+        return catalog;
     }
 
     public ArrayList<DvptCard> getDvptCards() {
 
-        return this.dvptCards;
+        return new ArrayList<>(this.catalog.getDvptCards());
     }
 
     public ArrayList<BanCard> getBanCards() {
 
-        return this.banCards;
+        return new ArrayList<>(this.catalog.getBanCards());
 
     }
 
     public ArrayList<LeaderCard> getLeaderCards() {
-        return leaderCards;
+        return new ArrayList<>(this.catalog.getLeaderCards());
     }
 
     public ArrayList<BonusTile> getBonusTiles() {
-        return bonusTiles;
+        return new ArrayList<>(this.catalog.getBonusTiles());
     }
 }
@@ -11,6 +11,7 @@ import singleton.Database;
 
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 
@@ -30,6 +31,15 @@ public class Match extends NetObject {
     private int currentTurn;
     private int currentRound;
 
+    //The revision of the model, bumped by the server every time a change is published
+    private int revision;
+
+    //The seed of the match, the decks are shuffled from it. Kept from the clients, as it would reveal the decks
+    private transient long seed;
+
+    //The random stream of the match, it rolls the dices and draws everything else
+    private transient MatchRandom random;
+
 
     /**
      * Constructor: the match object get initialized with an array of players.
@@ -37,8 +47,37 @@ public class Match extends NetObject {
      */
     public Match(ArrayList<Player> players) {
 
+        this(players, ThreadLocalRandom.current().nextLong());
+
+    }
+
+    /**
+     * Constructor: the match object get initialized with an array of players.
+     * Two matches with the same seed and the same actions play out the same way.
+     * @param players the players who are actually in game
+     * @param seed the seed of the match
+     */
+    public Match(ArrayList<Player> players, long seed) {
+
+        this(players, seed, true);
+
+    }
+
+    /**
+     * Constructor: the match object get initialized with an array of players.
+     * A match that is not persisted, such as a simulated one, never touches the database and has no id.
+     * @param players the players who are actually in game
+     * @param seed the seed of the match
+     * @param persisted whether or not the match is saved on the database
+     */
+    public Match(ArrayList<Player> players, long seed, boolean persisted) {
+
         super(NetObjectType.Model);
 
+        this.seed = seed;
+
+        this.random = new MatchRandom(seed);
+
 
         //Assign the players to the model reference
         this.players = players;
@@ -56,6 +95,12 @@ public class Match extends NetObject {
         //Assign a random color to the player
         generateRandomColor();
 
+        if (!persisted) {
+
+            return;
+
+        }
+
         try {
 
              match_id = saveOnDatabase();
@@ -68,6 +113,107 @@ public class Match extends NetObject {
 
     }
 
+    /**
+     * Constructor used to restore a persisted match, see MatchSnapshot.
+     * The match is already on the database, so nothing gets saved.
+     * @param match_id the id of the match
+     * @param players the players
+     * @param board the board of the players
+     */
+    Match(int match_id, ArrayList<Player> players, Board board) {
+
+        super(NetObjectType.Model);
+
+        this.match_id = match_id;
+        this.players = players;
+        this.roundOrder = players;
+        this.board = board;
+
+        this.currentPeriod = Period.undefined;
+
+    }
+
+    /**
+     * Copy constructor: a deep copy of the state of the match that shares the cards, which never change.
+     * Cheap enough to fork the match on every action or search step, see restore to roll back to it.
+     * @param match the match to copy
+     */
+    public Match(Match match) {
+
+        super(NetObjectType.Model);
+
+        this.match_id = match.match_id;
+        this.revision = match.revision;
+        this.currentPeriod = match.currentPeriod;
+        this.currentTurn = match.currentTurn;
+        this.currentRound = match.currentRound;
+
+        this.players = new ArrayList<>(match.players.size());
+
+        for (Player player : match.players) {
+
+            this.players.add(new Player(player));
+
+        }
+
+        //The other references to the players point to their copies
+        this.roundOrder = match.roundOrder == match.players ? this.players : this.toOwnPlayers(match, match.roundOrder);
+        this.currentPlayer = match.currentPlayer == null ? null : this.players.get(match.players.indexOf(match.currentPlayer));
+
+        this.board = new Board(match.board, this.players);
+
+        this.seed = match.getSeed();
+        this.random = MatchRandom.fromState(match.getRandom().getState());
+
+    }
+
+    /**
+     * Maps players of another copy of the match to the players of this one, by their seat
+     * @param match the other copy
+     * @param players players of the other copy
+     * @return the players of this match in the same order
+     */
+    private ArrayList<Player> toOwnPlayers(Match match, ArrayList<Player> players) {
+
+        ArrayList<Player> own = new ArrayList<>(players.size());
+
+        for (Player player : players) {
+
+            own.add(this.players.get(match.players.indexOf(player)));
+
+        }
+
+        return own;
+
+    }
+
+    /**
+     * Rolls the match back to a copy of it, which must not be used afterwards.
+     * The match, its board and its players keep their identity, so the references held by the controllers stay valid.
+     * The revision is kept, as it only ever grows.
+     * @param copy the copy, see Match(Match)
+     */
+    public void restore(Match copy) {
+
+        for (int i = 0; i < this.players.size(); i++) {
+
+            this.players.get(i).restore(copy.players.get(i));
+
+        }
+
+        this.roundOrder = copy.roundOrder == copy.players ? this.players : this.toOwnPlayers(copy, copy.roundOrder);
+        this.currentPlayer = copy.currentPlayer == null ? null : this.players.get(copy.players.indexOf(copy.currentPlayer));
+
+        this.board.restore(copy.board);
+
+        this.currentPeriod = copy.currentPeriod;
+        this.currentTurn = copy.currentTurn;
+        this.currentRound = copy.currentRound;
+
+        this.getRandom().setSeed(copy.getRandom().getState());
+
+    }
+
     public void setCurrentPlayer(Player currentPlayer) {
         this.currentPlayer = currentPlayer;
     }
@@ -176,9 +322,21 @@ public class Match extends NetObject {
         }
     }
 
+    public void setCurrentPeriod(Period currentPeriod) {
+        this.currentPeriod = currentPeriod;
+    }
+
     public int getMatch_id() {return match_id;
     }
 
+    public int getRevision() {
+        return revision;
+    }
+
+    public void setRevision(int revision) {
+        this.revision = revision;
+    }
+
     public void setCurrentTurn(int currentTurn) {
         this.currentTurn = currentTurn;
     }
@@ -191,11 +349,51 @@ public class Match extends NetObject {
         this.roundOrder = roundOrder;
     }
 
+    public long getSeed() {
+
+        //A match restored from a legacy json snapshot gets its seed along with its stream
+        this.getRandom();
+
+        return seed;
+
+    }
+
+    /**
+     * The random stream of the match.
+     * A match restored from a legacy json snapshot has none, it gets a fresh one
+     * @return the stream
+     */
+    public MatchRandom getRandom() {
+
+        if (this.random == null) {
+
+            this.seed = ThreadLocalRandom.current().nextLong();
+
+            this.random = new MatchRandom(this.seed);
+
+        }
+
+        return this.random;
+
+    }
+
+    /**
+     * Restores the seed and the random stream of a persisted match, see MatchSnapshot
+     * @param seed the seed
+     * @param random the stream, as it was when the snapshot was taken
+     */
+    void restoreRandom(long seed, MatchRandom random) {
+
+        this.seed = seed;
+        this.random = random;
+
+    }
+
     public void generateRandomColor(){
         ArrayList<Integer> colorIndex = new ArrayList<Integer>();
         for(int i=0; i<PlayerColor.values().length; i++)
             colorIndex.add(i);
-        Collections.shuffle(colorIndex);
+        Collections.shuffle(colorIndex, this.getRandom());
         for(int i=0; i<players.size(); i++) {
             players.get(i).setColor(PlayerColor.toEnum(colorIndex.get(i)));
             players.get(i).setFamilyMembersPlayerColor();
@@ -0,0 +1,78 @@
+package server.model;
+
+import java.util.Random;
+
+/**
+ * The random stream of a match.
+ * A SplitMix64 generator behind the java.util.Random interface, so that it can feed Collections.shuffle and friends.
+ * Unlike java.util.Random its whole state is a single long that can be read back, so the stream survives a snapshot.
+ * Not thread safe: a match is only ever played by its controller.
+ */
+public class MatchRandom extends Random {
+
+    //The golden gamma, the increment of the state
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    //The state of the generator, set by the super constructor through setSeed
+    private long state;
+
+    /**
+     * Creates a stream from a seed, the same seed always yields the same stream
+     * @param seed the seed
+     */
+    public MatchRandom(long seed) {
+
+        super(seed);
+
+    }
+
+    /**
+     * Restores a stream
+     * @param state the state, as returned by getState
+     * @return the stream
+     */
+    public static MatchRandom fromState(long state) {
+
+        MatchRandom random = new MatchRandom(0);
+
+        random.state = state;
+
+        return random;
+
+    }
+
+    /**
+     * The current state of the stream
+     * @return the state
+     */
+    public long getState() {
+        return state;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+
+        this.state = seed;
+
+    }
+
+    @Override
+    public long nextLong() {
+
+        long z = (this.state += GAMMA);
+
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
+
+    }
+
+    @Override
+    protected int next(int bits) {
+
+        return (int) (this.nextLong() >>> (64 - bits));
+
+    }
+
+}
@@ -0,0 +1,818 @@
+package server.model;
+
+import server.model.board.*;
+import server.model.card.CardCatalog;
+import server.model.card.ban.BanCard;
+import server.model.card.developement.*;
+import server.model.card.leader.LeaderCard;
+import server.model.valuable.PointType;
+import server.model.valuable.ResourceType;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary snapshot of a match, used to persist it.
+ *
+ * The snapshot starts with a header: the magic bytes, the format version and the flags.
+ * The payload follows, deflated when the compressed flag is set.
+ * It holds the dynamic state of the match only: the static parts of the board are rebuilt from its configuration.
+ * Cards and bonus tiles that come from the catalog of GameSingleton are stored as their id,
+ * any other instance (e.g. the ban cards of the cathedral) is stored as a Java serialized blob.
+ * Resources, points and counters are stored as variable length ints, enums as ordinals.
+ */
+public final class MatchSnapshot {
+
+    /**
+     * The first bytes of every snapshot, they can't be confused with the legacy json ones
+     */
+    private static final byte[] MAGIC = {'L', 'M', 'S'};
+
+    /**
+     * The current format version, version 2 added the seed and the random stream of the match
+     */
+    private static final byte VERSION = 2;
+
+    //Header flags
+    private static final byte COMPRESSED = 1;
+
+    //Card reference tags
+    private static final byte NONE = 0;
+    private static final byte CATALOG = 1;
+    private static final byte SERIALIZED = 2;
+
+    //The length of the header
+    private static final int HEADER_LENGTH = MAGIC.length + 2;
+
+    //The periods that have a ban card in the cathedral
+    private static final Period[] CATHEDRAL_PERIODS = {Period.first, Period.second, Period.third};
+
+    /**
+     * Utility class
+     */
+    private MatchSnapshot() {
+
+    }
+
+    /**
+     * Tells whether some data is a binary snapshot
+     * @param data the data
+     * @return true if the data starts with the snapshot header
+     */
+    public static boolean isSnapshot(byte[] data) {
+
+        if (data == null || data.length < HEADER_LENGTH) {
+
+            return false;
+
+        }
+
+        for (int i = 0; i < MAGIC.length; i++) {
+
+            if (data[i] != MAGIC[i]) {
+
+                return false;
+
+            }
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Encodes a match
+     * @param match the match
+     * @param compress whether the payload should be deflated
+     * @return the snapshot
+     * @throws IOException if a card that is not in the catalog can't be serialized
+     */
+    public static byte[] encode(Match match, boolean compress) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+
+        bytes.write(MAGIC);
+        bytes.write(VERSION);
+        bytes.write(compress ? COMPRESSED : 0);
+
+        OutputStream payload = compress ? new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED)) : bytes;
+
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+
+            writeMatch(out, match);
+
+        }
+
+        return bytes.toByteArray();
+
+    }
+
+    /**
+     * Decodes a match
+     * @param snapshot the snapshot
+     * @return the match, with the very same id
+     * @throws IOException if the snapshot is corrupted or was written by a newer format
+     */
+    public static Match decode(byte[] snapshot) throws IOException {
+
+        if (!isSnapshot(snapshot)) {
+
+            throw new IOException("Not a match snapshot");
+
+        }
+
+        byte version = snapshot[MAGIC.length];
+
+        if (version < 1 || version > VERSION) {
+
+            throw new IOException("Unsupported match snapshot version " + version);
+
+        }
+
+        InputStream payload = new ByteArrayInputStream(snapshot, HEADER_LENGTH, snapshot.length - HEADER_LENGTH);
+
+        if ((snapshot[MAGIC.length + 1] & COMPRESSED) != 0) {
+
+            payload = new InflaterInputStream(payload);
+
+        }
+
+        try (DataInputStream in = new DataInputStream(payload)) {
+
+            return readMatch(in, version);
+
+        }
+
+    }
+
+    private static void writeMatch(DataOutputStream out, Match match) throws IOException {
+
+        writeInt(out, match.getMatch_id());
+        writeInt(out, match.getRevision());
+        writeInt(out, match.getCurrentPeriod().ordinal());
+        writeInt(out, match.getCurrentTurn());
+        writeInt(out, match.getCurrentRound());
+
+        ArrayList<Player> players = match.getPlayers();
+
+        writeInt(out, players.size());
+
+        for (Player player : players) {
+
+            writePlayer(out, player);
+
+        }
+
+        //The other references to the players are stored as their index
+        writeInt(out, match.getRoundOrder().size());
+
+        for (Player player : match.getRoundOrder()) {
+
+            writeInt(out, indexOf(players, player));
+
+        }
+
+        writeInt(out, match.getCurrentPlayer() == null ? -1 : indexOf(players, match.getCurrentPlayer()));
+
+        writeBoard(out, match.getBoard());
+
+        out.writeLong(match.getSeed());
+        out.writeLong(match.getRandom().getState());
+
+    }
+
+    private static Match readMatch(DataInputStream in, byte version) throws IOException {
+
+        int matchId = readInt(in);
+        int revision = readInt(in);
+        Period period = readEnum(in, Period.values());
+        int turn = readInt(in);
+        int round = readInt(in);
+
+        ArrayList<Player> players = new ArrayList<>();
+
+        for (int i = readInt(in); i > 0; i--) {
+
+            players.add(readPlayer(in));
+
+        }
+
+        ArrayList<Player> roundOrder = new ArrayList<>();
+
+        for (int i = readInt(in); i > 0; i--) {
+
+            roundOrder.add(readPlayerReference(in, players));
+
+        }
+
+        int current = readInt(in);
+
+        Board board = new Board(players);
+
+        readBoard(in, board);
+
+        Match match = new Match(matchId, players, board);
+
+        match.setRevision(revision);
+        match.setCurrentPeriod(period);
+        match.setCurrentTurn(turn);
+        match.setCurrentRound(round);
+        match.setRoundOrder(roundOrder);
+        match.setCurrentPlayer(current < 0 ? null : readPlayerReference(current, players));
+
+        //Older snapshots have no stream, the match gets a fresh one
+        if (version >= 2) {
+
+            long seed = in.readLong();
+
+            match.restoreRandom(seed, MatchRandom.fromState(in.readLong()));
+
+        }
+
+        return match;
+
+    }
+
+    private static void writePlayer(DataOutputStream out, Player player) throws IOException {
+
+        out.writeUTF(player.getUsername());
+        writeInt(out, player.getColor() == null ? -1 : player.getColor().ordinal());
+        out.writeBoolean(player.isDisabled());
+
+        for (ResourceType type : ResourceType.values()) {
+
+            writeInt(out, player.getResource(type));
+
+        }
+
+        for (PointType type : PointType.values()) {
+
+            writeInt(out, player.getPoints(type));
+
+        }
+
+        writeInt(out, player.getFamilyMembers().size());
+
+        for (FamilyMember member : player.getFamilyMembers()) {
+
+            writeFamilyMember(out, member);
+
+        }
+
+        writeCards(out, player.getBanCards(), Catalog.BAN_CARDS);
+        writeCards(out, player.getLeaderCards(), Catalog.LEADER_CARDS);
+        writeCards(out, player.getPlayedLeaderCards(), Catalog.LEADER_CARDS);
+        writeCards(out, player.getTurnActiveLeaderCards(), Catalog.LEADER_CARDS);
+
+        PersonalBoard personalBoard = player.getPersonalBoard();
+
+        writeCard(out, personalBoard.getBonusTile(), Catalog.BONUS_TILES);
+        writeCards(out, personalBoard.getTerritoryCards(), Catalog.DVPT_CARDS);
+        writeCards(out, personalBoard.getBuildingCards(), Catalog.DVPT_CARDS);
+        writeCards(out, personalBoard.getCharacterCards(), Catalog.DVPT_CARDS);
+        writeCards(out, personalBoard.getVentureCards(), Catalog.DVPT_CARDS);
+
+    }
+
+    private static Player readPlayer(DataInputStream in) throws IOException {
+
+        Player player = new Player(in.readUTF());
+
+        int color = readInt(in);
+
+        player.setColor(color < 0 ? null : readEnum(color, PlayerColor.values()));
+        player.setDisabled(in.readBoolean());
+
+        for (ResourceType type : ResourceType.values()) {
+
+            player.setGenericResource(type, readInt(in));
+
+        }
+
+        for (PointType type : PointType.values()) {
+
+            player.setGenericPoint(type, readInt(in));
+
+        }
+
+        ArrayList<FamilyMember> members = new ArrayList<>();
+
+        for (int i = readInt(in); i > 0; i--) {
+
+            members.add(readFamilyMember(in));
+
+        }
+
+        player.setFamilyMembers(members);
+
+        player.setBanCards(readCards(in, Catalog.BAN_CARDS, BanCard.class));
+        player.setLeaderCards(readCards(in, Catalog.LEADER_CARDS, LeaderCard.class));
+        player.setPlayedLeaderCards(readCards(in, Catalog.LEADER_CARDS, LeaderCard.class));
+        player.setTurnActiveLeaderCard(readCards(in, Catalog.LEADER_CARDS, LeaderCard.class));
+
+        PersonalBoard personalBoard = player.getPersonalBoard();
+
+        personalBoard.setBonusTile(readCard(in, Catalog.BONUS_TILES, BonusTile.class));
+        personalBoard.setTerritoryCards(readCards(in, Catalog.DVPT_CARDS, TerritoryDvptCard.class));
+        personalBoard.setBuildingCards(readCards(in, Catalog.DVPT_CARDS, BuildingDvptCard.class));
+        personalBoard.setCharacterCards(readCards(in, Catalog.DVPT_CARDS, CharacterDvptCard.class));
+        personalBoard.setVentureCards(readCards(in, Catalog.DVPT_CARDS, VentureDvptCard.class));
+
+        return player;
+
+    }
+
+    private static void writeBoard(DataOutputStream out, Board board) throws IOException {
+
+        for (DvptCardType type : DvptCardType.values()) {
+
+            ArrayList<TowerSlot> tower = board.getTower(type);
+
+            writeInt(out, tower.size());
+
+            for (TowerSlot slot : tower) {
+
+                writeCard(out, slot.getDvptCard(), Catalog.DVPT_CARDS);
+                writeSinglePlace(out, slot);
+
+            }
+
+        }
+
+        for (Period period : CATHEDRAL_PERIODS) {
+
+            writeCard(out, board.getCathedral().getBanCard(period), Catalog.BAN_CARDS);
+
+        }
+
+        writeCompositePlace(out, board.getCouncilPalace());
+
+        writeInt(out, board.getDices().size());
+
+        for (Dice dice : board.getDices()) {
+
+            writeInt(out, dice.getColor().ordinal());
+            writeInt(out, dice.getValue());
+
+        }
+
+        for (ActionArea area : new ActionArea[] {board.getProductionArea(), board.getHarvestArea()}) {
+
+            writeSinglePlace(out, area.getMainPlace());
+            writeCompositePlace(out, area.getSecondaryPlace());
+
+        }
+
+        writeInt(out, board.getMarket().getMarketPlaces().size());
+
+        for (SingleActionPlace place : board.getMarket().getMarketPlaces()) {
+
+            writeSinglePlace(out, place);
+
+        }
+
+    }
+
+    private static void readBoard(DataInputStream in, Board board) throws IOException {
+
+        for (DvptCardType type : DvptCardType.values()) {
+
+            ArrayList<TowerSlot> tower = board.getTower(type);
+
+            checkSize(readInt(in), tower.size(), type + " tower");
+
+            for (TowerSlot slot : tower) {
+
+                slot.setDvptCard(readCard(in, Catalog.DVPT_CARDS, DvptCard.class));
+                readSinglePlace(in, slot);
+
+            }
+
+        }
+
+        for (Period period : CATHEDRAL_PERIODS) {
+
+            BanCard card = readCard(in, Catalog.BAN_CARDS, BanCard.class);
+
+            if (card != null) {
+
+                board.getCathedral().setBanCard(period, card);
+
+            }
+
+        }
+
+        readCompositePlace(in, board.getCouncilPalace());
+
+        ArrayList<Dice> dices = new ArrayList<>();
+
+        for (int i = readInt(in); i > 0; i--) {
+
+            Dice dice = new Dice(readEnum(in, ColorType.values()));
+
+            dice.setValue(readInt(in));
+
+            dices.add(dice);
+
+        }
+
+        board.setDices(dices);
+
+        for (ActionArea area : new ActionArea[] {board.getProductionArea(), board.getHarvestArea()}) {
+
+            readSinglePlace(in, area.getMainPlace());
+            readCompositePlace(in, area.getSecondaryPlace());
+
+        }
+
+        ArrayList<SingleActionPlace> market = board.getMarket().getMarketPlaces();
+
+        checkSize(readInt(in), market.size(), "market");
+
+        for (SingleActionPlace place : market) {
+
+            readSinglePlace(in, place);
+
+        }
+
+    }
+
+    private static void writeSinglePlace(DataOutputStream out, SingleActionPlace place) throws IOException {
+
+        out.writeBoolean(place.isOccupied());
+        out.writeBoolean(place.getFamilyMember() != null);
+
+        if (place.getFamilyMember() != null) {
+
+            writeFamilyMember(out, place.getFamilyMember());
+
+        }
+
+    }
+
+    private static void readSinglePlace(DataInputStream in, SingleActionPlace place) throws IOException {
+
+        boolean occupied = in.readBoolean();
+
+        if (in.readBoolean()) {
+
+            place.setFamilyMember(readFamilyMember(in));
+
+        }
+
+        place.setOccupied(occupied);
+
+    }
+
+    private static void writeCompositePlace(DataOutputStream out, CompositeActionPlace place) throws IOException {
+
+        writeInt(out, place.getFamilyMembers().size());
+
+        for (FamilyMember member : place.getFamilyMembers()) {
+
+            writeFamilyMember(out, member);
+
+        }
+
+    }
+
+    private static void readCompositePlace(DataInputStream in, CompositeActionPlace place) throws IOException {
+
+        for (int i = readInt(in); i > 0; i--) {
+
+            place.placeFamilyMember(readFamilyMember(in));
+
+        }
+
+    }
+
+    private static void writeFamilyMember(DataOutputStream out, FamilyMember member) throws IOException {
+
+        writeInt(out, member.getPlayerColor() == null ? -1 : member.getPlayerColor().ordinal());
+        writeInt(out, member.getColor().ordinal());
+        out.writeBoolean(Boolean.TRUE.equals(member.isBusy()));
+        writeInt(out, member.getForce() == null ? 0 : member.getForce());
+
+    }
+
+    private static FamilyMember readFamilyMember(DataInputStream in) throws IOException {
+
+        int playerColor = readInt(in);
+
+        FamilyMember member = new FamilyMember(playerColor < 0 ? null : readEnum(playerColor, PlayerColor.values()), readEnum(in, ColorType.values()));
+
+        member.setBusy(in.readBoolean());
+        member.setForce(readInt(in));
+
+        return member;
+
+    }
+
+    private static void writeCards(DataOutputStream out, List<?> cards, Catalog catalog) throws IOException {
+
+        writeInt(out, cards.size());
+
+        for (Object card : cards) {
+
+            writeCard(out, card, catalog);
+
+        }
+
+    }
+
+    private static <T> ArrayList<T> readCards(DataInputStream in, Catalog catalog, Class<T> type) throws IOException {
+
+        ArrayList<T> cards = new ArrayList<>();
+
+        for (int i = readInt(in); i > 0; i--) {
+
+            cards.add(readCard(in, catalog, type));
+
+        }
+
+        return cards;
+
+    }
+
+    private static void writeCard(DataOutputStream out, Object card, Catalog catalog) throws IOException {
+
+        if (card == null) {
+
+            out.writeByte(NONE);
+
+            return;
+
+        }
+
+        Integer id = catalog.idOf(card);
+
+        if (id != null) {
+
+            out.writeByte(CATALOG);
+            writeInt(out, id);
+
+            return;
+
+        }
+
+        //Not the catalog instance, it may differ from it
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream serialized = new ObjectOutputStream(bytes)) {
+
+            serialized.writeObject(card);
+
+        }
+
+        out.writeByte(SERIALIZED);
+        writeInt(out, bytes.size());
+        bytes.writeTo(out);
+
+    }
+
+    private static <T> T readCard(DataInputStream in, Catalog catalog, Class<T> type) throws IOException {
+
+        byte tag = in.readByte();
+
+        Object card;
+
+        if (tag == NONE) {
+
+            return null;
+
+        }
+        else if (tag == CATALOG) {
+
+            int id = readInt(in);
+
+            card = catalog.get(id);
+
+            if (card == null) {
+
+                throw new IOException("No card with id " + id + " in the catalog");
+
+            }
+
+        }
+        else if (tag == SERIALIZED) {
+
+            byte[] bytes = new byte[readInt(in)];
+
+            in.readFully(bytes);
+
+            try (ObjectInputStream serialized = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+
+                card = serialized.readObject();
+
+            } catch (ClassNotFoundException e) {
+
+                throw new IOException("Unknown card class", e);
+
+            }
+
+        }
+        else {
+
+            throw new IOException("Unknown card tag " + tag);
+
+        }
+
+        if (!type.isInstance(card)) {
+
+            throw new IOException("Expected a " + type.getSimpleName() + ", found " + card.getClass().getSimpleName());
+
+        }
+
+        return type.cast(card);
+
+    }
+
+    private static int indexOf(List<Player> players, Player player) throws IOException {
+
+        for (int i = 0; i < players.size(); i++) {
+
+            if (players.get(i) == player || players.get(i).getUsername().equals(player.getUsername())) {
+
+                return i;
+
+            }
+
+        }
+
+        throw new IOException("Player " + player.getUsername() + " is not part of the match");
+
+    }
+
+    private static Player readPlayerReference(DataInputStream in, List<Player> players) throws IOException {
+
+        return readPlayerReference(readInt(in), players);
+
+    }
+
+    private static Player readPlayerReference(int index, List<Player> players) throws IOException {
+
+        if (index < 0 || index >= players.size()) {
+
+            throw new IOException("Invalid player index " + index);
+
+        }
+
+        return players.get(index);
+
+    }
+
+    private static void checkSize(int stored, int configured, String what) throws IOException {
+
+        if (stored != configured) {
+
+            throw new IOException("The " + what + " of the snapshot has " + stored + " places, the board configuration " + configured);
+
+        }
+
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInputStream in, E[] values) throws IOException {
+
+        return readEnum(readInt(in), values);
+
+    }
+
+    private static <E extends Enum<E>> E readEnum(int ordinal, E[] values) throws IOException {
+
+        if (ordinal < 0 || ordinal >= values.length) {
+
+            throw new IOException("Invalid ordinal " + ordinal + " for " + values.getClass().getComponentType().getSimpleName());
+
+        }
+
+        return values[ordinal];
+
+    }
+
+    /**
+     * Writes a zig-zag variable length int: small values, negative ones included, take a single byte
+     * @param out the output
+     * @param value the value
+     * @throws IOException if the output fails
+     */
+    private static void writeInt(DataOutputStream out, int value) throws IOException {
+
+        int zigzag = (value << 1) ^ (value >> 31);
+
+        while ((zigzag & ~0x7F) != 0) {
+
+            out.writeByte((zigzag & 0x7F) | 0x80);
+
+            zigzag >>>= 7;
+
+        }
+
+        out.writeByte(zigzag);
+
+    }
+
+    /**
+     * Reads a zig-zag variable length int
+     * @param in the input
+     * @return the value
+     * @throws IOException if the input fails or the value is malformed
+     */
+    private static int readInt(DataInputStream in) throws IOException {
+
+        int zigzag = 0;
+
+        for (int shift = 0; shift < 35; shift += 7) {
+
+            int b = in.readUnsignedByte();
+
+            zigzag |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+
+            }
+
+        }
+
+        throw new IOException("Malformed variable length int");
+
+    }
+
+    /**
+     * The kinds of card of the catalog of GameSingleton.
+     * The instances are matched by identity: a card is stored as an id only if it is the catalog card itself.
+     */
+    private enum Catalog {
+
+        DVPT_CARDS {
+            @Override
+            Integer catalogId(Object card) {
+                return ((DvptCard) card).getId();
+            }
+
+            @Override
+            Object get(int id) {
+                return catalog().getDvptCard(id);
+            }
+        },
+
+        BAN_CARDS {
+            @Override
+            Integer catalogId(Object card) {
+                return ((BanCard) card).getId();
+            }
+
+            @Override
+            Object get(int id) {
+                return catalog().getBanCard(id);
+            }
+        },
+
+        LEADER_CARDS {
+            @Override
+            Integer catalogId(Object card) {
+                return ((LeaderCard) card).getId();
+            }
+
+            @Override
+            Object get(int id) {
+                return catalog().getLeaderCard(id);
+            }
+        },
+
+        BONUS_TILES {
+            @Override
+            Integer catalogId(Object card) {
+                return ((BonusTile) card).getId();
+            }
+
+            @Override
+            Object get(int id) {
+                return catalog().getBonusTile(id);
+            }
+        };
+
+        abstract Integer catalogId(Object card);
+
+        abstract Object get(int id);
+
+        private static CardCatalog catalog() {
+
+            return GameSingleton.getInstance().getCatalog();
+
+        }
+
+        Integer idOf(Object card) {
+
+            return catalog().contains(card) ? this.catalogId(card) : null;
+
+        }
+
+    }
+
+}
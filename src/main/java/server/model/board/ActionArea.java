@@ -1,6 +1,7 @@
 package server.model.board;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * Created by Federico on 11/05/2017.
@@ -17,6 +18,15 @@ public class ActionArea implements Serializable {
         this.secondaryPlace = secondaryPlace;
     }
 
+    /**
+     * Copies an action area
+     * @param area the area to copy
+     * @param copies the copies of the family members, by original
+     */
+    ActionArea (ActionArea area, Map<FamilyMember, FamilyMember> copies){
+        this(area.type, new SingleActionPlace(area.mainPlace, copies), new PHCompositeActionPlace(area.secondaryPlace, copies));
+    }
+
     public ActionType getType() {
         return type;
     }
@@ -20,6 +20,14 @@ public class ActionPlace implements Serializable {
         this.minPlayers = minPlayers;
     }
 
+    /**
+     * Copies an action place, the surplus comes from the configuration and is shared
+     * @param place the place to copy
+     */
+    ActionPlace(ActionPlace place){
+        this(place.effectSurplus, place.entryForce, place.minPlayers);
+    }
+
     public EffectSurplus getEffectSurplus() {
         return effectSurplus;
     }
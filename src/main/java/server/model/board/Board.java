@@ -13,6 +13,8 @@ import server.utility.UnicodeChars;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import static server.model.board.Period.*;
 
@@ -53,6 +55,84 @@ public class Board implements Serializable {
         dices.add(new Dice(ColorType.Orange));
     }
 
+    /**
+     * Copies a board for the copies of its players.
+     * The cards and the surpluses are shared, the places get their own copies of the family members,
+     * the very ones of the copied players when they were placed from them.
+     * @param board the board to copy
+     * @param players the copies of the players of the board, in the same order
+     */
+    public Board(Board board, ArrayList<Player> players) {
+
+        Map<FamilyMember, FamilyMember> copies = new IdentityHashMap<>();
+
+        for (int i = 0; i < board.players.size() && i < players.size(); i++) {
+
+            ArrayList<FamilyMember> originals = board.players.get(i).getFamilyMembers();
+            ArrayList<FamilyMember> members = players.get(i).getFamilyMembers();
+
+            for (int j = 0; j < originals.size() && j < members.size(); j++) {
+
+                copies.put(originals.get(j), members.get(j));
+
+            }
+
+        }
+
+        this.territoryTower = copyTower(board.territoryTower, copies);
+        this.characterTower = copyTower(board.characterTower, copies);
+        this.buildingTower = copyTower(board.buildingTower, copies);
+        this.ventureTower = copyTower(board.ventureTower, copies);
+        this.cathedral = new Cathedral(board.cathedral);
+        this.councilPalace = new CouncilPalace(board.councilPalace, copies);
+        this.productionArea = new ActionArea(board.productionArea, copies);
+        this.harvestArea = new ActionArea(board.harvestArea, copies);
+        this.market = new Market(board.market, copies);
+        this.players = players;
+
+        this.dices = new ArrayList<>(board.dices.size());
+
+        for (Dice dice : board.dices) {
+
+            this.dices.add(new Dice(dice));
+
+        }
+    }
+
+    private static ArrayList<TowerSlot> copyTower(ArrayList<TowerSlot> tower, Map<FamilyMember, FamilyMember> copies) {
+
+        ArrayList<TowerSlot> copy = new ArrayList<>(tower.size());
+
+        for (TowerSlot slot : tower) {
+
+            copy.add(new TowerSlot(slot, copies));
+
+        }
+
+        return copy;
+
+    }
+
+    /**
+     * Takes over the state of a copy of this board, which must not be used afterwards.
+     * The players are kept, they are restored on their own, see Player.restore
+     * @param copy the copy, see Board(Board, ArrayList)
+     */
+    public void restore(Board copy) {
+
+        this.territoryTower = copy.territoryTower;
+        this.characterTower = copy.characterTower;
+        this.buildingTower = copy.buildingTower;
+        this.ventureTower = copy.ventureTower;
+        this.cathedral = copy.cathedral;
+        this.councilPalace = copy.councilPalace;
+        this.productionArea = copy.productionArea;
+        this.harvestArea = copy.harvestArea;
+        this.market = copy.market;
+        this.dices = copy.dices;
+
+    }
+
     public ArrayList<Player> getPlayers() {
 
         return players;
@@ -202,18 +282,46 @@ public class Board implements Serializable {
     }
 
 
+    public void setTerritoryTower(ArrayList<TowerSlot> territoryTower) {
+        this.territoryTower = territoryTower;
+    }
+
+    public void setBuildingTower(ArrayList<TowerSlot> buildingTower) {
+        this.buildingTower = buildingTower;
+    }
+
+    public void setCharacterTower(ArrayList<TowerSlot> characterTower) {
+        this.characterTower = characterTower;
+    }
+
+    public void setVentureTower(ArrayList<TowerSlot> ventureTower) {
+        this.ventureTower = ventureTower;
+    }
+
     public Cathedral getCathedral() {
         return this.cathedral;
     }
 
+    public void setCathedral(Cathedral cathedral) {
+        this.cathedral = cathedral;
+    }
+
     public ActionArea getHarvestArea() {
         return this.harvestArea;
     }
 
+    public void setHarvestArea(ActionArea harvestArea) {
+        this.harvestArea = harvestArea;
+    }
+
     public ActionArea getProductionArea() {
         return this.productionArea;
     }
 
+    public void setProductionArea(ActionArea productionArea) {
+        this.productionArea = productionArea;
+    }
+
     public ArrayList<Dice> getDices() {
         return this.dices;
     }
@@ -226,10 +334,18 @@ public class Board implements Serializable {
         return this.councilPalace;
     }
 
+    public void setCouncilPalace(CouncilPalace councilPalace) {
+        this.councilPalace = councilPalace;
+    }
+
     public Market getMarket() {
         return this.market;
     }
 
+    public void setMarket(Market market) {
+        this.market = market;
+    }
+
     /**
      * return dice force from its color
      *
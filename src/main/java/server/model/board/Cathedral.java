@@ -24,6 +24,17 @@ public class Cathedral  implements Serializable {
         this.banCards = new HashMap<>();
     }
 
+    /**
+     * Copies the cathedral, the ban cards are shared
+     * @param cathedral the cathedral to copy
+     */
+    public Cathedral(Cathedral cathedral){
+        this.firstMinFaith = cathedral.firstMinFaith;
+        this.secondMinFaith = cathedral.secondMinFaith;
+        this.thirdMinFaith = cathedral.thirdMinFaith;
+        this.banCards = new HashMap<>(cathedral.banCards);
+    }
+
     public Integer getFirstMinFaith() {
         return firstMinFaith;
     }
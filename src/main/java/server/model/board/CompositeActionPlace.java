@@ -5,6 +5,7 @@ import server.model.effect.ImmediateEffect;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * Created by Federico on 11/05/2017.
@@ -18,6 +19,18 @@ public class CompositeActionPlace extends ActionPlace implements Serializable {
         familyMembers = new ArrayList<FamilyMember>();
     }
 
+    /**
+     * Copies a place
+     * @param place the place to copy
+     * @param copies the copies of the family members, by original
+     */
+    CompositeActionPlace(CompositeActionPlace place, Map<FamilyMember, FamilyMember> copies) {
+        super(place);
+        familyMembers = new ArrayList<FamilyMember>(place.familyMembers.size());
+        for (FamilyMember familyMember : place.familyMembers)
+            familyMembers.add(FamilyMember.copyOf(familyMember, copies));
+    }
+
     public ArrayList<FamilyMember> getFamilyMembers() {
         return familyMembers;
     }
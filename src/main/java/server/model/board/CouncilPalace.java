@@ -5,6 +5,7 @@ import server.model.effect.ImmediateEffect;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * Created by LBARCELLA on 14/05/2017.
@@ -16,6 +17,15 @@ public class CouncilPalace extends CompositeActionPlace implements Serializable
         super(effectSurplus, entryForce, minPlayers);
     }
 
+    /**
+     * Copies the council palace
+     * @param councilPalace the council palace to copy
+     * @param copies the copies of the family members, by original
+     */
+    CouncilPalace(CouncilPalace councilPalace, Map<FamilyMember, FamilyMember> copies) {
+        super(councilPalace, copies);
+    }
+
     public EffectSurplus getEffectSurplus() { return this.effectSurplus;}
 
     public Integer getEntryForce(){
@@ -17,6 +17,15 @@ public class Dice implements Serializable {
         this.value = DEFAULT_VALUE;
     }
 
+    /**
+     * Copies a dice
+     * @param dice the dice to copy
+     */
+    public Dice (Dice dice){
+        this.color = dice.color;
+        this.value = dice.value;
+    }
+
     public ColorType getColor() {
         return color;
     }
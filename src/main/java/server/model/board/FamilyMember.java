@@ -1,6 +1,7 @@
 package server.model.board;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * Created by Federico on 11/05/2017.
@@ -19,6 +20,35 @@ public class FamilyMember implements Serializable {
         this.busy=false;
     }
 
+    /**
+     * Copies a family member
+     * @param familyMember the family member to copy
+     */
+    public FamilyMember (FamilyMember familyMember){
+        this.playerColor = familyMember.playerColor;
+        this.color = familyMember.color;
+        this.force = familyMember.force;
+        this.busy = familyMember.busy;
+    }
+
+    /**
+     * The copy of a family member within a copied board, the same member always maps to the same copy
+     * @param familyMember the family member, may be null
+     * @param copies the copies made so far, by original
+     * @return the copy
+     */
+    static FamilyMember copyOf(FamilyMember familyMember, Map<FamilyMember, FamilyMember> copies) {
+
+        if (familyMember == null) {
+
+            return null;
+
+        }
+
+        return copies.computeIfAbsent(familyMember, FamilyMember::new);
+
+    }
+
     public ColorType getColor() {
         return color;
     }
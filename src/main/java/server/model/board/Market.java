@@ -2,6 +2,7 @@ package server.model.board;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * Created by LBARCELLA on 19/05/2017.
@@ -14,6 +15,17 @@ public class Market implements Serializable {
         this.marketPlaces=marketPlaces;
     }
 
+    /**
+     * Copies the market
+     * @param market the market to copy
+     * @param copies the copies of the family members, by original
+     */
+    Market(Market market, Map<FamilyMember, FamilyMember> copies){
+        this.marketPlaces = new ArrayList<>(market.marketPlaces.size());
+        for (SingleActionPlace place : market.marketPlaces)
+            this.marketPlaces.add(new SingleActionPlace(place, copies));
+    }
+
     public ArrayList<SingleActionPlace> getMarketPlaces() {
         return marketPlaces;
     }
@@ -5,6 +5,7 @@ import server.model.effect.ImmediateEffect;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * Created by Federico on 11/05/2017.
@@ -19,6 +20,16 @@ public class PHCompositeActionPlace extends CompositeActionPlace implements Seri
         this.forceMalus = forceMalus;
     }
 
+    /**
+     * Copies a place
+     * @param place the place to copy
+     * @param copies the copies of the family members, by original
+     */
+    PHCompositeActionPlace(PHCompositeActionPlace place, Map<FamilyMember, FamilyMember> copies) {
+        super(place, copies);
+        this.forceMalus = place.forceMalus;
+    }
+
 
     public Integer getForceMalus() {
         return forceMalus;
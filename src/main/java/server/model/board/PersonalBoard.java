@@ -34,6 +34,20 @@ public class PersonalBoard implements Serializable {
 
     }
 
+    /**
+     * Copies a personal board, the cards and the bonus tile are shared
+     * @param personalBoard the personal board to copy
+     */
+    public PersonalBoard (PersonalBoard personalBoard){
+
+        this.bonusTile = personalBoard.bonusTile;
+        this.territoryCards = new ArrayList<TerritoryDvptCard>(personalBoard.territoryCards);
+        this.buildingCards = new ArrayList<BuildingDvptCard>(personalBoard.buildingCards);
+        this.characterCards = new ArrayList<CharacterDvptCard>(personalBoard.characterCards);
+        this.ventureCards = new ArrayList<VentureDvptCard>(personalBoard.ventureCards);
+
+    }
+
     public ArrayList<BuildingDvptCard> getBuildingCards() {
         return buildingCards;
     }
@@ -7,6 +7,7 @@ import server.model.card.ban.BanCard;
 import server.model.card.developement.Cost;
 import server.model.card.developement.DvptCardType;
 import server.model.card.leader.LeaderCard;
+import server.model.effect.EffectSurplus;
 import server.model.effect.PermanentLeaderEffectType;
 import server.model.valuable.*;
 import server.utility.UnicodeChars;
@@ -25,10 +26,16 @@ import static server.model.card.developement.DvptCardType.*;
  */
 public class Player implements Serializable {
 
+    //The prefix of the usernames of the bots that fill the empty seats, the registration refuses it so that no user can take a bot's seat
+    public static final String BOT_PREFIX = "#bot";
+
     private String username;
     private PersonalBoard personalBoard;
-    private HashMap<ResourceType, Integer> resources;
-    private HashMap<PointType, Integer> points;
+
+    //The amounts of the resources and of the points, indexed by the ordinal of their type
+    private int[] resources;
+    private int[] points;
+
     private ArrayList<FamilyMember> familyMembers;
     private ArrayList<BanCard> banCards;
     private ArrayList<LeaderCard> leaderCards;
@@ -45,27 +52,10 @@ public class Player implements Serializable {
 
         this.username = username;
 
-        //initialize hashMap that contains all resources
-
-        resources = new HashMap<ResourceType, Integer>();
-
-        //put all kind of resource in the hashMap
-
-
-        resources.put(ResourceType.Coins, 0);
-        resources.put(ResourceType.Servants, 0);
-        resources.put(ResourceType.Stones, 0);
-        resources.put(ResourceType.Wood, 0);
+        //every kind of resource and point starts from zero
+        resources = new int[ResourceType.values().length];
 
-        //initialize hashMap that contains all points
-
-        points = new HashMap<PointType, Integer>();
-
-        //put all kind of points kin the hashMap
-
-        points.put(PointType.Military, 0);
-        points.put(PointType.Victory, 0);
-        points.put(PointType.Faith, 0);
+        points = new int[PointType.values().length];
 
         //create the arrayList with all the player's familyMembers
 
@@ -88,6 +78,70 @@ public class Player implements Serializable {
 
     }
 
+    /**
+     * Tells whether a username belongs to a bot filling an empty seat
+     * @param username the username
+     * @return true for a bot
+     */
+    public static boolean isBotUsername(String username) {
+
+        return username != null && username.startsWith(BOT_PREFIX);
+
+    }
+
+    /**
+     * Copies a player, the cards are shared as they never change
+     * @param player the player to copy
+     */
+    public Player(Player player) {
+
+        this.username = player.username;
+        this.color = player.color;
+        this.disabled = player.disabled;
+
+        this.resources = player.resources.clone();
+        this.points = player.points.clone();
+
+        this.familyMembers = new ArrayList<FamilyMember>(player.familyMembers.size());
+
+        for (FamilyMember familyMember : player.familyMembers) {
+
+            this.familyMembers.add(new FamilyMember(familyMember));
+
+        }
+
+        this.personalBoard = new PersonalBoard(player.personalBoard);
+
+        this.banCards = new ArrayList<BanCard>(player.banCards);
+
+        this.leaderCards = new ArrayList<LeaderCard>(player.leaderCards);
+
+        this.playedLeaderCards = new ArrayList<LeaderCard>(player.playedLeaderCards);
+
+        this.turnActiveLeaderCards = new ArrayList<LeaderCard>(player.turnActiveLeaderCards);
+
+    }
+
+    /**
+     * Takes over the state of a copy of this player, which must not be used afterwards.
+     * The player keeps its identity, so every reference to it stays valid.
+     * @param copy the copy, see Player(Player)
+     */
+    public void restore(Player copy) {
+
+        this.color = copy.color;
+        this.disabled = copy.disabled;
+        this.resources = copy.resources;
+        this.points = copy.points;
+        this.familyMembers = copy.familyMembers;
+        this.personalBoard = copy.personalBoard;
+        this.banCards = copy.banCards;
+        this.leaderCards = copy.leaderCards;
+        this.playedLeaderCards = copy.playedLeaderCards;
+        this.turnActiveLeaderCards = copy.turnActiveLeaderCards;
+
+    }
+
     public void setFamilyMemberForce(ColorType color, int force) {
 
         for (FamilyMember fm : this.familyMembers) {
@@ -142,54 +196,58 @@ public class Player implements Serializable {
     }
 
     public Integer getCoins() {
-        return this.resources.get(ResourceType.Coins);
+        return this.resources[ResourceType.Coins.ordinal()];
     }
 
     public void setCoins(Integer coins) {
-        this.resources.put(ResourceType.Coins, coins);
+        this.resources[ResourceType.Coins.ordinal()] = coins;
     }
 
     public Integer getServants() {
-        return resources.get(ResourceType.Servants);
+        return this.resources[ResourceType.Servants.ordinal()];
     }
 
     public void setServants(Integer servants) {
-        this.resources.put(ResourceType.Servants, servants);
+        this.resources[ResourceType.Servants.ordinal()] = servants;
     }
 
     public Integer getStones() {
-        return this.resources.get(ResourceType.Stones);
+        return this.resources[ResourceType.Stones.ordinal()];
     }
 
     public void setStones(Integer stones) {
-        this.resources.put(ResourceType.Stones, stones);
+        this.resources[ResourceType.Stones.ordinal()] = stones;
     }
 
     public Integer getWood() {
-        return this.resources.get(ResourceType.Wood);
+        return this.resources[ResourceType.Wood.ordinal()];
     }
 
     public void setWood(Integer wood) {
-        this.resources.put(ResourceType.Wood, wood);
+        this.resources[ResourceType.Wood.ordinal()] = wood;
     }
 
     public Integer getResource(ResourceType resourceType) {
 
-        if (resourceType == ResourceType.Coins)
+        return this.resources[resourceType.ordinal()];
 
-            return getCoins();
+    }
 
-        if (resourceType == ResourceType.Wood)
+    /**
+     * The sum of the resources of every type
+     * @return the amount
+     */
+    public int getResourceTotal() {
 
-            return getWood();
+        int total = 0;
 
-        if (resourceType == ResourceType.Servants)
+        for (int amount : this.resources) {
 
-            return getServants();
+            total += amount;
 
-        else
+        }
 
-            return getStones();
+        return total;
 
     }
 
@@ -202,26 +260,20 @@ public class Player implements Serializable {
     }
 
     public Integer getMilitaryPoints() {
-        return this.points.get(PointType.Military);
+        return this.points[PointType.Military.ordinal()];
     }
 
     public Integer getVictoryPoints() {
-        return this.points.get(PointType.Victory);
+        return this.points[PointType.Victory.ordinal()];
     }
 
     public Integer getFaithPoints() {
-        return this.points.get(PointType.Faith);
+        return this.points[PointType.Faith.ordinal()];
      }
 
     public Integer getPoints(PointType pointType){
 
-        if(pointType == PointType.Military)
-            return getMilitaryPoints();
-
-        if(pointType == PointType.Faith)
-            return getFaithPoints();
-
-        return getVictoryPoints();
+        return this.points[pointType.ordinal()];
     }
 
 
@@ -239,15 +291,15 @@ public class Player implements Serializable {
     }
 
     public void setMilitaryPoints(Integer militaryPoints) {
-        this.points.put(PointType.Military, militaryPoints);
+        this.points[PointType.Military.ordinal()] = militaryPoints;
     }
 
     public void setVictoryPoints(Integer victoryPoints) {
-        this.points.put(PointType.Victory, victoryPoints);
+        this.points[PointType.Victory.ordinal()] = victoryPoints;
     }
 
     public void setFaithPoints(Integer faithPoints) {
-        this.points.put(PointType.Faith, faithPoints);
+        this.points[PointType.Faith.ordinal()] = faithPoints;
     }
 
     public ArrayList<FamilyMember> getFamilyMembers() {
@@ -258,6 +310,18 @@ public class Player implements Serializable {
         return banCards;
     }
 
+    public void setBanCards(ArrayList<BanCard> banCards) {
+        this.banCards = banCards;
+    }
+
+    public void setLeaderCards(ArrayList<LeaderCard> leaderCards) {
+        this.leaderCards = leaderCards;
+    }
+
+    public void setPlayedLeaderCards(ArrayList<LeaderCard> playedLeaderCards) {
+        this.playedLeaderCards = playedLeaderCards;
+    }
+
     public boolean addBanCard(BanCard card) {
         return this.banCards.add(card);
     }
@@ -276,37 +340,37 @@ public class Player implements Serializable {
     }
 
     public void addCoins(Integer coinsPlus) {
-        this.resources.put(ResourceType.Coins, getCoins() + coinsPlus);
+        this.resources[ResourceType.Coins.ordinal()] += coinsPlus;
     }
 
     public void addWood(Integer woodPlus) {
-        this.resources.put(ResourceType.Wood, getWood() + woodPlus);
+        this.resources[ResourceType.Wood.ordinal()] += woodPlus;
     }
 
     public void addStones(Integer stonesPlus) {
-        this.resources.put(ResourceType.Stones, getStones() + stonesPlus);
+        this.resources[ResourceType.Stones.ordinal()] += stonesPlus;
     }
 
     public void addServants(Integer servantsPlus) {
 
-        this.resources.put(ResourceType.Servants, getServants() + servantsPlus);
+        this.resources[ResourceType.Servants.ordinal()] += servantsPlus;
 
     }
 
     public void addMilitaryPoints(Integer militaryPlus) {
 
-        this.points.put(PointType.Military, getMilitaryPoints() + militaryPlus);
+        this.points[PointType.Military.ordinal()] += militaryPlus;
 
     }
 
     public void addVictoryPoints(Integer victoryPlus) {
 
-        this.points.put(PointType.Victory, getVictoryPoints() + victoryPlus);
+        this.points[PointType.Victory.ordinal()] += victoryPlus;
 
     }
 
     public void addFaithPoints(Integer faithPlus) {
-        this.points.put(PointType.Faith, getFaithPoints() + faithPlus);
+        this.points[PointType.Faith.ordinal()] += faithPlus;
     }
 
     /**
@@ -382,7 +446,7 @@ public class Player implements Serializable {
 
         for (FamilyMember member : familyMembers) {
 
-            if (member.getForce() >= (forceRequired - this.resources.get(ResourceType.Servants)))
+            if (member.getForce() >= (forceRequired - this.resources[ResourceType.Servants.ordinal()]))
 
                 familyMembersSuitable.add(member);
 
@@ -401,9 +465,9 @@ public class Player implements Serializable {
 
     public void subtractCoins(Integer coinsMalus) throws NotEnoughCoinsException {
 
-        if (this.resources.get(ResourceType.Coins) >= coinsMalus) {
+        if (this.resources[ResourceType.Coins.ordinal()] >= coinsMalus) {
 
-            resources.put(ResourceType.Coins, getCoins() - coinsMalus);
+            this.resources[ResourceType.Coins.ordinal()] -= coinsMalus;
 
         } else {
 
@@ -421,7 +485,7 @@ public class Player implements Serializable {
      */
 
     public boolean hasEnoughCoins(Integer coinsMalus) {
-        return (this.resources.get(ResourceType.Coins) >= coinsMalus);
+        return (this.resources[ResourceType.Coins.ordinal()] >= coinsMalus);
     }
 
     /**
@@ -433,9 +497,9 @@ public class Player implements Serializable {
 
     public void subtractWood(Integer woodMalus) throws NotEnoughWoodException {
 
-        if (this.resources.get(ResourceType.Wood) >= woodMalus) {
+        if (this.resources[ResourceType.Wood.ordinal()] >= woodMalus) {
 
-            this.resources.put(ResourceType.Wood, getWood() - woodMalus);
+            this.resources[ResourceType.Wood.ordinal()] -= woodMalus;
 
         } else {
 
@@ -450,7 +514,7 @@ public class Player implements Serializable {
      */
 
     public boolean hasEnoughWood(Integer woodMalus) {
-        return (this.resources.get(ResourceType.Wood) >= woodMalus);
+        return (this.resources[ResourceType.Wood.ordinal()] >= woodMalus);
     }
 
     /**
@@ -462,9 +526,9 @@ public class Player implements Serializable {
 
     public void subtractStones(Integer stonesMalus) throws NotEnoughStonesException {
 
-        if (this.resources.get(ResourceType.Stones) >= stonesMalus) {
+        if (this.resources[ResourceType.Stones.ordinal()] >= stonesMalus) {
 
-            this.resources.put(ResourceType.Stones, getStones() - stonesMalus);
+            this.resources[ResourceType.Stones.ordinal()] -= stonesMalus;
 
         } else {
 
@@ -482,7 +546,7 @@ public class Player implements Serializable {
 
     public boolean hasEnoughStones(Integer stonesMalus) {
 
-        return (this.resources.get(ResourceType.Stones) >= stonesMalus);
+        return (this.resources[ResourceType.Stones.ordinal()] >= stonesMalus);
 
     }
 
@@ -495,9 +559,9 @@ public class Player implements Serializable {
 
     public void subtractServants(Integer servantsMalus) throws NotEnoughServantsException {
 
-        if (this.resources.get(ResourceType.Servants) >= servantsMalus) {
+        if (this.resources[ResourceType.Servants.ordinal()] >= servantsMalus) {
 
-            this.resources.put(ResourceType.Servants, getServants() - servantsMalus);
+            this.resources[ResourceType.Servants.ordinal()] -= servantsMalus;
 
         } else {
 
@@ -514,7 +578,7 @@ public class Player implements Serializable {
      */
     public boolean hasEnoughServants(Integer servantsMalus) {
 
-        return (this.resources.get(ResourceType.Servants) >= servantsMalus);
+        return (this.resources[ResourceType.Servants.ordinal()] >= servantsMalus);
 
     }
 
@@ -525,9 +589,9 @@ public class Player implements Serializable {
      */
     public void subtractMilitaryPoints(Integer militaryMalus) throws NotEnoughMilitaryPointsException {
 
-        if (this.points.get(PointType.Military) >= militaryMalus) {
+        if (this.points[PointType.Military.ordinal()] >= militaryMalus) {
 
-            this.points.put(PointType.Military, getMilitaryPoints() - militaryMalus);
+            this.points[PointType.Military.ordinal()] -= militaryMalus;
 
         } else {
 
@@ -545,9 +609,9 @@ public class Player implements Serializable {
      */
     public void subtractVictoryPoints(Integer victoryMalus) throws NotEnoughVictoryPointsException {
 
-        if (this.points.get(PointType.Victory) >= victoryMalus) {
+        if (this.points[PointType.Victory.ordinal()] >= victoryMalus) {
 
-            this.points.put(PointType.Victory, getVictoryPoints() - victoryMalus);
+            this.points[PointType.Victory.ordinal()] -= victoryMalus;
 
         } else {
 
@@ -566,9 +630,9 @@ public class Player implements Serializable {
 
     public void subtractFaithPoints(Integer faithMalus) throws NotEnoughFaithPointsException {
 
-        if (this.points.get(PointType.Faith) >= faithMalus) {
+        if (this.points[PointType.Faith.ordinal()] >= faithMalus) {
 
-            this.points.put(PointType.Faith, getFaithPoints() - faithMalus);
+            this.points[PointType.Faith.ordinal()] -= faithMalus;
 
         } else {
 
@@ -588,21 +652,8 @@ public class Player implements Serializable {
 
     public boolean hasEnoughResources(ResourceType resourceType, Integer amount) {
 
-        if (resourceType == ResourceType.Coins)
-
-            return hasEnoughCoins(amount);
-
-        if (resourceType == ResourceType.Stones)
-
-            return hasEnoughStones(amount);
-
-        if (resourceType == ResourceType.Servants)
-
-            return hasEnoughServants(amount);
-
-        else
+        return this.resources[resourceType.ordinal()] >= amount;
 
-            return hasEnoughWood(amount);
     }
 
     public boolean hasEnoughCostResources(Cost cost) {
@@ -663,31 +714,27 @@ public class Player implements Serializable {
 
     }
 
-
     /**
-     * this method check if the player has enough points to do something
-     *
+     * this method adds the resources and the points of a surplus, the council privileges are up to the caller
+     * @param surplus the surplus
      */
+    public void addSurplus(EffectSurplus surplus) {
 
-    public boolean hasEnoughPoints(PointType pointType, Integer amount) {
-
-        if (pointType == PointType.Military) {
-
-            return hasEnoughMilitaryPoints(amount);
+        this.addResources(surplus.getResources());
+        this.addPoints(surplus.getPoints());
 
-        }
-
-        if (pointType == PointType.Victory) {
+    }
 
-            return hasEnoughVictoryPoints(amount);
 
-        }
+    /**
+     * this method check if the player has enough points to do something
+     *
+     */
 
-        else {
+    public boolean hasEnoughPoints(PointType pointType, Integer amount) {
 
-            return hasEnoughFaithPoints(amount);
+        return this.points[pointType.ordinal()] >= amount;
 
-        }
     }
 
 
@@ -714,19 +761,19 @@ public class Player implements Serializable {
 
     public boolean hasEnoughFaithPoints(Integer faithMalus) {
 
-        return (this.points.get(PointType.Faith) >= faithMalus);
+        return (this.points[PointType.Faith.ordinal()] >= faithMalus);
     }
 
     public boolean hasEnoughVictoryPoints(Integer victoryMalus) {
 
-        return (this.points.get(PointType.Victory) >= victoryMalus);
+        return (this.points[PointType.Victory.ordinal()] >= victoryMalus);
 
     }
 
 
     public boolean hasEnoughMilitaryPoints(Integer militaryMalus) {
 
-        return (this.points.get(PointType.Military) >= militaryMalus);
+        return (this.points[PointType.Military.ordinal()] >= militaryMalus);
 
     }
 
@@ -787,21 +834,10 @@ public class Player implements Serializable {
      */
     public void addGenericResource(ResourceType resourceType, Integer amount) {
 
-        if (resourceType == ResourceType.Coins)
-
-            addCoins(amount);
+        //the points of a multiplier come without a type
+        if (resourceType != null)
 
-        if (resourceType == ResourceType.Stones)
-
-            addStones(amount);
-
-        if (resourceType == ResourceType.Servants)
-
-            addServants(amount);
-
-        if (resourceType == ResourceType.Wood)
-
-            addWood(amount);
+            this.resources[resourceType.ordinal()] += amount;
 
     }
 
@@ -814,21 +850,36 @@ public class Player implements Serializable {
 
     public void addGenericPoint(PointType pointType, Integer amount) {
 
-        if (pointType == PointType.Faith)
+        //the points of a multiplier come without a type
+        if (pointType != null)
 
-            addFaithPoints(amount);
+            this.points[pointType.ordinal()] += amount;
 
-        if (pointType == PointType.Military)
+    }
 
-            addMilitaryPoints(amount);
 
-        if (pointType == PointType.Victory)
 
-            addVictoryPoints(amount);
+    /**
+     * this method overwrites the amount of a specific resource
+     * @param resourceType that specify which resource type has to be set
+     * @param amount the new amount
+     */
+    public void setGenericResource(ResourceType resourceType, Integer amount) {
+
+        this.resources[resourceType.ordinal()] = amount;
 
     }
 
+    /**
+     * this method overwrites the amount of a specific point type
+     * @param pointType that specify which point type has to be set
+     * @param amount the new amount
+     */
+    public void setGenericPoint(PointType pointType, Integer amount) {
+
+        this.points[pointType.ordinal()] = amount;
 
+    }
 
     public void setDisabled(boolean disabled) {
 
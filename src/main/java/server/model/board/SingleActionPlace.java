@@ -4,6 +4,7 @@ import server.model.effect.EffectSurplus;
 import server.model.effect.ImmediateEffect;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * Created by Federico on 11/05/2017.
@@ -18,6 +19,17 @@ public class SingleActionPlace extends ActionPlace implements Serializable {
         this.occupied = false;
     }
 
+    /**
+     * Copies a place
+     * @param place the place to copy
+     * @param copies the copies of the family members, by original
+     */
+    SingleActionPlace(SingleActionPlace place, Map<FamilyMember, FamilyMember> copies) {
+        super(place);
+        this.familyMember = FamilyMember.copyOf(place.familyMember, copies);
+        this.occupied = place.occupied;
+    }
+
     public boolean isOccupied() {
         return occupied;
     }
@@ -5,6 +5,7 @@ import server.model.effect.EffectSurplus;
 import server.model.effect.ImmediateEffect;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * Created by Federico on 11/05/2017.
@@ -18,6 +19,16 @@ public class TowerSlot extends SingleActionPlace  implements Serializable {
         super(effectSurplus, entryForce, minPlayers);
     }
 
+    /**
+     * Copies a slot, the card is shared
+     * @param slot the slot to copy
+     * @param copies the copies of the family members, by original
+     */
+    TowerSlot(TowerSlot slot, Map<FamilyMember, FamilyMember> copies) {
+        super(slot, copies);
+        this.dvptCard = slot.dvptCard;
+    }
+
 
     public DvptCard getDvptCard() {
         return dvptCard;
@@ -0,0 +1,288 @@
+package server.model.card;
+
+import server.model.board.BonusTile;
+import server.model.card.ban.BanCard;
+import server.model.card.developement.DvptCard;
+import server.model.card.developement.DvptCardType;
+import server.model.card.leader.LeaderCard;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The immutable catalog of every card of the game, indexed by id.
+ * The lookups by id are array accesses, the development cards are also grouped by type and period and the
+ * ban cards by period, in the order of the catalog, so that the decks can be built without counting positions.
+ * Sets of development cards, such as the ones already dealt, are bitsets over the ids.
+ */
+public final class CardCatalog {
+
+    /**
+     * The number of periods of the game
+     */
+    public static final int PERIODS = 3;
+
+    //The cards in the order they were loaded
+    private final List<DvptCard> dvptCards;
+    private final List<BanCard> banCards;
+    private final List<LeaderCard> leaderCards;
+    private final List<BonusTile> bonusTiles;
+
+    //The cards by id, null where no card has the id
+    private final DvptCard[] dvptCardsById;
+    private final BanCard[] banCardsById;
+    private final LeaderCard[] leaderCardsById;
+    private final BonusTile[] bonusTilesById;
+
+    //The development cards by type ordinal and period, the ban cards by period
+    private final List<List<List<DvptCard>>> dvptCardsByTypeAndPeriod;
+    private final List<List<BanCard>> banCardsByPeriod;
+
+    /**
+     * Indexes the cards
+     * @param dvptCards the development cards
+     * @param banCards the ban cards
+     * @param leaderCards the leader cards
+     * @param bonusTiles the bonus tiles
+     * @throws IllegalArgumentException if two cards of the same kind share an id
+     */
+    public CardCatalog(List<DvptCard> dvptCards, List<BanCard> banCards, List<LeaderCard> leaderCards, List<BonusTile> bonusTiles) {
+
+        this.dvptCards = Collections.unmodifiableList(new ArrayList<>(dvptCards));
+        this.banCards = Collections.unmodifiableList(new ArrayList<>(banCards));
+        this.leaderCards = Collections.unmodifiableList(new ArrayList<>(leaderCards));
+        this.bonusTiles = Collections.unmodifiableList(new ArrayList<>(bonusTiles));
+
+        this.dvptCardsById = new DvptCard[maxId(dvptCards, DvptCard::getId) + 1];
+        this.banCardsById = new BanCard[maxId(banCards, BanCard::getId) + 1];
+        this.leaderCardsById = new LeaderCard[maxId(leaderCards, LeaderCard::getId) + 1];
+        this.bonusTilesById = new BonusTile[maxId(bonusTiles, BonusTile::getId) + 1];
+
+        index(dvptCards, DvptCard::getId, this.dvptCardsById);
+        index(banCards, BanCard::getId, this.banCardsById);
+        index(leaderCards, LeaderCard::getId, this.leaderCardsById);
+        index(bonusTiles, BonusTile::getId, this.bonusTilesById);
+
+        List<List<List<DvptCard>>> byType = new ArrayList<>();
+
+        for (DvptCardType type : DvptCardType.values()) {
+
+            List<List<DvptCard>> byPeriod = new ArrayList<>();
+
+            for (int period = 1; period <= PERIODS; period++) {
+
+                List<DvptCard> cards = new ArrayList<>();
+
+                for (DvptCard card : dvptCards) {
+
+                    if (card.getType() == type && card.getPeriod() == period) {
+
+                        cards.add(card);
+
+                    }
+
+                }
+
+                byPeriod.add(Collections.unmodifiableList(cards));
+
+            }
+
+            byType.add(Collections.unmodifiableList(byPeriod));
+
+        }
+
+        this.dvptCardsByTypeAndPeriod = Collections.unmodifiableList(byType);
+
+        List<List<BanCard>> banByPeriod = new ArrayList<>();
+
+        for (int period = 1; period <= PERIODS; period++) {
+
+            List<BanCard> cards = new ArrayList<>();
+
+            for (BanCard card : banCards) {
+
+                if (card.getPeriod() == period) {
+
+                    cards.add(card);
+
+                }
+
+            }
+
+            banByPeriod.add(Collections.unmodifiableList(cards));
+
+        }
+
+        this.banCardsByPeriod = Collections.unmodifiableList(banByPeriod);
+
+    }
+
+    private static <T> int maxId(List<T> cards, Function<T, Integer> id) {
+
+        int max = -1;
+
+        for (T card : cards) {
+
+            if (id.apply(card) < 0) {
+
+                throw new IllegalArgumentException("Negative card id " + id.apply(card));
+
+            }
+
+            max = Math.max(max, id.apply(card));
+
+        }
+
+        return max;
+
+    }
+
+    private static <T> void index(List<T> cards, Function<T, Integer> id, T[] byId) {
+
+        for (T card : cards) {
+
+            if (byId[id.apply(card)] != null) {
+
+                throw new IllegalArgumentException("Duplicate card id " + id.apply(card));
+
+            }
+
+            byId[id.apply(card)] = card;
+
+        }
+
+    }
+
+    private static <T> T get(T[] byId, Integer id) {
+
+        return id == null || id < 0 || id >= byId.length ? null : byId[id];
+
+    }
+
+    /**
+     * The development card with an id
+     * @param id the id
+     * @return the card, null if there is none
+     */
+    public DvptCard getDvptCard(Integer id) {
+        return get(this.dvptCardsById, id);
+    }
+
+    /**
+     * The ban card with an id
+     * @param id the id
+     * @return the card, null if there is none
+     */
+    public BanCard getBanCard(Integer id) {
+        return get(this.banCardsById, id);
+    }
+
+    /**
+     * The leader card with an id
+     * @param id the id
+     * @return the card, null if there is none
+     */
+    public LeaderCard getLeaderCard(Integer id) {
+        return get(this.leaderCardsById, id);
+    }
+
+    /**
+     * The bonus tile with an id
+     * @param id the id
+     * @return the tile, null if there is none
+     */
+    public BonusTile getBonusTile(Integer id) {
+        return get(this.bonusTilesById, id);
+    }
+
+    public List<DvptCard> getDvptCards() {
+        return dvptCards;
+    }
+
+    public List<BanCard> getBanCards() {
+        return banCards;
+    }
+
+    public List<LeaderCard> getLeaderCards() {
+        return leaderCards;
+    }
+
+    public List<BonusTile> getBonusTiles() {
+        return bonusTiles;
+    }
+
+    /**
+     * The development cards of a type and a period, in the order of the catalog
+     * @param type the type
+     * @param period the period, from 1
+     * @return the cards
+     */
+    public List<DvptCard> getDvptCards(DvptCardType type, int period) {
+        return this.dvptCardsByTypeAndPeriod.get(type.ordinal()).get(period - 1);
+    }
+
+    /**
+     * The ban cards of a period, in the order of the catalog
+     * @param period the period, from 1
+     * @return the cards
+     */
+    public List<BanCard> getBanCards(int period) {
+        return this.banCardsByPeriod.get(period - 1);
+    }
+
+    /**
+     * Whether a card is the very instance of the catalog, rather than a copy of it
+     * @param card the card
+     * @return true if it is
+     */
+    public boolean contains(Object card) {
+
+        if (card instanceof DvptCard) {
+
+            return this.getDvptCard(((DvptCard) card).getId()) == card;
+
+        }
+
+        if (card instanceof BanCard) {
+
+            return this.getBanCard(((BanCard) card).getId()) == card;
+
+        }
+
+        if (card instanceof LeaderCard) {
+
+            return this.getLeaderCard(((LeaderCard) card).getId()) == card;
+
+        }
+
+        return card instanceof BonusTile && this.getBonusTile(((BonusTile) card).getId()) == card;
+
+    }
+
+    /**
+     * Adds the ids of some development cards to a set
+     * @param set the set
+     * @param cards the cards, null ones are skipped
+     * @return the set
+     */
+    public static BitSet addIds(BitSet set, Collection<? extends DvptCard> cards) {
+
+        for (DvptCard card : cards) {
+
+            if (card != null) {
+
+                set.set(card.getId());
+
+            }
+
+        }
+
+        return set;
+
+    }
+
+}
@@ -8,6 +8,7 @@ package server.model.card;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Random;
 
 /**
  *  * Represents a card desk of custom authenticationType
@@ -82,6 +83,18 @@ public class Deck<T>  implements Serializable {
 
     }
 
+    /**
+     * Shuffle the cards with a given random stream, the same stream always yields the same order
+     * @param random the stream
+     */
+    public Deck<T> shuffle(Random random) {
+
+        Collections.shuffle(this.cards, random);
+
+        return this;
+
+    }
+
     public ArrayList<T> getCards() {
         return cards;
     }
@@ -0,0 +1,103 @@
+package server.model.delta;
+
+import exception.NoSuchPlayerException;
+import logger.Level;
+import logger.Logger;
+import netobject.NetObject;
+import netobject.NetObjectType;
+import server.model.Match;
+import server.model.board.Player;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The changes of the model between two revisions.
+ * It holds the serialized value of every section that changed after the base revision.
+ * A client whose model is at least at the base revision can apply it and get to the delta revision.
+ */
+public class MatchDelta extends NetObject {
+
+    //The revision the delta is computed from
+    private final int baseRevision;
+
+    //The revision the model reaches once the delta is applied
+    private final int revision;
+
+    //The serialized sections, by key
+    private final LinkedHashMap<String, byte[]> sections;
+
+    /**
+     * Constructor
+     * @param baseRevision the revision the delta is computed from
+     * @param revision the revision reached applying the delta
+     * @param sections the serialized sections, by key
+     */
+    public MatchDelta(int baseRevision, int revision, LinkedHashMap<String, byte[]> sections) {
+
+        super(NetObjectType.ModelDelta);
+
+        this.baseRevision = baseRevision;
+
+        this.revision = revision;
+
+        this.sections = sections;
+
+    }
+
+    public int getBaseRevision() {
+        return baseRevision;
+    }
+
+    public int getRevision() {
+        return revision;
+    }
+
+    public LinkedHashMap<String, byte[]> getSections() {
+        return sections;
+    }
+
+    public boolean isEmpty() {
+        return this.sections.isEmpty();
+    }
+
+    /**
+     * Patches the model with the sections of the delta, the revision is left to the caller
+     * @param match the local copy of the model
+     * @return true if every section was applied, false if the model has to be fetched again
+     */
+    public boolean applyTo(Match match) {
+
+        for (Map.Entry<String, byte[]> entry : this.sections.entrySet()) {
+
+            try {
+
+                ModelSection section = ModelSection.fromKey(entry.getKey());
+
+                Player owner = section.isPerPlayer() ? match.getPlayerFromUsername(ModelSection.ownerFromKey(entry.getKey())) : null;
+
+                section.apply(match, owner, new ObjectInputStream(new ByteArrayInputStream(entry.getValue())).readObject());
+
+            } catch (IOException | ClassNotFoundException | NoSuchPlayerException | IllegalArgumentException | ClassCastException e) {
+
+                Logger.log(Level.WARNING, "MatchDelta", "Unable to apply section " + entry.getKey(), e);
+
+                return false;
+
+            }
+
+        }
+
+        return true;
+
+    }
+
+    @Override
+    public String toString() {
+        return "MatchDelta (" + this.baseRevision + " -> " + this.revision + ", " + this.sections.keySet() + ")";
+    }
+
+}
@@ -0,0 +1,207 @@
+package server.model.delta;
+
+import logger.Level;
+import logger.Logger;
+import server.model.Match;
+import server.model.board.Player;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the model revisions on the server side.
+ * Every time the model is committed each section is serialized and compared with the previous one,
+ * the revision is bumped if anything changed and every changed section remembers that revision.
+ * A delta for a client is then made of the sections changed after the last revision it acknowledged.
+ * The class is thread safe: commits come from the match while acknowledgements come from the network.
+ */
+public class MatchDeltaTracker {
+
+    //The current revision of the model
+    private int revision;
+
+    //The serialized sections as of the current revision
+    private HashMap<String, byte[]> sections = new HashMap<>();
+
+    //The revision in which each section changed for the last time
+    private final HashMap<String, Integer> changedAt = new HashMap<>();
+
+    //The last revision acknowledged by each player
+    private final HashMap<String, Integer> acknowledged = new HashMap<>();
+
+    /**
+     * Constructor
+     * @param revision the revision to start from, restored matches keep counting from where they stopped
+     */
+    public MatchDeltaTracker(int revision) {
+
+        this.revision = revision;
+
+    }
+
+    /**
+     * Records the current state of the model, bumping the revision if anything changed.
+     * Must be called from the thread that owns the match.
+     * @param match the model
+     * @return the current revision
+     */
+    public synchronized int commit(Match match) {
+
+        HashMap<String, byte[]> current = new HashMap<>();
+
+        for (ModelSection section : ModelSection.values()) {
+
+            if (section.isPerPlayer()) {
+
+                for (Player p : match.getPlayers()) {
+
+                    current.put(section.key(p.getUsername()), serialize(section.extract(match, p)));
+
+                }
+
+            }
+            else {
+
+                current.put(section.key(null), serialize(section.extract(match, null)));
+
+            }
+
+        }
+
+        boolean changed = false;
+
+        for (Map.Entry<String, byte[]> entry : current.entrySet()) {
+
+            if (!Arrays.equals(entry.getValue(), this.sections.get(entry.getKey()))) {
+
+                this.changedAt.put(entry.getKey(), this.revision + 1);
+
+                changed = true;
+
+            }
+
+        }
+
+        if (changed) {
+
+            this.revision++;
+
+        }
+
+        this.sections = current;
+
+        match.setRevision(this.revision);
+
+        return this.revision;
+
+    }
+
+    /**
+     * Builds the delta for a player, starting from the last revision it acknowledged
+     * @param username the username of the player
+     * @return the delta, possibly empty, or null if the player never acknowledged a revision and needs a snapshot
+     */
+    public synchronized MatchDelta deltaFor(String username) {
+
+        Integer base = this.acknowledged.get(username);
+
+        if (base == null) {
+
+            return null;
+
+        }
+
+        return this.deltaSince(base);
+
+    }
+
+    /**
+     * Builds a delta made of every section, applicable on top of any copy of the model
+     * @return the delta
+     */
+    public synchronized MatchDelta fullDelta() {
+
+        return this.deltaSince(0);
+
+    }
+
+    private MatchDelta deltaSince(int base) {
+
+        LinkedHashMap<String, byte[]> changed = new LinkedHashMap<>();
+
+        for (Map.Entry<String, byte[]> entry : this.sections.entrySet()) {
+
+            if (base == 0 || this.changedAt.get(entry.getKey()) > base) {
+
+                changed.put(entry.getKey(), entry.getValue());
+
+            }
+
+        }
+
+        return new MatchDelta(base, this.revision, changed);
+
+    }
+
+    /**
+     * Records the revision a player has applied
+     * @param username the username of the player
+     * @param revision the revision
+     */
+    public synchronized void acknowledge(String username, int revision) {
+
+        //Acknowledgements might overtake each other, only move forward and never past the current revision
+        Integer previous = this.acknowledged.get(username);
+
+        int bounded = Math.min(revision, this.revision);
+
+        if (previous == null || previous < bounded) {
+
+            this.acknowledged.put(username, bounded);
+
+        }
+
+    }
+
+    /**
+     * Forgets what a player acknowledged, the next update it receives will be a snapshot
+     * @param username the username of the player
+     */
+    public synchronized void forget(String username) {
+
+        this.acknowledged.remove(username);
+
+    }
+
+    public synchronized int getRevision() {
+        return revision;
+    }
+
+    private static byte[] serialize(Object value) {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try {
+
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+
+            out.writeObject(value);
+
+            out.close();
+
+        } catch (IOException e) {
+
+            Logger.log(Level.SEVERE, "MatchDeltaTracker", "Unable to serialize a model section", e);
+
+        }
+
+        return bytes.toByteArray();
+
+    }
+
+}
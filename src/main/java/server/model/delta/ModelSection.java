@@ -0,0 +1,416 @@
+package server.model.delta;
+
+import exception.NoSuchPlayerException;
+import server.model.Match;
+import server.model.board.*;
+import server.model.card.ban.BanCard;
+import server.model.card.leader.LeaderCard;
+import server.model.valuable.PointType;
+import server.model.valuable.ResourceType;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * The independent parts a match is split into when computing delta updates.
+ * Each section knows how to read its value out of a match and how to write it back into another copy.
+ * Player sections exist once per player and are keyed with the username of their owner.
+ */
+public enum ModelSection {
+
+    /**
+     * Period, turn, round, current player and round order
+     */
+    State(false) {
+
+        Object extract(Match match, Player owner) {
+
+            ArrayList<String> order = new ArrayList<>();
+
+            for (Player p : match.getRoundOrder()) {
+
+                order.add(p.getUsername());
+
+            }
+
+            String current = match.getCurrentPlayer() != null ? match.getCurrentPlayer().getUsername() : null;
+
+            return new StateValue(match.getCurrentPeriod(), match.getCurrentTurn(), match.getCurrentRound(), current, order);
+
+        }
+
+        void apply(Match match, Player owner, Object value) throws NoSuchPlayerException {
+
+            StateValue state = (StateValue) value;
+
+            ArrayList<Player> order = new ArrayList<>();
+
+            for (String username : state.roundOrder) {
+
+                order.add(match.getPlayerFromUsername(username));
+
+            }
+
+            match.setCurrentPeriod(state.period);
+            match.setCurrentTurn(state.turn);
+            match.setCurrentRound(state.round);
+            match.setRoundOrder(order);
+            match.setCurrentPlayer(state.currentPlayer != null ? match.getPlayerFromUsername(state.currentPlayer) : null);
+
+        }
+
+    },
+
+    Dices(false) {
+
+        Object extract(Match match, Player owner) {
+            return match.getBoard().getDices();
+        }
+
+        @SuppressWarnings("unchecked")
+        void apply(Match match, Player owner, Object value) {
+            match.getBoard().setDices((ArrayList<Dice>) value);
+        }
+
+    },
+
+    Cathedral(false) {
+
+        Object extract(Match match, Player owner) {
+            return match.getBoard().getCathedral();
+        }
+
+        void apply(Match match, Player owner, Object value) {
+            match.getBoard().setCathedral((server.model.board.Cathedral) value);
+        }
+
+    },
+
+    TerritoryTower(false) {
+
+        Object extract(Match match, Player owner) {
+            return match.getBoard().getTerritoryTower();
+        }
+
+        @SuppressWarnings("unchecked")
+        void apply(Match match, Player owner, Object value) {
+            match.getBoard().setTerritoryTower((ArrayList<TowerSlot>) value);
+        }
+
+    },
+
+    BuildingTower(false) {
+
+        Object extract(Match match, Player owner) {
+            return match.getBoard().getBuildingTower();
+        }
+
+        @SuppressWarnings("unchecked")
+        void apply(Match match, Player owner, Object value) {
+            match.getBoard().setBuildingTower((ArrayList<TowerSlot>) value);
+        }
+
+    },
+
+    CharacterTower(false) {
+
+        Object extract(Match match, Player owner) {
+            return match.getBoard().getCharacterTower();
+        }
+
+        @SuppressWarnings("unchecked")
+        void apply(Match match, Player owner, Object value) {
+            match.getBoard().setCharacterTower((ArrayList<TowerSlot>) value);
+        }
+
+    },
+
+    VentureTower(false) {
+
+        Object extract(Match match, Player owner) {
+            return match.getBoard().getVentureTower();
+        }
+
+        @SuppressWarnings("unchecked")
+        void apply(Match match, Player owner, Object value) {
+            match.getBoard().setVentureTower((ArrayList<TowerSlot>) value);
+        }
+
+    },
+
+    CouncilPalace(false) {
+
+        Object extract(Match match, Player owner) {
+            return match.getBoard().getCouncilPalace();
+        }
+
+        void apply(Match match, Player owner, Object value) {
+            match.getBoard().setCouncilPalace((server.model.board.CouncilPalace) value);
+        }
+
+    },
+
+    Market(false) {
+
+        Object extract(Match match, Player owner) {
+            return match.getBoard().getMarket();
+        }
+
+        void apply(Match match, Player owner, Object value) {
+            match.getBoard().setMarket((server.model.board.Market) value);
+        }
+
+    },
+
+    ProductionArea(false) {
+
+        Object extract(Match match, Player owner) {
+            return match.getBoard().getProductionArea();
+        }
+
+        void apply(Match match, Player owner, Object value) {
+            match.getBoard().setProductionArea((ActionArea) value);
+        }
+
+    },
+
+    HarvestArea(false) {
+
+        Object extract(Match match, Player owner) {
+            return match.getBoard().getHarvestArea();
+        }
+
+        void apply(Match match, Player owner, Object value) {
+            match.getBoard().setHarvestArea((ActionArea) value);
+        }
+
+    },
+
+    /**
+     * Resources and points of a player, packed in the enums order
+     */
+    PlayerResources(true) {
+
+        Object extract(Match match, Player owner) {
+
+            int[] amounts = new int[ResourceType.values().length + PointType.values().length];
+
+            int i = 0;
+
+            for (ResourceType type : ResourceType.values()) {
+
+                amounts[i++] = owner.getResource(type);
+
+            }
+
+            for (PointType type : PointType.values()) {
+
+                amounts[i++] = owner.getPoints(type);
+
+            }
+
+            return amounts;
+
+        }
+
+        void apply(Match match, Player owner, Object value) {
+
+            int[] amounts = (int[]) value;
+
+            int i = 0;
+
+            for (ResourceType type : ResourceType.values()) {
+
+                owner.setGenericResource(type, amounts[i++]);
+
+            }
+
+            for (PointType type : PointType.values()) {
+
+                owner.setGenericPoint(type, amounts[i++]);
+
+            }
+
+        }
+
+    },
+
+    PlayerFamilyMembers(true) {
+
+        Object extract(Match match, Player owner) {
+            return owner.getFamilyMembers();
+        }
+
+        @SuppressWarnings("unchecked")
+        void apply(Match match, Player owner, Object value) {
+            owner.setFamilyMembers((ArrayList<FamilyMember>) value);
+        }
+
+    },
+
+    PlayerPersonalBoard(true) {
+
+        Object extract(Match match, Player owner) {
+            return owner.getPersonalBoard();
+        }
+
+        void apply(Match match, Player owner, Object value) {
+            owner.setPersonalBoard((PersonalBoard) value);
+        }
+
+    },
+
+    /**
+     * Leader and ban cards, kept together since the leader lists share their cards
+     */
+    PlayerCards(true) {
+
+        Object extract(Match match, Player owner) {
+            return new CardsValue(owner.getLeaderCards(), owner.getPlayedLeaderCards(), owner.getTurnActiveLeaderCards(), owner.getBanCards());
+        }
+
+        void apply(Match match, Player owner, Object value) {
+
+            CardsValue cards = (CardsValue) value;
+
+            owner.setLeaderCards(cards.leaderCards);
+            owner.setPlayedLeaderCards(cards.playedLeaderCards);
+            owner.setTurnActiveLeaderCard(cards.turnActiveLeaderCards);
+            owner.setBanCards(cards.banCards);
+
+        }
+
+    },
+
+    PlayerStatus(true) {
+
+        Object extract(Match match, Player owner) {
+            return new Object[] {owner.getColor(), owner.isDisabled()};
+        }
+
+        void apply(Match match, Player owner, Object value) {
+
+            Object[] status = (Object[]) value;
+
+            owner.setColor((PlayerColor) status[0]);
+            owner.setDisabled((Boolean) status[1]);
+
+        }
+
+    };
+
+    //The separator between the section and the owner inside a key
+    private static final char OWNER_SEPARATOR = '/';
+
+    //Whether or not the section exists once per player
+    private final boolean perPlayer;
+
+    ModelSection(boolean perPlayer) {
+
+        this.perPlayer = perPlayer;
+
+    }
+
+    /**
+     * Reads the value of the section
+     * @param match the match
+     * @param owner the owner of the section, null for match wide sections
+     * @return the value, which must be serializable
+     */
+    abstract Object extract(Match match, Player owner);
+
+    /**
+     * Writes the value of the section
+     * @param match the match to patch
+     * @param owner the owner of the section, null for match wide sections
+     * @param value the value produced by extract
+     * @throws NoSuchPlayerException if the value references an unknown player
+     */
+    abstract void apply(Match match, Player owner, Object value) throws NoSuchPlayerException;
+
+    public boolean isPerPlayer() {
+        return perPlayer;
+    }
+
+    /**
+     * Builds the key that identifies the section inside a delta
+     * @param owner the owner username, ignored for match wide sections
+     * @return the key
+     */
+    public String key(String owner) {
+
+        return this.perPlayer ? this.name() + OWNER_SEPARATOR + owner : this.name();
+
+    }
+
+    /**
+     * Parses the section out of a key
+     * @param key the key
+     * @return the section
+     */
+    public static ModelSection fromKey(String key) {
+
+        int separator = key.indexOf(OWNER_SEPARATOR);
+
+        return ModelSection.valueOf(separator < 0 ? key : key.substring(0, separator));
+
+    }
+
+    /**
+     * Parses the owner out of a key
+     * @param key the key
+     * @return the owner username, null for match wide sections
+     */
+    public static String ownerFromKey(String key) {
+
+        int separator = key.indexOf(OWNER_SEPARATOR);
+
+        return separator < 0 ? null : key.substring(separator + 1);
+
+    }
+
+    /**
+     * The value of the state section
+     */
+    private static class StateValue implements Serializable {
+
+        private final Period period;
+        private final int turn;
+        private final int round;
+        private final String currentPlayer;
+        private final ArrayList<String> roundOrder;
+
+        private StateValue(Period period, int turn, int round, String currentPlayer, ArrayList<String> roundOrder) {
+
+            this.period = period;
+            this.turn = turn;
+            this.round = round;
+            this.currentPlayer = currentPlayer;
+            this.roundOrder = roundOrder;
+
+        }
+
+    }
+
+    /**
+     * The value of the player cards section
+     */
+    private static class CardsValue implements Serializable {
+
+        private final ArrayList<LeaderCard> leaderCards;
+        private final ArrayList<LeaderCard> playedLeaderCards;
+        private final ArrayList<LeaderCard> turnActiveLeaderCards;
+        private final ArrayList<BanCard> banCards;
+
+        private CardsValue(ArrayList<LeaderCard> leaderCards, ArrayList<LeaderCard> playedLeaderCards, ArrayList<LeaderCard> turnActiveLeaderCards, ArrayList<BanCard> banCards) {
+
+            this.leaderCards = leaderCards;
+            this.playedLeaderCards = playedLeaderCards;
+            this.turnActiveLeaderCards = turnActiveLeaderCards;
+            this.banCards = banCards;
+
+        }
+
+    }
+
+}
@@ -19,6 +19,29 @@ public class EffectSurplus implements Serializable {
         this.council = council;
     }
 
+    /**
+     * clone the surplus
+     * @param surplus
+     */
+    public EffectSurplus(EffectSurplus surplus){
+
+        ArrayList<Resource> resources = new ArrayList<>();
+        ArrayList<Point> points = new ArrayList<>();
+
+        for (Resource resource: surplus.getResources()) {
+            resources.add(new Resource(resource.getType(),resource.getAmount()));
+        }
+
+        for (Point point: surplus.getPoints()) {
+            points.add(new Point(point.getType(),point.getAmount(),point.getMultiplier()));
+        }
+
+        this.resources = resources;
+        this.points = points;
+        this.council = surplus.getCouncil();
+
+    }
+
     public ArrayList<Resource> getResources() {
         return resources;
     }
@@ -0,0 +1,154 @@
+package server.model.journal;
+
+import netobject.NetObject;
+import netobject.action.Action;
+import netobject.codec.BinaryCodec;
+
+import java.io.*;
+
+/**
+ * An entry of the journal of a match: something that happened after the last snapshot and that has to be replayed.
+ * Either an action handled by the match controller, a choice the player made while the action was handled,
+ * or the seed the dices were rolled with.
+ */
+public class JournalEntry {
+
+    /**
+     * What the entry holds
+     */
+    public enum Kind {
+
+        PlayerAction,
+        Choice,
+        DiceSeed
+
+    }
+
+    //The kind of the entry
+    private final Kind kind;
+
+    //The action, for the action and choice entries
+    private final Action action;
+
+    //The seed, for the dice entries
+    private final long seed;
+
+    private JournalEntry(Kind kind, Action action, long seed) {
+
+        this.kind = kind;
+        this.action = action;
+        this.seed = seed;
+
+    }
+
+    public static JournalEntry playerAction(Action action) {
+
+        return new JournalEntry(Kind.PlayerAction, action, 0);
+
+    }
+
+    public static JournalEntry choice(Action action) {
+
+        return new JournalEntry(Kind.Choice, action, 0);
+
+    }
+
+    public static JournalEntry diceSeed(long seed) {
+
+        return new JournalEntry(Kind.DiceSeed, null, seed);
+
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Encodes the entry: the kind ordinal followed by the seed or by the action as a binary codec frame
+     * @return the encoded entry
+     * @throws IOException if the action can't be encoded
+     */
+    public byte[] encode() throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(this.kind.ordinal());
+
+        if (this.kind == Kind.DiceSeed) {
+
+            out.writeLong(this.seed);
+
+        }
+        else {
+
+            out.write(BinaryCodec.encodeFrame(this.action));
+
+        }
+
+        out.flush();
+
+        return bytes.toByteArray();
+
+    }
+
+    /**
+     * Decodes an entry
+     * @param data the encoded entry
+     * @return the entry
+     * @throws IOException if the entry is corrupted
+     */
+    public static JournalEntry decode(byte[] data) throws IOException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+        int ordinal = in.readUnsignedByte();
+
+        if (ordinal >= Kind.values().length) {
+
+            throw new IOException("Unknown journal entry kind " + ordinal);
+
+        }
+
+        Kind kind = Kind.values()[ordinal];
+
+        if (kind == Kind.DiceSeed) {
+
+            return diceSeed(in.readLong());
+
+        }
+
+        int length = in.readInt();
+
+        BinaryCodec.checkLength(length);
+
+        try {
+
+            NetObject object = BinaryCodec.decode(data, 5, length);
+
+            if (!(object instanceof Action)) {
+
+                throw new IOException("Journal entry holds a " + object.getClass().getSimpleName() + " instead of an action");
+
+            }
+
+            return new JournalEntry(kind, (Action) object, 0);
+
+        } catch (ClassNotFoundException e) {
+
+            throw new IOException("Unknown action class in journal entry", e);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,39 @@
+package server.model.journal;
+
+/**
+ * A piece of the persisted state of a match, as written to the database.
+ * Either an encoded journal entry along with its sequence number,
+ * or a snapshot of the match along with the sequence number of the last entry it includes.
+ */
+public class JournalRecord {
+
+    //The id of the match
+    private final int matchId;
+
+    //The sequence number
+    private final long seq;
+
+    //The encoded entry or snapshot
+    private final byte[] data;
+
+    public JournalRecord(int matchId, long seq, byte[] data) {
+
+        this.matchId = matchId;
+        this.seq = seq;
+        this.data = data;
+
+    }
+
+    public int getMatchId() {
+        return matchId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+}
@@ -0,0 +1,170 @@
+package server.model.journal;
+
+import logger.Level;
+import logger.Logger;
+import singleton.Database;
+import singleton.SnapshotWriter;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * The append only journal of a match.
+ * Every entry gets the next sequence number and is handed to the snapshot writer, which persists it.
+ * Each snapshot records the sequence number it got to, so a restore is the latest snapshot plus the entries after it.
+ * A restored journal holds those entries until the match controller has replayed them.
+ */
+public class MatchJournal {
+
+    //The id of the match
+    private final int matchId;
+
+    //The sequence number of the last entry
+    private long seq;
+
+    //The entries still to be replayed, in order
+    private final ArrayDeque<JournalEntry> replay;
+
+    private MatchJournal(int matchId, long seq, ArrayDeque<JournalEntry> replay) {
+
+        this.matchId = matchId;
+        this.seq = seq;
+        this.replay = replay;
+
+    }
+
+    /**
+     * Creates the journal of a new match
+     * @param matchId the id of the match
+     * @return the empty journal
+     */
+    public static MatchJournal create(int matchId) {
+
+        return new MatchJournal(matchId, 0, new ArrayDeque<>());
+
+    }
+
+    /**
+     * Loads the journal of a persisted match, with the entries written after its latest snapshot
+     * @param matchId the id of the match
+     * @return the journal, ready to be replayed
+     */
+    public static MatchJournal load(int matchId) {
+
+        ArrayDeque<JournalEntry> replay = new ArrayDeque<>();
+
+        long seq = 0;
+
+        try {
+
+            seq = Database.getInstance().getJournalSeq(matchId);
+
+            List<JournalRecord> records = Database.getInstance().getJournal(matchId, seq);
+
+            for (JournalRecord record : records) {
+
+                replay.add(JournalEntry.decode(record.getData()));
+
+                seq = record.getSeq();
+
+            }
+
+        } catch (SQLException | IOException e) {
+
+            //The snapshot alone is still a consistent state to resume from
+            Logger.log(Level.SEVERE, "MatchJournal", "Unable to load the journal of match " + matchId + ", resuming from the snapshot", e);
+
+            replay.clear();
+
+        }
+
+        return new MatchJournal(matchId, seq, replay);
+
+    }
+
+    /**
+     * Appends an entry
+     * @param entry the entry
+     */
+    public void append(JournalEntry entry) {
+
+        try {
+
+            SnapshotWriter.getInstance().append(new JournalRecord(this.matchId, this.seq + 1, entry.encode()));
+
+            this.seq++;
+
+        } catch (IOException e) {
+
+            Logger.log(Level.SEVERE, "MatchJournal", "Unable to encode a journal entry of match " + this.matchId, e);
+
+        }
+
+    }
+
+    /**
+     * The sequence number of the last entry, that a snapshot taken now includes
+     * @return the sequence number
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Tells whether there are entries to replay
+     * @return true if replaying
+     */
+    public boolean isReplaying() {
+
+        return !this.replay.isEmpty();
+
+    }
+
+    /**
+     * Takes the next entry to replay, if it is of the expected kind.
+     * Anything else means the replay went out of sync with the journal, so what is left gets dropped.
+     * @param kind the expected kind
+     * @return the entry, null if there is none of that kind
+     */
+    public JournalEntry nextReplay(JournalEntry.Kind kind) {
+
+        JournalEntry entry = this.replay.peek();
+
+        if (entry == null) {
+
+            return null;
+
+        }
+
+        if (entry.getKind() != kind) {
+
+            Logger.log(Level.WARNING, "MatchJournal", "Journal of match " + this.matchId + " out of sync: expected " + kind + ", found " + entry.getKind() + ", dropping " + this.replay.size() + " entries");
+
+            this.replay.clear();
+
+            return null;
+
+        }
+
+        return this.replay.poll();
+
+    }
+
+    /**
+     * Ends the replay, dropping whatever was not consumed
+     */
+    public void endReplay() {
+
+        if (!this.replay.isEmpty()) {
+
+            Logger.log(Level.WARNING, "MatchJournal", "Dropping " + this.replay.size() + " journal entries of match " + this.matchId + " that could not be replayed");
+
+            this.replay.clear();
+
+        }
+
+    }
+
+}
@@ -0,0 +1,67 @@
+package server.simulation;
+
+/**
+ * The outcome of a simulated match
+ */
+public class GameResult {
+
+    //The seed of the match, enough to play it again
+    private final long seed;
+
+    //Whether or not the match got to its end, a match whose players were all disabled is interrupted
+    private final boolean completed;
+
+    //Whether or not the match broke with an exception
+    private final boolean failed;
+
+    //The final score of each seat, empty unless completed
+    private final int[] scores;
+
+    //The seat of the winner, -1 unless completed
+    private final int winner;
+
+    //The turn actions taken and refused, by every player
+    private final int actions;
+    private final int refused;
+
+    public GameResult(long seed, boolean completed, boolean failed, int[] scores, int winner, int actions, int refused) {
+
+        this.seed = seed;
+        this.completed = completed;
+        this.failed = failed;
+        this.scores = scores;
+        this.winner = winner;
+        this.actions = actions;
+        this.refused = refused;
+
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public int[] getScores() {
+        return scores;
+    }
+
+    public int getWinner() {
+        return winner;
+    }
+
+    public int getActions() {
+        return actions;
+    }
+
+    public int getRefused() {
+        return refused;
+    }
+
+}
@@ -0,0 +1,442 @@
+package server.simulation;
+
+import exception.NoSuchPlayerException;
+import logger.Level;
+import logger.Logger;
+import netobject.action.Action;
+import netobject.action.immediate.ImmediateActionType;
+import netobject.action.standard.RollDicesAction;
+import netobject.action.standard.StandardPlacementAction;
+import server.controller.game.LegalActionGenerator;
+import server.controller.game.MatchController;
+import server.controller.game.RemotePlayer;
+import server.model.FinalStanding;
+import server.model.Match;
+import server.model.board.BonusTile;
+import server.model.board.Dice;
+import server.model.board.Player;
+import server.model.card.Deck;
+import server.model.card.leader.LeaderCard;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A policy that searches its turn actions with Monte Carlo tree search.
+ * The moves are the legal placements plus terminating the turn. Each rollout copies the match, plays the move
+ * and then the whole rest of the match with random players, on a headless controller whose future decks and dices
+ * are drawn from a fresh seed. The rollouts run in parallel on a shared ForkJoinPool until the time budget or the
+ * rollout budget of the move is spent, the moves being picked by UCB1, and the most visited move is played.
+ * The drafts and the immediate actions are answered by a random policy.
+ */
+public class MctsPolicy implements Policy {
+
+    /**
+     * The exploration constant of UCB1
+     */
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    /**
+     * How many refused actions end the turn, none should be refused as the moves are legal
+     */
+    private static final int MAX_REFUSED = 2;
+
+    /**
+     * The pool shared by the rollouts of every search
+     */
+    private static ForkJoinPool rolloutPool;
+
+    //The time budget of a move, in milliseconds
+    private final long budget;
+
+    //The maximum number of rollouts of a move
+    private final int maxRollouts;
+
+    //The source of the seeds of the rollouts
+    private final Random random;
+
+    //Answers whatever is not searched
+    private final RandomPolicy fallback;
+
+    /**
+     * Creates a policy bound by time only
+     * @param seed the seed of the rollouts
+     * @param budget the time budget of a move, in milliseconds
+     */
+    public MctsPolicy(long seed, long budget) {
+
+        this(seed, budget, Integer.MAX_VALUE);
+
+    }
+
+    /**
+     * Creates a policy
+     * @param seed the seed of the rollouts
+     * @param budget the time budget of a move, in milliseconds
+     * @param maxRollouts the maximum number of rollouts of a move
+     */
+    public MctsPolicy(long seed, long budget, int maxRollouts) {
+
+        this.budget = budget;
+        this.maxRollouts = maxRollouts;
+        this.random = new Random(seed);
+        this.fallback = new RandomPolicy(seed ^ 0x5DEECE66DL);
+
+    }
+
+    @Override
+    public int draftLeaderCard(Match match, Player player, Deck<LeaderCard> cards) {
+
+        return this.fallback.draftLeaderCard(match, player, cards);
+
+    }
+
+    @Override
+    public int draftBonusTile(Match match, Player player, ArrayList<BonusTile> tiles) {
+
+        return this.fallback.draftBonusTile(match, player, tiles);
+
+    }
+
+    @Override
+    public Action immediateAction(Match match, Player player, ImmediateActionType type) {
+
+        return this.fallback.immediateAction(match, player, type);
+
+    }
+
+    @Override
+    public Action nextAction(Match match, Player player, int refused) {
+
+        if (refused >= MAX_REFUSED) {
+
+            return null;
+
+        }
+
+        for (Dice dice : match.getBoard().getDices()) {
+
+            if (dice.getValue() == null || dice.getValue() == 0) {
+
+                return new RollDicesAction(player.getUsername());
+
+            }
+
+        }
+
+        //Terminating the turn is the null move
+        ArrayList<StandardPlacementAction> moves = new LegalActionGenerator(match).getLegalPlacements(player);
+
+        if (moves.isEmpty()) {
+
+            return null;
+
+        }
+
+        moves.add(null);
+
+        return new Search(new Match(match), player.getUsername(), moves).run();
+
+    }
+
+    /**
+     * The pool shared by the rollouts, created on first use
+     * @return the pool
+     */
+    private static synchronized ForkJoinPool getRolloutPool() {
+
+        if (rolloutPool == null) {
+
+            rolloutPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        }
+
+        return rolloutPool;
+
+    }
+
+    /**
+     * The search of a single move: the statistics of the moves and the rollouts that fill them
+     */
+    private class Search {
+
+        //The copy of the match every rollout starts from, only ever read
+        private final Match root;
+
+        //The player who searches
+        private final String username;
+
+        //The moves, null terminates the turn
+        private final ArrayList<StandardPlacementAction> moves;
+
+        //The statistics of the moves, guarded by the search
+        private final int[] visits;
+        private final double[] rewards;
+        private int rollouts;
+
+        //When the search has to stop, in nanoseconds
+        private final long deadline;
+
+        private Search(Match root, String username, ArrayList<StandardPlacementAction> moves) {
+
+            this.root = root;
+            this.username = username;
+            this.moves = moves;
+            this.visits = new int[moves.size()];
+            this.rewards = new double[moves.size()];
+            this.deadline = System.nanoTime() + budget * 1000000L;
+
+        }
+
+        /**
+         * Runs the rollouts on the pool and picks the most visited move
+         * @return the move, null to terminate the turn
+         */
+        private StandardPlacementAction run() {
+
+            ForkJoinPool pool = getRolloutPool();
+
+            ArrayList<Future<?>> workers = new ArrayList<>();
+
+            for (int i = 0; i < pool.getParallelism(); i++) {
+
+                workers.add(pool.submit(this::work));
+
+            }
+
+            try {
+
+                for (Future<?> worker : workers) {
+
+                    worker.get();
+
+                }
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            } catch (ExecutionException e) {
+
+                Logger.log(Level.WARNING, "MctsPolicy", "A rollout failed", e);
+
+            }
+
+            int best = 0;
+
+            synchronized (this) {
+
+                for (int move = 1; move < this.moves.size(); move++) {
+
+                    if (this.visits[move] > this.visits[best]) {
+
+                        best = move;
+
+                    }
+
+                }
+
+                Logger.log(Level.FINEST, "MctsPolicy", this.rollouts + " rollouts, best move visited " + this.visits[best] + " times");
+
+            }
+
+            //The moves are shared by the rollouts, the match gets one of its own
+            return copyOf(this.moves.get(best));
+
+        }
+
+        /**
+         * Plays rollouts until the budget is spent
+         */
+        private void work() {
+
+            while (true) {
+
+                int move;
+
+                long seed;
+
+                synchronized (this) {
+
+                    if (this.rollouts >= maxRollouts || System.nanoTime() >= this.deadline) {
+
+                        return;
+
+                    }
+
+                    this.rollouts++;
+
+                    move = this.select();
+
+                    //A pending rollout counts as a loss, so that the workers spread over the moves
+                    this.visits[move]++;
+
+                }
+
+                synchronized (random) {
+
+                    seed = random.nextLong();
+
+                }
+
+                double reward = this.rollout(this.moves.get(move), seed);
+
+                synchronized (this) {
+
+                    this.rewards[move] += reward;
+
+                }
+
+            }
+
+        }
+
+        /**
+         * Picks the move to try next, by UCB1
+         * @return the index of the move
+         */
+        private int select() {
+
+            int best = 0;
+
+            double bestValue = Double.NEGATIVE_INFINITY;
+
+            for (int move = 0; move < this.moves.size(); move++) {
+
+                if (this.visits[move] == 0) {
+
+                    return move;
+
+                }
+
+                double value = this.rewards[move] / this.visits[move] + EXPLORATION * Math.sqrt(Math.log(this.rollouts) / this.visits[move]);
+
+                if (value > bestValue) {
+
+                    best = move;
+
+                    bestValue = value;
+
+                }
+
+            }
+
+            return best;
+
+        }
+
+        /**
+         * Plays the rest of the match after a move
+         * @param move the move, null to terminate the turn
+         * @param seed the seed of the rollout
+         * @return the reward of the searching player: 1 if first, 0 if last
+         */
+        private double rollout(StandardPlacementAction move, long seed) {
+
+            try {
+
+                Match match = new Match(this.root);
+
+                LinkedHashMap<String, RemotePlayer> remotes = new LinkedHashMap<>();
+
+                ArrayList<PolicyPlayer> players = new ArrayList<>();
+
+                for (Player player : match.getPlayers()) {
+
+                    long policySeed = seed * 31 + players.size();
+
+                    Policy policy = player.getUsername().equals(this.username) ? new FirstMovePolicy(copyOf(move), policySeed) : new RandomPolicy(policySeed);
+
+                    PolicyPlayer remote = new PolicyPlayer(player.getUsername(), policy);
+
+                    remotes.put(remote.getUsername(), remote);
+
+                    players.add(remote);
+
+                }
+
+                MatchController controller = new MatchController(remotes, match, seed);
+
+                for (PolicyPlayer player : players) {
+
+                    player.attach(controller);
+
+                }
+
+                controller.simulate();
+
+                FinalStanding standing = players.get(0).getFinalStanding();
+
+                if (standing == null || standing.getStandings().size() < 2) {
+
+                    return 0;
+
+                }
+
+                int rank = standing.getStandings().indexOf(controller.getMatch().getPlayerFromUsername(this.username));
+
+                return (double) (standing.getStandings().size() - 1 - rank) / (standing.getStandings().size() - 1);
+
+            } catch (NoSuchPlayerException | RuntimeException e) {
+
+                Logger.log(Level.FINEST, "MctsPolicy", "Rollout failed", e);
+
+                return 0;
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Copies a move, the controller applying it halves its servants under the servants power malus
+     * @param move the move, null to terminate the turn
+     * @return the copy
+     */
+    private static StandardPlacementAction copyOf(StandardPlacementAction move) {
+
+        return move == null ? null : new StandardPlacementAction(move);
+
+    }
+
+    /**
+     * The policy of the searching player within a rollout: the move under evaluation, then random play
+     */
+    private static class FirstMovePolicy extends RandomPolicy {
+
+        //The move, until it is played
+        private final StandardPlacementAction move;
+
+        private boolean played = false;
+
+        private FirstMovePolicy(StandardPlacementAction move, long seed) {
+
+            super(seed);
+
+            this.move = move;
+
+        }
+
+        @Override
+        public Action nextAction(Match match, Player player, int refused) {
+
+            if (!this.played) {
+
+                this.played = true;
+
+                return this.move;
+
+            }
+
+            return super.nextAction(match, player, refused);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package server.simulation;
+
+import netobject.action.Action;
+import netobject.action.immediate.ImmediateActionType;
+import server.model.Match;
+import server.model.board.BonusTile;
+import server.model.board.Player;
+import server.model.card.Deck;
+import server.model.card.leader.LeaderCard;
+
+import java.util.ArrayList;
+
+/**
+ * The decisions of a simulated player.
+ * A policy is asked on the thread that plays the match and reads the model directly, it must not change it.
+ * Each player has its own policy instance, so a policy may keep its own state.
+ */
+public interface Policy {
+
+    /**
+     * Drafts a leader card
+     * @param match the match
+     * @param player the player
+     * @param cards the deck to draft from
+     * @return the index of the selected card
+     */
+    int draftLeaderCard(Match match, Player player, Deck<LeaderCard> cards);
+
+    /**
+     * Drafts a bonus tile
+     * @param match the match
+     * @param player the player
+     * @param tiles the tiles left
+     * @return the index of the selected tile
+     */
+    int draftBonusTile(Match match, Player player, ArrayList<BonusTile> tiles);
+
+    /**
+     * Decides the next action of the turn, called when the turn begins and after each action, either performed or refused
+     * @param match the match
+     * @param player the player
+     * @param refused how many actions were refused so far in this turn
+     * @return the action, a TerminateRoundStandardAction or null to end the turn
+     */
+    Action nextAction(Match match, Player player, int refused);
+
+    /**
+     * Answers an immediate action requested while an action is being handled
+     * @param match the match
+     * @param player the player
+     * @param type what is requested
+     * @return an ImmediateChoiceAction or an ImmediatePlacementAction, according to the type
+     */
+    Action immediateAction(Match match, Player player, ImmediateActionType type);
+
+}
@@ -0,0 +1,16 @@
+package server.simulation;
+
+/**
+ * Creates the policies of the simulated players
+ */
+public interface PolicyFactory {
+
+    /**
+     * Creates the policy of a player
+     * @param seat the seat of the player, starting from 0
+     * @param seed a seed for whatever randomness the policy needs, derived from the seed of the match
+     * @return the policy
+     */
+    Policy create(int seat, long seed);
+
+}
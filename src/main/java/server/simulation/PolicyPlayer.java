@@ -0,0 +1,345 @@
+package server.simulation;
+
+import exception.NoSuchPlayerException;
+import logger.Level;
+import logger.Logger;
+import netobject.action.Action;
+import netobject.action.immediate.ImmediateActionType;
+import netobject.action.immediate.ImmediateActionTypeImpl;
+import netobject.action.immediate.ImmediateChoiceAction;
+import netobject.action.immediate.ImmediatePlacementAction;
+import netobject.action.standard.ShuffleBonusTileStandardAction;
+import netobject.action.standard.ShuffleLeaderCardStandardAction;
+import netobject.action.standard.TerminateRoundStandardAction;
+import netobject.notification.MatchNotification;
+import server.controller.game.MatchController;
+import server.controller.game.RemotePlayer;
+import server.model.FinalStanding;
+import server.model.Match;
+import server.model.board.BonusTile;
+import server.model.board.Player;
+import server.model.card.Deck;
+import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * An in-process remote player driven by a policy.
+ * It answers every request of the match controller following the same protocol as the clients: the turn goes on after each action performed or refused, until it is terminated.
+ * Without an executor it answers right away, on the thread that plays the match, as the headless simulations need.
+ * With one, the policy decides on the executor, so that a slow policy does not hold the thread of a live match.
+ */
+public class PolicyPlayer implements RemotePlayer {
+
+    /**
+     * The maximum number of actions in a turn, so that a policy that keeps failing can't stall the match
+     */
+    private static final int MAX_ACTIONS_PER_TURN = 32;
+
+    //The username of the player
+    private final String username;
+
+    //The decisions of the player
+    private final Policy policy;
+
+    //The controller of the match and the player in its model
+    private MatchController controller;
+    private Player player;
+
+    //The last action of the turn, its outcome triggers the next one
+    private Action lastAction;
+
+    //The immediate placements being answered, innermost first: a refused one is answered again, even after the choices it led to
+    private final ArrayDeque<ImmediateActionType> pendingPlacements = new ArrayDeque<>();
+
+    //The actions taken in the current turn
+    private int turnActions;
+
+    //The actions refused in the current turn
+    private int turnRefused;
+
+    //The totals of the match
+    private int actions;
+    private int refused;
+
+    //The final standing, set only if the match got to its end
+    private FinalStanding finalStanding;
+
+    //Where the policy decides, null to decide on the thread of the match
+    private final Executor executor;
+
+    public PolicyPlayer(String username, Policy policy) {
+
+        this(username, policy, null);
+
+    }
+
+    public PolicyPlayer(String username, Policy policy, Executor executor) {
+
+        this.username = username;
+        this.policy = policy;
+        this.executor = executor;
+
+    }
+
+    /**
+     * Binds the player to its match, before the match is simulated
+     * @param controller the controller of the match
+     * @throws NoSuchPlayerException if the match has no player with this username
+     */
+    public void attach(MatchController controller) throws NoSuchPlayerException {
+
+        this.controller = controller;
+
+        this.player = controller.getMatch().getPlayerFromUsername(this.username);
+
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public int getActions() {
+        return actions;
+    }
+
+    public int getRefused() {
+        return refused;
+    }
+
+    public FinalStanding getFinalStanding() {
+        return finalStanding;
+    }
+
+    private Match match() {
+
+        return this.controller.getMatch();
+
+    }
+
+    private boolean isMe(Player player) {
+
+        return player != null && this.username.equals(player.getUsername());
+
+    }
+
+    /**
+     * Takes the next action of the turn, or terminates it
+     */
+    private void playNext() {
+
+        this.decide(() -> {
+
+            Action action = null;
+
+            if (this.turnActions < MAX_ACTIONS_PER_TURN) {
+
+                action = this.policy.nextAction(this.match(), this.player, this.turnRefused);
+
+            }
+
+            if (action == null) {
+
+                action = new TerminateRoundStandardAction(this.username);
+
+            }
+
+            this.turnActions++;
+
+            this.actions++;
+
+            this.lastAction = action;
+
+            return action;
+
+        });
+
+    }
+
+    /**
+     * Lets the policy decide and dispatches the decision to the controller
+     * @param decision what the policy has to decide
+     */
+    private void decide(Supplier<Action> decision) {
+
+        if (this.executor == null) {
+
+            this.controller.dispatchNewPlayerAction(decision.get());
+
+            return;
+
+        }
+
+        this.executor.execute(() -> {
+
+            try {
+
+                this.controller.dispatchNewPlayerAction(decision.get());
+
+            } catch (RuntimeException e) {
+
+                //The controller times the player out as it would do with a client
+                Logger.log(Level.WARNING, "PolicyPlayer", "The policy of " + this.username + " failed to decide", e);
+
+            }
+
+        });
+
+    }
+
+    /**
+     * Answers an immediate action
+     * @param type what is requested
+     */
+    private void answerImmediate(ImmediateActionType type) {
+
+        this.decide(() -> {
+
+            Action answer = this.policy.immediateAction(this.match(), this.player, type);
+
+            return answer != null ? answer : new ImmediateChoiceAction(0, this.username);
+
+        });
+
+    }
+
+    @Override
+    public void notifyTurnEnabled(Player player, String message) {
+
+        if (this.isMe(player)) {
+
+            this.turnActions = 0;
+
+            this.turnRefused = 0;
+
+            this.pendingPlacements.clear();
+
+            this.playNext();
+
+        }
+
+    }
+
+    @Override
+    public void notifyActionPerformed(Player player, Action action, String message) {
+
+        if (!this.isMe(player)) {
+
+            return;
+
+        }
+
+        //The immediate actions are notified as well, only the outcome of the turn action matters
+        if (action == this.lastAction && !(action instanceof TerminateRoundStandardAction)) {
+
+            this.playNext();
+
+        }
+        else if (action instanceof ImmediatePlacementAction) {
+
+            //Done with the placement, either performed or out of attempts
+            this.pendingPlacements.poll();
+
+        }
+
+    }
+
+    @Override
+    public void notifyActionRefused(Action action, String message) {
+
+        this.refused++;
+
+        if (action instanceof ImmediatePlacementAction) {
+
+            //A refused placement is awaited again without asking
+            this.answerImmediate(this.pendingPlacements.peek());
+
+        }
+        else if (action == this.lastAction) {
+
+            this.turnRefused++;
+
+            this.playNext();
+
+        }
+
+        //A refused choice is asked again
+
+    }
+
+    @Override
+    public void notifyImmediateActionAvailable(ImmediateActionType immediateActionType, Player player, String message) {
+
+        if (this.isMe(player)) {
+
+            if (immediateActionType.getImpl() == ImmediateActionTypeImpl.Placement) {
+
+                this.pendingPlacements.push(immediateActionType);
+
+            }
+
+            this.answerImmediate(immediateActionType);
+
+        }
+
+    }
+
+    @Override
+    public void notifyLeaderCardDraftRequest(Deck<LeaderCard> cards, String message) {
+
+        if (!cards.getCards().isEmpty()) {
+
+            this.decide(() -> new ShuffleLeaderCardStandardAction(this.policy.draftLeaderCard(this.match(), this.player, cards), cards, this.username));
+
+        }
+
+    }
+
+    @Override
+    public void notifyBonusTileDraftRequest(ArrayList<BonusTile> tiles, String message) {
+
+        this.decide(() -> new ShuffleBonusTileStandardAction(this.policy.draftBonusTile(this.match(), this.player, tiles), tiles, this.username));
+
+    }
+
+    @Override
+    public void notifyMatchEnded(FinalStanding finalStanding, String message) {
+
+        this.finalStanding = finalStanding;
+
+    }
+
+    @Override
+    public void notify(MatchNotification notification) {
+
+    }
+
+    @Override
+    public void notifyModelUpdate(Match model) {
+
+    }
+
+    @Override
+    public void notifyModelDelta(MatchDelta delta) {
+
+    }
+
+    @Override
+    public void notifyTurnDisabled(Player player, String message) {
+
+    }
+
+    @Override
+    public void notifyActionTimeoutExpired(Player player, String message) {
+
+    }
+
+}
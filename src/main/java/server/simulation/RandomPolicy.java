@@ -0,0 +1,176 @@
+package server.simulation;
+
+import netobject.action.Action;
+import netobject.action.ImmediateBoardSectorType;
+import netobject.action.immediate.ImmediateActionType;
+import netobject.action.immediate.ImmediateChoiceAction;
+import netobject.action.immediate.ImmediatePlacementAction;
+import netobject.action.standard.RollDicesAction;
+import netobject.action.standard.StandardPlacementAction;
+import server.controller.game.LegalActionGenerator;
+import server.model.Match;
+import server.model.board.*;
+import server.model.card.Deck;
+import server.model.card.leader.LeaderCard;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * A policy that plays at random: it rolls the dices when nobody did and picks one of the legal placements of its free family members.
+ * The immediate actions are still answered blindly, the controller refuses what is not allowed, so it gives up the turn after a few refusals.
+ * It is the baseline of the simulations.
+ */
+public class RandomPolicy implements Policy {
+
+    /**
+     * How many refused actions end the turn
+     */
+    private static final int MAX_REFUSED = 8;
+
+    //The number of council privileges and of slots of a tower
+    private static final int COUNCIL_PRIVILEGES = 5;
+    private static final int TOWER_SLOTS = 4;
+
+    //The towers an immediate action can take a card of any type from
+    private static final ImmediateBoardSectorType[] TOWERS = {
+            ImmediateBoardSectorType.TerritoryTower,
+            ImmediateBoardSectorType.BuildingTower,
+            ImmediateBoardSectorType.CharacterTower,
+            ImmediateBoardSectorType.VentureTower
+    };
+
+    //The source of the decisions
+    private final Random random;
+
+    public RandomPolicy(long seed) {
+
+        this.random = new Random(seed);
+
+    }
+
+    @Override
+    public int draftLeaderCard(Match match, Player player, Deck<LeaderCard> cards) {
+
+        return this.random.nextInt(cards.getCards().size());
+
+    }
+
+    @Override
+    public int draftBonusTile(Match match, Player player, ArrayList<BonusTile> tiles) {
+
+        return this.random.nextInt(tiles.size());
+
+    }
+
+    @Override
+    public Action nextAction(Match match, Player player, int refused) {
+
+        if (refused >= MAX_REFUSED) {
+
+            return null;
+
+        }
+
+        for (Dice dice : match.getBoard().getDices()) {
+
+            if (dice.getValue() == null || dice.getValue() == 0) {
+
+                return new RollDicesAction(player.getUsername());
+
+            }
+
+        }
+
+        ArrayList<StandardPlacementAction> placements = new LegalActionGenerator(match).getLegalPlacements(player);
+
+        if (placements.isEmpty()) {
+
+            return null;
+
+        }
+
+        return placements.get(this.random.nextInt(placements.size()));
+
+    }
+
+    @Override
+    public Action immediateAction(Match match, Player player, ImmediateActionType type) {
+
+        switch (type) {
+
+            case TakeTerritoryCard:
+                return this.takeCard(ImmediateBoardSectorType.TerritoryTower, player);
+
+            case TakeBuildingCard:
+                return this.takeCard(ImmediateBoardSectorType.BuildingTower, player);
+
+            case TakeCharacterCard:
+                return this.takeCard(ImmediateBoardSectorType.CharacterTower, player);
+
+            case TakeVentureCard:
+                return this.takeCard(ImmediateBoardSectorType.VentureTower, player);
+
+            case TakeAnyCard:
+                return this.takeCard(TOWERS[this.random.nextInt(TOWERS.length)], player);
+
+            case ActivateHarvest:
+                return new ImmediatePlacementAction(ImmediateBoardSectorType.Harvest, 0, player.getUsername());
+
+            case ActivateProduction:
+                return new ImmediatePlacementAction(ImmediateBoardSectorType.Production, 0, player.getUsername());
+
+            case SelectCouncilPrivilege:
+                return this.choose(this.random.nextInt(COUNCIL_PRIVILEGES), player);
+
+            case SelectFamilyMember:
+                return this.choose(this.random.nextInt(4), player);
+
+            case SelectActiveLeaderCard:
+                return this.choose(this.copyableLeaderCard(match, player), player);
+
+            default:
+                //The yes / no questions
+                return this.choose(this.random.nextInt(2), player);
+
+        }
+
+    }
+
+    private Action takeCard(ImmediateBoardSectorType tower, Player player) {
+
+        return new ImmediatePlacementAction(tower, this.random.nextInt(TOWER_SLOTS), 0, player.getUsername());
+
+    }
+
+    private Action choose(int selection, Player player) {
+
+        return new ImmediateChoiceAction(selection, player.getUsername());
+
+    }
+
+    /**
+     * Picks a leader card played by an opponent, the selection of a copy is the id of the card
+     * @param match the match
+     * @param player the player
+     * @return the id of the card
+     */
+    private int copyableLeaderCard(Match match, Player player) {
+
+        ArrayList<LeaderCard> played = new ArrayList<>();
+
+        for (Player opponent : match.getPlayers()) {
+
+            if (opponent != player) {
+
+                played.addAll(opponent.getPlayedLeaderCards());
+
+            }
+
+        }
+
+        return played.isEmpty() ? 0 : played.get(this.random.nextInt(played.size())).getId();
+
+    }
+
+}
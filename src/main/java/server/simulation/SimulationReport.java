@@ -0,0 +1,120 @@
+package server.simulation;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The summary of a batch of simulated matches
+ */
+public class SimulationReport {
+
+    //The results, in seed order
+    private final List<GameResult> results;
+
+    //The wall clock time of the batch, in nanoseconds
+    private final long elapsed;
+
+    //The number of threads that played the batch
+    private final int threads;
+
+    //The totals
+    private int completed;
+    private int failed;
+    private long actions;
+    private long refused;
+    private long winningScore;
+    private final int[] wins;
+
+    public SimulationReport(List<GameResult> results, int seats, long elapsed, int threads) {
+
+        this.results = results;
+        this.elapsed = elapsed;
+        this.threads = threads;
+        this.wins = new int[seats];
+
+        for (GameResult result : results) {
+
+            this.actions += result.getActions();
+            this.refused += result.getRefused();
+
+            if (result.isFailed()) {
+
+                this.failed++;
+
+            }
+            else if (result.isCompleted()) {
+
+                this.completed++;
+
+                this.wins[result.getWinner()]++;
+
+                this.winningScore += result.getScores()[result.getWinner()];
+
+            }
+
+        }
+
+    }
+
+    public List<GameResult> getResults() {
+        return results;
+    }
+
+    public int getGames() {
+        return results.size();
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int[] getWins() {
+        return wins;
+    }
+
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * The throughput of the batch
+     * @return the matches played per second
+     */
+    public double getGamesPerSecond() {
+
+        return this.elapsed == 0 ? 0 : this.results.size() * (double) TimeUnit.SECONDS.toNanos(1) / this.elapsed;
+
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder report = new StringBuilder();
+
+        int games = this.results.size();
+
+        report.append(String.format("%d games on %d threads in %.2fs: %.1f games/sec%n", games, this.threads, this.elapsed / 1e9, this.getGamesPerSecond()));
+        report.append(String.format("completed %d, interrupted %d, failed %d%n", this.completed, games - this.completed - this.failed, this.failed));
+        report.append(String.format("actions per game %.1f, refused %.1f%%%n", games == 0 ? 0 : (double) this.actions / games, this.actions == 0 ? 0 : 100.0 * this.refused / this.actions));
+
+        if (this.completed > 0) {
+
+            report.append(String.format("average winning score %.1f%n", (double) this.winningScore / this.completed));
+
+            for (int seat = 0; seat < this.wins.length; seat++) {
+
+                report.append(String.format("seat %d wins %.1f%%%n", seat, 100.0 * this.wins[seat] / this.completed));
+
+            }
+
+        }
+
+        return report.toString();
+
+    }
+
+}
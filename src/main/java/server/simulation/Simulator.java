@@ -0,0 +1,215 @@
+package server.simulation;
+
+import exception.NoSuchPlayerException;
+import logger.Level;
+import logger.Logger;
+import server.controller.game.MatchController;
+import server.controller.game.RemotePlayer;
+import server.model.FinalStanding;
+import server.model.board.Player;
+import singleton.Bootstrap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Plays complete matches without clients, timers or database: drafts, three periods, vatican reports and final standing.
+ * Every player is a PolicyPlayer and the whole match runs on one thread, so a batch of matches spreads across the cores.
+ * A match is fully determined by its seed and by the policies, the seed of a result is enough to play it again.
+ */
+public class Simulator {
+
+    //The number of players of each match
+    private final int seats;
+
+    //The number of threads that play the matches
+    private final int threads;
+
+    //Creates the policies of the players
+    private final PolicyFactory policies;
+
+    /**
+     * Creates a simulator
+     * @param seats the number of players of each match
+     * @param threads the number of threads that play the matches
+     * @param policies the factory of the policies of the players
+     */
+    public Simulator(int seats, int threads, PolicyFactory policies) {
+
+        this.seats = seats;
+        this.threads = threads;
+        this.policies = policies;
+
+    }
+
+    /**
+     * Plays a single match on the calling thread
+     * @param seed the seed of the match
+     * @return the result
+     */
+    public GameResult play(long seed) {
+
+        LinkedHashMap<String, RemotePlayer> remotes = new LinkedHashMap<>();
+
+        ArrayList<PolicyPlayer> players = new ArrayList<>();
+
+        for (int seat = 0; seat < this.seats; seat++) {
+
+            PolicyPlayer player = new PolicyPlayer("player" + seat, this.policies.create(seat, seed * 31 + seat));
+
+            remotes.put(player.getUsername(), player);
+
+            players.add(player);
+
+        }
+
+        int actions = 0;
+        int refused = 0;
+
+        try {
+
+            MatchController controller = new MatchController(remotes, seed);
+
+            for (PolicyPlayer player : players) {
+
+                player.attach(controller);
+
+            }
+
+            controller.simulate();
+
+            FinalStanding standing = null;
+
+            for (PolicyPlayer player : players) {
+
+                actions += player.getActions();
+                refused += player.getRefused();
+
+                if (player.getFinalStanding() != null) {
+
+                    standing = player.getFinalStanding();
+
+                }
+
+            }
+
+            if (standing == null) {
+
+                return new GameResult(seed, false, false, new int[0], -1, actions, refused);
+
+            }
+
+            int[] scores = new int[this.seats];
+
+            int winner = -1;
+
+            for (int seat = 0; seat < this.seats; seat++) {
+
+                Player player = controller.getMatch().getPlayerFromUsername(players.get(seat).getUsername());
+
+                scores[seat] = standing.getScore(player);
+
+                if (standing.getStandings().get(0) == player) {
+
+                    winner = seat;
+
+                }
+
+            }
+
+            return new GameResult(seed, true, false, scores, winner, actions, refused);
+
+        } catch (NoSuchPlayerException | RuntimeException e) {
+
+            Logger.log(Level.WARNING, "Simulator", "Match with seed " + seed + " failed", e);
+
+            return new GameResult(seed, false, true, new int[0], -1, actions, refused);
+
+        }
+
+    }
+
+    /**
+     * Plays a batch of matches in parallel, the seeds are consecutive
+     * @param games the number of matches
+     * @param seed the seed of the first match
+     * @return the report, with the results in seed order
+     * @throws InterruptedException if interrupted while waiting for the matches
+     */
+    public SimulationReport run(int games, long seed) throws InterruptedException {
+
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads, task -> {
+
+            Thread thread = new Thread(task, "Simulator");
+
+            thread.setDaemon(true);
+
+            return thread;
+
+        });
+
+        ArrayList<Future<GameResult>> futures = new ArrayList<>(games);
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < games; i++) {
+
+            long gameSeed = seed + i;
+
+            futures.add(pool.submit(() -> this.play(gameSeed)));
+
+        }
+
+        ArrayList<GameResult> results = new ArrayList<>(games);
+
+        try {
+
+            for (Future<GameResult> future : futures) {
+
+                results.add(future.get());
+
+            }
+
+        } catch (ExecutionException e) {
+
+            //play() catches whatever the match throws
+            throw new IllegalStateException("Simulation failed", e.getCause());
+
+        } finally {
+
+            pool.shutdownNow();
+
+        }
+
+        return new SimulationReport(results, this.seats, System.nanoTime() - start, this.threads);
+
+    }
+
+    /**
+     * Runs a batch of random matches and prints the report
+     * @param args the number of matches, the number of players, the number of threads and the first seed, all optional
+     */
+    public static void main(String[] args) throws InterruptedException {
+
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seats = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        //Thousands of matches would flood the console
+        Logger.setSilenced(true);
+
+        Simulator simulator = new Simulator(seats, threads, (seat, policySeed) -> new RandomPolicy(policySeed));
+
+        //Load the catalogs and warm up before timing
+        Bootstrap.load();
+
+        simulator.play(seed);
+
+        System.out.print(simulator.run(games, seed));
+
+    }
+
+}
@@ -21,7 +21,7 @@ import static server.utility.DvptCardParser.*;
 public class BoardConfigParser {
 
     //boardConfig object contains all the configuration for the board
-    public static JsonObject boardConfig;
+    private static volatile JsonObject boardConfig;
 
 
     public static JsonObject getBoardConfig() {
@@ -29,6 +29,18 @@ public class BoardConfigParser {
         //Do not parse again if already.
         if (boardConfig != null) { return boardConfig; }
 
+        return parse();
+
+    }
+
+    /**
+     * Parses the config file, once even if many threads ask for it at the same time
+     * @return the config object
+     */
+    private static synchronized JsonObject parse() {
+
+        if (boardConfig != null) { return boardConfig; }
+
 
         try {
 
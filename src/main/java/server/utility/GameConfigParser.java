@@ -9,16 +9,30 @@ import com.google.gson.*;
 import logger.Level;
 import logger.Logger;
 
+import java.util.ArrayList;
+
 
 public class GameConfigParser {
 
-    public static JsonObject config;
+    private static volatile JsonObject config;
 
     public static JsonObject getConfig() {
 
         //Do not parse again if already.
         if (config != null) { return config; }
 
+        return parse();
+
+    }
+
+    /**
+     * Parses the config file, once even if many threads ask for it at the same time
+     * @return the config object
+     */
+    private static synchronized JsonObject parse() {
+
+        if (config != null) { return config; }
+
 
         try {
 
@@ -56,6 +70,222 @@ public class GameConfigParser {
 
     }
 
+    /**
+     * Parses the socket server mode, blocking when not specified
+     * @return the socket server mode literal
+     */
+    public static String getSocketMode() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return server.has("socket-mode") ? server.get("socket-mode").getAsString() : "blocking";
+
+    }
+
+    /**
+     * Parses the number of selector threads used by the non blocking socket server
+     * @return the number of io threads
+     */
+    public static int getIoThreads() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return server.has("io-threads") ? server.get("io-threads").getAsInt() : Runtime.getRuntime().availableProcessors();
+
+    }
+
+    /**
+     * Parses the maximum amount of objects waiting to be delivered to each client
+     * @return the outbound queue size
+     */
+    public static int getOutboundQueueSize() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return server.has("outbound-queue-size") ? server.get("outbound-queue-size").getAsInt() : 256;
+
+    }
+
+    /**
+     * Parses what to do with a client whose outbound queue is full, dropping to a snapshot when not specified
+     * @return the overflow policy literal
+     */
+    public static String getOutboundOverflow() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return server.has("outbound-overflow") ? server.get("outbound-overflow").getAsString() : "snapshot";
+
+    }
+
+    /**
+     * Parses how the match controllers get executed, a thread per match when not specified
+     * @return the match execution literal
+     */
+    public static String getMatchExecution() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return server.has("match-execution") ? server.get("match-execution").getAsString() : "thread";
+
+    }
+
+    /**
+     * Parses the number of threads shared by the matches in event loop mode
+     * @return the number of match threads
+     */
+    public static int getMatchThreads() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return server.has("match-threads") ? server.get("match-threads").getAsInt() : Runtime.getRuntime().availableProcessors();
+
+    }
+
+    /**
+     * Parses the number of pooled database connections
+     * @return the number of database connections
+     */
+    public static int getDatabaseConnections() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return server.has("database-connections") ? server.get("database-connections").getAsInt() : 4;
+
+    }
+
+    /**
+     * Parses how long the matchmaker gathers the waiting clients before seating them, in milliseconds
+     * @return the matchmaking window
+     */
+    public static int getMatchmakingWindow() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return server.has("matchmaking-window") ? server.get("matchmaking-window").getAsInt() : 50;
+
+    }
+
+    /**
+     * Parses the addresses of the game engine nodes behind the router, none when not clustered
+     * @return the node addresses, as host:port
+     */
+    public static ArrayList<String> getClusterNodes() {
+
+        JsonObject cluster = GameConfigParser.getConfig().getAsJsonObject("cluster");
+
+        ArrayList<String> nodes = new ArrayList<>();
+
+        if (cluster != null && cluster.has("nodes")) {
+
+            for (JsonElement node : cluster.getAsJsonArray("nodes")) {
+
+                nodes.add(node.getAsString());
+
+            }
+
+        }
+
+        return nodes;
+
+    }
+
+    /**
+     * Parses the number of threads that authenticate the clients
+     * @return the number of authentication threads
+     */
+    public static int getAuthThreads() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return server.has("auth-threads") ? server.get("auth-threads").getAsInt() : 2;
+
+    }
+
+    /**
+     * Parses the maximum amount of authentications waiting for a thread
+     * @return the size of the authentication queue
+     */
+    public static int getAuthQueueSize() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return server.has("auth-queue-size") ? server.get("auth-queue-size").getAsInt() : 1024;
+
+    }
+
+    /**
+     * Parses how many authentications per second may reach the database, zero meaning unlimited
+     * @return the authentication rate
+     */
+    public static int getAuthRate() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return server.has("auth-rate") ? server.get("auth-rate").getAsInt() : 200;
+
+    }
+
+    /**
+     * Parses whether the match snapshots get compressed, they do when not specified
+     * @return true if the snapshots are compressed
+     */
+    public static boolean getSnapshotCompression() {
+
+        JsonObject server = GameConfigParser.getConfig().getAsJsonObject("server");
+
+        return !server.has("snapshot-compression") || server.get("snapshot-compression").getAsBoolean();
+
+    }
+
+    /**
+     * Parses the protocol the socket clients speak, java serialization when not specified
+     * @return the socket protocol literal
+     */
+    public static String getSocketProtocol() {
+
+        JsonObject client = GameConfigParser.getConfig().getAsJsonObject("client");
+
+        return (client != null && client.has("socket-protocol")) ? client.get("socket-protocol").getAsString() : "serialized";
+
+    }
+
+    /**
+     * Parses whether the bots take over the players that leave or time out while playing, they don't when not specified
+     * @return true if the bots take over
+     */
+    public static boolean getBotTakeover() {
+
+        JsonObject bot = GameConfigParser.getConfig().getAsJsonObject("bot");
+
+        return bot != null && bot.has("takeover") && bot.get("takeover").getAsBoolean();
+
+    }
+
+    /**
+     * Parses how many players the bots fill a match up to, none when not specified
+     * @return the number of seats
+     */
+    public static int getBotSeats() {
+
+        JsonObject bot = GameConfigParser.getConfig().getAsJsonObject("bot");
+
+        return (bot != null && bot.has("seats")) ? bot.get("seats").getAsInt() : 0;
+
+    }
+
+    /**
+     * Parses how long a bot thinks over a move, in milliseconds
+     * @return the move budget
+     */
+    public static int getBotMoveBudget() {
+
+        JsonObject bot = GameConfigParser.getConfig().getAsJsonObject("bot");
+
+        return (bot != null && bot.has("move-budget")) ? bot.get("move-budget").getAsInt() : 2000;
+
+    }
+
     /**
      * Parses the player timeout port
      * @return the player timeout
@@ -0,0 +1,99 @@
+package server.utility;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import server.model.board.Player;
+import server.model.valuable.PointType;
+import server.model.valuable.ResourceType;
+
+import java.io.IOException;
+
+/**
+ * Reads the players of the json matches saved when the resources and the points were maps keyed by their type.
+ * They are turned into the arrays indexed by the ordinal of the type the player keeps now, the rest is left to gson.
+ */
+public class PlayerAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+
+        if (type.getRawType() != Player.class) {
+
+            return null;
+
+        }
+
+        TypeAdapter<Player> delegate = gson.getDelegateAdapter(this, TypeToken.get(Player.class));
+
+        TypeAdapter<JsonElement> elements = gson.getAdapter(JsonElement.class);
+
+        return (TypeAdapter<T>) new TypeAdapter<Player>() {
+
+            @Override
+            public void write(JsonWriter out, Player player) throws IOException {
+
+                delegate.write(out, player);
+
+            }
+
+            @Override
+            public Player read(JsonReader in) throws IOException {
+
+                JsonElement element = elements.read(in);
+
+                if (element != null && element.isJsonObject()) {
+
+                    JsonObject player = element.getAsJsonObject();
+
+                    toArray(player, "resources", ResourceType.values());
+                    toArray(player, "points", PointType.values());
+
+                }
+
+                return delegate.fromJsonTree(element);
+
+            }
+
+        };
+
+    }
+
+    /**
+     * Replaces an amount map with its array, the missing types count zero
+     * @param player the json of the player
+     * @param name the name of the field
+     * @param types the keys of the map, in their order
+     */
+    private static void toArray(JsonObject player, String name, Enum<?>[] types) {
+
+        JsonElement amounts = player.get(name);
+
+        if (amounts == null || !amounts.isJsonObject()) {
+
+            return;
+
+        }
+
+        JsonArray array = new JsonArray();
+
+        for (Enum<?> type : types) {
+
+            JsonElement amount = amounts.getAsJsonObject().get(type.name());
+
+            array.add(amount == null || amount.isJsonNull() ? 0 : amount.getAsInt());
+
+        }
+
+        player.add(name, array);
+
+    }
+
+}
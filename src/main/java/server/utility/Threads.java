@@ -0,0 +1,99 @@
+package server.utility;
+
+import logger.Level;
+import logger.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Creates the threads of the server: client handlers, writers and match controllers.
+ * When virtual threads are enabled and the JDK supports them, the blocking flows run on virtual threads instead of platform ones.
+ * The builder is looked up by reflection, so that the sources still compile for Java 8.
+ */
+public class Threads {
+
+    //The virtual thread builder methods, published by ofVirtual which stays null unless virtual threads are enabled
+    private static Method name;
+    private static Method unstarted;
+    private static volatile Method ofVirtual;
+
+    /**
+     * Utility class
+     */
+    private Threads() {
+
+    }
+
+    /**
+     * Makes every following thread virtual, if the JDK supports them
+     * @return true if virtual threads are enabled
+     */
+    public static synchronized boolean enableVirtualThreads() {
+
+        try {
+
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+
+            //Fails on the JDKs where virtual threads are still a preview
+            ofVirtual.invoke(null);
+
+            Threads.name = builder.getMethod("name", String.class);
+            Threads.unstarted = builder.getMethod("unstarted", Runnable.class);
+            Threads.ofVirtual = ofVirtual;
+
+            Logger.log(Level.FINE, "Threads", "Virtual threads enabled");
+
+            return true;
+
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+
+            Logger.log(Level.WARNING, "Threads", "Virtual threads are not supported by this JDK, using platform threads");
+
+            return false;
+
+        }
+
+    }
+
+    /**
+     * Tells whether the threads are virtual
+     * @return true if virtual threads are enabled
+     */
+    public static boolean isVirtual() {
+
+        return ofVirtual != null;
+
+    }
+
+    /**
+     * Creates a thread, not started yet
+     * @param task the task of the thread
+     * @param threadName the name of the thread
+     * @return the thread
+     */
+    public static Thread newThread(Runnable task, String threadName) {
+
+        Method ofVirtual = Threads.ofVirtual;
+
+        if (ofVirtual != null) {
+
+            try {
+
+                return (Thread) unstarted.invoke(name.invoke(ofVirtual.invoke(null), threadName), task);
+
+            } catch (IllegalAccessException | InvocationTargetException e) {
+
+                Logger.log(Level.WARNING, "Threads", "Unable to create a virtual thread, using a platform one", e);
+
+            }
+
+        }
+
+        return new Thread(task, threadName);
+
+    }
+
+}
@@ -0,0 +1,271 @@
+package singleton;
+
+import logger.Level;
+import logger.Logger;
+import server.utility.Security;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This is a singleton.
+ * It authenticates the clients on a bounded pool of its own, so that the threads serving the clients never wait for the database.
+ * The credentials that were verified once are remembered in memory, so that the users logging back in, as they all do after a restart,
+ * don't reach the database again, and the authentications that do reach it are paced, so that a login storm can't starve the matches
+ * of database connections. When the queue is full the authentication is refused right away rather than piling up.
+ */
+public class Authenticator {
+
+    /**
+     * The reference to the instance of the singleton
+     */
+    private static Authenticator instance = null;
+
+    /**
+     * The maximum amount of remembered credentials, the least recently used ones are forgotten first
+     */
+    private static final int CACHED_CREDENTIALS = 10000;
+
+    /**
+     * The executor that runs the authentications
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * The hashed passwords of the users that were verified, in access order, guarded by itself
+     */
+    private final LinkedHashMap<String, String> credentials = new LinkedHashMap<String, String>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+
+            return this.size() > CACHED_CREDENTIALS;
+
+        }
+
+    };
+
+    /**
+     * Guards the pacing of the database authentications
+     */
+    private final ReentrantLock pacing = new ReentrantLock();
+
+    /**
+     * The minimum interval between two database authentications in nanoseconds, zero when they are not paced
+     */
+    private final long interval;
+
+    /**
+     * When the next database authentication may start, in nanoseconds
+     */
+    private long nextSlot = System.nanoTime();
+
+    /**
+     * Private constructor
+     */
+    private Authenticator() {
+
+        int threads = GameConfig.getInstance().getAuthThreads();
+
+        AtomicInteger count = new AtomicInteger(0);
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(GameConfig.getInstance().getAuthQueueSize()), runnable -> {
+
+            Thread thread = new Thread(runnable, "Authenticator #" + count.getAndIncrement());
+
+            //The authentications must not keep the server alive
+            thread.setDaemon(true);
+
+            return thread;
+
+        });
+
+        int rate = GameConfig.getInstance().getAuthRate();
+
+        this.interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+
+    }
+
+    /**
+     * Get a reference to the singleton
+     * @return the singleton instance
+     */
+    public static synchronized Authenticator getInstance() {
+
+        if (instance == null) {
+
+            instance = new Authenticator();
+
+        }
+
+        return instance;
+
+    }
+
+    /**
+     * Queues a task on the authentication threads
+     * @param task the task
+     * @return false if the queue is full and the task was refused
+     */
+    public boolean execute(Runnable task) {
+
+        try {
+
+            this.executor.execute(task);
+
+            return true;
+
+        } catch (RejectedExecutionException e) {
+
+            Logger.log(Level.WARNING, "Authenticator", "Authentication queue full, task refused");
+
+            return false;
+
+        }
+
+    }
+
+    /**
+     * Verifies the credentials of a user, the database is queried only if they were not verified before
+     * @param username the username
+     * @param password the password, in plain
+     * @return true upon login success, false otherwise
+     */
+    public boolean login(String username, String password) {
+
+        String hash = hash(password);
+
+        synchronized (this.credentials) {
+
+            if (hash != null && hash.equals(this.credentials.get(username))) {
+
+                return true;
+
+            }
+
+        }
+
+        this.pace();
+
+        boolean accepted = Database.getInstance().login(username, password);
+
+        if (accepted) {
+
+            this.remember(username, hash);
+
+        }
+
+        return accepted;
+
+    }
+
+    /**
+     * Registers a user
+     * @param username the username
+     * @param password the password, in plain
+     * @return true upon registration success, false otherwise
+     */
+    public boolean registration(String username, String password) {
+
+        this.pace();
+
+        boolean accepted = Database.getInstance().registration(username, password);
+
+        if (accepted) {
+
+            this.remember(username, hash(password));
+
+        }
+
+        return accepted;
+
+    }
+
+    private void remember(String username, String hash) {
+
+        if (hash == null) {
+
+            return;
+
+        }
+
+        synchronized (this.credentials) {
+
+            this.credentials.put(username, hash);
+
+        }
+
+    }
+
+    private static String hash(String password) {
+
+        try {
+
+            return Security.MD5Hash(password);
+
+        } catch (NoSuchAlgorithmException e) {
+
+            Logger.log(Level.SEVERE, "Authenticator", "No such digest algorithm", e);
+
+            return null;
+
+        }
+
+    }
+
+    /**
+     * Waits for the turn of a database authentication, so that no more than the configured rate reach the database
+     */
+    private void pace() {
+
+        if (this.interval == 0) {
+
+            return;
+
+        }
+
+        long wait;
+
+        this.pacing.lock();
+
+        try {
+
+            long now = System.nanoTime();
+
+            //An idle authenticator doesn't bank slots for a later burst
+            long slot = Math.max(now, this.nextSlot);
+
+            this.nextSlot = slot + this.interval;
+
+            wait = slot - now;
+
+        } finally {
+
+            this.pacing.unlock();
+
+        }
+
+        if (wait > 0) {
+
+            try {
+
+                TimeUnit.NANOSECONDS.sleep(wait);
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package singleton;
+
+import logger.Level;
+import logger.Logger;
+import server.model.GameSingleton;
+import server.utility.BoardConfigParser;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the configuration and the card catalogs once, before the server starts serving.
+ * The game configuration, the board configuration and the cards are parsed in parallel, so that no lobby
+ * ever pays for the parsing or races another one to it.
+ */
+public class Bootstrap {
+
+    //Whether everything was already loaded
+    private static boolean loaded = false;
+
+    /**
+     * Utility class
+     */
+    private Bootstrap() {
+
+    }
+
+    /**
+     * Loads the configuration and the catalogs, does nothing if they were already loaded
+     * @return the time it took, in milliseconds
+     */
+    public static synchronized long load() {
+
+        if (loaded) {
+
+            return 0;
+
+        }
+
+        long start = System.nanoTime();
+
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(GameConfig::getInstance),
+                CompletableFuture.runAsync(BoardConfigParser::getBoardConfig),
+                CompletableFuture.runAsync(GameSingleton::getInstance)
+        ).join();
+
+        loaded = true;
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Logger.log(Level.INFO, "Bootstrap", "Configuration and cards loaded in " + elapsed + "ms");
+
+        return elapsed;
+
+    }
+
+}
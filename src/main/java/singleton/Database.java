@@ -4,19 +4,28 @@ import com.google.gson.*;
 import logger.Level;
 import logger.Logger;
 import server.model.Match;
+import server.model.MatchSnapshot;
 import server.model.board.Player;
 import server.model.card.ban.BanCard;
-import server.model.card.developement.BuildingDvptCard;
 import server.model.card.developement.DvptCard;
-import server.model.card.developement.TerritoryDvptCard;
+import server.model.journal.JournalRecord;
 import server.utility.InterfaceAdapter;
-import server.utility.Json;
+import server.utility.PlayerAdapterFactory;
 import server.utility.Security;
 
 
+import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class Database
 {
@@ -27,26 +36,93 @@ public class Database
     //The timeout for each query
     private static final int QUERY_TIMEOUT = 10;
 
+    //The maximum number of players of a match, one player_n column each in the legacy schema
+    private static final int MAX_PLAYERS = 5;
+
+    //The schema version this class works with, kept in the user_version pragma of the database
+    private static final int SCHEMA_VERSION = 4;
+
+    //The players of each match, one row per seat, looked up by username on every login
+    private static final String CREATE_MATCH_PLAYERS = "CREATE TABLE IF NOT EXISTS match_players (match_id INTEGER NOT NULL REFERENCES matches (ID), username VARCHAR(255) NOT NULL, seat INT NOT NULL, finished INT NOT NULL DEFAULT 0, PRIMARY KEY (match_id, seat))";
+    private static final String CREATE_MATCH_PLAYERS_INDEX = "CREATE INDEX IF NOT EXISTS match_players_username ON match_players (username, finished)";
+
+    //The seats taken by bots, which nobody gets back to
+    private static final String ADD_MATCH_PLAYERS_BOT = "ALTER TABLE match_players ADD COLUMN bot INT NOT NULL DEFAULT 0";
+    private static final String MARK_LEGACY_BOTS = "UPDATE match_players SET bot = 1 WHERE username GLOB 'bot[0-9]*' AND username NOT IN (SELECT username FROM users)";
+
+    //The journal of each match, only the entries after its latest snapshot are kept
+    private static final String ADD_JOURNAL_SEQ = "ALTER TABLE matches ADD COLUMN journal_seq INTEGER NOT NULL DEFAULT 0";
+    private static final String CREATE_MATCH_JOURNAL = "CREATE TABLE IF NOT EXISTS match_journal (match_id INTEGER NOT NULL REFERENCES matches (ID), seq INTEGER NOT NULL, entry BLOB NOT NULL, PRIMARY KEY (match_id, seq))";
+
+    //The cluster node running each match, so that the players getting back to it are routed there
+    private static final String CREATE_MATCH_NODES = "CREATE TABLE IF NOT EXISTS match_nodes (match_id INTEGER NOT NULL PRIMARY KEY REFERENCES matches (ID), node VARCHAR(255) NOT NULL)";
+
+    //The queries, prepared once per connection
+    private static final String LOGIN_QUERY = "SELECT 1 FROM users WHERE username = ? AND password = ?";
+    private static final String USER_QUERY = "SELECT 1 FROM users WHERE username = ?";
+    private static final String REGISTRATION_QUERY = "INSERT INTO users (username, password) VALUES (?, ?)";
+    private static final String END_MATCH_QUERY = "UPDATE matches SET finished = 1 WHERE ID = ?";
+    private static final String END_MATCH_PLAYERS_QUERY = "UPDATE match_players SET finished = 1 WHERE match_id = ?";
+    private static final String NEW_MATCH_QUERY = "INSERT INTO matches (finished, date) VALUES (0, ?)";
+    private static final String NEW_MATCH_PLAYER_QUERY = "INSERT INTO match_players (match_id, username, seat, finished, bot) VALUES (?, ?, ?, 0, ?)";
+    private static final String SAVE_QUERY = "UPDATE matches SET date = ? WHERE ID = ?";
+    private static final String UNFINISHED_MATCH_QUERY = "SELECT match_id FROM match_players WHERE username = ? AND finished = 0 AND bot = 0 LIMIT 1";
+    private static final String UNFINISHED_MATCH_PLAYERS_QUERY = "SELECT username FROM match_players WHERE match_id = (" + UNFINISHED_MATCH_QUERY + ") AND bot = 0 ORDER BY seat";
+    private static final String MATCH_QUERY = "SELECT date FROM matches WHERE ID = ?";
+    private static final String SAVE_SNAPSHOT_QUERY = "UPDATE matches SET date = ?, journal_seq = ? WHERE ID = ?";
+    private static final String APPEND_JOURNAL_QUERY = "INSERT OR REPLACE INTO match_journal (match_id, seq, entry) VALUES (?, ?, ?)";
+    private static final String TRIM_JOURNAL_QUERY = "DELETE FROM match_journal WHERE match_id = ? AND seq <= ?";
+    private static final String DELETE_JOURNAL_QUERY = "DELETE FROM match_journal WHERE match_id = ?";
+    private static final String JOURNAL_SEQ_QUERY = "SELECT journal_seq FROM matches WHERE ID = ?";
+    private static final String JOURNAL_QUERY = "SELECT seq, entry FROM match_journal WHERE match_id = ? AND seq > ? ORDER BY seq";
+    private static final String CLAIM_MATCH_QUERY = "INSERT OR REPLACE INTO match_nodes (match_id, node) VALUES (?, ?)";
+    private static final String MATCH_NODE_QUERY = "SELECT node FROM match_nodes WHERE match_id = ?";
+
 
     //The database singleton instance
     private static Database instance;
 
-    //The connection object towards the server
-    private Connection connection;
+    //The file of the database, the shipped one unless another one is used
+    private static String file = DB_URL;
+
+    //The idle connections towards the database
+    private final BlockingQueue<PooledConnection> pool;
+
+    //The number of connections that were opened
+    private final int connections;
+
+    //The json serializer of the matches, immutable and thus shared
+    private final Gson gson;
 
     /**
      * The constructor of the instance.
-     * Initializes a connection towards the sqlite database
+     * Opens a pool of connections towards the sqlite database
      */
     private Database() {
 
+        int size = GameConfig.getInstance().getDatabaseConnections();
+
+        this.pool = new ArrayBlockingQueue<>(size);
+
+        this.gson = createGson();
+
         //Load up the sqlite JDBC Driver (Must be set either manually or with MAVEN)
         try {
 
             Class.forName("org.sqlite.JDBC");
 
+            //Readers don't block the writer and the writer doesn't block the readers, a busy database is waited for
+            Properties properties = new Properties();
+            properties.setProperty("journal_mode", "WAL");
+            properties.setProperty("synchronous", "NORMAL");
+            properties.setProperty("busy_timeout", String.valueOf(TimeUnit.SECONDS.toMillis(QUERY_TIMEOUT)));
+
             //Connect!
-            this.connection = DriverManager.getConnection("jdbc:sqlite:" + DB_URL);
+            for (int i = 0; i < size; i++) {
+
+                this.pool.add(new PooledConnection(DriverManager.getConnection("jdbc:sqlite:" + file, properties)));
+
+            }
 
         } catch (ClassNotFoundException e) {
 
@@ -58,13 +134,98 @@ public class Database
 
         }
 
+        this.connections = this.pool.size();
+
+        try {
+
+            this.migrate();
+
+        } catch (SQLException e) {
+
+            Logger.log(Level.SEVERE, "Database::migrate", "SQL Exception", e);
+
+        }
+
+    }
+
+    /**
+     * Brings the schema of the database up to date
+     * @throws SQLException if the migration failed, in which case nothing changed
+     */
+    private void migrate() throws SQLException {
+
+        this.inTransaction(connection -> {
+
+            try (Statement stmt = connection.connection.createStatement()) {
+
+                int version;
+
+                try (ResultSet result = stmt.executeQuery("PRAGMA user_version")) {
+
+                    version = result.next() ? result.getInt(1) : 0;
+
+                }
+
+                if (version >= SCHEMA_VERSION) {
+
+                    return null;
+
+                }
+
+                if (version < 1) {
+
+                    //Version 1: the players move from the player_n columns of matches to their own indexed table
+                    stmt.executeUpdate(CREATE_MATCH_PLAYERS);
+                    stmt.executeUpdate(CREATE_MATCH_PLAYERS_INDEX);
+
+                    for (int seat = 1; seat <= MAX_PLAYERS; seat++) {
+
+                        stmt.executeUpdate("INSERT INTO match_players (match_id, username, seat, finished) SELECT ID, player_" + seat + ", " + seat + ", IFNULL(finished, 0) FROM matches WHERE player_" + seat + " IS NOT NULL");
+
+                    }
+
+                }
+
+                if (version < 2) {
+
+                    //Version 2: the actions between two snapshots are journaled, each snapshot records the last entry it includes
+                    stmt.executeUpdate(ADD_JOURNAL_SEQ);
+                    stmt.executeUpdate(CREATE_MATCH_JOURNAL);
+
+                }
+
+                if (version < 3) {
+
+                    //Version 3: the cluster node running each match is recorded
+                    stmt.executeUpdate(CREATE_MATCH_NODES);
+
+                }
+
+                if (version < 4) {
+
+                    //Version 4: the bot seats are flagged, the bots used to be saved as players named bot1, bot2 and so on
+                    stmt.executeUpdate(ADD_MATCH_PLAYERS_BOT);
+                    stmt.executeUpdate(MARK_LEGACY_BOTS);
+
+                }
+
+                stmt.executeUpdate("PRAGMA user_version = " + SCHEMA_VERSION);
+
+                Logger.log(Level.FINE, "Database", "Schema migrated to version " + SCHEMA_VERSION);
+
+                return null;
+
+            }
+
+        });
+
     }
 
     /**
      * Singleton method to retrieve the object instance
      * @return The database instance
      */
-    public static Database getInstance() {
+    public static synchronized Database getInstance() {
 
         if (instance == null) {
 
@@ -76,6 +237,74 @@ public class Database
 
     }
 
+    /**
+     * Makes the database live in another file, so that the tests and the benchmarks don't touch the shipped one.
+     * The connections to the previous file are closed, the next use of the database opens the new one
+     * @param path the path of the sqlite file, which must already hold the users and the matches tables
+     */
+    public static synchronized void useFile(String path) {
+
+        if (instance != null) {
+
+            PooledConnection connection;
+
+            while ((connection = instance.pool.poll()) != null) {
+
+                try {
+
+                    connection.connection.close();
+
+                } catch (SQLException e) {
+
+                    Logger.log(Level.WARNING, "Database", "Unable to close a connection", e);
+
+                }
+
+            }
+
+            instance = null;
+
+        }
+
+        file = path;
+
+    }
+
+    /**
+     * Takes an idle connection, waiting for one if they are all busy
+     * @return the connection, to be given back by closing it
+     * @throws SQLException if no connection gets available in time
+     */
+    private PooledConnection acquire() throws SQLException {
+
+        if (this.connections == 0) {
+
+            throw new SQLException("No connection towards the database");
+
+        }
+
+        try {
+
+            PooledConnection connection = this.pool.poll(QUERY_TIMEOUT, TimeUnit.SECONDS);
+
+            if (connection == null) {
+
+                throw new SQLException("Timed out waiting for a database connection");
+
+            }
+
+            return connection;
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+
+        }
+
+    }
+
     /**
      * This method attempts to perform a login with the provided data
      * @param username the username
@@ -84,27 +313,17 @@ public class Database
      */
     public boolean login(String username, String password) {
 
-        boolean authenticated = false;
-
-        try {
-
-            //Create a statement
-            Statement stmt = this.connection.createStatement();
-
-            //Setup the timeout
-            stmt.setQueryTimeout(QUERY_TIMEOUT);
+        try (PooledConnection connection = this.acquire()) {
 
-            //Create the query;
-            String query = "SELECT * FROM users WHERE username = '" + username + "' AND password = '" + Security.MD5Hash(password) + "'";
+            PreparedStatement stmt = connection.prepare(LOGIN_QUERY);
 
-            //Execute the query
-            ResultSet result = stmt.executeQuery(query);
+            stmt.setString(1, username);
+            stmt.setString(2, Security.MD5Hash(password));
 
-            //Check results
-            while (result.next()) {
+            //If there is a match, login succeeded
+            try (ResultSet result = stmt.executeQuery()) {
 
-                //If there is a match, login succeeded
-                authenticated = true;
+                return result.next();
 
             }
 
@@ -118,7 +337,7 @@ public class Database
 
         }
 
-        return authenticated;
+        return false;
 
     }
 
@@ -130,250 +349,450 @@ public class Database
      */
     public boolean registration(String username, String password) {
 
-        boolean registrated = false;
+        //The bots' names are reserved
+        if (Player.isBotUsername(username)) {
 
-        try {
+            return false;
 
-            //Create a statement
-            Statement stmt = this.connection.createStatement();
+        }
+
+        try (PooledConnection connection = this.acquire()) {
 
-            //Setup the timeout
-            stmt.setQueryTimeout(QUERY_TIMEOUT);
+            PreparedStatement stmt = connection.prepare(USER_QUERY);
 
-            //Create the query;
-            String query = "SELECT * FROM users WHERE username = '" + username + "'";
+            stmt.setString(1, username);
 
-            //Execute the query
-            ResultSet result = stmt.executeQuery(query);
+            //If there is a match, registration failed
+            try (ResultSet result = stmt.executeQuery()) {
 
-            //Check results
-            while (result.next()) {
+                if (result.next()) {
 
-                //If there is a match, registration failed
-                return false;
+                    return false;
+
+                }
 
             }
 
+            stmt = connection.prepare(REGISTRATION_QUERY);
+
+            stmt.setString(1, username);
+            stmt.setString(2, Security.MD5Hash(password));
+
+            stmt.executeUpdate();
+
+            return true;
+
         } catch (SQLException e) {
 
             Logger.log(Level.SEVERE, "Database::registration", "SQL Exception", e);
 
+        } catch (NoSuchAlgorithmException e) {
+
+            Logger.log(Level.SEVERE, "Database::registration", "No such digest algorithm", e);
+
         }
 
-        try {
+        return false;
 
-            //Create a statement
-            Statement stmt = this.connection.createStatement();
+    }
 
-            //Setup the timeout
-            stmt.setQueryTimeout(QUERY_TIMEOUT);
+    /**
+     * Runs some work in a transaction on a pooled connection
+     * @param work the work
+     * @param <T> the type of the result of the work
+     * @return the result of the work
+     * @throws SQLException if the work failed, in which case it was rolled back
+     */
+    private <T> T inTransaction(Transaction<T> work) throws SQLException {
 
-            //Create the query;
-            String query = "INSERT INTO users VALUES ('"+username+"', '"+Security.MD5Hash(password)+"');";
+        try (PooledConnection connection = this.acquire()) {
 
-            //Execute the query
-            stmt.executeUpdate(query);
+            connection.connection.setAutoCommit(false);
 
-            registrated = true;
+            try {
 
-        } catch (SQLException e) {
+                T result = work.run(connection);
 
-            Logger.log(Level.SEVERE, "Database::registration", "SQL Exception", e);
+                connection.connection.commit();
 
-        } catch (NoSuchAlgorithmException e) {
+                return result;
 
-            Logger.log(Level.SEVERE, "Database::registration", "No such digest algorithm", e);
+            } catch (SQLException | RuntimeException e) {
 
-        }
+                connection.connection.rollback();
 
-        return registrated;
+                throw e;
+
+            } finally {
+
+                connection.connection.setAutoCommit(true);
+
+            }
+
+        }
 
     }
 
     public void endMatch(int matchID) throws SQLException {
 
-        //Create a statement
-        Statement stmt = this.connection.createStatement();
+        this.inTransaction(connection -> {
 
-        //Setup the timeout
-        stmt.setQueryTimeout(QUERY_TIMEOUT);
+            this.endMatch(connection, matchID);
 
-        //Create the query;
-        String query = "UPDATE matches SET 'finished' = 1 WHERE ID = "+matchID+";";
+            return null;
 
-        //Execute the query
-        stmt.executeUpdate(query);
+        });
 
     }
 
-    public int saveMatch(Match match) throws SQLException {
+    /**
+     * Marks a match as finished within a transaction
+     * @param connection the connection of the transaction
+     * @param matchID the id of the match
+     * @throws SQLException if the queries failed
+     */
+    private void endMatch(PooledConnection connection, int matchID) throws SQLException {
 
-        Gson gson = new Gson();
+        PreparedStatement stmt = connection.prepare(END_MATCH_QUERY);
 
-        String jsonInString = gson.toJson(match);
+        stmt.setInt(1, matchID);
 
-        //Create a statement
-        Statement stmt = this.connection.createStatement();
+        stmt.executeUpdate();
 
-        //Setup the timeout
-        stmt.setQueryTimeout(QUERY_TIMEOUT);
+        //The players are free to join another match
+        stmt = connection.prepare(END_MATCH_PLAYERS_QUERY);
 
-        //if finished is 0 the match is not ended
-        //we have maximum one not ended match for each player
-        //Create the query;
-        String query1 = "INSERT INTO matches ('finished') VALUES (0);";
+        stmt.setInt(1, matchID);
 
-        //Execute the query
-        stmt.executeUpdate(query1);
+        stmt.executeUpdate();
 
-        //Create the query;
-        String query = "SELECT max(ID) FROM matches";
+        //A finished match is never replayed
+        stmt = connection.prepare(DELETE_JOURNAL_QUERY);
 
-        //Execute the query
-        ResultSet result = stmt.executeQuery(query);
+        stmt.setInt(1, matchID);
 
-        int matchID = result.getInt(1);
+        stmt.executeUpdate();
+
+    }
 
-        //use this int to create dynamic queries
-        int i=1;
+    /**
+     * Encodes a match into its binary snapshot
+     * @param match the match
+     * @return the snapshot
+     * @throws SQLException if the match could not be encoded
+     */
+    public byte[] toSnapshot(Match match) throws SQLException {
 
-        for (Player player : match.getPlayers()) {
+        try {
 
-            //Create the query;
-            String queryPlayer = "UPDATE matches SET "+"'player_"+i+"'  =  ('"+player.getUsername()+"') WHERE ID ="+matchID+";";
+            return MatchSnapshot.encode(match, GameConfig.getInstance().isSnapshotCompression());
 
-            //Execute the query
-            stmt.executeUpdate(queryPlayer);
+        } catch (IOException e) {
 
-            i++;
+            throw new SQLException("Unable to encode match " + match.getMatch_id(), e);
 
         }
 
-        //Create the query;
-        String query2 = "UPDATE matches  SET 'date' = ( '"+ jsonInString+"') WHERE ID = "+matchID+";";
+    }
 
-        //Execute the query
-        stmt.executeUpdate(query2);
+    public int saveMatch(Match match) throws SQLException {
 
-        return matchID;
+        byte[] snapshot = this.toSnapshot(match);
+
+        return this.inTransaction(connection -> {
+
+            //if finished is 0 the match is not ended
+            //we have maximum one not ended match for each player
+            PreparedStatement stmt = connection.prepare(NEW_MATCH_QUERY);
+
+            stmt.setBytes(1, snapshot);
+
+            stmt.executeUpdate();
+
+            int matchID;
+
+            //The ID assigned to the row we just inserted, on this very connection
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+
+                if (!keys.next()) {
+
+                    throw new SQLException("No ID was generated for the match");
+
+                }
+
+                matchID = keys.getInt(1);
+
+            }
+
+            stmt = connection.prepare(NEW_MATCH_PLAYER_QUERY);
+
+            for (int seat = 1; seat <= match.getPlayers().size(); seat++) {
+
+                String username = match.getPlayers().get(seat - 1).getUsername();
+
+                stmt.setInt(1, matchID);
+                stmt.setString(2, username);
+                stmt.setInt(3, seat);
+                stmt.setInt(4, Player.isBotUsername(username) ? 1 : 0);
+
+                stmt.addBatch();
+
+            }
+
+            stmt.executeBatch();
+
+            return matchID;
+
+        });
 
     }
 
     public void save(Match match) throws SQLException {
 
-        int matchID = match.getMatch_id();
+        byte[] snapshot = this.toSnapshot(match);
 
-        Gson gson = getCorrectGson();
+        try (PooledConnection connection = this.acquire()) {
 
-        String jsonInString = gson.toJson(match);
+            PreparedStatement stmt = connection.prepare(SAVE_QUERY);
 
-        //Create a statement
-        Statement stmt = this.connection.createStatement();
+            stmt.setBytes(1, snapshot);
+            stmt.setInt(2, match.getMatch_id());
 
-        //Setup the timeout
-        stmt.setQueryTimeout(QUERY_TIMEOUT);
+            stmt.executeUpdate();
 
-        //Create the query;
-        String query = "UPDATE matches  SET 'date' = ( '"+ jsonInString+"') WHERE ID = "+matchID+";";
-
-        //Execute the query
-        stmt.executeUpdate(query);
+        }
 
     }
 
-    public int isAnUnfinishedMatchPlayer(String username)  {
+    /**
+     * Writes a batch of journal entries and match snapshots in a single transaction.
+     * The entries go first, then each snapshot trims the entries it includes, then the matches that ended are marked as finished.
+     * @param entries the journal entries, in order
+     * @param snapshots the binary snapshots, each with the sequence number of the last entry it includes
+     * @param finished the ids of the matches that ended
+     * @throws SQLException if the batch could not be written, in which case none of it was
+     */
+    public void saveJournal(List<JournalRecord> entries, Collection<JournalRecord> snapshots, Collection<Integer> finished) throws SQLException {
 
-        //we have maximum one not ended match for each player
+        this.inTransaction(connection -> {
 
-        try {
+            if (!entries.isEmpty()) {
 
-            //Create a statement
-            Statement stmt = this.connection.createStatement();
+                PreparedStatement stmt = connection.prepare(APPEND_JOURNAL_QUERY);
 
-            //Setup the timeout
-            stmt.setQueryTimeout(QUERY_TIMEOUT);
+                for (JournalRecord entry : entries) {
 
-            //use this int to create dynamic queries (we can have maximum 5 players)
-            for (int i = 1; i <= 5; i++) {
+                    stmt.setInt(1, entry.getMatchId());
+                    stmt.setLong(2, entry.getSeq());
+                    stmt.setBytes(3, entry.getData());
 
-                //Create the query;
-                String query = "SELECT * FROM matches WHERE player_" + i + " = '" + username + "' AND finished = 0";
+                    stmt.addBatch();
 
-                //Execute the query
-                ResultSet result = stmt.executeQuery(query);
+                }
 
-                //Check results
-                while (result.next()) {
+                stmt.executeBatch();
+
+            }
+
+            if (!snapshots.isEmpty()) {
+
+                PreparedStatement stmt = connection.prepare(SAVE_SNAPSHOT_QUERY);
+
+                for (JournalRecord snapshot : snapshots) {
+
+                    stmt.setBytes(1, snapshot.getData());
+                    stmt.setLong(2, snapshot.getSeq());
+                    stmt.setInt(3, snapshot.getMatchId());
+
+                    stmt.addBatch();
+
+                }
 
-                    //If there is a match, login succeeded
-                    return result.getInt("ID");
+                stmt.executeBatch();
+
+                stmt = connection.prepare(TRIM_JOURNAL_QUERY);
+
+                for (JournalRecord snapshot : snapshots) {
+
+                    stmt.setInt(1, snapshot.getMatchId());
+                    stmt.setLong(2, snapshot.getSeq());
+
+                    stmt.addBatch();
 
                 }
+
+                stmt.executeBatch();
+
             }
 
+            for (int matchID : finished) {
+
+                this.endMatch(connection, matchID);
+
+            }
+
+            return null;
+
+        });
+
+    }
+
+    /**
+     * Records the cluster node that runs a match
+     * @param matchID the id of the match
+     * @param node the name of the node
+     * @throws SQLException if the query failed
+     */
+    public void claimMatch(int matchID, String node) throws SQLException {
+
+        try (PooledConnection connection = this.acquire()) {
+
+            PreparedStatement stmt = connection.prepare(CLAIM_MATCH_QUERY);
+
+            stmt.setInt(1, matchID);
+            stmt.setString(2, node);
+
+            stmt.executeUpdate();
+
         }
-        catch (SQLException e) {
 
-            Logger.log(Level.WARNING, this.toString(), "SQL Exception", e);
+    }
+
+    /**
+     * The cluster node that last ran a match
+     * @param matchID the id of the match
+     * @return the name of the node, null if the match never ran on a cluster node
+     * @throws SQLException if the query failed
+     */
+    public String getMatchNode(int matchID) throws SQLException {
+
+        try (PooledConnection connection = this.acquire()) {
+
+            PreparedStatement stmt = connection.prepare(MATCH_NODE_QUERY);
+
+            stmt.setInt(1, matchID);
+
+            try (ResultSet result = stmt.executeQuery()) {
 
+                return result.next() ? result.getString(1) : null;
+
+            }
 
         }
 
-        return -1;
+    }
+
+    /**
+     * The sequence number of the last journal entry included in the snapshot of a match
+     * @param matchID the id of the match
+     * @return the sequence number, 0 if the match has no journal
+     * @throws SQLException if the query failed
+     */
+    public long getJournalSeq(int matchID) throws SQLException {
+
+        try (PooledConnection connection = this.acquire()) {
+
+            PreparedStatement stmt = connection.prepare(JOURNAL_SEQ_QUERY);
+
+            stmt.setInt(1, matchID);
+
+            try (ResultSet result = stmt.executeQuery()) {
+
+                return result.next() ? result.getLong(1) : 0;
+
+            }
+
+        }
 
     }
 
-    public ArrayList<String> wasInMatchWithHim(String username) {
+    /**
+     * The journal entries of a match after a given sequence number
+     * @param matchID the id of the match
+     * @param afterSeq the sequence number to start after
+     * @return the entries, in order
+     * @throws SQLException if the query failed
+     */
+    public List<JournalRecord> getJournal(int matchID, long afterSeq) throws SQLException {
 
-        //we have maximum one not ended match for each player
+        ArrayList<JournalRecord> entries = new ArrayList<>();
 
-        try {
+        try (PooledConnection connection = this.acquire()) {
 
-            ArrayList<String> players = new ArrayList<>();
+            PreparedStatement stmt = connection.prepare(JOURNAL_QUERY);
+
+            stmt.setInt(1, matchID);
+            stmt.setLong(2, afterSeq);
+
+            try (ResultSet result = stmt.executeQuery()) {
+
+                while (result.next()) {
+
+                    entries.add(new JournalRecord(matchID, result.getLong(1), result.getBytes(2)));
+
+                }
+
+            }
+
+        }
 
-            //Create a statement
-            Statement stmt = this.connection.createStatement();
+        return entries;
 
-            //Setup the timeout
-            stmt.setQueryTimeout(QUERY_TIMEOUT);
+    }
 
-            ResultSet result = null;
+    public int isAnUnfinishedMatchPlayer(String username)  {
 
-            //use this int to create dynamic queries (we can have maximum 5 players)
-            for (int i = 1; i <= 5; i++) {
+        //we have maximum one not ended match for each player
 
-                //Create the query;
-                String query = "SELECT count(*) FROM matches WHERE player_" + i + " = '" + username + "' AND finished = 0";
+        try (PooledConnection connection = this.acquire()) {
 
-                //Execute the query
-                ResultSet result1 = stmt.executeQuery(query);
+            PreparedStatement stmt = connection.prepare(UNFINISHED_MATCH_QUERY);
 
-                if (result1.getInt(1) == 1) {
+            stmt.setString(1, username);
 
-                    //Create the query;
-                    String query1 = "SELECT * FROM matches WHERE player_" + i + " = '" + username + "' AND finished = 0";
+            try (ResultSet result = stmt.executeQuery()) {
 
-                    //Execute the query
-                    result = stmt.executeQuery(query1);
+                if (result.next()) {
 
-                    break;
+                    return result.getInt("match_id");
 
                 }
 
             }
 
-            //use this int to create dynamic queries (we can have maximum 5 players)
-            int i = 1;
+        }
+        catch (SQLException e) {
+
+            Logger.log(Level.WARNING, this.toString(), "SQL Exception", e);
+
+
+        }
+
+        return -1;
+
+    }
+
+    public ArrayList<String> wasInMatchWithHim(String username) {
+
+        //we have maximum one not ended match for each player
+
+        try (PooledConnection connection = this.acquire()) {
+
+            ArrayList<String> players = new ArrayList<>();
+
+            PreparedStatement stmt = connection.prepare(UNFINISHED_MATCH_PLAYERS_QUERY);
+
+            stmt.setString(1, username);
 
-            if (result != null) {
+            try (ResultSet result = stmt.executeQuery()) {
 
-                //Check results
-                while (i <= 5) {
+                while (result.next()) {
 
-                    if (result.getString("player_" + i) != null && !(result.getString("player_" + i).equals(username)))
-                        players.add(result.getString("player_" + i));
+                    String player = result.getString("username");
+
+                    if (!player.equals(username))
+                        players.add(player);
 
-                    i++;
                 }
 
             }
@@ -393,24 +812,33 @@ public class Database
 
     public Match getMatchFromID(int matchID)  {
 
-        try {
+        try (PooledConnection connection = this.acquire()) {
+
+            PreparedStatement stmt = connection.prepare(MATCH_QUERY);
 
-            //Create a statement
-            Statement stmt = this.connection.createStatement();
+            stmt.setInt(1, matchID);
 
-            //Setup the timeout
-            stmt.setQueryTimeout(QUERY_TIMEOUT);
+            try (ResultSet resultSet = stmt.executeQuery()) {
 
-            //Create the query;
-            String query = "SELECT date FROM matches WHERE ID = " + matchID + ";";
+                if (!resultSet.next()) {
 
-            ResultSet resultSet = stmt.executeQuery(query);
+                    return null;
+
+                }
 
-            String matchString = resultSet.getString(1);
+                Object stored = resultSet.getObject(1);
 
-            Gson gson = getCorrectGson();
+                //The matches saved before the binary snapshots were json
+                if (stored instanceof String) {
+
+                    return this.gson.fromJson((String) stored, Match.class);
+
+                }
+
+                return MatchSnapshot.decode((byte[]) stored);
+
+            }
 
-            return gson.fromJson(matchString, Match.class);
         }
         catch (SQLException e) {
 
@@ -419,20 +847,99 @@ public class Database
             return null;
 
         }
+        catch (IOException | ClassCastException e) {
+
+            Logger.log(Level.WARNING, this.toString(), "Unable to decode match " + matchID, e);
+
+            return null;
+
+        }
 
     }
 
 
     public Gson getCorrectGson(){
 
+        return this.gson;
+
+    }
+
+    private static Gson createGson() {
+
         GsonBuilder gsonBilder = new GsonBuilder();
         gsonBilder.registerTypeAdapter(DvptCard.class, new InterfaceAdapter<DvptCard>());
         gsonBilder.registerTypeAdapter(BanCard.class, new InterfaceAdapter<BanCard>());
-        gsonBilder.setPrettyPrinting();
+        gsonBilder.registerTypeAdapterFactory(new PlayerAdapterFactory());
 
         return gsonBilder.create();
 
     }
 
-}
+    /**
+     * Some work to be done in a transaction
+     * @param <T> the type of the result of the work
+     */
+    private interface Transaction<T> {
+
+        T run(PooledConnection connection) throws SQLException;
+
+    }
+
+    /**
+     * A connection of the pool along with its prepared statements.
+     * It is used by one thread at a time, closing it gives it back to the pool.
+     */
+    private class PooledConnection implements AutoCloseable {
+
+        //The underlying connection
+        private final Connection connection;
+
+        //The statements prepared on this connection, by query
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        private PooledConnection(Connection connection) {
+
+            this.connection = connection;
+
+        }
+
+        /**
+         * Gets the prepared statement of a query, preparing it the first time
+         * @param query the query
+         * @return the statement, without parameters
+         * @throws SQLException if the query can't be prepared
+         */
+        private PreparedStatement prepare(String query) throws SQLException {
 
+            PreparedStatement stmt = this.statements.get(query);
+
+            if (stmt == null) {
+
+                stmt = this.connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+
+                //Setup the timeout
+                stmt.setQueryTimeout(QUERY_TIMEOUT);
+
+                this.statements.put(query, stmt);
+
+            }
+            else {
+
+                stmt.clearParameters();
+
+            }
+
+            return stmt;
+
+        }
+
+        @Override
+        public void close() {
+
+            Database.this.pool.offer(this);
+
+        }
+
+    }
+
+}
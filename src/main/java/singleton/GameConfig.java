@@ -7,8 +7,17 @@ package singleton;
 
 import logger.Level;
 import logger.Logger;
+import netobject.codec.WireProtocol;
+import server.controller.cluster.ClusterNode;
+import server.controller.game.MatchExecutionMode;
+import server.controller.network.OverflowPolicy;
+import server.controller.network.Socket.SocketServerMode;
 import server.utility.GameConfigParser;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * This is a singleton.
  * It will hold a reference to the game configuration
@@ -16,9 +25,9 @@ import server.utility.GameConfigParser;
 public class GameConfig {
 
     /**
-     * The reference to the instance of the singleton
+     * The reference to the instance of the singleton, built when the class is first used and thus safely published
      */
-    private static GameConfig instance = null;
+    private static final GameConfig instance = new GameConfig();
 
     /**
      * The Socket server port
@@ -30,6 +39,76 @@ public class GameConfig {
      */
     private int rmiPort;
 
+    /**
+     * How the socket server serves its clients
+     */
+    private SocketServerMode socketMode;
+
+    /**
+     * The number of selector threads of the non blocking socket server
+     */
+    private int ioThreads;
+
+    /**
+     * The maximum amount of objects waiting to be delivered to each client
+     */
+    private int outboundQueueSize;
+
+    /**
+     * What to do with a client that can't keep up with its outbound queue
+     */
+    private OverflowPolicy outboundOverflowPolicy;
+
+    /**
+     * How the match controllers get executed
+     */
+    private MatchExecutionMode matchExecutionMode;
+
+    /**
+     * The number of threads shared by the matches in event loop mode
+     */
+    private int matchThreads;
+
+    /**
+     * The number of pooled database connections
+     */
+    private int databaseConnections;
+
+    /**
+     * How long the matchmaker gathers the waiting clients before seating them, in milliseconds
+     */
+    private int matchmakingWindow;
+
+    /**
+     * The number of threads that authenticate the clients
+     */
+    private int authThreads;
+
+    /**
+     * The maximum amount of authentications waiting for a thread
+     */
+    private int authQueueSize;
+
+    /**
+     * How many authentications per second may reach the database, zero meaning unlimited
+     */
+    private int authRate;
+
+    /**
+     * Whether the match snapshots get compressed before being persisted
+     */
+    private boolean snapshotCompression;
+
+    /**
+     * The protocol the socket clients speak with the server
+     */
+    private WireProtocol socketProtocol;
+
+    /**
+     * The game engine nodes behind the router, empty when not clustered
+     */
+    private List<ClusterNode> clusterNodes;
+
     /**
      * The match timeout after which it should start
      */
@@ -40,6 +119,21 @@ public class GameConfig {
      */
     private int playerTimeout;
 
+    /**
+     * Whether the bots take over the players that leave or time out
+     */
+    private boolean botTakeover;
+
+    /**
+     * How many players the bots fill a match up to
+     */
+    private int botSeats;
+
+    /**
+     * How long a bot thinks over a move, in milliseconds
+     */
+    private int botMoveBudget;
+
     /**
      * The constructor is responsible for parsing & loading the data
      */
@@ -50,6 +144,42 @@ public class GameConfig {
         this.rmiPort        = GameConfigParser.getRmiPort();
         this.matchTimeout   = GameConfigParser.getMatchTimeout();
         this.playerTimeout  = GameConfigParser.getPlayerTimeout();
+        this.socketMode     = SocketServerMode.fromLiteral(GameConfigParser.getSocketMode());
+        this.ioThreads      = Math.max(1, GameConfigParser.getIoThreads());
+        this.socketProtocol = WireProtocol.fromLiteral(GameConfigParser.getSocketProtocol());
+        this.outboundQueueSize      = Math.max(1, GameConfigParser.getOutboundQueueSize());
+        this.outboundOverflowPolicy = OverflowPolicy.fromLiteral(GameConfigParser.getOutboundOverflow());
+        this.matchExecutionMode     = MatchExecutionMode.fromLiteral(GameConfigParser.getMatchExecution());
+        this.matchThreads           = Math.max(1, GameConfigParser.getMatchThreads());
+        this.databaseConnections    = Math.max(1, GameConfigParser.getDatabaseConnections());
+        this.matchmakingWindow      = Math.max(0, GameConfigParser.getMatchmakingWindow());
+        this.authThreads            = Math.max(1, GameConfigParser.getAuthThreads());
+        this.authQueueSize          = Math.max(1, GameConfigParser.getAuthQueueSize());
+        this.authRate               = Math.max(0, GameConfigParser.getAuthRate());
+        this.snapshotCompression    = GameConfigParser.getSnapshotCompression();
+        this.botTakeover            = GameConfigParser.getBotTakeover();
+        this.botSeats               = Math.max(0, GameConfigParser.getBotSeats());
+
+        //A bot must answer well before its timeout
+        this.botMoveBudget          = Math.max(1, Math.min(GameConfigParser.getBotMoveBudget(), this.playerTimeout * 1000 / 2));
+
+        ArrayList<ClusterNode> nodes = new ArrayList<>();
+
+        for (String address : GameConfigParser.getClusterNodes()) {
+
+            try {
+
+                nodes.add(ClusterNode.parse(address));
+
+            } catch (IllegalArgumentException e) {
+
+                Logger.log(Level.SEVERE, "GameConfig", "Skipping cluster node: " + e.getMessage());
+
+            }
+
+        }
+
+        this.clusterNodes = Collections.unmodifiableList(nodes);
 
         Logger.log(Level.FINEST, "GameConfig", "Game configuration loaded");
 
@@ -61,12 +191,6 @@ public class GameConfig {
      */
     public static GameConfig getInstance() {
 
-        if (instance == null) {
-
-            instance = new GameConfig();
-
-        }
-
         return instance;
 
     }
@@ -88,6 +212,74 @@ public class GameConfig {
         return socketPort;
     }
 
+    public SocketServerMode getSocketMode() {
+        return socketMode;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public WireProtocol getSocketProtocol() {
+        return socketProtocol;
+    }
+
+    public int getOutboundQueueSize() {
+        return outboundQueueSize;
+    }
+
+    public MatchExecutionMode getMatchExecutionMode() {
+        return matchExecutionMode;
+    }
+
+    public int getMatchThreads() {
+        return matchThreads;
+    }
+
+    public int getDatabaseConnections() {
+        return databaseConnections;
+    }
+
+    public List<ClusterNode> getClusterNodes() {
+        return clusterNodes;
+    }
+
+    public int getMatchmakingWindow() {
+        return matchmakingWindow;
+    }
+
+    public int getAuthThreads() {
+        return authThreads;
+    }
+
+    public int getAuthQueueSize() {
+        return authQueueSize;
+    }
+
+    public int getAuthRate() {
+        return authRate;
+    }
+
+    public boolean isSnapshotCompression() {
+        return snapshotCompression;
+    }
+
+    public OverflowPolicy getOutboundOverflowPolicy() {
+        return outboundOverflowPolicy;
+    }
+
+    public boolean isBotTakeover() {
+        return botTakeover;
+    }
+
+    public int getBotSeats() {
+        return botSeats;
+    }
+
+    public int getBotMoveBudget() {
+        return botMoveBudget;
+    }
+
 
 
 }
@@ -0,0 +1,116 @@
+package singleton;
+
+import logger.Level;
+import logger.Logger;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This is a singleton.
+ * It holds the timer shared by the whole server: lobby start delays, action timeouts and heartbeats.
+ * Scheduling a timeout costs a queue insertion instead of a brand new thread, cancelling it removes it right away.
+ */
+public class Scheduler {
+
+    /**
+     * The reference to the instance of the singleton
+     */
+    private static Scheduler instance = null;
+
+    /**
+     * The threads that run the expired tasks, the tasks are short so a couple is plenty
+     */
+    private static final int THREADS = 2;
+
+    /**
+     * The executor that keeps the pending timeouts
+     */
+    private final ScheduledThreadPoolExecutor executor;
+
+    /**
+     * Private constructor
+     */
+    private Scheduler() {
+
+        AtomicInteger count = new AtomicInteger(0);
+
+        this.executor = new ScheduledThreadPoolExecutor(THREADS, runnable -> {
+
+            Thread thread = new Thread(runnable, "Scheduler #" + count.getAndIncrement());
+
+            //The timers must not keep the server alive
+            thread.setDaemon(true);
+
+            return thread;
+
+        });
+
+        //Cancelled timeouts are dropped immediately instead of waiting for their deadline
+        this.executor.setRemoveOnCancelPolicy(true);
+
+    }
+
+    /**
+     * Get a reference to the singleton
+     * @return the singleton instance
+     */
+    public static synchronized Scheduler getInstance() {
+
+        if (instance == null) {
+
+            instance = new Scheduler();
+
+        }
+
+        return instance;
+
+    }
+
+    /**
+     * Schedules a task
+     * @param task the task to run once the delay expires
+     * @param delay the delay in milliseconds
+     * @return the handle to cancel the task with
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delay) {
+
+        return this.executor.schedule(() -> {
+
+            //An exception would otherwise be swallowed by the executor
+            try {
+
+                task.run();
+
+            } catch (RuntimeException e) {
+
+                Logger.log(Level.SEVERE, "Scheduler", "Exception in scheduled task", e);
+
+            }
+
+        }, delay, TimeUnit.MILLISECONDS);
+
+    }
+
+    /**
+     * Tells how many tasks are waiting for their deadline
+     * @return the amount of pending tasks
+     */
+    public int getPendingTasks() {
+
+        return this.executor.getQueue().size();
+
+    }
+
+    /**
+     * Drops every pending task and stops the threads
+     */
+    public void shutdown() {
+
+        this.executor.shutdownNow();
+
+    }
+
+}
@@ -0,0 +1,516 @@
+package singleton;
+
+import logger.Level;
+import logger.Logger;
+import server.model.Match;
+import server.model.journal.JournalRecord;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This is a singleton.
+ * It persists the match snapshots and journals behind the back of the match controllers.
+ * The journal entries are queued in order, the snapshots by match id, a newer snapshot replacing the pending one of the same match,
+ * and a dedicated writer flushes whatever is pending in a single transaction.
+ * The end of a match is queued as well, so that the match is marked as finished in the same transaction as its last snapshot and
+ * never before it, without the match controller waiting for the database. The shutdown waits on a fence instead.
+ */
+public class SnapshotWriter {
+
+    /**
+     * The reference to the instance of the singleton
+     */
+    private static SnapshotWriter instance = null;
+
+    /**
+     * How long the writer waits before retrying a failed flush, in milliseconds, doubled at each failure in a row
+     */
+    private static final long RETRY_DELAY = 1000;
+
+    /**
+     * The longest the writer waits before retrying a failed flush, in milliseconds
+     */
+    private static final long MAX_RETRY_DELAY = 30000;
+
+    /**
+     * How long a fence waits for the pending snapshots, in milliseconds
+     */
+    private static final long FENCE_TIMEOUT = 10000;
+
+    /**
+     * Guards the pending snapshots and the counters
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when a snapshot is queued
+     */
+    private final Condition pendingAvailable = this.lock.newCondition();
+
+    /**
+     * Signalled when a batch reaches the database
+     */
+    private final Condition batchFlushed = this.lock.newCondition();
+
+    /**
+     * The newest snapshot of each match waiting to be written, in queueing order
+     */
+    private LinkedHashMap<Integer, JournalRecord> pending = new LinkedHashMap<>();
+
+    /**
+     * The journal entries waiting to be written, in appending order
+     */
+    private ArrayList<JournalRecord> entries = new ArrayList<>();
+
+    /**
+     * The matches waiting to be marked as finished, in ending order
+     */
+    private LinkedHashSet<Integer> ended = new LinkedHashSet<>();
+
+    /**
+     * The matches that ended and are not marked as finished on disk yet, the ones being written included
+     */
+    private final HashSet<Integer> finishing = new HashSet<>();
+
+    /**
+     * The number of snapshots and entries queued so far
+     */
+    private long queued = 0;
+
+    /**
+     * The number of queued snapshots and entries that are known to be on disk, superseded ones included
+     */
+    private long flushed = 0;
+
+    /**
+     * The number of snapshots replaced by a newer one of the same match before being written
+     */
+    private long coalesced = 0;
+
+    /**
+     * Set once the writer has to stop
+     */
+    private boolean stopped = false;
+
+    /**
+     * How long the writer waits before the next retry, in milliseconds, only touched by the writer
+     */
+    private long retryDelay = RETRY_DELAY;
+
+    /**
+     * Private constructor
+     */
+    private SnapshotWriter() {
+
+        Thread writer = new Thread(this::drain, "SnapshotWriter");
+
+        writer.setDaemon(true);
+
+        writer.start();
+
+        //The writer is a daemon, the pending snapshots must not die with the server
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "SnapshotWriter shutdown"));
+
+    }
+
+    /**
+     * Get a reference to the singleton
+     * @return the singleton instance
+     */
+    public static synchronized SnapshotWriter getInstance() {
+
+        if (instance == null) {
+
+            instance = new SnapshotWriter();
+
+        }
+
+        return instance;
+
+    }
+
+    /**
+     * Queues a snapshot of a match.
+     * The match is serialized right away on the calling thread, so that the snapshot is consistent.
+     * @param match the match
+     * @param journalSeq the sequence number of the last journal entry the snapshot includes
+     */
+    public void enqueue(Match match, long journalSeq) {
+
+        byte[] snapshot;
+
+        try {
+
+            snapshot = Database.getInstance().toSnapshot(match);
+
+        } catch (SQLException e) {
+
+            Logger.log(Level.SEVERE, "SnapshotWriter", "Unable to take a snapshot of match " + match.getMatch_id(), e);
+
+            return;
+
+        }
+
+        this.lock.lock();
+
+        try {
+
+            if (this.stopped) {
+
+                Logger.log(Level.WARNING, "SnapshotWriter", "Snapshot of match " + match.getMatch_id() + " queued after shutdown, dropped");
+
+                return;
+
+            }
+
+            //Only the newest snapshot of a match is worth writing
+            if (this.pending.put(match.getMatch_id(), new JournalRecord(match.getMatch_id(), journalSeq, snapshot)) != null) {
+
+                this.coalesced++;
+
+            }
+
+            this.queued++;
+
+            this.pendingAvailable.signal();
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Queues a journal entry, which is cheap enough to be done for every action
+     * @param entry the encoded entry
+     */
+    public void append(JournalRecord entry) {
+
+        this.lock.lock();
+
+        try {
+
+            if (this.stopped) {
+
+                Logger.log(Level.WARNING, "SnapshotWriter", "Journal entry of match " + entry.getMatchId() + " queued after shutdown, dropped");
+
+                return;
+
+            }
+
+            this.entries.add(entry);
+
+            this.queued++;
+
+            this.pendingAvailable.signal();
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Queues the end of a match, which is marked as finished along with, or after, the snapshots and entries queued before
+     * @param matchId the id of the match
+     */
+    public void finish(int matchId) {
+
+        this.lock.lock();
+
+        try {
+
+            if (this.stopped) {
+
+                Logger.log(Level.WARNING, "SnapshotWriter", "End of match " + matchId + " queued after shutdown, dropped");
+
+                return;
+
+            }
+
+            this.ended.add(matchId);
+
+            this.finishing.add(matchId);
+
+            this.queued++;
+
+            this.pendingAvailable.signal();
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Tells whether a match ended but is not marked as finished on disk yet
+     * @param matchId the id of the match
+     * @return true if the match ended
+     */
+    public boolean isFinishing(int matchId) {
+
+        this.lock.lock();
+
+        try {
+
+            return this.finishing.contains(matchId);
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * The number of snapshots that were never written because a newer one of the same match replaced them
+     * @return the number of coalesced snapshots
+     */
+    public long getCoalesced() {
+
+        this.lock.lock();
+
+        try {
+
+            return this.coalesced;
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * Waits until every snapshot queued so far is on disk
+     * @param timeout the maximum time to wait, in milliseconds
+     * @return true if the snapshots were written in time
+     */
+    public boolean flush(long timeout) {
+
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        this.lock.lock();
+
+        try {
+
+            long target = this.queued;
+
+            while (this.flushed < target) {
+
+                if (nanos <= 0) {
+
+                    return false;
+
+                }
+
+                nanos = this.batchFlushed.awaitNanos(nanos);
+
+            }
+
+            return true;
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+            return false;
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * The durability fence of the shutdown: waits for the queued snapshots, logging when they could not be written in time
+     */
+    public void fence() {
+
+        if (!this.flush(FENCE_TIMEOUT)) {
+
+            Logger.log(Level.SEVERE, "SnapshotWriter", "Pending snapshots were not written within " + FENCE_TIMEOUT + "ms");
+
+        }
+
+    }
+
+    /**
+     * Writes the pending snapshots and stops the writer
+     */
+    public void shutdown() {
+
+        this.fence();
+
+        this.lock.lock();
+
+        try {
+
+            this.stopped = true;
+
+            this.pendingAvailable.signal();
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+    }
+
+    /**
+     * The writer loop, flushes the pending snapshots batch after batch
+     */
+    private void drain() {
+
+        while (true) {
+
+            LinkedHashMap<Integer, JournalRecord> batch;
+
+            ArrayList<JournalRecord> journal;
+
+            LinkedHashSet<Integer> finished;
+
+            long target;
+
+            this.lock.lock();
+
+            try {
+
+                while (this.pending.isEmpty() && this.entries.isEmpty() && this.ended.isEmpty() && !this.stopped) {
+
+                    this.pendingAvailable.await();
+
+                }
+
+                if (this.pending.isEmpty() && this.entries.isEmpty() && this.ended.isEmpty()) {
+
+                    return;
+
+                }
+
+                //Take everything, the match controllers keep queueing in fresh collections
+                batch = this.pending;
+                journal = this.entries;
+                finished = this.ended;
+
+                this.pending = new LinkedHashMap<>();
+                this.entries = new ArrayList<>();
+                this.ended = new LinkedHashSet<>();
+
+                target = this.queued;
+
+            } catch (InterruptedException e) {
+
+                Logger.log(Level.FINEST, "SnapshotWriter", "Writer terminated");
+
+                return;
+
+            } finally {
+
+                this.lock.unlock();
+
+            }
+
+            try {
+
+                Database.getInstance().saveJournal(journal, batch.values(), finished);
+
+                this.retryDelay = RETRY_DELAY;
+
+                this.lock.lock();
+
+                try {
+
+                    this.flushed = target;
+
+                    this.finishing.removeAll(finished);
+
+                    this.batchFlushed.signalAll();
+
+                } finally {
+
+                    this.lock.unlock();
+
+                }
+
+                Logger.log(Level.FINEST, "SnapshotWriter", "Saved " + batch.size() + " match snapshots, " + journal.size() + " journal entries and " + finished.size() + " match ends");
+
+            } catch (SQLException e) {
+
+                Logger.log(Level.SEVERE, "SnapshotWriter", "Unable to save " + batch.size() + " match snapshots, " + journal.size() + " journal entries and " + finished.size() + " match ends, retrying in " + this.retryDelay + "ms", e);
+
+                this.requeue(batch, journal, finished);
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Gives a failed batch back to the queue, unless newer snapshots of the same matches arrived meanwhile.
+     * The failed entries go before the ones appended meanwhile, so that each journal stays in order.
+     * The writer then backs off, so that a database that keeps failing is not hammered.
+     * @param batch the failed snapshots
+     * @param journal the failed journal entries
+     * @param finished the failed match ends
+     */
+    private void requeue(LinkedHashMap<Integer, JournalRecord> batch, ArrayList<JournalRecord> journal, LinkedHashSet<Integer> finished) {
+
+        this.lock.lock();
+
+        try {
+
+            LinkedHashMap<Integer, JournalRecord> merged = new LinkedHashMap<>(batch);
+
+            merged.putAll(this.pending);
+
+            this.pending = merged;
+
+            journal.addAll(this.entries);
+
+            this.entries = journal;
+
+            finished.addAll(this.ended);
+
+            this.ended = finished;
+
+        } finally {
+
+            this.lock.unlock();
+
+        }
+
+        try {
+
+            Thread.sleep(this.retryDelay);
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+
+        }
+
+        this.retryDelay = Math.min(this.retryDelay * 2, MAX_RETRY_DELAY);
+
+    }
+
+}
@@ -0,0 +1,355 @@
+import client.controller.network.ObserverType;
+import exception.authentication.AuthenticationException;
+import logger.Logger;
+import netobject.action.Action;
+import netobject.action.immediate.ImmediateActionType;
+import netobject.notification.LobbyNotification;
+import netobject.notification.MatchNotification;
+import netobject.request.Request;
+import netobject.request.auth.LoginRequest;
+import netobject.request.auth.RegisterRequest;
+import server.controller.game.GameEngine;
+import server.controller.network.ClientHandler;
+import server.controller.network.Server;
+import server.model.FinalStanding;
+import server.model.Match;
+import server.model.board.BonusTile;
+import server.model.board.Player;
+import server.model.card.Deck;
+import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
+import singleton.Bootstrap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the server routes its clients when many of them come and go at once.
+ * Each thread plays the whole life of a client over and over, without any socket: it logs in through a server,
+ * which verifies the credentials, from the database or from the cache of the authenticator, and queues the client for a table,
+ * waits until the matchmaker seats it, routes a few notifications to its lobby and disconnects.
+ * The report gives the throughput and the latency of the routing calls and of the logins, seating included.
+ * The threads never fill a lobby unless there are more than four of them, so no match gets started.
+ * The benchmark users are registered in a temporary copy of the database, the one shipped with the server is left untouched.
+ */
+public class RoutingBenchmark {
+
+    //The password of the benchmark users
+    private static final String PASSWORD = "benchmark";
+
+    //The number of notifications routed by each client
+    private static final int ROUTED_PER_CLIENT = 20;
+
+    //The clients are seated as soon as they log in, the benchmark measures the routing rather than the matchmaking window
+    private final GameEngine engine = new GameEngine(false, 0);
+
+    private final BenchmarkServer server = new BenchmarkServer(this.engine);
+
+    /**
+     * Registers the benchmark users, the ones that already exist are kept
+     * @param threads the number of users, one per thread
+     */
+    private void prepare(int threads) {
+
+        for (int thread = 0; thread < threads; thread++) {
+
+            BenchmarkHandler handler = new BenchmarkHandler();
+
+            this.server.connect(handler);
+
+            try {
+
+                this.server.submit(handler, new RegisterRequest(username(thread), PASSWORD));
+
+            } catch (AuthenticationException e) {
+
+                //Already registered by a previous run
+            }
+
+            this.server.disconnect(handler);
+
+        }
+
+    }
+
+    private static String username(int thread) {
+
+        return "routing-benchmark-" + thread;
+
+    }
+
+    /**
+     * Runs the benchmark
+     * @param threads the number of concurrent clients
+     * @param clients the number of clients each thread plays
+     * @return the report
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public String run(int threads, int clients) throws InterruptedException {
+
+        this.prepare(threads);
+
+        long[][] routes = new long[threads][clients * ROUTED_PER_CLIENT];
+
+        long[][] logins = new long[threads][clients];
+
+        CountDownLatch start = new CountDownLatch(1);
+
+        ArrayList<Thread> workers = new ArrayList<>();
+
+        for (int thread = 0; thread < threads; thread++) {
+
+            final int index = thread;
+
+            Thread worker = new Thread(() -> {
+
+                try {
+
+                    start.await();
+
+                    this.play(username(index), clients, routes[index], logins[index]);
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+
+                }
+
+            }, "RoutingBenchmark #" + thread);
+
+            workers.add(worker);
+
+            worker.start();
+
+        }
+
+        long begin = System.nanoTime();
+
+        start.countDown();
+
+        for (Thread worker : workers) {
+
+            worker.join();
+
+        }
+
+        long elapsed = System.nanoTime() - begin;
+
+        StringBuilder report = new StringBuilder();
+
+        report.append(threads).append(" threads, ").append(threads * clients).append(" clients in ").append(TimeUnit.NANOSECONDS.toMillis(elapsed)).append("ms\n");
+        report.append("clients/s: ").append(String.format("%.0f", threads * clients / (elapsed / 1e9))).append("\n");
+        report.append("routing  ").append(percentiles(routes)).append("\n");
+        report.append("login    ").append(percentiles(logins)).append("\n");
+        report.append("lobbies left: ").append(this.engine.getLobbyCount()).append("\n");
+
+        return report.toString();
+
+    }
+
+    /**
+     * Plays the clients of a thread
+     * @param username the username of the clients
+     * @param clients the number of clients
+     * @param routes where to store the latencies of the routing calls
+     * @param logins where to store the latencies of the logins
+     */
+    private void play(String username, int clients, long[] routes, long[] logins) {
+
+        for (int client = 0; client < clients; client++) {
+
+            BenchmarkHandler handler = new BenchmarkHandler();
+
+            this.server.connect(handler);
+
+            long begin = System.nanoTime();
+
+            try {
+
+                this.server.submit(handler, new LoginRequest(username, PASSWORD));
+
+            } catch (AuthenticationException e) {
+
+                throw new IllegalStateException("The benchmark user " + username + " could not log in", e);
+
+            }
+
+            while (!this.engine.isSeated(handler)) {
+
+                Thread.yield();
+
+            }
+
+            logins[client] = System.nanoTime() - begin;
+
+            for (int route = 0; route < ROUTED_PER_CLIENT; route++) {
+
+                begin = System.nanoTime();
+
+                this.engine.onObserverReady(this.server, handler, ObserverType.Lobby);
+
+                routes[client * ROUTED_PER_CLIENT + route] = System.nanoTime() - begin;
+
+            }
+
+            this.server.disconnect(handler);
+
+        }
+
+    }
+
+    private static String percentiles(long[][] samples) {
+
+        long[] all = Arrays.stream(samples).flatMapToLong(Arrays::stream).sorted().toArray();
+
+        return String.format("p50 %.1fus  p99 %.1fus  max %.1fus", all[all.length / 2] / 1e3, all[(int) (all.length * 0.99)] / 1e3, all[all.length - 1] / 1e3);
+
+    }
+
+    /**
+     * Runs the benchmark and prints the report
+     * @param args the number of threads and the number of clients each of them plays, both optional
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        Logger.setSilenced(true);
+
+        Bootstrap.load();
+
+        TemporaryDatabase.use();
+
+        RoutingBenchmark benchmark = new RoutingBenchmark();
+
+        //Warm up before timing
+        benchmark.run(threads, clients / 10);
+
+        System.out.print(benchmark.run(threads, clients));
+
+        System.exit(0);
+
+    }
+
+    /**
+     * A server without any transport, the benchmark drives it directly
+     */
+    private static class BenchmarkServer extends Server {
+
+        private BenchmarkServer(GameEngine gameEngine) {
+
+            super(gameEngine);
+
+            this.addObserver(gameEngine);
+
+        }
+
+        private void connect(ClientHandler handler) {
+
+            this.addMultiplexedClientHandler(handler);
+
+        }
+
+        private void submit(ClientHandler handler, Request request) throws AuthenticationException {
+
+            this.authenticate(handler, request);
+
+        }
+
+        private void disconnect(ClientHandler handler) {
+
+            this.notifyDisconnection(handler);
+
+            this.removeClientHandler(handler);
+
+        }
+
+    }
+
+    /**
+     * A client that drops whatever it is sent
+     */
+    private static class BenchmarkHandler extends ClientHandler {
+
+        @Override
+        public void run() {
+
+        }
+
+        @Override
+        public void sendLobbyNotification(LobbyNotification not) {
+
+        }
+
+        @Override
+        protected void disconnect() {
+
+        }
+
+        @Override
+        public void notify(MatchNotification notification) {
+
+        }
+
+        @Override
+        public void notifyModelUpdate(Match model) {
+
+        }
+
+        @Override
+        public void notifyModelDelta(MatchDelta delta) {
+
+        }
+
+        @Override
+        public void notifyTurnEnabled(Player player, String message) {
+
+        }
+
+        @Override
+        public void notifyTurnDisabled(Player player, String message) {
+
+        }
+
+        @Override
+        public void notifyActionTimeoutExpired(Player player, String message) {
+
+        }
+
+        @Override
+        public void notifyActionRefused(Action action, String message) {
+
+        }
+
+        @Override
+        public void notifyImmediateActionAvailable(ImmediateActionType immediateActionType, Player player, String message) {
+
+        }
+
+        @Override
+        public void notifyActionPerformed(Player player, Action action, String message) {
+
+        }
+
+        @Override
+        public void notifyLeaderCardDraftRequest(Deck<LeaderCard> cards, String message) {
+
+        }
+
+        @Override
+        public void notifyBonusTileDraftRequest(ArrayList<BonusTile> tiles, String message) {
+
+        }
+
+        @Override
+        public void notifyMatchEnded(FinalStanding finalStanding, String message) {
+
+        }
+
+    }
+
+}
@@ -0,0 +1,117 @@
+import netobject.action.Action;
+import netobject.action.immediate.ImmediateActionType;
+import netobject.notification.LobbyNotification;
+import netobject.notification.MatchNotification;
+import server.controller.network.ClientHandler;
+import server.model.FinalStanding;
+import server.model.Match;
+import server.model.board.BonusTile;
+import server.model.board.Player;
+import server.model.card.Deck;
+import server.model.card.leader.LeaderCard;
+import server.model.delta.MatchDelta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A client handler with no client behind it, it keeps the lobby notifications, the immediate action requests and the refused actions it gets
+ */
+public class StubClientHandler extends ClientHandler {
+
+    private final List<LobbyNotification> lobbyNotifications = new CopyOnWriteArrayList<>();
+
+    private final List<ImmediateActionType> immediateActions = new CopyOnWriteArrayList<>();
+
+    private final List<Action> refusedActions = new CopyOnWriteArrayList<>();
+
+    public StubClientHandler(String username) {
+
+        this.username = username;
+
+    }
+
+    public List<LobbyNotification> getLobbyNotifications() {
+        return lobbyNotifications;
+    }
+
+    public List<ImmediateActionType> getImmediateActions() {
+        return immediateActions;
+    }
+
+    public List<Action> getRefusedActions() {
+        return refusedActions;
+    }
+
+    public void run() {
+
+    }
+
+    public void sendLobbyNotification(LobbyNotification not) {
+
+        this.lobbyNotifications.add(not);
+
+    }
+
+    protected void disconnect() {
+
+    }
+
+    public void notify(MatchNotification notification) {
+
+    }
+
+    public void notifyModelUpdate(Match model) {
+
+    }
+
+    public void notifyModelDelta(MatchDelta delta) {
+
+    }
+
+    public void notifyTurnEnabled(Player player, String message) {
+
+    }
+
+    public void notifyTurnDisabled(Player player, String message) {
+
+    }
+
+    public void notifyActionTimeoutExpired(Player player, String message) {
+
+    }
+
+    public void notifyActionRefused(Action action, String message) {
+
+        this.refusedActions.add(action);
+
+    }
+
+    public void notifyImmediateActionAvailable(ImmediateActionType immediateActionType, Player player, String message) {
+
+        if (player != null && player.getUsername().equals(this.username)) {
+
+            this.immediateActions.add(immediateActionType);
+
+        }
+
+    }
+
+    public void notifyActionPerformed(Player player, Action action, String message) {
+
+    }
+
+    public void notifyLeaderCardDraftRequest(Deck<LeaderCard> cards, String message) {
+
+    }
+
+    public void notifyBonusTileDraftRequest(ArrayList<BonusTile> tiles, String message) {
+
+    }
+
+    public void notifyMatchEnded(FinalStanding finalStanding, String message) {
+
+    }
+
+}
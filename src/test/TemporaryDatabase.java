@@ -0,0 +1,54 @@
+import singleton.Database;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Points the database at a throwaway copy of the shipped one, so that the tests never write to it
+ */
+public final class TemporaryDatabase {
+
+    private static final String SHIPPED = "src/main/resources/db.sqlite";
+
+    private static File file;
+
+    private TemporaryDatabase() {
+
+    }
+
+    /**
+     * The path of the copy
+     * @return the path, null until the copy is used
+     */
+    public static synchronized String getPath() {
+
+        return file == null ? null : file.getPath();
+
+    }
+
+    /**
+     * Makes the database use the copy, made on first use
+     * @throws IOException if the copy can't be made
+     */
+    public static synchronized void use() throws IOException {
+
+        if (file != null) {
+
+            return;
+
+        }
+
+        file = File.createTempFile("lorenzo-test", ".sqlite");
+
+        file.deleteOnExit();
+
+        Files.copy(Paths.get(SHIPPED), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        Database.useFile(file.getPath());
+
+    }
+
+}
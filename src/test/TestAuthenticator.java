@@ -0,0 +1,150 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import singleton.Authenticator;
+import singleton.Bootstrap;
+import singleton.Database;
+import singleton.GameConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestAuthenticator {
+
+    private final Authenticator authenticator = Authenticator.getInstance();
+
+    @Before
+    public void setUp() throws IOException {
+
+        Bootstrap.load();
+
+        TemporaryDatabase.use();
+
+    }
+
+    @After
+    public void tearDown() {
+
+        Database.useFile(TemporaryDatabase.getPath());
+
+    }
+
+    private static String unique(String name) {
+
+        return name + "-" + System.nanoTime();
+
+    }
+
+    /**
+     * Points the database at an empty file, which has none of the tables, so that every query fails
+     */
+    private static void breakDatabase() throws IOException {
+
+        File empty = File.createTempFile("lorenzo-broken", ".sqlite");
+
+        empty.deleteOnExit();
+
+        Database.useFile(empty.getPath());
+
+    }
+
+    @Test
+    public void testRegisteredUserLogsIn() {
+
+        String username = unique("auth-registered");
+
+        assertTrue(this.authenticator.registration(username, "password"));
+
+        //A username is registered once only
+        assertFalse(this.authenticator.registration(username, "other"));
+
+        assertTrue(this.authenticator.login(username, "password"));
+        assertFalse(this.authenticator.login(username, "wrong"));
+        assertFalse(this.authenticator.login(unique("auth-unknown"), "password"));
+
+    }
+
+    @Test
+    public void testVerifiedCredentialsSkipTheDatabase() throws IOException {
+
+        String verified = unique("auth-cached");
+
+        String unverified = unique("auth-uncached");
+
+        assertTrue(this.authenticator.registration(verified, "password"));
+
+        //Registered behind the back of the authenticator, so it never verified it
+        assertTrue(Database.getInstance().registration(unverified, "password"));
+
+        breakDatabase();
+
+        //The database can't answer, only the remembered credentials get through
+        assertTrue(this.authenticator.login(verified, "password"));
+        assertFalse(this.authenticator.login(verified, "wrong"));
+        assertFalse(this.authenticator.login(unverified, "password"));
+
+    }
+
+    @Test
+    public void testFullQueueRefusesRightAway() throws InterruptedException {
+
+        int capacity = GameConfig.getInstance().getAuthThreads() + GameConfig.getInstance().getAuthQueueSize();
+
+        CountDownLatch release = new CountDownLatch(1);
+
+        Runnable blocked = () -> {
+
+            try {
+
+                release.await();
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            }
+
+        };
+
+        int accepted = 0;
+
+        try {
+
+            //The threads and then the queue fill up, the first task that fits nowhere is refused
+            while (accepted <= capacity && this.authenticator.execute(blocked)) {
+
+                accepted++;
+
+            }
+
+            assertTrue(accepted > 0);
+            assertTrue(accepted <= capacity);
+
+        } finally {
+
+            release.countDown();
+
+        }
+
+        //Once the queue drains the tasks are accepted again
+        CountDownLatch done = new CountDownLatch(1);
+
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (!this.authenticator.execute(done::countDown)) {
+
+            assertTrue(System.currentTimeMillis() < deadline);
+
+            Thread.sleep(10);
+
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+    }
+
+}
@@ -0,0 +1,223 @@
+import netobject.NetObject;
+import netobject.NetObjectType;
+import netobject.action.Action;
+import netobject.action.BoardSectorType;
+import netobject.action.standard.StandardPlacementAction;
+import netobject.notification.LobbyNotification;
+import netobject.notification.LobbyNotificationType;
+import netobject.notification.MatchNotification;
+import netobject.notification.MatchNotificationType;
+import netobject.codec.BinaryCodec;
+import netobject.request.auth.LoginRequest;
+import server.model.delta.MatchDelta;
+import org.junit.Test;
+import server.controller.network.Socket.BinaryFrameDecoder;
+import server.model.board.ColorType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import static org.junit.Assert.*;
+
+public class TestBinaryCodec {
+
+    private NetObject roundTrip(NetObject object) throws IOException, ClassNotFoundException {
+
+        byte[] frame = BinaryCodec.encodeFrame(object);
+
+        return BinaryCodec.readFrame(new DataInputStream(new ByteArrayInputStream(frame)));
+
+    }
+
+    @Test
+    public void testTaggedObjects() throws IOException, ClassNotFoundException {
+
+        LoginRequest login = (LoginRequest) this.roundTrip(new LoginRequest("alberto", "pàssword"));
+
+        assertEquals("alberto", login.getUsername());
+        assertEquals("pàssword", login.getPassword());
+
+        StandardPlacementAction action = (StandardPlacementAction) this.roundTrip(new StandardPlacementAction(BoardSectorType.Market, null, ColorType.Black, 2, "alberto"));
+
+        assertEquals(BoardSectorType.Market, action.getActionTarget());
+        assertNull(action.getPlacementIndex());
+        assertEquals(ColorType.Black, action.getColorType());
+        assertEquals(2, action.getAdditionalServants());
+        assertEquals("alberto", action.getSender());
+
+        assertEquals(NetObjectType.Poison, this.roundTrip(new Action()).getType());
+
+    }
+
+    @Test
+    public void testNestedAction() throws IOException, ClassNotFoundException {
+
+        MatchNotification notification = (MatchNotification) this.roundTrip(new MatchNotification(MatchNotificationType.ActionRefused, new StandardPlacementAction(BoardSectorType.CouncilPalace, 1, ColorType.Neutral, 0, "bob"), "Refused"));
+
+        assertEquals(MatchNotificationType.ActionRefused, notification.getMatchNotificationType());
+        assertEquals("Refused", notification.getMessage());
+        assertEquals("bob", notification.getAction().getSender());
+        assertEquals(1, (int) ((StandardPlacementAction) notification.getAction()).getPlacementIndex());
+
+    }
+
+    @Test
+    public void testMatchDelta() throws IOException, ClassNotFoundException {
+
+        LinkedHashMap<String, byte[]> sections = new LinkedHashMap<>();
+
+        sections.put("Dices", new byte[] {1, 2, 3});
+
+        MatchDelta delta = (MatchDelta) this.roundTrip(new MatchDelta(4, 6, sections));
+
+        assertEquals(4, delta.getBaseRevision());
+        assertEquals(6, delta.getRevision());
+        assertArrayEquals(new byte[] {1, 2, 3}, delta.getSections().get("Dices"));
+
+    }
+
+    @Test
+    public void testFrameDecoderSplitsFrames() throws IOException, ClassNotFoundException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        bytes.write(BinaryCodec.encodeFrame(new LoginRequest("a", "b")));
+        bytes.write(BinaryCodec.encodeFrame(new LobbyNotification(LobbyNotificationType.ClientJoin, "hello")));
+
+        byte[] stream = bytes.toByteArray();
+
+        BinaryFrameDecoder decoder = new BinaryFrameDecoder();
+
+        ArrayList<NetObject> decoded = new ArrayList<>();
+
+        //Feed it one byte at a time
+        for (byte b : stream) {
+
+            decoder.append(ByteBuffer.wrap(new byte[] {b}));
+
+            decoded.addAll(decoder.decode());
+
+        }
+
+        assertEquals(2, decoded.size());
+        assertTrue(decoded.get(0) instanceof LoginRequest);
+        assertEquals("hello", ((LobbyNotification) decoded.get(1)).getMessage());
+
+    }
+
+    /**
+     * Builds a payload by hand, as a hostile client would
+     */
+    private interface Payload {
+
+        void write(DataOutputStream out) throws IOException;
+
+    }
+
+    private static byte[] payload(Payload payload) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        payload.write(out);
+
+        out.flush();
+
+        return bytes.toByteArray();
+
+    }
+
+    private static void assertCorrupted(byte[] payload) throws IOException, ClassNotFoundException {
+
+        try {
+
+            BinaryCodec.decode(payload, 0, payload.length);
+
+            fail("The payload should have been refused");
+
+        } catch (StreamCorruptedException e) {
+
+            //Refused before allocating anything
+        }
+
+    }
+
+    @Test
+    public void testLengthsAreCheckedAgainstTheFrame() throws IOException, ClassNotFoundException {
+
+        //A login request with a negative and then a huge username length
+        assertCorrupted(payload(out -> {
+
+            out.writeByte(2);
+            out.writeInt(-5);
+
+        }));
+
+        assertCorrupted(payload(out -> {
+
+            out.writeByte(2);
+            out.writeInt(Integer.MAX_VALUE - 8);
+
+        }));
+
+        //A delta whose section claims more bytes than the frame has
+        assertCorrupted(payload(out -> {
+
+            out.writeByte(20);
+            out.writeInt(0);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeByte('k');
+            out.writeInt(1024);
+
+        }));
+
+        //Null strings are still fine
+        LoginRequest login = (LoginRequest) BinaryCodec.decode(payload(out -> {
+
+            out.writeByte(2);
+            out.writeInt(-1);
+            out.writeInt(-1);
+
+        }), 0, 9);
+
+        assertNull(login.getUsername());
+
+    }
+
+    @Test
+    public void testBlobOfTheWrongTypeIsRefused() throws IOException, ClassNotFoundException {
+
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+
+        ObjectOutputStream stream = new ObjectOutputStream(blob);
+
+        stream.writeObject("not a player");
+
+        stream.close();
+
+        //A match notification whose player is a string
+        assertCorrupted(payload(out -> {
+
+            out.writeByte(8);
+            out.writeByte(0);
+            out.writeByte(-1);
+            out.writeInt(-1);
+            out.writeInt(blob.size());
+            blob.writeTo(out);
+
+        }));
+
+    }
+
+}
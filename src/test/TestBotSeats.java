@@ -0,0 +1,115 @@
+import org.junit.Before;
+import org.junit.Test;
+import server.controller.game.MatchController;
+import server.controller.game.RemotePlayer;
+import server.controller.network.ClientHandler;
+import server.model.Match;
+import server.model.board.Player;
+import server.model.journal.MatchJournal;
+import server.simulation.PolicyPlayer;
+import singleton.Bootstrap;
+import singleton.Database;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestBotSeats {
+
+    @Before
+    public void setUp() throws IOException {
+
+        Bootstrap.load();
+
+        TemporaryDatabase.use();
+
+    }
+
+    private static ArrayList<ClientHandler> handlers(String... usernames) {
+
+        ArrayList<ClientHandler> handlers = new ArrayList<>();
+
+        for (String username : usernames) {
+
+            handlers.add(new StubClientHandler(username));
+
+        }
+
+        return handlers;
+
+    }
+
+    @Test
+    public void testBotNamesCannotBeRegistered() {
+
+        assertTrue(Player.isBotUsername(Player.BOT_PREFIX + 1));
+        assertFalse(Player.isBotUsername("bot1"));
+
+        assertFalse(Database.getInstance().registration(Player.BOT_PREFIX + 1, "password"));
+
+    }
+
+    @Test
+    public void testBotSeatsAreNotWaitedFor() throws SQLException {
+
+        MatchController controller = new MatchController(handlers("seats-alice", "seats-bob"), null, 2);
+
+        int matchId = controller.getMatch().getMatch_id();
+
+        assertEquals(4, controller.getMatch().getPlayers().size());
+
+        //The players get back to the match, the bots don't
+        assertEquals(matchId, Database.getInstance().isAnUnfinishedMatchPlayer("seats-alice"));
+        assertEquals(-1, Database.getInstance().isAnUnfinishedMatchPlayer(Player.BOT_PREFIX + 1));
+
+        ArrayList<String> fellows = Database.getInstance().wasInMatchWithHim("seats-alice");
+
+        assertEquals(1, fellows.size());
+        assertEquals("seats-bob", fellows.get(0));
+
+        Database.getInstance().endMatch(matchId);
+
+    }
+
+    @Test
+    public void testBotsTakeTheirSeatsBackOnResume() throws SQLException {
+
+        MatchController controller = new MatchController(handlers("resume-alice"), null, 2);
+
+        Match match = controller.getMatch();
+
+        //A suspended match was past its drafts, someone was playing
+        match.setCurrentPlayer(match.getPlayers().get(0));
+
+        MatchController resumed = new MatchController(handlers("resume-alice"), null, match, MatchJournal.create(match.getMatch_id()));
+
+        int bots = 0;
+
+        for (Map.Entry<Player, RemotePlayer> seat : resumed.getRemotePlayerMap().entrySet()) {
+
+            if (Player.isBotUsername(seat.getKey().getUsername())) {
+
+                assertTrue(seat.getValue() instanceof PolicyPlayer);
+
+                bots++;
+
+            }
+            else {
+
+                assertTrue(seat.getValue() instanceof StubClientHandler);
+
+            }
+
+        }
+
+        assertEquals(2, bots);
+        assertEquals(3, resumed.getRemotePlayerMap().size());
+
+        Database.getInstance().endMatch(match.getMatch_id());
+
+    }
+
+}
@@ -0,0 +1,102 @@
+import org.junit.Test;
+import server.model.GameSingleton;
+import server.model.card.CardCatalog;
+import server.model.card.ban.BanCard;
+import server.model.card.developement.DvptCard;
+import server.model.card.developement.DvptCardType;
+import server.model.card.leader.LeaderCard;
+import singleton.Bootstrap;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.*;
+
+public class TestCardCatalog {
+
+    private final CardCatalog catalog = GameSingleton.getInstance().getCatalog();
+
+    @Test
+    public void testLookupsById() {
+
+        for (DvptCard card : this.catalog.getDvptCards()) {
+
+            assertSame(card, this.catalog.getDvptCard(card.getId()));
+
+        }
+
+        for (BanCard card : this.catalog.getBanCards()) {
+
+            assertSame(card, this.catalog.getBanCard(card.getId()));
+
+        }
+
+        for (LeaderCard card : this.catalog.getLeaderCards()) {
+
+            assertSame(card, GameSingleton.getInstance().getSpecificLeaderCard(card.getId()));
+
+        }
+
+        assertNull(this.catalog.getDvptCard(0));
+        assertNull(this.catalog.getDvptCard(this.catalog.getDvptCards().size() + 1));
+        assertNull(this.catalog.getLeaderCard(null));
+
+    }
+
+    @Test
+    public void testViews() {
+
+        for (int period = 1; period <= CardCatalog.PERIODS; period++) {
+
+            for (DvptCardType type : DvptCardType.values()) {
+
+                assertEquals(8, this.catalog.getDvptCards(type, period).size());
+
+                for (DvptCard card : this.catalog.getDvptCards(type, period)) {
+
+                    assertEquals(type, card.getType());
+                    assertEquals(period, (int) card.getPeriod());
+
+                }
+
+            }
+
+            assertEquals(7, this.catalog.getBanCards(period).size());
+
+        }
+
+    }
+
+    @Test
+    public void testIdentity() {
+
+        DvptCard card = this.catalog.getDvptCard(5);
+
+        assertTrue(this.catalog.contains(card));
+        assertFalse(this.catalog.contains(new Object()));
+
+        BitSet ids = CardCatalog.addIds(new BitSet(), this.catalog.getDvptCards(DvptCardType.venture, 2));
+
+        assertEquals(8, ids.cardinality());
+        assertTrue(ids.get(this.catalog.getDvptCards(DvptCardType.venture, 2).get(0).getId()));
+
+    }
+
+    @Test
+    public void testBootstrapLoadsOnce() {
+
+        Bootstrap.load();
+
+        assertEquals(0, Bootstrap.load());
+        assertSame(this.catalog, GameSingleton.getInstance().getCatalog());
+        assertEquals(96, this.catalog.getDvptCards().size());
+
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+
+        this.catalog.getDvptCards().clear();
+
+    }
+
+}
@@ -0,0 +1,153 @@
+import client.controller.network.ObserverType;
+import org.junit.Before;
+import org.junit.Test;
+import server.controller.game.GameEngine;
+import server.controller.game.Lobby;
+import singleton.Bootstrap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class TestGameEngine {
+
+    //How long a round may take to seat its batch, starting the match included
+    private static final long SEATING_TIMEOUT = 5000;
+
+    //The seats of a standard lobby
+    private static final int TABLE_SIZE = 5;
+
+    private GameEngine engine;
+
+    @Before
+    public void setUp() throws IOException {
+
+        Bootstrap.load();
+
+        TemporaryDatabase.use();
+
+        //The clients are seated as soon as they log in
+        this.engine = new GameEngine(false, 0);
+
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + SEATING_TIMEOUT;
+
+        while (!condition.getAsBoolean()) {
+
+            assertTrue(System.currentTimeMillis() < deadline);
+
+            Thread.sleep(10);
+
+        }
+
+    }
+
+    private List<StubClientHandler> seat(String name, int clients) throws InterruptedException {
+
+        ArrayList<StubClientHandler> seated = new ArrayList<>();
+
+        for (int i = 0; i < clients; i++) {
+
+            StubClientHandler handler = new StubClientHandler(name + "-" + i + "-" + System.nanoTime());
+
+            seated.add(handler);
+
+            this.engine.onAuthentication(null, handler);
+
+        }
+
+        await(() -> seated.stream().allMatch(this.engine::isSeated));
+
+        return seated;
+
+    }
+
+    @Test
+    public void testNotificationsReachTheLobbyOfTheClient() throws InterruptedException {
+
+        List<StubClientHandler> first = this.seat("engine-routed", 2);
+
+        Lobby lobby = this.engine.getLobbyOf(first.get(0));
+
+        assertNotNull(lobby);
+        assertSame(lobby, this.engine.getLobbyOf(first.get(1)));
+        assertTrue(lobby.hasClientHandler(first.get(0)));
+
+        //The lobby of the client welcomes it once its observer is ready
+        this.engine.onObserverReady(null, first.get(0), ObserverType.Lobby);
+
+        assertFalse(first.get(0).getLobbyNotifications().isEmpty());
+
+        for (StubClientHandler handler : first) {
+
+            this.engine.onDisconnection(null, handler);
+
+        }
+
+    }
+
+    @Test
+    public void testLeavingDropsTheIndexes() throws InterruptedException {
+
+        List<StubClientHandler> clients = this.seat("engine-leaving", 2);
+
+        Lobby lobby = this.engine.getLobbyOf(clients.get(0));
+
+        this.engine.onDisconnection(null, clients.get(0));
+
+        //The other client keeps its seat
+        assertFalse(this.engine.isSeated(clients.get(0)));
+        assertNull(this.engine.getLobbyOf(clients.get(0)));
+        assertFalse(lobby.hasClientHandler(clients.get(0)));
+        assertSame(lobby, this.engine.getLobbyOf(clients.get(1)));
+        assertEquals(1, this.engine.getLobbyCount());
+
+        //The last one out closes the lobby, which is forgotten
+        this.engine.onDisconnection(null, clients.get(1));
+
+        assertNull(this.engine.getLobbyOf(clients.get(1)));
+        assertEquals(0, this.engine.getLobbyCount());
+
+        //The next client opens a new table rather than joining the closed one
+        List<StubClientHandler> next = this.seat("engine-leaving-next", 1);
+
+        assertNotSame(lobby, this.engine.getLobbyOf(next.get(0)));
+
+        this.engine.onDisconnection(null, next.get(0));
+
+    }
+
+    @Test
+    public void testPlayerWhoLeftAStartedMatchIsRoutedBack() throws InterruptedException {
+
+        //A full table starts its match right away
+        List<StubClientHandler> table = this.seat("engine-back", TABLE_SIZE);
+
+        Lobby lobby = this.engine.getLobbyOf(table.get(0));
+
+        await(lobby::hasStarted);
+
+        StubClientHandler leaving = table.get(0);
+
+        this.engine.onDisconnection(null, leaving);
+
+        assertNull(this.engine.getLobbyOf(leaving));
+
+        //The player logs back in on a new connection and is found by username, without queuing for a table
+        StubClientHandler back = new StubClientHandler(leaving.getUsername());
+
+        this.engine.onAuthentication(null, back);
+
+        assertSame(lobby, this.engine.getLobbyOf(back));
+        assertEquals(0, this.engine.getMatchmaker().getQueueDepth());
+        assertEquals(1, this.engine.getLobbyCount());
+
+    }
+
+}
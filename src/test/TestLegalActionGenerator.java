@@ -0,0 +1,122 @@
+import netobject.action.BoardSectorType;
+import netobject.action.standard.StandardPlacementAction;
+import org.junit.Before;
+import org.junit.Test;
+import server.controller.game.BoardController;
+import server.controller.game.LegalActionGenerator;
+import server.model.Match;
+import server.model.MatchSnapshot;
+import server.model.board.ColorType;
+import server.model.board.FamilyMember;
+import server.model.board.Player;
+import server.model.board.TowerSlot;
+import server.model.card.developement.DvptCardType;
+import server.model.valuable.ResourceType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class TestLegalActionGenerator {
+
+    private Match match;
+
+    private Player alice;
+
+    @Before
+    public void setUp() {
+
+        ArrayList<Player> players = new ArrayList<>();
+
+        players.add(new Player("alice"));
+        players.add(new Player("bob"));
+
+        this.match = new Match(players, 7L, false);
+
+        new BoardController(this.match.getBoard(), this.match.getSeed()).updateTowersForTurn(1, 1);
+
+        this.alice = players.get(0);
+
+        for (ResourceType type : ResourceType.values()) {
+
+            this.alice.setGenericResource(type, 0);
+
+        }
+
+        this.alice.setGenericResource(ResourceType.Servants, 3);
+
+        for (FamilyMember member : this.alice.getFamilyMembers()) {
+
+            member.setForce(member.getColor() == ColorType.Black ? 2 : 0);
+
+        }
+
+    }
+
+    @Test
+    public void testServantsNeeded() {
+
+        LegalActionGenerator generator = new LegalActionGenerator(this.match);
+
+        //The territory cards cost nothing, only the force matters
+        assertEquals(0, (int) generator.getServantsNeeded(this.alice, BoardSectorType.TerritoryTower, 0, ColorType.Black));
+        assertEquals(3, (int) generator.getServantsNeeded(this.alice, BoardSectorType.TerritoryTower, 2, ColorType.Black));
+        assertNull(generator.getServantsNeeded(this.alice, BoardSectorType.TerritoryTower, 3, ColorType.Black));
+
+        //The last market places need four players
+        assertEquals(1, (int) generator.getServantsNeeded(this.alice, BoardSectorType.Market, 0, ColorType.Neutral));
+        assertNull(generator.getServantsNeeded(this.alice, BoardSectorType.Market, 2, ColorType.Black));
+
+    }
+
+    @Test
+    public void testOccupiedTower() {
+
+        Player bob = this.match.getPlayers().get(1);
+
+        TowerSlot slot = this.match.getBoard().getTower(DvptCardType.territory).get(0);
+
+        slot.setFamilyMember(bob.getFamilyMembers().get(0));
+        slot.setOccupied(true);
+
+        //Without the three coins of an occupied tower no territory is reachable
+        for (StandardPlacementAction action : new LegalActionGenerator(this.match).getLegalPlacements(this.alice)) {
+
+            assertNotEquals(BoardSectorType.TerritoryTower, action.getActionTarget());
+
+        }
+
+        this.alice.setGenericResource(ResourceType.Coins, 3);
+
+        boolean territory = false;
+
+        for (StandardPlacementAction action : new LegalActionGenerator(this.match).getLegalPlacements(this.alice)) {
+
+            if (action.getActionTarget() == BoardSectorType.TerritoryTower) {
+
+                assertNotEquals(0, (int) action.getPlacementIndex());
+
+                territory = true;
+
+            }
+
+        }
+
+        assertTrue(territory);
+
+    }
+
+    @Test
+    public void testNoMutation() throws IOException {
+
+        byte[] before = MatchSnapshot.encode(this.match, false);
+
+        ArrayList<StandardPlacementAction> placements = new LegalActionGenerator(this.match).getLegalPlacements(this.alice);
+
+        assertFalse(placements.isEmpty());
+        assertArrayEquals(before, MatchSnapshot.encode(this.match, false));
+
+    }
+
+}
@@ -0,0 +1,343 @@
+import client.controller.network.ObserverType;
+import netobject.NetObject;
+import netobject.codec.BinaryCodec;
+import netobject.notification.LobbyNotification;
+import netobject.notification.ObserverReadyNotification;
+import netobject.request.auth.LoginRequest;
+import netobject.request.auth.RegisterRequest;
+import netobject.response.auth.LoginResponse;
+import netobject.response.auth.RegistrationResponse;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import server.controller.cluster.ClusterNode;
+import server.controller.cluster.LocalCluster;
+import singleton.Bootstrap;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class TestLobbyRouter {
+
+    //How long the cluster may take to open its sockets or to let a client go
+    private static final long TIMEOUT = 5000;
+
+    private static LocalCluster cluster;
+
+    private static int port;
+
+    /**
+     * A socket client speaking either protocol
+     */
+    private static class Client {
+
+        private final Socket socket;
+
+        private final boolean binary;
+
+        private DataOutputStream frames;
+
+        private DataInputStream framesIn;
+
+        private ObjectOutputStream objects;
+
+        private ObjectInputStream objectsIn;
+
+        private Client(boolean binary) throws IOException {
+
+            this.binary = binary;
+
+            this.socket = new Socket("localhost", port);
+
+            this.socket.setSoTimeout(10000);
+
+            if (binary) {
+
+                this.frames = new DataOutputStream(this.socket.getOutputStream());
+
+                this.framesIn = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+
+                this.frames.write(BinaryCodec.HANDSHAKE);
+
+                this.frames.flush();
+
+                byte[] preamble = new byte[BinaryCodec.HANDSHAKE.length];
+
+                this.framesIn.readFully(preamble);
+
+                assertTrue(BinaryCodec.isHandshake(preamble));
+
+            }
+            else {
+
+                this.objects = new ObjectOutputStream(this.socket.getOutputStream());
+
+                this.objectsIn = new ObjectInputStream(this.socket.getInputStream());
+
+            }
+
+        }
+
+        private void send(NetObject object) throws IOException {
+
+            if (this.binary) {
+
+                this.frames.write(BinaryCodec.encodeFrame(object));
+
+                this.frames.flush();
+
+            }
+            else {
+
+                this.objects.writeObject(object);
+
+                this.objects.flush();
+
+                this.objects.reset();
+
+            }
+
+        }
+
+        private NetObject receive() throws IOException, ClassNotFoundException {
+
+            return this.binary ? BinaryCodec.readFrame(this.framesIn) : (NetObject) this.objectsIn.readObject();
+
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T receive(Class<T> type) throws IOException, ClassNotFoundException {
+
+            while (true) {
+
+                NetObject object = this.receive();
+
+                if (type.isInstance(object)) {
+
+                    return (T) object;
+
+                }
+
+            }
+
+        }
+
+        private boolean isClosedByPeer() throws ClassNotFoundException {
+
+            try {
+
+                this.receive();
+
+                return false;
+
+            } catch (SocketTimeoutException e) {
+
+                return false;
+
+            } catch (IOException e) {
+
+                return true;
+
+            }
+
+        }
+
+        private void close() throws IOException {
+
+            this.socket.close();
+
+        }
+
+    }
+
+    @BeforeClass
+    public static void setUp() throws IOException, InterruptedException {
+
+        Bootstrap.load();
+
+        TemporaryDatabase.use();
+
+        //The nodes listen on the ports that follow the one of the router
+        try (ServerSocket probe = new ServerSocket(0)) {
+
+            port = probe.getLocalPort();
+
+        }
+
+        cluster = new LocalCluster(2, port);
+
+        //The router and the nodes bind on their own threads
+        awaitListening(port);
+
+        for (ClusterNode node : cluster.getNodes()) {
+
+            awaitListening(node.getPort());
+
+        }
+
+    }
+
+    /**
+     * Waits until a port answers the handshake of the binary protocol
+     * @param port the port
+     */
+    private static void awaitListening(int port) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        while (true) {
+
+            try (Socket probe = new Socket("localhost", port)) {
+
+                probe.getOutputStream().write(BinaryCodec.HANDSHAKE);
+
+                probe.getOutputStream().flush();
+
+                new DataInputStream(probe.getInputStream()).readFully(new byte[BinaryCodec.HANDSHAKE.length]);
+
+                return;
+
+            } catch (IOException e) {
+
+                assertTrue(System.currentTimeMillis() < deadline);
+
+                Thread.sleep(10);
+
+            }
+
+        }
+
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        while (!condition.getAsBoolean()) {
+
+            assertTrue(System.currentTimeMillis() < deadline);
+
+            Thread.sleep(10);
+
+        }
+
+    }
+
+    private static String unique(String name) {
+
+        return name + "-" + System.nanoTime() % 1000000;
+
+    }
+
+    private static int clients() {
+
+        int clients = 0;
+
+        for (ClusterNode node : cluster.getNodes()) {
+
+            clients += cluster.getRouter().getClients(node);
+
+        }
+
+        return clients;
+
+    }
+
+    @Test
+    public void testBothProtocolsAreRelayedOnceAuthenticated() throws IOException, ClassNotFoundException {
+
+        for (boolean binary : new boolean[] {true, false}) {
+
+            Client client = new Client(binary);
+
+            client.send(new RegisterRequest(unique("relayed"), "password"));
+
+            assertTrue(client.receive(RegistrationResponse.class).registerHasSucceeded());
+
+            //What follows the authentication goes through untouched
+            client.send(new ObserverReadyNotification(ObserverType.Lobby));
+
+            assertNotNull(client.receive(LobbyNotification.class));
+
+            client.close();
+
+        }
+
+    }
+
+    @Test
+    public void testRefusedClientIsDisconnected() throws IOException, ClassNotFoundException, InterruptedException {
+
+        String username = unique("refused");
+
+        int initial = clients();
+
+        Client owner = new Client(true);
+
+        owner.send(new RegisterRequest(username, "password"));
+
+        assertTrue(owner.receive(RegistrationResponse.class).registerHasSucceeded());
+
+        owner.close();
+
+        //The node lets the owner go
+        await(() -> clients() <= initial);
+
+        int before = clients();
+
+        //A wrong password gets its answer, then the connection is dropped so that the next attempt is routed again
+        Client attacker = new Client(false);
+
+        attacker.send(new LoginRequest(username, "wrong"));
+
+        assertFalse(attacker.receive(LoginResponse.class).loginHasSucceeded());
+
+        assertTrue(attacker.isClosedByPeer());
+
+        await(() -> clients() <= before);
+
+        //The owner logs in on a new connection regardless
+        Client back = new Client(true);
+
+        back.send(new LoginRequest(username, "password"));
+
+        assertTrue(back.receive(LoginResponse.class).loginHasSucceeded());
+
+        back.close();
+
+    }
+
+    @Test
+    public void testSecondLoginGoesToTheSameNode() throws IOException, ClassNotFoundException {
+
+        String username = unique("twice");
+
+        Client first = new Client(true);
+
+        first.send(new RegisterRequest(username, "password"));
+
+        assertTrue(first.receive(RegistrationResponse.class).registerHasSucceeded());
+
+        //The node that has the client refuses it a second time
+        Client second = new Client(true);
+
+        second.send(new LoginRequest(username, "password"));
+
+        assertFalse(second.receive(LoginResponse.class).loginHasSucceeded());
+
+        second.close();
+
+        first.close();
+
+    }
+
+}
@@ -0,0 +1,116 @@
+import org.junit.Before;
+import org.junit.Test;
+import server.model.Match;
+import server.model.board.ColorType;
+import server.model.board.Dice;
+import server.model.board.Player;
+import server.model.delta.MatchDelta;
+import server.model.delta.MatchDeltaTracker;
+import server.model.delta.ModelSection;
+
+import java.io.*;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class TestMatchDelta {
+
+    private Match match;
+
+    private MatchDeltaTracker tracker;
+
+    @Before
+    public void setUp() {
+
+        ArrayList<Player> players = new ArrayList<>();
+
+        players.add(new Player("alberto"));
+        players.add(new Player("federico"));
+
+        this.match = new Match(players);
+
+        this.tracker = new MatchDeltaTracker(this.match.getRevision());
+
+    }
+
+    private Match copy(Match match) throws IOException, ClassNotFoundException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+
+        out.writeObject(match);
+
+        out.close();
+
+        return (Match) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+    }
+
+    @Test
+    public void testUnknownPlayerNeedsSnapshot() {
+
+        this.tracker.commit(this.match);
+
+        assertNull(this.tracker.deltaFor("alberto"));
+
+    }
+
+    @Test
+    public void testOnlyChangedSectionsAreSent() throws Exception {
+
+        int first = this.tracker.commit(this.match);
+
+        Match local = this.copy(this.match);
+
+        this.tracker.acknowledge("alberto", first);
+
+        //Nothing changed
+        assertEquals(first, this.tracker.commit(this.match));
+        assertTrue(this.tracker.deltaFor("alberto").isEmpty());
+
+        this.match.getPlayerFromUsername("federico").addCoins(3);
+        this.match.getBoard().getDices().get(0).setValue(5);
+        this.match.setCurrentRound(2);
+
+        int second = this.tracker.commit(this.match);
+
+        MatchDelta delta = this.tracker.deltaFor("alberto");
+
+        assertEquals(first + 1, second);
+        assertEquals(first, delta.getBaseRevision());
+        assertEquals(second, delta.getRevision());
+        assertEquals(3, delta.getSections().size());
+        assertTrue(delta.getSections().containsKey(ModelSection.PlayerResources.key("federico")));
+        assertTrue(delta.getSections().containsKey(ModelSection.Dices.key(null)));
+        assertTrue(delta.getSections().containsKey(ModelSection.State.key(null)));
+
+        assertTrue(delta.applyTo(local));
+
+        assertEquals(this.match.getPlayerFromUsername("federico").getCoins(), local.getPlayerFromUsername("federico").getCoins());
+        assertEquals(5, (int) local.getBoard().getDices().get(0).getValue());
+        assertEquals(2, local.getCurrentRound());
+
+        //The round order must still point to the players of the local copy
+        assertSame(local.getPlayers().get(0), local.getRoundOrder().get(0));
+
+    }
+
+    @Test
+    public void testFullDeltaRestoresAnyCopy() throws Exception {
+
+        Match local = this.copy(this.match);
+
+        this.match.getPlayerFromUsername("alberto").addVictoryPoints(7);
+
+        this.tracker.commit(this.match);
+
+        MatchDelta delta = this.tracker.fullDelta();
+
+        assertEquals(0, delta.getBaseRevision());
+        assertTrue(delta.applyTo(local));
+        assertEquals(7, (int) local.getPlayerFromUsername("alberto").getVictoryPoints());
+
+    }
+
+}
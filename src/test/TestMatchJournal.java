@@ -0,0 +1,41 @@
+import netobject.action.immediate.ImmediateChoiceAction;
+import netobject.action.standard.RollDicesAction;
+import org.junit.Test;
+import server.model.journal.JournalEntry;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class TestMatchJournal {
+
+    @Test
+    public void testEntryRoundTrip() throws IOException {
+
+        JournalEntry action = JournalEntry.decode(JournalEntry.playerAction(new RollDicesAction("alice")).encode());
+
+        assertEquals(JournalEntry.Kind.PlayerAction, action.getKind());
+        assertTrue(action.getAction() instanceof RollDicesAction);
+        assertEquals("alice", action.getAction().getSender());
+
+        JournalEntry choice = JournalEntry.decode(JournalEntry.choice(new ImmediateChoiceAction(2, "bob")).encode());
+
+        assertEquals(JournalEntry.Kind.Choice, choice.getKind());
+        assertEquals(2, ((ImmediateChoiceAction) choice.getAction()).getSelection());
+        assertEquals("bob", choice.getAction().getSender());
+
+        JournalEntry seed = JournalEntry.decode(JournalEntry.diceSeed(-42L).encode());
+
+        assertEquals(JournalEntry.Kind.DiceSeed, seed.getKind());
+        assertEquals(-42L, seed.getSeed());
+
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsUnknownKind() throws IOException {
+
+        JournalEntry.decode(new byte[] {9, 0, 0, 0, 0});
+
+    }
+
+}
@@ -0,0 +1,212 @@
+import org.junit.Test;
+import server.controller.game.BoardController;
+import server.model.GameSingleton;
+import server.model.Match;
+import server.model.MatchSnapshot;
+import server.model.board.*;
+import server.model.card.developement.DvptCard;
+import server.model.card.developement.DvptCardType;
+import server.model.card.leader.LeaderCard;
+import server.model.valuable.PointType;
+import server.model.valuable.ResourceType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class TestMatchSnapshot {
+
+    private Match createMatch() {
+
+        ArrayList<Player> players = new ArrayList<>();
+
+        players.add(new Player("alice"));
+        players.add(new Player("bob"));
+
+        Match match = new Match(players);
+
+        Player alice = players.get(0);
+
+        alice.setGenericResource(ResourceType.Coins, 7);
+        alice.setGenericPoint(PointType.Faith, 3);
+        alice.addLeaderCard(GameSingleton.getInstance().getLeaderCards().get(0));
+        alice.getPersonalBoard().setBonusTile(GameSingleton.getInstance().getBonusTiles().get(1));
+
+        DvptCard card = GameSingleton.getInstance().getDvptCards().get(5);
+
+        TowerSlot slot = match.getBoard().getTower(DvptCardType.territory).get(2);
+
+        slot.setDvptCard(card);
+        slot.setFamilyMember(alice.getFamilyMembers().get(0));
+
+        match.getBoard().getDices().get(1).setValue(5);
+        match.getBoard().getCouncilPalace().placeFamilyMember(players.get(1).getFamilyMembers().get(3));
+
+        match.setCurrentPeriod(Period.second);
+        match.setCurrentRound(3);
+        match.setRoundOrder(new ArrayList<>(players.subList(1, 2)));
+        match.setCurrentPlayer(players.get(1));
+        match.setRevision(42);
+
+        return match;
+
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+
+        for (boolean compress : new boolean[] {false, true}) {
+
+            Match match = this.createMatch();
+
+            byte[] snapshot = MatchSnapshot.encode(match, compress);
+
+            assertTrue(MatchSnapshot.isSnapshot(snapshot));
+
+            Match restored = MatchSnapshot.decode(snapshot);
+
+            assertEquals(match.getMatch_id(), restored.getMatch_id());
+            assertEquals(42, restored.getRevision());
+            assertEquals(Period.second, restored.getCurrentPeriod());
+            assertEquals(3, restored.getCurrentRound());
+
+            Player alice = restored.getPlayers().get(0);
+
+            assertEquals("alice", alice.getUsername());
+            assertEquals(match.getPlayers().get(0).getColor(), alice.getColor());
+            assertEquals(7, (int) alice.getCoins());
+            assertEquals(3, (int) alice.getFaithPoints());
+
+            //The catalog cards come back as the catalog instances
+            LeaderCard leader = GameSingleton.getInstance().getLeaderCards().get(0);
+
+            assertSame(leader, alice.getLeaderCards().get(0));
+            assertSame(GameSingleton.getInstance().getBonusTiles().get(1), alice.getPersonalBoard().getBonusTile());
+
+            TowerSlot slot = restored.getBoard().getTower(DvptCardType.territory).get(2);
+
+            assertSame(GameSingleton.getInstance().getDvptCards().get(5), slot.getDvptCard());
+            assertTrue(slot.isOccupied());
+            assertEquals(ColorType.Black, slot.getFamilyMember().getColor());
+
+            assertEquals(5, (int) restored.getBoard().getDices().get(1).getValue());
+            assertEquals(1, restored.getBoard().getCouncilPalace().getFamilyMembers().size());
+
+            //The players are shared, not copied
+            assertSame(restored.getPlayers().get(1), restored.getRoundOrder().get(0));
+            assertSame(restored.getPlayers().get(1), restored.getCurrentPlayer());
+            assertSame(restored.getPlayers(), restored.getBoard().getPlayers());
+
+            //The random stream goes on from where it was
+            assertEquals(match.getSeed(), restored.getSeed());
+            assertEquals(match.getRandom().nextLong(), restored.getRandom().nextLong());
+
+        }
+
+    }
+
+    @Test
+    public void testSameSeedSameMatch() {
+
+        Match[] matches = new Match[2];
+
+        for (int i = 0; i < matches.length; i++) {
+
+            ArrayList<Player> players = new ArrayList<>();
+
+            players.add(new Player("alice"));
+            players.add(new Player("bob"));
+
+            matches[i] = new Match(players, 1234L);
+
+            new BoardController(matches[i].getBoard(), matches[i].getSeed()).updateTowersForTurn(1, 1);
+
+        }
+
+        for (int i = 0; i < 2; i++) {
+
+            assertEquals(matches[0].getPlayers().get(i).getColor(), matches[1].getPlayers().get(i).getColor());
+
+        }
+
+        for (DvptCardType type : DvptCardType.values()) {
+
+            for (int i = 0; i < 4; i++) {
+
+                assertSame(matches[0].getBoard().getTower(type).get(i).getDvptCard(), matches[1].getBoard().getTower(type).get(i).getDvptCard());
+
+            }
+
+        }
+
+        assertEquals(matches[0].getRandom().nextInt(6), matches[1].getRandom().nextInt(6));
+
+    }
+
+    @Test
+    public void testCopy() throws IOException {
+
+        Match match = this.createMatch();
+
+        Match copy = new Match(match);
+
+        assertArrayEquals(MatchSnapshot.encode(match, false), MatchSnapshot.encode(copy, false));
+
+        Player alice = copy.getPlayers().get(0);
+
+        //The state is copied, the cards are shared
+        assertNotSame(match.getPlayers().get(0), alice);
+        assertSame(match.getPlayers().get(0).getLeaderCards().get(0), alice.getLeaderCards().get(0));
+        assertSame(copy.getPlayers().get(1), copy.getCurrentPlayer());
+        assertSame(copy.getPlayers(), copy.getBoard().getPlayers());
+
+        //A placed family member is the very one of its player
+        assertSame(alice.getFamilyMembers().get(0), copy.getBoard().getTower(DvptCardType.territory).get(2).getFamilyMember());
+
+        alice.setGenericResource(ResourceType.Coins, 0);
+        copy.getBoard().getTower(DvptCardType.territory).get(2).clean();
+        copy.getBoard().getDices().get(1).setValue(1);
+
+        assertEquals(7, (int) match.getPlayers().get(0).getCoins());
+        assertTrue(match.getBoard().getTower(DvptCardType.territory).get(2).isOccupied());
+        assertEquals(5, (int) match.getBoard().getDices().get(1).getValue());
+
+    }
+
+    @Test
+    public void testRestore() throws IOException {
+
+        Match match = this.createMatch();
+
+        Player alice = match.getPlayers().get(0);
+
+        byte[] before = MatchSnapshot.encode(match, false);
+
+        Match rollback = new Match(match);
+
+        alice.setGenericResource(ResourceType.Coins, 0);
+        alice.getFamilyMembers().get(1).setBusy(true);
+        match.getBoard().getMarket().placeFamilyMember(alice.getFamilyMembers().get(1), 0);
+        match.getBoard().getTower(DvptCardType.territory).get(2).clean();
+        match.setCurrentPlayer(alice);
+        match.getRandom().nextLong();
+
+        match.restore(rollback);
+
+        //Same state, same identities
+        assertArrayEquals(before, MatchSnapshot.encode(match, false));
+        assertSame(alice, match.getPlayers().get(0));
+        assertSame(alice.getFamilyMembers().get(0), match.getBoard().getTower(DvptCardType.territory).get(2).getFamilyMember());
+        assertSame(match.getPlayers().get(1), match.getCurrentPlayer());
+
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsJson() throws IOException {
+
+        MatchSnapshot.decode("{\"board\":{}}".getBytes());
+
+    }
+
+}
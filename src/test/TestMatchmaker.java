@@ -0,0 +1,183 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import server.controller.game.GameEngine;
+import server.controller.game.Lobby;
+import singleton.Bootstrap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class TestMatchmaker {
+
+    //How long a round may take to seat its batch
+    private static final long SEATING_TIMEOUT = 5000;
+
+    private final ArrayList<StubClientHandler> handlers = new ArrayList<>();
+
+    private GameEngine engine;
+
+    @Before
+    public void setUp() throws IOException {
+
+        Bootstrap.load();
+
+        TemporaryDatabase.use();
+
+    }
+
+    @After
+    public void tearDown() {
+
+        //The tables left behind would start their match once their start delay expires
+        for (StubClientHandler handler : this.handlers) {
+
+            this.engine.onDisconnection(null, handler);
+
+        }
+
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + SEATING_TIMEOUT;
+
+        while (!condition.getAsBoolean()) {
+
+            assertTrue(System.currentTimeMillis() < deadline);
+
+            Thread.sleep(10);
+
+        }
+
+    }
+
+    private List<StubClientHandler> join(int clients) {
+
+        ArrayList<StubClientHandler> joined = new ArrayList<>();
+
+        for (int i = 0; i < clients; i++) {
+
+            StubClientHandler handler = new StubClientHandler("matchmaker-" + System.nanoTime());
+
+            joined.add(handler);
+
+            this.handlers.add(handler);
+
+            this.engine.onAuthentication(null, handler);
+
+        }
+
+        return joined;
+
+    }
+
+    private void awaitSeated(List<StubClientHandler> clients) throws InterruptedException {
+
+        await(() -> clients.stream().allMatch(this.engine::isSeated));
+
+    }
+
+    @Test
+    public void testFormingTableIsToppedUp() throws InterruptedException {
+
+        this.engine = new GameEngine(false, 0);
+
+        List<StubClientHandler> first = this.join(1);
+
+        this.awaitSeated(first);
+
+        Lobby lobby = this.engine.getLobbyOf(first.get(0));
+
+        //The following rounds fill the table that is still forming rather than opening new ones
+        for (int round = 0; round < 3; round++) {
+
+            List<StubClientHandler> next = this.join(1);
+
+            this.awaitSeated(next);
+
+            assertSame(lobby, this.engine.getLobbyOf(next.get(0)));
+
+        }
+
+        assertEquals(1, this.engine.getLobbyCount());
+        assertEquals(4, lobby.getHandlers().size());
+        assertFalse(lobby.hasStarted());
+
+    }
+
+    @Test
+    public void testBurstIsSplitEvenly() throws InterruptedException {
+
+        //The window gathers the whole burst into a single round
+        this.engine = new GameEngine(false, 500);
+
+        List<StubClientHandler> burst = this.join(11);
+
+        this.awaitSeated(burst);
+
+        Set<Lobby> lobbies = new HashSet<>();
+
+        for (StubClientHandler handler : burst) {
+
+            lobbies.add(this.engine.getLobbyOf(handler));
+
+        }
+
+        ArrayList<Integer> sizes = new ArrayList<>();
+
+        for (Lobby lobby : lobbies) {
+
+            sizes.add(lobby.getHandlers().size());
+
+        }
+
+        sizes.sort(null);
+
+        //Eleven clients sit at three tables of four, four and three rather than five, five and one
+        assertEquals(3, this.engine.getLobbyCount());
+        assertEquals(Arrays.asList(3, 4, 4), sizes);
+
+    }
+
+    @Test
+    public void testCancelRacingRoundsLeavesNothingBehind() throws InterruptedException {
+
+        this.engine = new GameEngine(false, 0);
+
+        for (int attempt = 0; attempt < 20; attempt++) {
+
+            List<StubClientHandler> clients = this.join(3);
+
+            //Each client leaves while the rounds seat the others, it's either still waiting or already seated
+            for (StubClientHandler handler : clients) {
+
+                this.engine.onDisconnection(null, handler);
+
+                this.handlers.remove(handler);
+
+            }
+
+        }
+
+        //The rounds still running don't seat the clients that left
+        await(() -> this.engine.getMatchmaker().getQueueDepth() == 0 && this.engine.getMatchmaker().getSeatedClients() == 0 && this.engine.getLobbyCount() == 0);
+
+        //The matchmaker keeps working after the race
+        List<StubClientHandler> after = this.join(2);
+
+        this.awaitSeated(after);
+
+        assertSame(this.engine.getLobbyOf(after.get(0)), this.engine.getLobbyOf(after.get(1)));
+        assertEquals(1, this.engine.getLobbyCount());
+
+    }
+
+}
@@ -0,0 +1,149 @@
+import netobject.action.Action;
+import netobject.action.immediate.ImmediateActionType;
+import netobject.action.standard.StandardPlacementAction;
+import org.junit.Test;
+import server.controller.game.LegalActionGenerator;
+import server.model.GameSingleton;
+import server.model.Match;
+import server.model.board.BonusTile;
+import server.model.board.FamilyMember;
+import server.model.board.Player;
+import server.model.card.Deck;
+import server.model.card.ban.BanCard;
+import server.model.card.ban.SpecialBanCard;
+import server.model.card.ban.SpecialEffectType;
+import server.model.card.leader.LeaderCard;
+import server.model.valuable.ResourceType;
+import server.simulation.GameResult;
+import server.simulation.MctsPolicy;
+import server.simulation.Policy;
+import server.simulation.RandomPolicy;
+import server.simulation.Simulator;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TestMctsPolicy {
+
+    /**
+     * Searches with the servants power malus on, every placement needing servants, and checks the servants of the moves it picks
+     */
+    private static class MalusCheckingPolicy implements Policy {
+
+        private final MctsPolicy search;
+
+        private final BanCard malus;
+
+        private final AtomicInteger checked;
+
+        private final AtomicInteger corrupted;
+
+        private MalusCheckingPolicy(long seed, BanCard malus, AtomicInteger checked, AtomicInteger corrupted) {
+
+            this.search = new MctsPolicy(seed, 60000, 8);
+            this.malus = malus;
+            this.checked = checked;
+            this.corrupted = corrupted;
+
+        }
+
+        @Override
+        public int draftLeaderCard(Match match, Player player, Deck<LeaderCard> cards) {
+
+            return this.search.draftLeaderCard(match, player, cards);
+
+        }
+
+        @Override
+        public int draftBonusTile(Match match, Player player, ArrayList<BonusTile> tiles) {
+
+            return this.search.draftBonusTile(match, player, tiles);
+
+        }
+
+        @Override
+        public Action nextAction(Match match, Player player, int refused) {
+
+            if (!player.getBanCards().contains(this.malus)) {
+
+                player.getBanCards().add(this.malus);
+
+            }
+
+            //No placement is free, each one declares some servants
+            player.setGenericResource(ResourceType.Servants, 10);
+
+            for (FamilyMember member : player.getFamilyMembers()) {
+
+                member.setForce(0);
+
+            }
+
+            Action action = this.search.nextAction(match, player, refused);
+
+            if (action instanceof StandardPlacementAction) {
+
+                StandardPlacementAction move = (StandardPlacementAction) action;
+
+                Integer needed = new LegalActionGenerator(match).getServantsNeeded(player, move.getActionTarget(), move.getPlacementIndex(), move.getColorType());
+
+                this.checked.incrementAndGet();
+
+                if (needed == null || needed != move.getAdditionalServants()) {
+
+                    this.corrupted.incrementAndGet();
+
+                }
+
+            }
+
+            return action;
+
+        }
+
+        @Override
+        public Action immediateAction(Match match, Player player, ImmediateActionType type) {
+
+            return this.search.immediateAction(match, player, type);
+
+        }
+
+    }
+
+    @Test
+    public void testRolloutsDontChangeTheMoves() {
+
+        BanCard malus = null;
+
+        for (BanCard card : GameSingleton.getInstance().getBanCards()) {
+
+            if (card instanceof SpecialBanCard && ((SpecialBanCard) card).getSpecialEffect() == SpecialEffectType.servantsPowerMalus) {
+
+                malus = card;
+
+            }
+
+        }
+
+        assertNotNull(malus);
+
+        BanCard servantsMalus = malus;
+
+        AtomicInteger checked = new AtomicInteger();
+
+        AtomicInteger corrupted = new AtomicInteger();
+
+        //The rollouts apply the move under evaluation, which halves the declared servants of the action they play
+        Simulator simulator = new Simulator(2, 1, (seat, seed) -> seat == 0 ? new MalusCheckingPolicy(seed, servantsMalus, checked, corrupted) : new RandomPolicy(seed));
+
+        GameResult result = simulator.play(5);
+
+        assertFalse(result.isFailed());
+        assertTrue(checked.get() > 0);
+        assertEquals(0, corrupted.get());
+
+    }
+
+}
@@ -0,0 +1,228 @@
+import client.controller.network.ObserverType;
+import netobject.NetObject;
+import netobject.codec.BinaryCodec;
+import netobject.notification.LobbyNotification;
+import netobject.notification.ObserverReadyNotification;
+import netobject.request.auth.RegisterRequest;
+import netobject.response.auth.RegistrationResponse;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import server.controller.game.GameEngine;
+import server.controller.network.ClientHandler;
+import server.controller.network.Server;
+import server.controller.network.Socket.NIOSocketServer;
+import singleton.Bootstrap;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.*;
+
+public class TestNIOSocketServer {
+
+    //How long the server has to open its acceptor
+    private static final long STARTUP_TIMEOUT = 5000;
+
+    private static int port;
+
+    /**
+     * An engine whose lobby observers fail for some clients, as a bug in the game logic would
+     */
+    private static class FailingEngine extends GameEngine {
+
+        private FailingEngine() {
+
+            super(false, 0);
+
+        }
+
+        @Override
+        public void onObserverReady(Server server, ClientHandler handler, ObserverType observerType) {
+
+            if (handler.getUsername().startsWith("nio-failing")) {
+
+                throw new IllegalStateException("Failing on purpose");
+
+            }
+
+            super.onObserverReady(server, handler, observerType);
+
+        }
+
+    }
+
+    /**
+     * A client speaking the binary protocol
+     */
+    private static class Client {
+
+        private final Socket socket;
+
+        private final DataOutputStream out;
+
+        private final DataInputStream in;
+
+        private Client() throws IOException {
+
+            this.socket = new Socket("localhost", port);
+
+            this.socket.setSoTimeout(10000);
+
+            this.out = new DataOutputStream(this.socket.getOutputStream());
+
+            this.in = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+
+            this.out.write(BinaryCodec.HANDSHAKE);
+
+            this.out.flush();
+
+            byte[] preamble = new byte[BinaryCodec.HANDSHAKE.length];
+
+            this.in.readFully(preamble);
+
+            assertTrue(BinaryCodec.isHandshake(preamble));
+
+        }
+
+        private void send(NetObject object) throws IOException {
+
+            this.out.write(BinaryCodec.encodeFrame(object));
+
+            this.out.flush();
+
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T receive(Class<T> type) throws IOException, ClassNotFoundException {
+
+            while (true) {
+
+                NetObject object = BinaryCodec.readFrame(this.in);
+
+                if (type.isInstance(object)) {
+
+                    return (T) object;
+
+                }
+
+            }
+
+        }
+
+        private void register(String username) throws IOException, ClassNotFoundException {
+
+            this.send(new RegisterRequest(username + "-" + System.nanoTime(), "password"));
+
+            assertTrue(this.receive(RegistrationResponse.class).registerHasSucceeded());
+
+        }
+
+        private boolean isClosedByPeer() throws ClassNotFoundException {
+
+            try {
+
+                while (true) {
+
+                    BinaryCodec.readFrame(this.in);
+
+                }
+
+            } catch (SocketTimeoutException e) {
+
+                return false;
+
+            } catch (IOException e) {
+
+                return true;
+
+            }
+
+        }
+
+        private void close() throws IOException {
+
+            this.socket.close();
+
+        }
+
+    }
+
+    @BeforeClass
+    public static void setUp() throws IOException, InterruptedException {
+
+        Bootstrap.load();
+
+        TemporaryDatabase.use();
+
+        try (ServerSocket probe = new ServerSocket(0)) {
+
+            port = probe.getLocalPort();
+
+        }
+
+        GameEngine engine = new FailingEngine();
+
+        //A single worker, so that every client shares the selector of the failing one
+        NIOSocketServer server = new NIOSocketServer(port, 1, engine);
+
+        server.addObserver(engine);
+
+        new Thread(server, "TestNIOSocketServer").start();
+
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;
+
+        while (true) {
+
+            try (Socket probe = new Socket("localhost", port)) {
+
+                break;
+
+            } catch (IOException e) {
+
+                assertTrue(System.currentTimeMillis() < deadline);
+
+                Thread.sleep(10);
+
+            }
+
+        }
+
+    }
+
+    @Test
+    public void testFailingClientDoesNotStrandTheWorker() throws IOException, ClassNotFoundException {
+
+        Client healthy = new Client();
+
+        healthy.register("nio-healthy");
+
+        Client failing = new Client();
+
+        failing.register("nio-failing");
+
+        //The exception thrown while handling the object drops its client only
+        failing.send(new ObserverReadyNotification(ObserverType.Lobby));
+
+        assertTrue(failing.isClosedByPeer());
+
+        //The worker still serves the channels registered with it and the new ones
+        healthy.send(new ObserverReadyNotification(ObserverType.Lobby));
+
+        assertNotNull(healthy.receive(LobbyNotification.class));
+
+        Client late = new Client();
+
+        late.register("nio-late");
+
+        late.close();
+
+        healthy.close();
+
+    }
+
+}
@@ -0,0 +1,104 @@
+import netobject.notification.MatchNotification;
+import netobject.notification.MatchNotificationType;
+import org.junit.Test;
+import server.controller.network.OutboundQueue;
+import server.controller.network.OverflowPolicy;
+
+import static org.junit.Assert.*;
+
+public class TestOutboundQueue {
+
+    @Test
+    public void testModelUpdatesCoalesce() {
+
+        OutboundQueue<String> queue = new OutboundQueue<>(8, OverflowPolicy.DropToSnapshot);
+
+        assertTrue(queue.offer("delta 1", OutboundQueue.Kind.Model));
+        assertTrue(queue.offer("turn", OutboundQueue.Kind.Regular));
+        assertTrue(queue.offer("delta 2", OutboundQueue.Kind.Model));
+
+        //The newest update takes the place of the pending one
+        assertEquals("delta 2", queue.poll());
+        assertEquals("turn", queue.poll());
+        assertNull(queue.poll());
+
+        assertEquals(1, queue.getCoalesced());
+
+    }
+
+    @Test
+    public void testOverflowShedsDroppable() {
+
+        OutboundQueue<String> queue = new OutboundQueue<>(2, OverflowPolicy.DropToSnapshot);
+
+        assertTrue(queue.offer("chat", OutboundQueue.Kind.Droppable));
+        assertTrue(queue.offer("turn", OutboundQueue.Kind.Regular));
+
+        //The chat message makes room for the action
+        assertTrue(queue.offer("action", OutboundQueue.Kind.Regular));
+
+        assertEquals("turn", queue.poll());
+        assertEquals("action", queue.poll());
+
+        assertEquals(1, queue.getDropped());
+
+        //Nothing left to shed
+        assertTrue(queue.offer("a", OutboundQueue.Kind.Regular));
+        assertTrue(queue.offer("b", OutboundQueue.Kind.Regular));
+        assertFalse(queue.offer("c", OutboundQueue.Kind.Regular));
+
+    }
+
+    @Test
+    public void testOverflowDisconnects() {
+
+        OutboundQueue<String> queue = new OutboundQueue<>(1, OverflowPolicy.Disconnect);
+
+        assertTrue(queue.offer("chat", OutboundQueue.Kind.Droppable));
+        assertFalse(queue.offer("turn", OutboundQueue.Kind.Regular));
+
+        queue.close();
+
+        assertFalse(queue.offer("turn", OutboundQueue.Kind.Regular));
+        assertTrue(queue.isEmpty());
+
+    }
+
+    @Test
+    public void testOneDrainInFlight() {
+
+        OutboundQueue<String> queue = new OutboundQueue<>(8, OverflowPolicy.DropToSnapshot);
+
+        //Nothing to deliver, no writer needed
+        assertFalse(queue.claimDrain());
+
+        assertTrue(queue.offer("a", OutboundQueue.Kind.Regular));
+        assertTrue(queue.claimDrain());
+
+        //The writer in flight delivers what comes next
+        assertTrue(queue.offer("b", OutboundQueue.Kind.Regular));
+        assertFalse(queue.claimDrain());
+
+        assertEquals("a", queue.pollOrRelease());
+        assertEquals("b", queue.pollOrRelease());
+        assertNull(queue.pollOrRelease());
+
+        //Once released the next offer starts a new writer
+        assertTrue(queue.offer("c", OutboundQueue.Kind.Regular));
+        assertTrue(queue.claimDrain());
+
+        queue.close();
+
+        assertNull(queue.pollOrRelease());
+        assertFalse(queue.claimDrain());
+
+    }
+
+    @Test
+    public void testKindOf() {
+
+        assertEquals(OutboundQueue.Kind.Droppable, OutboundQueue.kindOf(new MatchNotification(MatchNotificationType.Message, "hi")));
+
+    }
+
+}
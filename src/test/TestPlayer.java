@@ -1,4 +1,6 @@
 import exception.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -9,6 +11,7 @@ import server.model.valuable.Point;
 import server.model.valuable.PointType;
 import server.model.valuable.ResourceType;
 import server.model.valuable.RollbackClass;
+import server.utility.PlayerAdapterFactory;
 
 /**
  * Created by LBARCELLA on 02/06/2017.
@@ -375,4 +378,30 @@ public class TestPlayer {
         }
 
     }
+
+    @Test
+    public void legacyJsonAmountsTest() {
+
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new PlayerAdapterFactory()).create();
+
+        //The players saved as json used to keep their amounts in maps keyed by type
+        Player legacy = gson.fromJson("{\"username\":\"old\",\"resources\":{\"Coins\":5,\"Wood\":2},\"points\":{\"Faith\":3}}", Player.class);
+
+        assertEquals(5, (int) legacy.getCoins());
+        assertEquals(2, (int) legacy.getWood());
+        assertEquals(0, (int) legacy.getServants());
+        assertEquals(3, (int) legacy.getFaithPoints());
+        assertEquals(7, legacy.getResourceTotal());
+
+        Player player = new Player("new");
+
+        player.setStones(4);
+        player.addGenericPoint(PointType.Military, 6);
+
+        Player copy = gson.fromJson(gson.toJson(player), Player.class);
+
+        assertEquals(4, (int) copy.getStones());
+        assertEquals(6, (int) copy.getMilitaryPoints());
+
+    }
 }
@@ -0,0 +1,125 @@
+import netobject.NetObject;
+import netobject.notification.LobbyNotification;
+import netobject.notification.LobbyNotificationType;
+import netobject.request.auth.LoginRequest;
+import org.junit.Test;
+import server.controller.network.Socket.SerializedObjectDecoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestSerializedObjectDecoder {
+
+    private byte[] stream(NetObject... objects) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+
+        for (NetObject object : objects) {
+
+            out.writeObject(object);
+            out.flush();
+            out.reset();
+
+        }
+
+        return bytes.toByteArray();
+
+    }
+
+    @Test
+    public void decodeWholeStreamTest() throws Exception {
+
+        SerializedObjectDecoder decoder = new SerializedObjectDecoder();
+
+        decoder.append(ByteBuffer.wrap(stream(new LoginRequest("test", "pwd"), new LobbyNotification(LobbyNotificationType.LobbyInfo, "hi"))));
+
+        ArrayList<NetObject> objects = decoder.decode();
+
+        assertEquals(2, objects.size());
+        assertEquals("test", ((LoginRequest) objects.get(0)).getUsername());
+        assertEquals("hi", ((LobbyNotification) objects.get(1)).getMessage());
+
+    }
+
+    @Test
+    public void decodeByteByByteTest() throws Exception {
+
+        byte[] bytes = stream(new LoginRequest("a", "b"), new LoginRequest("c", "d"), new LoginRequest("e", "f"));
+
+        SerializedObjectDecoder decoder = new SerializedObjectDecoder();
+
+        ArrayList<NetObject> objects = new ArrayList<>();
+
+        for (byte b : bytes) {
+
+            decoder.append(ByteBuffer.wrap(new byte[]{b}));
+
+            objects.addAll(decoder.decode());
+
+        }
+
+        assertEquals(3, objects.size());
+        assertEquals("e", ((LoginRequest) objects.get(2)).getUsername());
+
+    }
+
+    @Test
+    public void incompleteObjectIsKeptTest() throws Exception {
+
+        byte[] bytes = stream(new LoginRequest("test", "pwd"));
+
+        SerializedObjectDecoder decoder = new SerializedObjectDecoder();
+
+        decoder.append(ByteBuffer.wrap(bytes, 0, bytes.length - 3));
+
+        assertTrue(decoder.decode().isEmpty());
+
+        decoder.append(ByteBuffer.wrap(bytes, bytes.length - 3, 3));
+
+        assertEquals(1, decoder.decode().size());
+
+    }
+
+    @Test
+    public void oversizedObjectIsRefusedTest() throws Exception {
+
+        byte[] bytes = stream(new LoginRequest("test", "pwd"));
+
+        SerializedObjectDecoder decoder = new SerializedObjectDecoder();
+
+        //A header and the beginning of an object that never ends
+        decoder.append(ByteBuffer.wrap(bytes, 0, bytes.length - 3));
+
+        assertTrue(decoder.decode().isEmpty());
+
+        byte[] chunk = new byte[64 * 1024];
+
+        try {
+
+            for (int appended = 0; appended <= SerializedObjectDecoder.MAX_PENDING_LENGTH; appended += chunk.length) {
+
+                decoder.append(ByteBuffer.wrap(chunk));
+
+            }
+
+            fail("The pending bytes went over the cap");
+
+        } catch (StreamCorruptedException e) {
+
+            //Expected
+
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+import org.junit.Test;
+import server.simulation.GameResult;
+import server.simulation.MctsPolicy;
+import server.simulation.RandomPolicy;
+import server.simulation.SimulationReport;
+import server.simulation.Simulator;
+
+import static org.junit.Assert.*;
+
+public class TestSimulator {
+
+    private final Simulator simulator = new Simulator(3, 2, (seat, seed) -> new RandomPolicy(seed));
+
+    @Test
+    public void testPlaysToTheEnd() throws InterruptedException {
+
+        SimulationReport report = this.simulator.run(4, 7);
+
+        assertEquals(4, report.getGames());
+        assertEquals(4, report.getCompleted());
+        assertEquals(0, report.getFailed());
+
+    }
+
+    @Test
+    public void testSameSeedSameGame() {
+
+        GameResult first = this.simulator.play(42);
+        GameResult second = this.simulator.play(42);
+
+        assertTrue(first.isCompleted());
+        assertArrayEquals(first.getScores(), second.getScores());
+        assertEquals(first.getActions(), second.getActions());
+        assertEquals(first.getWinner(), second.getWinner());
+
+    }
+
+    @Test
+    public void testMctsPlaysToTheEnd() {
+
+        //A couple of rollouts a move keep the match short, the search is still run on every turn
+        Simulator simulator = new Simulator(2, 1, (seat, seed) -> seat == 0 ? new MctsPolicy(seed, 60000, 2) : new RandomPolicy(seed));
+
+        GameResult result = simulator.play(3);
+
+        assertTrue(result.isCompleted());
+        assertFalse(result.isFailed());
+
+    }
+
+}
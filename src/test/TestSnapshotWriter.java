@@ -0,0 +1,139 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import server.model.Match;
+import server.model.board.Player;
+import singleton.Bootstrap;
+import singleton.Database;
+import singleton.SnapshotWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class TestSnapshotWriter {
+
+    //Long enough for the backing off writer to retry a couple of times
+    private static final long FLUSH_TIMEOUT = 15000;
+
+    private final SnapshotWriter writer = SnapshotWriter.getInstance();
+
+    @Before
+    public void setUp() throws IOException {
+
+        Bootstrap.load();
+
+        TemporaryDatabase.use();
+
+    }
+
+    @After
+    public void tearDown() {
+
+        Database.useFile(TemporaryDatabase.getPath());
+
+    }
+
+    private static Match newMatch(String... usernames) {
+
+        ArrayList<Player> players = new ArrayList<>();
+
+        for (String username : usernames) {
+
+            players.add(new Player(username));
+
+        }
+
+        return new Match(players);
+
+    }
+
+    /**
+     * Points the database at an empty file, which has none of the tables, so that every write fails
+     */
+    private static void breakDatabase() throws IOException {
+
+        File empty = File.createTempFile("lorenzo-broken", ".sqlite");
+
+        empty.deleteOnExit();
+
+        Database.useFile(empty.getPath());
+
+    }
+
+    @Test
+    public void testEndIsWrittenWithTheLastSnapshot() throws SQLException {
+
+        Match match = newMatch("writer-alice", "writer-bob");
+
+        this.writer.enqueue(match, 4);
+
+        this.writer.finish(match.getMatch_id());
+
+        assertTrue(this.writer.flush(FLUSH_TIMEOUT));
+
+        assertFalse(this.writer.isFinishing(match.getMatch_id()));
+        assertEquals(4, Database.getInstance().getJournalSeq(match.getMatch_id()));
+        assertEquals(-1, Database.getInstance().isAnUnfinishedMatchPlayer("writer-alice"));
+
+    }
+
+    @Test
+    public void testFailedEndIsRetriedAfterItsSnapshot() throws IOException, SQLException {
+
+        Match match = newMatch("retry-alice", "retry-bob");
+
+        breakDatabase();
+
+        this.writer.enqueue(match, 2);
+
+        this.writer.finish(match.getMatch_id());
+
+        //Nothing lands, the match is still known to be over
+        assertFalse(this.writer.flush(500));
+        assertTrue(this.writer.isFinishing(match.getMatch_id()));
+
+        Database.useFile(TemporaryDatabase.getPath());
+
+        //Until the retry the match is not marked as finished without its snapshot
+        assertEquals(match.getMatch_id(), Database.getInstance().isAnUnfinishedMatchPlayer("retry-alice"));
+
+        assertTrue(this.writer.flush(FLUSH_TIMEOUT));
+
+        assertFalse(this.writer.isFinishing(match.getMatch_id()));
+        assertEquals(2, Database.getInstance().getJournalSeq(match.getMatch_id()));
+        assertEquals(-1, Database.getInstance().isAnUnfinishedMatchPlayer("retry-alice"));
+
+    }
+
+    @Test
+    public void testSnapshotsOfAMatchCoalesce() throws IOException, SQLException {
+
+        Match match = newMatch("coalesce-alice", "coalesce-bob");
+
+        //The writer backs off while the database fails, the snapshots pile up meanwhile
+        breakDatabase();
+
+        long coalesced = this.writer.getCoalesced();
+
+        for (int seq = 1; seq <= 5; seq++) {
+
+            this.writer.enqueue(match, seq);
+
+        }
+
+        assertTrue(this.writer.getCoalesced() - coalesced >= 3);
+
+        Database.useFile(TemporaryDatabase.getPath());
+
+        assertTrue(this.writer.flush(FLUSH_TIMEOUT));
+
+        //Only the newest snapshot is on disk
+        assertEquals(5, Database.getInstance().getJournalSeq(match.getMatch_id()));
+
+    }
+
+}
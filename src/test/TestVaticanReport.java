@@ -0,0 +1,111 @@
+import client.controller.network.ObserverType;
+import netobject.action.immediate.ImmediateActionType;
+import netobject.action.immediate.ImmediateChoiceAction;
+import netobject.action.standard.RollDicesAction;
+import netobject.action.standard.TerminateRoundStandardAction;
+import org.junit.Before;
+import org.junit.Test;
+import server.controller.game.MatchController;
+import server.controller.network.ClientHandler;
+import server.model.Match;
+import server.model.board.Player;
+import server.model.journal.MatchJournal;
+import singleton.Bootstrap;
+import singleton.Database;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+public class TestVaticanReport {
+
+    //How long the shared pool may take to get to an input
+    private static final long STEP_TIMEOUT = 5000;
+
+    @Before
+    public void setUp() throws IOException {
+
+        Bootstrap.load();
+
+        TemporaryDatabase.use();
+
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + STEP_TIMEOUT;
+
+        while (!condition.getAsBoolean()) {
+
+            assertTrue(System.currentTimeMillis() < deadline);
+
+            Thread.sleep(10);
+
+        }
+
+    }
+
+    @Test
+    public void testReportWaitsForTheChoiceWithoutHoldingAThread() throws InterruptedException, SQLException {
+
+        StubClientHandler alice = new StubClientHandler("vatican-alice-" + System.nanoTime());
+
+        StubClientHandler bob = new StubClientHandler("vatican-bob-" + System.nanoTime());
+
+        ArrayList<ClientHandler> handlers = new ArrayList<>();
+
+        handlers.add(alice);
+        handlers.add(bob);
+
+        Match match = new MatchController(handlers, null, 0).getMatch();
+
+        Player first = match.getPlayers().get(0);
+
+        //The match was suspended on the last round of the period, with the first player about to report to the vatican
+        match.setCurrentPeriod(1);
+        match.setCurrentTurn(2);
+        match.setCurrentRound(4);
+        match.setRoundOrder(new ArrayList<>(match.getPlayers()));
+        match.setCurrentPlayer(first);
+
+        first.setFaithPoints(10);
+
+        MatchController controller = new MatchController(handlers, null, match, MatchJournal.create(match.getMatch_id()));
+
+        StubClientHandler reporting = first.getUsername().equals(alice.getUsername()) ? alice : bob;
+
+        controller.startEventLoop();
+
+        controller.onObserverReady(ObserverType.RemotePlayer);
+        controller.onObserverReady(ObserverType.RemotePlayer);
+
+        controller.dispatchNewPlayerAction(new TerminateRoundStandardAction(reporting.getUsername()));
+
+        await(() -> reporting.getImmediateActions().contains(ImmediateActionType.DecideBanOption));
+
+        //The round is not over until the player decides, anything else is refused
+        RollDicesAction early = new RollDicesAction(reporting.getUsername());
+
+        controller.dispatchNewPlayerAction(early);
+
+        await(() -> reporting.getRefusedActions().contains(early));
+
+        assertSame(first, controller.getMatch().getCurrentPlayer());
+
+        //Avoiding the ban spends the faith points, then the next player takes his turn
+        controller.dispatchNewPlayerAction(new ImmediateChoiceAction(1, reporting.getUsername()));
+
+        await(() -> first.getFaithPoints() == 0 && controller.getMatch().getCurrentPlayer() != first);
+
+        assertTrue(first.getBanCards().isEmpty());
+
+        controller.destroy();
+
+        Database.getInstance().endMatch(match.getMatch_id());
+
+    }
+
+}